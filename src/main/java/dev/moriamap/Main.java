@@ -4,16 +4,24 @@ import dev.moriamap.model.network.GeographicPosition;
 import dev.moriamap.model.network.GeographicVertex;
 import dev.moriamap.model.network.Stop;
 import dev.moriamap.model.network.TransportNetwork;
+import dev.moriamap.model.network.traversal.HeapDijkstraTraversalStrategy;
 import dev.moriamap.model.network.traversal.RouteOptimization;
-import dev.moriamap.model.parser.DepartureParser;
+import dev.moriamap.model.parser.NetworkSnapshot;
+import dev.moriamap.model.parser.ParallelDepartureParser;
 import dev.moriamap.model.parser.TransportNetworkParser;
 import dev.moriamap.model.query.OptimizedRouteBetweenPositionsQuery;
 import dev.moriamap.model.query.OptimizedRouteBetweenPositionsWithWalkQuery;
 import dev.moriamap.model.query.Query;
 import dev.moriamap.model.query.RouteBetweenStopsQuery;
+import dev.moriamap.model.query.RouteCache;
 import dev.moriamap.model.query.TransportSchedulesQuery;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
@@ -25,6 +33,18 @@ class Main {
   private static InputStream in;
   private static OutputStream out;
 
+  // The option to write a network snapshot instead of starting the program, followed by the paths
+  // of the network CSV file, of the snapshot and of the departure files
+  private static final String COMPILE_SNAPSHOT_OPTION = "--compile-snapshot";
+
+  // Whether the network was loaded from a snapshot, which has its departures
+  private static boolean snapshotLoaded = false;
+
+  // The routes computed by the optimized route queries. Start times are asked to the minute, so
+  // routes are shared by queries starting in the same minute.
+  private static final RouteCache routeCache =
+      RouteCache.of(256, Duration.ofMinutes(30), Duration.ofMinutes(1));
+
   private static void print(String str) {
     try {
       out.write(str.getBytes());
@@ -86,8 +106,10 @@ class Main {
     String input = getInput();
     if (input.isBlank()) return "";
 
-    List<Stop> nearestStops = tn.getNearestStopsByInexactName(input, 5);
-    if (nearestStops.get(0).getName().equals(input)) return input;
+    if (tn.getStopByName(input) != null) return input;
+    // Complete the input if it is the beginning of stop names, otherwise correct it
+    List<Stop> nearestStops = tn.getStopsByNamePrefix(input, 5);
+    if (nearestStops.isEmpty()) nearestStops = tn.getNearestStopsByInexactName(input, 5);
 
     StringBuilder askChoice = new StringBuilder("Did you mean...\n    ");
     int len = nearestStops.size();
@@ -139,10 +161,25 @@ class Main {
     return optimizationChoice;
   }
 
+  // Asks for a network CSV file or a network snapshot and loads it. A snapshot already has its
+  // departures, so snapshotLoaded is set when one is loaded. A file starting like a snapshot that
+  // cannot be loaded is reported rather than read as a CSV file.
   private static TransportNetwork createTransportNetwork() {
     while (true) {
-      String transportNetworkCSVPath = getInputWithPromptForced("\nPath to the network CSV file: ");
+      String transportNetworkCSVPath =
+          getInputWithPromptForced("\nPath to the network CSV file or snapshot: ");
       transportNetworkCSVPath = pathPreProcess(transportNetworkCSVPath);
+      if (isSnapshot(transportNetworkCSVPath)) {
+        try {
+          TransportNetwork tn =
+              NetworkSnapshot.open(Path.of(transportNetworkCSVPath)).toTransportNetwork();
+          snapshotLoaded = true;
+          return tn;
+        } catch (IOException | RuntimeException e) {
+          print("Failed to load the network snapshot: " + e.getMessage() + "\n");
+          continue;
+        }
+      }
       try (InputStream inputStream = new FileInputStream(transportNetworkCSVPath)) {
         return TransportNetworkParser.generateFrom(inputStream);
       } catch (FileNotFoundException | SecurityException e) {
@@ -153,6 +190,33 @@ class Main {
     }
   }
 
+  // Returns true if the file at path starts like a network snapshot. A file that cannot be read is
+  // not one, and fails to open as a CSV file
+  private static boolean isSnapshot(String path) {
+    try {
+      return NetworkSnapshot.isSnapshot(Path.of(path));
+    } catch (IOException | InvalidPathException | SecurityException e) {
+      return false;
+    }
+  }
+
+  // Writes a snapshot of the network of args[1] with the departures of args[3] and after to
+  // args[2], and returns the exit status of the program
+  private static int compileSnapshot(String[] args) {
+    try (InputStream inputStream = new FileInputStream(args[1])) {
+      TransportNetwork tn = TransportNetworkParser.generateFrom(inputStream);
+      List<Path> departureFiles = new ArrayList<>();
+      for (int i = 3; i < args.length; i++) departureFiles.add(Path.of(args[i]));
+      ParallelDepartureParser.addDeparturesTo(tn, departureFiles);
+      NetworkSnapshot.write(tn, Path.of(args[2]));
+      print("Network snapshot written to \"" + args[2] + "\"\n");
+      return 0;
+    } catch (Exception e) {
+      print("Failed to write the network snapshot: " + e + "\n");
+      return 1;
+    }
+  }
+
   private static TransportSchedulesQuery makeTransportSchedulesQuery(TransportNetwork tn) {
     String stopName = getStopName("Name of the stop: ", tn);
     return new TransportSchedulesQuery(out, stopName);
@@ -177,7 +241,13 @@ class Main {
     RouteOptimization optimizationChoice = getRouteOptimization();
     LocalTime startTime = getTime();
     return new OptimizedRouteBetweenPositionsQuery(
-        out, startStop, targetStop, optimizationChoice, startTime);
+        out,
+        startStop,
+        targetStop,
+        optimizationChoice,
+        startTime,
+        new HeapDijkstraTraversalStrategy(),
+        routeCache);
   }
 
   private static GeographicVertex getGeographicVertex(TransportNetwork tn, String message) {
@@ -219,7 +289,13 @@ class Main {
     LocalTime startTime = getTime();
 
     return new OptimizedRouteBetweenPositionsQuery(
-        out, startGeoVertex, targetGeoVertex, optimizationChoice, startTime);
+        out,
+        startGeoVertex,
+        targetGeoVertex,
+        optimizationChoice,
+        startTime,
+        new HeapDijkstraTraversalStrategy(),
+        routeCache);
   }
 
   private static OptimizedRouteBetweenPositionsWithWalkQuery
@@ -232,7 +308,13 @@ class Main {
     LocalTime startTime = getTime();
 
     return new OptimizedRouteBetweenPositionsWithWalkQuery(
-        out, startGeoVertex, targetGeoVertex, optimizationChoice, startTime);
+        out,
+        startGeoVertex,
+        targetGeoVertex,
+        optimizationChoice,
+        startTime,
+        new HeapDijkstraTraversalStrategy(),
+        routeCache);
   }
 
   private static String pathPreProcess(String path) {
@@ -243,23 +325,32 @@ class Main {
     return path;
   }
 
+  // Asks for departure files until an empty line is entered, then reads them all at the same time
+  // and adds their departures to tn. If one of them cannot be loaded, none are and they are asked
+  // again.
   private static void loadDeparturesToNetwork(TransportNetwork tn) {
-    boolean atLeastOneLoaded = false;
+    List<Path> paths = new ArrayList<>();
     while (true) {
       String path =
           getInputWithPrompt("\nPath to the departures CSV file (or press ENTER to continue): ");
       path = pathPreProcess(path);
-      if (path.isBlank()) {
-        if (atLeastOneLoaded) break;
-        else print("At least one departures file must be loaded.\n");
-      } else {
-        try (InputStream inputStream = new FileInputStream(path)) {
-          DepartureParser.addDeparturesTo(tn, inputStream);
-          atLeastOneLoaded = true;
-        } catch (FileNotFoundException | SecurityException e) {
+      if (!path.isBlank()) {
+        try {
+          Path file = Path.of(path);
+          if (Files.isRegularFile(file) && Files.isReadable(file)) paths.add(file);
+          else print("Failed to open file: \"" + path + "\"\n");
+        } catch (InvalidPathException | SecurityException e) {
           print("Failed to open file: \"" + path + "\"\n");
+        }
+      } else if (paths.isEmpty()) {
+        print("At least one departures file must be loaded.\n");
+      } else {
+        try {
+          ParallelDepartureParser.addDeparturesTo(tn, paths);
+          break;
         } catch (Exception e) {
-          print("Failed to load the departures from \"" + path + "\" to the transport network\n");
+          print("Failed to load the departures from " + paths + " to the transport network\n");
+          paths.clear();
         }
       }
     }
@@ -269,8 +360,12 @@ class Main {
     in = System.in;
     out = new PrintStream(new FileOutputStream(FileDescriptor.out));
 
+    if (args.length >= 3 && args[0].equals(COMPILE_SNAPSHOT_OPTION))
+      System.exit(compileSnapshot(args));
+
     TransportNetwork tn = createTransportNetwork();
-    loadDeparturesToNetwork(tn);
+    if (!snapshotLoaded) loadDeparturesToNetwork(tn);
+    tn = tn.freeze();
 
     print("Press Ctrl+C at any moment to exit the program\n");
 
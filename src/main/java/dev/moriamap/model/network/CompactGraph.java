@@ -0,0 +1,123 @@
+package dev.moriamap.model.network;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An immutable compressed sparse row (CSR) form of a Graph. The outgoing edges of all the vertices
+ * are stored one Vertex after the other, so the id of an Edge is its position in the arrays, and an
+ * offset array gives the first outgoing Edge of each Vertex. The outgoing edges of a Vertex are in
+ * the same order as in the Graph.
+ */
+public final class CompactGraph implements IndexedGraph {
+
+  // The vertices, indexed by their id
+  private final Vertex[] vertices;
+
+  // The id of each vertex
+  private final Map<Vertex, Integer> vertexIds;
+
+  // The outgoing edges of vertex v have the ids edgeStart[v] to edgeStart[v + 1] - 1
+  private final int[] edgeStart;
+
+  // The edges, and the ids of their origin and destination, indexed by edge id
+  private final Edge[] edges;
+  private final int[] edgeSources;
+  private final int[] edgeTargets;
+
+  private CompactGraph(
+      Vertex[] vertices,
+      Map<Vertex, Integer> vertexIds,
+      int[] edgeStart,
+      Edge[] edges,
+      int[] edgeSources,
+      int[] edgeTargets) {
+    this.vertices = vertices;
+    this.vertexIds = vertexIds;
+    this.edgeStart = edgeStart;
+    this.edges = edges;
+    this.edgeSources = edgeSources;
+    this.edgeTargets = edgeTargets;
+  }
+
+  /**
+   * {@return a new CompactGraph with the vertices and edges of the given Graph}
+   *
+   * @param graph the Graph to copy
+   * @throws NullPointerException if graph is null
+   */
+  public static CompactGraph of(Graph graph) {
+    Objects.requireNonNull(graph);
+    List<Vertex> vertexList = graph.getVertices();
+    Vertex[] vertices = vertexList.toArray(new Vertex[0]);
+    Map<Vertex, Integer> vertexIds = new HashMap<>();
+    for (int v = 0; v < vertices.length; v++) vertexIds.put(vertices[v], v);
+
+    int[] edgeStart = new int[vertices.length + 1];
+    for (int v = 0; v < vertices.length; v++)
+      edgeStart[v + 1] = edgeStart[v] + graph.getOutgoingEdgesViewOf(vertices[v]).size();
+    Edge[] edges = new Edge[edgeStart[vertices.length]];
+    int[] edgeSources = new int[edges.length];
+    int[] edgeTargets = new int[edges.length];
+    int e = 0;
+    for (int v = 0; v < vertices.length; v++) {
+      for (Edge edge : graph.getOutgoingEdgesViewOf(vertices[v])) {
+        edges[e] = edge;
+        edgeSources[e] = v;
+        edgeTargets[e] = vertexIds.get(edge.getTo());
+        e++;
+      }
+    }
+    return new CompactGraph(vertices, vertexIds, edgeStart, edges, edgeSources, edgeTargets);
+  }
+
+  @Override
+  public int getVertexCount() {
+    return this.vertices.length;
+  }
+
+  @Override
+  public int getEdgeCount() {
+    return this.edges.length;
+  }
+
+  @Override
+  public int getVertexId(Vertex vertex) {
+    Integer id = this.vertexIds.get(vertex);
+    return id == null ? -1 : id;
+  }
+
+  @Override
+  public Vertex getVertex(int vertex) {
+    return this.vertices[vertex];
+  }
+
+  @Override
+  public Edge getEdge(int edge) {
+    return this.edges[edge];
+  }
+
+  @Override
+  public int getFirstOutgoingEdge(int vertex) {
+    Objects.checkIndex(vertex, this.vertices.length);
+    return this.edgeStart[vertex];
+  }
+
+  @Override
+  public int getOutgoingEdgesEnd(int vertex) {
+    Objects.checkIndex(vertex, this.vertices.length);
+    return this.edgeStart[vertex + 1];
+  }
+
+  @Override
+  public int getEdgeSource(int edge) {
+    return this.edgeSources[edge];
+  }
+
+  @Override
+  public int getEdgeTarget(int edge) {
+    return this.edgeTargets[edge];
+  }
+}
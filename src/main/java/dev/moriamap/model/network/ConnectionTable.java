@@ -0,0 +1,278 @@
+package dev.moriamap.model.network;
+
+import java.util.*;
+
+/**
+ * An immutable table of all the connections of a TransportNetwork during one day, for the
+ * Connection Scan Algorithm. A connection is the ride of one transport along one TransportSegment:
+ * every departure of a Variant gives one connection per TransportSegment of the Variant. The
+ * connections are stored in primitive arrays sorted by departure time, then by arrival time. The
+ * Variant of a connection is identified by its id in the {@link VariantIndex} of the network.
+ *
+ * <p>Stops are identified by an int id between 0 and {@link #getStopCount()}. Times are numbers of
+ * seconds since midnight (see {@link ServiceTime}). Departure times are less than {@link
+ * ServiceTime#SECONDS_PER_DAY}, but arrival times may exceed it when the ride goes past midnight.
+ * The same connections occur every day: the connection i also departs at {@code getDepartureTime(i)
+ * + n * ServiceTime.SECONDS_PER_DAY} for every n.
+ */
+public final class ConnectionTable {
+
+  // The stops of the network, indexed by their id
+  private final Stop[] stops;
+
+  // The id of each stop of the network
+  private final Map<Stop, Integer> stopIds;
+
+  // The ids of the departure and arrival stops of each connection
+  private final int[] departureStops;
+  private final int[] arrivalStops;
+
+  // The departure and arrival times of each connection
+  private final int[] departureTimes;
+  private final int[] arrivalTimes;
+
+  // The TransportSegment ridden by each connection, and the id of its Variant
+  private final TransportSegment[] segments;
+  private final int[] variantIds;
+
+  // The number of bits of a sort key holding the index of a connection, and holding its duration
+  // (see sortKey)
+  private static final int INDEX_BITS = 26;
+  private static final int DURATION_BITS = 20;
+
+  private ConnectionTable(
+      Stop[] stops,
+      Map<Stop, Integer> stopIds,
+      int[] departureStops,
+      int[] arrivalStops,
+      int[] departureTimes,
+      int[] arrivalTimes,
+      TransportSegment[] segments,
+      int[] variantIds) {
+    this.stops = stops;
+    this.stopIds = stopIds;
+    this.departureStops = departureStops;
+    this.arrivalStops = arrivalStops;
+    this.departureTimes = departureTimes;
+    this.arrivalTimes = arrivalTimes;
+    this.segments = segments;
+    this.variantIds = variantIds;
+  }
+
+  /**
+   * {@return a new ConnectionTable of the connections of the given TransportNetwork}
+   *
+   * @param network the TransportNetwork whose connections are tabulated
+   * @throws NullPointerException if network is null
+   * @throws NoSuchElementException if a Variant of network is not in the shape of a line
+   * @throws IllegalArgumentException if network has more than 2^26 connections
+   */
+  public static ConnectionTable of(TransportNetwork network) {
+    Objects.requireNonNull(network);
+    List<Stop> stopList = network.getStops();
+    Map<Stop, Integer> stopIds = new HashMap<>();
+    for (Stop stop : stopList) stopIds.put(stop, stopIds.size());
+
+    // The segments of each variant in traversal order, with the time from the variant first Stop
+    // to the departure of each segment, and the id of the variant
+    List<TransportSegment> rideSegments = new ArrayList<>();
+    List<Integer> rideOffsets = new ArrayList<>();
+    List<int[]> rideDepartures = new ArrayList<>();
+    List<Integer> rideVariants = new ArrayList<>();
+    int count = 0;
+    VariantIndex variantIndex = network.getVariantIndex();
+    for (int v = 0; v < variantIndex.getVariantCount(); v++) {
+      Variant variant = variantIndex.getVariant(v);
+      int[] departureSeconds = variant.getDepartureSeconds();
+      if (departureSeconds.length == 0 || variant.getTransportSegments().isEmpty()) continue;
+      List<Stop> variantStops = variant.getStops();
+      int offset = 0;
+      for (int i = 0; i < variantStops.size() - 1; i++) {
+        TransportSegment segment = variant.getOutgoingSegment(variantStops.get(i));
+        rideSegments.add(segment);
+        rideOffsets.add(offset);
+        rideDepartures.add(departureSeconds);
+        rideVariants.add(v);
+        count += departureSeconds.length;
+        offset += (int) segment.getTravelDuration().toSeconds();
+      }
+    }
+
+    if (count > 1 << INDEX_BITS)
+      throw new IllegalArgumentException("Too many connections: " + count);
+    long[] order = new long[count];
+    int[] departureStops = new int[count];
+    int[] arrivalStops = new int[count];
+    int[] departureTimes = new int[count];
+    int[] arrivalTimes = new int[count];
+    TransportSegment[] segments = new TransportSegment[count];
+    int[] variantIds = new int[count];
+    int c = 0;
+    for (int r = 0; r < rideSegments.size(); r++) {
+      TransportSegment segment = rideSegments.get(r);
+      int from = idOf((Stop) segment.getFrom(), stopList, stopIds);
+      int to = idOf((Stop) segment.getTo(), stopList, stopIds);
+      int duration = (int) segment.getTravelDuration().toSeconds();
+      int variantId = rideVariants.get(r);
+      for (int departure : rideDepartures.get(r)) {
+        int time = Math.floorMod(departure + rideOffsets.get(r), ServiceTime.SECONDS_PER_DAY);
+        order[c] = sortKey(time, duration, c);
+        departureStops[c] = from;
+        arrivalStops[c] = to;
+        departureTimes[c] = time;
+        arrivalTimes[c] = time + duration;
+        segments[c] = segment;
+        variantIds[c] = variantId;
+        c++;
+      }
+    }
+    // A connection of duration zero must come before the connections departing from its arrival
+    // stop at the same time, hence the ordering by arrival time between equal departure times
+    Arrays.sort(order);
+
+    int[] sortedDepartureStops = new int[count];
+    int[] sortedArrivalStops = new int[count];
+    int[] sortedDepartureTimes = new int[count];
+    int[] sortedArrivalTimes = new int[count];
+    TransportSegment[] sortedSegments = new TransportSegment[count];
+    int[] sortedVariantIds = new int[count];
+    for (int i = 0; i < count; i++) {
+      int j = (int) (order[i] & ((1L << INDEX_BITS) - 1));
+      sortedDepartureStops[i] = departureStops[j];
+      sortedArrivalStops[i] = arrivalStops[j];
+      sortedDepartureTimes[i] = departureTimes[j];
+      sortedArrivalTimes[i] = arrivalTimes[j];
+      sortedSegments[i] = segments[j];
+      sortedVariantIds[i] = variantIds[j];
+    }
+    return new ConnectionTable(
+        stopList.toArray(new Stop[0]),
+        stopIds,
+        sortedDepartureStops,
+        sortedArrivalStops,
+        sortedDepartureTimes,
+        sortedArrivalTimes,
+        sortedSegments,
+        sortedVariantIds);
+  }
+
+  // Returns a key ordering connections by departure time, then by arrival time, then by index c.
+  // Departure times take 17 bits, and the index the lowest INDEX_BITS bits. Arrival times are
+  // compared through durations, which are kept between 0 and 2^DURATION_BITS - 1 seconds (12 days):
+  // only rides of more than 12 days leaving at the same time are ordered by index instead
+  private static long sortKey(int departureTime, int duration, int c) {
+    long cappedDuration = Math.min(Math.max(duration, 0), (1 << DURATION_BITS) - 1);
+    return ((long) departureTime << (DURATION_BITS + INDEX_BITS))
+        | (cappedDuration << INDEX_BITS)
+        | c;
+  }
+
+  // Returns the id of stop, giving it the next id if it has none yet
+  private static int idOf(Stop stop, List<Stop> stopList, Map<Stop, Integer> stopIds) {
+    Integer id = stopIds.get(stop);
+    if (id != null) return id;
+    stopIds.put(stop, stopList.size());
+    stopList.add(stop);
+    return stopList.size() - 1;
+  }
+
+  /** {@return the number of connections in this ConnectionTable} */
+  public int size() {
+    return this.departureTimes.length;
+  }
+
+  /** {@return the number of stops of this ConnectionTable} */
+  public int getStopCount() {
+    return this.stops.length;
+  }
+
+  /**
+   * {@return the Stop with the given id}
+   *
+   * @param id the id of a Stop
+   * @throws IndexOutOfBoundsException if id is not between 0 and getStopCount() - 1
+   */
+  public Stop getStop(int id) {
+    return this.stops[id];
+  }
+
+  /**
+   * {@return the id of the given Stop, or -1 if it is not a Stop of this ConnectionTable}
+   *
+   * @param stop a Stop
+   */
+  public int getStopId(Stop stop) {
+    Integer id = this.stopIds.get(stop);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * {@return the id of the Stop the connection i departs from}
+   *
+   * @param i the index of a connection
+   * @throws IndexOutOfBoundsException if i is not between 0 and size() - 1
+   */
+  public int getDepartureStop(int i) {
+    return this.departureStops[i];
+  }
+
+  /**
+   * {@return the id of the Stop the connection i arrives at}
+   *
+   * @param i the index of a connection
+   * @throws IndexOutOfBoundsException if i is not between 0 and size() - 1
+   */
+  public int getArrivalStop(int i) {
+    return this.arrivalStops[i];
+  }
+
+  /**
+   * {@return the departure time of the connection i, in seconds since midnight}
+   *
+   * @param i the index of a connection
+   * @throws IndexOutOfBoundsException if i is not between 0 and size() - 1
+   */
+  public int getDepartureTime(int i) {
+    return this.departureTimes[i];
+  }
+
+  /**
+   * {@return the arrival time of the connection i, in seconds since midnight of its departure day}
+   *
+   * @param i the index of a connection
+   * @throws IndexOutOfBoundsException if i is not between 0 and size() - 1
+   */
+  public int getArrivalTime(int i) {
+    return this.arrivalTimes[i];
+  }
+
+  /**
+   * {@return the TransportSegment ridden by the connection i}
+   *
+   * @param i the index of a connection
+   * @throws IndexOutOfBoundsException if i is not between 0 and size() - 1
+   */
+  public TransportSegment getSegment(int i) {
+    return this.segments[i];
+  }
+
+  /**
+   * {@return the id in the VariantIndex of the network of the Variant of the connection i}
+   *
+   * @param i the index of a connection
+   * @throws IndexOutOfBoundsException if i is not between 0 and size() - 1
+   */
+  public int getVariantId(int i) {
+    return this.variantIds[i];
+  }
+
+  /**
+   * {@return the index of the first connection departing at or after the given time of day, or
+   * size() if there is none}
+   *
+   * @param time a time of day in seconds since midnight
+   */
+  public int firstConnectionNotBefore(int time) {
+    return ServiceTime.firstIndexNotBefore(this.departureTimes, time);
+  }
+}
@@ -0,0 +1,35 @@
+package dev.moriamap.model.network;
+
+import java.util.function.Function;
+
+/**
+ * Holds data derived from a TransportNetwork. The data is built on first use and built again when
+ * the version of the network it is derived from has changed since: the schedule version for data
+ * derived from its lines, variants and departures, or the modification count of the Graph for data
+ * derived from its vertices and edges.
+ *
+ * @param <T> the type of the derived data
+ */
+final class DerivedDataCache<T> {
+
+  // Builds the data from the network
+  private final Function<TransportNetwork, T> builder;
+
+  // The data built last, and the version of the network it was built from
+  private T value = null;
+  private long version = -1;
+
+  DerivedDataCache(Function<TransportNetwork, T> builder) {
+    this.builder = builder;
+  }
+
+  // Returns the data derived from network, building it if version differs from the version of the
+  // network when it was built last
+  T get(TransportNetwork network, long version) {
+    if (this.value == null || this.version != version) {
+      this.value = this.builder.apply(network);
+      this.version = version;
+    }
+    return this.value;
+  }
+}
@@ -0,0 +1,91 @@
+package dev.moriamap.model.network;
+
+import java.util.*;
+
+/**
+ * An immutable table of the footpaths between the stops of a TransportNetwork: for every Stop, a
+ * WalkSegment to every other Stop at most a given distance away, sorted by increasing distance.
+ * Stops at the same distance are all kept, in the order of the stops of the network.
+ *
+ * <p>The table is built with a spatial join: the stops near each Stop are found with a {@link
+ * SpatialIndex}, so building it costs far less than comparing every pair of stops when the radius
+ * is small compared to the size of the network. The footpaths of all the stops are stored in a
+ * single array.
+ */
+public final class FootpathTable {
+
+  /** The radius used by {@link TransportNetwork#getFootpathTable()}, in meters. */
+  public static final double DEFAULT_RADIUS = 2000;
+
+  // The maximum length of a footpath, in meters
+  private final double radius;
+
+  // The index of each Stop in footpathsStart
+  private final Map<Stop, Integer> stopIds;
+
+  // The footpaths of the Stop of index i are footpaths[footpathsStart[i]] to
+  // footpaths[footpathsStart[i + 1] - 1]
+  private final int[] footpathsStart;
+  private final WalkSegment[] footpaths;
+
+  private FootpathTable(
+      double radius, Map<Stop, Integer> stopIds, int[] footpathsStart, WalkSegment[] footpaths) {
+    this.radius = radius;
+    this.stopIds = stopIds;
+    this.footpathsStart = footpathsStart;
+    this.footpaths = footpaths;
+  }
+
+  /**
+   * {@return a new FootpathTable of the footpaths of at most radius meters between the stops of
+   * network}
+   *
+   * @param network the TransportNetwork whose stops are linked
+   * @param radius the maximum length of a footpath, in meters
+   * @throws NullPointerException if network is null
+   * @throws IllegalArgumentException if radius is negative or NaN
+   */
+  public static FootpathTable of(TransportNetwork network, double radius) {
+    Objects.requireNonNull(network);
+    if (!(radius >= 0)) throw new IllegalArgumentException("Radius must be positive");
+    List<Stop> stops = network.getStops();
+    SpatialIndex index = SpatialIndex.of(stops);
+    Map<Stop, Integer> stopIds = new HashMap<>();
+    int[] footpathsStart = new int[stops.size() + 1];
+    List<WalkSegment> footpaths = new ArrayList<>();
+    for (int i = 0; i < stops.size(); i++) {
+      Stop stop = stops.get(i);
+      stopIds.put(stop, i);
+      footpathsStart[i] = footpaths.size();
+      for (GeographicVertex near : index.getWithinRadius(stop.getGeographicPosition(), radius))
+        if (near != stop) footpaths.add(new WalkSegment(stop, near));
+    }
+    footpathsStart[stops.size()] = footpaths.size();
+    return new FootpathTable(
+        radius, stopIds, footpathsStart, footpaths.toArray(new WalkSegment[0]));
+  }
+
+  /** {@return the maximum length of the footpaths of this FootpathTable, in meters} */
+  public double getRadius() {
+    return this.radius;
+  }
+
+  /** {@return the number of footpaths of this FootpathTable} */
+  public int size() {
+    return this.footpaths.length;
+  }
+
+  /**
+   * {@return the footpaths from the given Stop to the other stops at most getRadius() meters away,
+   * sorted by increasing length, or an empty list if the Stop is not in this FootpathTable}
+   *
+   * @param stop some Stop
+   */
+  public List<WalkSegment> getFootpathsFrom(Stop stop) {
+    Integer id = this.stopIds.get(stop);
+    if (id == null) return List.of();
+    return Collections.unmodifiableList(
+        Arrays.asList(this.footpaths)
+            .subList(this.footpathsStart[id], this.footpathsStart[id + 1]));
+  }
+}
@@ -22,11 +22,45 @@ public abstract class Graph {
   // The traversal strategy of this Graph, defaults to DFS
   private TraversalStrategy traversalStrategy = new DFSTraversalStrategy();
 
+  // The number of changes made to the vertices and edges of this Graph
+  private int modificationCount = 0;
+
+  // The compact form of this Graph, built on first use, and the modification count it matches
+  private CompactGraph compactGraph = null;
+  private int compactGraphModificationCount = -1;
+
   /** Creates a new empty Graph. */
   protected Graph() {
     this.vertexToOutgoingEdges = new HashMap<>();
   }
 
+  /**
+   * Creates a new Graph with the vertices, the edges and the traversal strategy of other. The
+   * outgoing edges of each Vertex are in the same order as in other.
+   *
+   * @param other the Graph to copy
+   * @throws NullPointerException if other is null
+   */
+  protected Graph(Graph other) {
+    this.vertexToOutgoingEdges = new HashMap<>();
+    for (Map.Entry<Vertex, List<Edge>> entry : other.vertexToOutgoingEdges.entrySet()) {
+      List<Edge> edges = entry.getValue();
+      this.vertexToOutgoingEdges.put(entry.getKey(), edges == null ? null : new ArrayList<>(edges));
+    }
+    this.traversalStrategy = other.traversalStrategy;
+  }
+
+  /**
+   * Called before any change to the vertices, the edges or the traversal strategy of this Graph.
+   * Subclasses whose instances can be read-only throw an exception when they are. This
+   * implementation does nothing.
+   *
+   * @throws UnsupportedOperationException if this Graph cannot be changed
+   */
+  protected void checkModifiable() {
+    // For use by subclasses
+  }
+
   /** {@return the vertices of this Graph} */
   public List<Vertex> getVertices() {
     return new ArrayList<>(this.vertexToOutgoingEdges.keySet());
@@ -46,10 +80,14 @@ public abstract class Graph {
    *
    * @param vertex the Vertex to add
    * @throws IllegalArgumentException if the given vertex is null
+   * @throws UnsupportedOperationException if this Graph cannot be changed
    */
   protected void addVertex(Vertex vertex) {
     if (vertex == null) throw new IllegalArgumentException(NULL_ARGUMENT_ERROR_MSG);
-    this.vertexToOutgoingEdges.putIfAbsent(vertex, null);
+    this.checkModifiable();
+    if (this.vertexToOutgoingEdges.containsKey(vertex)) return;
+    this.vertexToOutgoingEdges.put(vertex, null);
+    this.modificationCount++;
   }
 
   /**
@@ -58,9 +96,11 @@ public abstract class Graph {
    *
    * @param edge the Edge to add
    * @throws IllegalArgumentException if the given edge is null
+   * @throws UnsupportedOperationException if this Graph cannot be changed
    */
   protected void addEdge(Edge edge) {
     if (edge == null) throw new IllegalArgumentException("Edge can not be null");
+    this.checkModifiable();
     Vertex from = edge.getFrom();
     Vertex to = edge.getTo();
     if (!this.vertexToOutgoingEdges.containsKey(from)) this.addVertex(from);
@@ -70,8 +110,10 @@ public abstract class Graph {
       outgoingEdges = new ArrayList<>();
       outgoingEdges.add(edge);
       this.vertexToOutgoingEdges.replace(from, outgoingEdges);
-    } else {
-      if (!outgoingEdges.contains(edge)) outgoingEdges.add(edge);
+      this.modificationCount++;
+    } else if (!outgoingEdges.contains(edge)) {
+      outgoingEdges.add(edge);
+      this.modificationCount++;
     }
   }
 
@@ -91,6 +133,45 @@ public abstract class Graph {
     return new ArrayList<>(edges); // Return a copy instead of the original
   }
 
+  /**
+   * {@return an unmodifiable view of the outgoing Edges of the specified Vertex} Unlike {@link
+   * #getOutgoingEdgesOf(Vertex)}, no copy of the underlying list is made, so traversal strategies
+   * can call it for every explored Vertex.
+   *
+   * @param vertex some Vertex
+   * @throws IllegalArgumentException if vertex is null
+   * @throws NoSuchElementException if vertex is not in this Graph
+   */
+  public List<Edge> getOutgoingEdgesViewOf(Vertex vertex) {
+    if (vertex == null) throw new IllegalArgumentException(NULL_ARGUMENT_ERROR_MSG);
+    if (!this.vertexToOutgoingEdges.containsKey(vertex))
+      throw new NoSuchElementException(ABSENT_VERTEX_ERROR_MSG);
+    List<Edge> edges = this.vertexToOutgoingEdges.get(vertex);
+    if (edges == null) return Collections.emptyList();
+    return Collections.unmodifiableList(edges);
+  }
+
+  // Returns the number of changes made to the vertices and edges of this Graph, which tells data
+  // derived from them whether it is outdated
+  int getModificationCount() {
+    return this.modificationCount;
+  }
+
+  /**
+   * Returns this Graph as an IndexedGraph, in compressed sparse row form (see {@link
+   * CompactGraph}). It is built on first use and kept until a Vertex or an Edge is added to or
+   * removed from this Graph.
+   *
+   * @return the IndexedGraph form of this Graph
+   */
+  public IndexedGraph getIndexedGraph() {
+    if (this.compactGraph == null || this.compactGraphModificationCount != this.modificationCount) {
+      this.compactGraph = CompactGraph.of(this);
+      this.compactGraphModificationCount = this.modificationCount;
+    }
+    return this.compactGraph;
+  }
+
   /**
    * {@return true if vertex is not null and is in this Graph}
    *
@@ -172,9 +253,11 @@ public abstract class Graph {
    *
    * @param newStrategy the new traversal strategy of this Graph
    * @throws NullPointerException if newStrategy is null
+   * @throws UnsupportedOperationException if this Graph cannot be changed
    */
   public void setTraversalStrategy(TraversalStrategy newStrategy) {
     Objects.requireNonNull(newStrategy);
+    this.checkModifiable();
     this.traversalStrategy = newStrategy;
   }
 
@@ -183,11 +266,13 @@ public abstract class Graph {
    *
    * @param e the edge to be removed
    * @throws NullPointerException if e is null
+   * @throws UnsupportedOperationException if this Graph cannot be changed
    */
   protected void removeEdge(Edge e) {
     Objects.requireNonNull(e);
+    this.checkModifiable();
     List<Edge> edges = this.vertexToOutgoingEdges.get(e.getFrom());
-    if (edges != null) edges.remove(e);
+    if (edges != null && edges.remove(e)) this.modificationCount++;
   }
 
   /**
@@ -197,11 +282,13 @@ public abstract class Graph {
    */
   protected void removeVertex(Vertex v) {
     Objects.requireNonNull(v);
+    this.checkModifiable();
     if (this.vertexToOutgoingEdges.containsKey(v)) {
       for (Edge e : this.getEdges()) {
         if (e.getTo().equals(v)) removeEdge(e);
       }
       this.vertexToOutgoingEdges.remove(v);
+      this.modificationCount++;
     } else {
       throw new NoSuchElementException("Vertex was not found");
     }
@@ -0,0 +1,85 @@
+package dev.moriamap.model.network;
+
+/**
+ * A read-only view of a Graph whose vertices and edges are identified by dense int ids, so that
+ * traversal strategies can store their state in arrays and iterate over the outgoing edges of a
+ * Vertex without allocating anything. Vertex ids range from 0 to {@link #getVertexCount()} - 1 and
+ * edge ids from 0 to {@link #getEdgeCount()} - 1. The outgoing edges of a Vertex have consecutive
+ * ids, from {@link #getFirstOutgoingEdge(int)} inclusive to {@link #getOutgoingEdgesEnd(int)}
+ * exclusive.
+ */
+public interface IndexedGraph {
+
+  /** {@return the number of vertices of this IndexedGraph} */
+  int getVertexCount();
+
+  /** {@return the number of edges of this IndexedGraph} */
+  int getEdgeCount();
+
+  /**
+   * {@return the id of the given Vertex, or -1 if it is not in this IndexedGraph}
+   *
+   * @param vertex some Vertex
+   */
+  int getVertexId(Vertex vertex);
+
+  /**
+   * {@return the Vertex with the given id}
+   *
+   * @param vertex the id of a Vertex
+   * @throws IndexOutOfBoundsException if vertex is not a Vertex id of this IndexedGraph
+   */
+  Vertex getVertex(int vertex);
+
+  /**
+   * {@return the Edge with the given id}
+   *
+   * @param edge the id of an Edge
+   * @throws IndexOutOfBoundsException if edge is not an Edge id of this IndexedGraph
+   */
+  Edge getEdge(int edge);
+
+  /**
+   * {@return the id of the first outgoing Edge of the given Vertex}
+   *
+   * @param vertex the id of a Vertex
+   * @throws IndexOutOfBoundsException if vertex is not a Vertex id of this IndexedGraph
+   */
+  int getFirstOutgoingEdge(int vertex);
+
+  /**
+   * {@return the id after the id of the last outgoing Edge of the given Vertex}
+   *
+   * @param vertex the id of a Vertex
+   * @throws IndexOutOfBoundsException if vertex is not a Vertex id of this IndexedGraph
+   */
+  int getOutgoingEdgesEnd(int vertex);
+
+  /**
+   * {@return the id of the origin Vertex of the given Edge}
+   *
+   * @param edge the id of an Edge
+   * @throws IndexOutOfBoundsException if edge is not an Edge id of this IndexedGraph
+   */
+  int getEdgeSource(int edge);
+
+  /**
+   * Returns the IndexedGraph this IndexedGraph extends with more vertices and edges. The vertex and
+   * edge ids of the base are also ids of this IndexedGraph, for the same vertices and edges, so
+   * data computed for every Edge of the base can be reused for this IndexedGraph. This
+   * implementation returns this IndexedGraph.
+   *
+   * @return the IndexedGraph this IndexedGraph extends, or this IndexedGraph if it extends none
+   */
+  default IndexedGraph getBaseGraph() {
+    return this;
+  }
+
+  /**
+   * {@return the id of the destination Vertex of the given Edge}
+   *
+   * @param edge the id of an Edge
+   * @throws IndexOutOfBoundsException if edge is not an Edge id of this IndexedGraph
+   */
+  int getEdgeTarget(int edge);
+}
@@ -1,7 +1,9 @@
 package dev.moriamap.model.network;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 
@@ -14,6 +16,15 @@ public final class Line {
   // Variants of this line
   private final List<Variant> variants;
 
+  // The variants of this line by name, in the order of variants
+  private final Map<String, List<Variant>> variantsByName;
+
+  // Whether the variants of this line can no longer change
+  private boolean frozen = false;
+
+  // The networks this line was added to, told when its variants change
+  private final List<TransportNetwork> networks = new ArrayList<>(1);
+
   /**
    * Class constructor specifying name.
    *
@@ -24,6 +35,7 @@ public final class Line {
   private Line(String name) {
     this.name = name;
     this.variants = new ArrayList<>();
+    this.variantsByName = new HashMap<>();
   }
 
   /** {@return the name of this line} */
@@ -60,7 +72,9 @@ public final class Line {
    * @return true if this.variants contains v.
    */
   public boolean containsVariant(Variant v) {
-    return this.variants.contains(v);
+    if (v == null) return false;
+    List<Variant> named = this.variantsByName.get(v.getName());
+    return named != null && named.contains(v);
   }
 
   /**
@@ -71,17 +85,57 @@ public final class Line {
    * @param v variant to be added
    * @return true if the given variant was added
    * @throws IllegalArgumentException if the given variant is null
+   * @throws UnsupportedOperationException if this Line is frozen
    */
   public boolean addVariant(Variant v) {
     if (v == null) {
       throw new IllegalArgumentException("Null variant is not allowed");
     }
+    if (this.frozen) throw new UnsupportedOperationException("This Line is frozen");
 
     if (this.containsVariant(v)) {
       return false;
     }
 
-    return this.variants.add(v);
+    this.variantsByName.computeIfAbsent(v.getName(), n -> new ArrayList<>(1)).add(v);
+    this.variants.add(v);
+    v.addedTo(this);
+    this.changed();
+    return true;
+  }
+
+  // Returns a frozen Line with the name of this Line and frozen copies of its variants
+  Line frozenCopy() {
+    Line copy = new Line(this.name);
+    for (Variant variant : this.variants) {
+      Variant frozenVariant = variant.frozenCopy();
+      copy.variants.add(frozenVariant);
+      copy.variantsByName
+          .computeIfAbsent(frozenVariant.getName(), n -> new ArrayList<>(1))
+          .add(frozenVariant);
+    }
+    copy.frozen = true;
+    return copy;
+  }
+
+  /**
+   * {@return true if this Line is frozen} No Variant can be added to a frozen Line, and its
+   * variants are frozen. The lines of a frozen TransportNetwork are frozen.
+   */
+  public boolean isFrozen() {
+    return this.frozen;
+  }
+
+  // Records that this Line was added to network, which is then told about its changes
+  void addedTo(TransportNetwork network) {
+    for (TransportNetwork other : this.networks) if (other == network) return;
+    this.networks.add(network);
+  }
+
+  // Tells the networks of this Line that a variant, a segment of a variant or a departure was
+  // added to it
+  void changed() {
+    for (TransportNetwork network : this.networks) network.scheduleChanged();
   }
 
   /**
@@ -130,32 +184,20 @@ public final class Line {
    */
   public boolean containsVariantNamed(String name) {
     Objects.requireNonNull(name);
-    for (Variant variant : this.variants) {
-      if (variant.getName().equals(name)) {
-        return true;
-      }
-    }
-    return false;
+    return this.variantsByName.containsKey(name);
   }
 
   /**
-   * {@return the Variant of given name in this Line}
+   * {@return the first Variant of given name in this Line}
    *
    * @param name the name of the Variant to get
    * @throws NullPointerException if name is null
    * @throws NoSuchElementException if there is no Variant in this Line with the given name
-   * @throws IllegalStateException if a Variant of given name is considered present but could not be
-   *     recovered
    */
   public Variant getVariantNamed(String name) {
-    if (!this.containsVariantNamed(name)) {
-      throw new NoSuchElementException("No Variant of given name were found");
-    }
-    for (Variant variant : this.variants) {
-      if (variant.getName().equals(name)) {
-        return variant;
-      }
-    }
-    throw new IllegalStateException("Variant present but could not be recovered");
+    Objects.requireNonNull(name);
+    List<Variant> named = this.variantsByName.get(name);
+    if (named == null) throw new NoSuchElementException("No Variant of given name were found");
+    return named.get(0);
   }
 }
@@ -0,0 +1,334 @@
+package dev.moriamap.model.network;
+
+import java.util.*;
+
+/**
+ * A Graph made of a base Graph and of vertices and edges added over it, without changing the base.
+ * It lets a query add temporary vertices and edges, like the start and destination of a route and
+ * the WalkSegments linking them to stops, to a TransportNetwork that other queries may be reading:
+ * the overlay is simply dropped when the query is done. Adding to an OverlayGraph costs as much as
+ * adding to an empty Graph, whatever the size of the base.
+ *
+ * <p>Reading an OverlayGraph reads its base and the vertices and edges added over it, so traversal
+ * strategies explore both. Its {@link #getIndexedGraph()} extends the IndexedGraph of the base: the
+ * added vertices and edges get ids after those of the base, and only the vertices of the base that
+ * have added outgoing edges get new edge ranges. The base must not change while the OverlayGraph is
+ * used.
+ *
+ * <p>An OverlayGraph shared by several queries, like the footpaths of a TransportNetwork, is frozen
+ * once built: adding to or removing from it then throws an UnsupportedOperationException, and
+ * queries add their own vertices and edges to another OverlayGraph over it.
+ */
+public final class OverlayGraph extends Graph {
+
+  // The Graph the vertices and edges of this overlay are added over
+  private final Graph base;
+
+  // The IndexedGraph form of this overlay, the IndexedGraph of the base it extends and the
+  // modification count of this overlay it matches
+  private IndexedGraph indexedGraph = null;
+  private IndexedGraph indexedBase = null;
+  private int indexedModificationCount = -1;
+
+  // Whether vertices and edges can no longer be added to or removed from this overlay
+  private boolean frozen = false;
+
+  private OverlayGraph(Graph base) {
+    super();
+    this.base = base;
+  }
+
+  /**
+   * {@return a new OverlayGraph with no vertices or edges added over base}
+   *
+   * @param base the Graph to add vertices and edges over
+   * @throws NullPointerException if base is null
+   */
+  public static OverlayGraph over(Graph base) {
+    Objects.requireNonNull(base);
+    return new OverlayGraph(base);
+  }
+
+  // Forbids any further change to this overlay, and builds its IndexedGraph so that reading it no
+  // longer changes it
+  void freeze() {
+    this.frozen = true;
+    this.getIndexedGraph();
+  }
+
+  /** {@return true if no vertices or edges can be added to or removed from this OverlayGraph} */
+  public boolean isFrozen() {
+    return this.frozen;
+  }
+
+  /**
+   * Throws an UnsupportedOperationException if this OverlayGraph is frozen.
+   *
+   * @throws UnsupportedOperationException if this OverlayGraph is frozen
+   */
+  @Override
+  protected void checkModifiable() {
+    if (this.frozen) throw new UnsupportedOperationException("This OverlayGraph is frozen");
+  }
+
+  /** {@return the Graph the vertices and edges of this OverlayGraph are added over} */
+  public Graph getBase() {
+    return this.base;
+  }
+
+  /**
+   * Adds the specified vertex over the base of this OverlayGraph. If it is already present, does
+   * nothing.
+   *
+   * @param vertex the Vertex to add
+   * @throws IllegalArgumentException if the given vertex is null
+   * @throws UnsupportedOperationException if this OverlayGraph is frozen
+   */
+  @Override
+  public void addVertex(Vertex vertex) {
+    super.addVertex(vertex);
+  }
+
+  /**
+   * Adds the specified edge over the base of this OverlayGraph. If edge's source or destination are
+   * not already in this OverlayGraph, they are added too. If the specified Edge is already present,
+   * does nothing.
+   *
+   * @param edge the Edge to add
+   * @throws IllegalArgumentException if the given edge is null
+   * @throws UnsupportedOperationException if this OverlayGraph is frozen
+   */
+  @Override
+  public void addEdge(Edge edge) {
+    this.checkModifiable();
+    if (edge != null
+        && this.base.contains(edge.getFrom())
+        && this.base.getOutgoingEdgesViewOf(edge.getFrom()).contains(edge)) return;
+    super.addEdge(edge);
+  }
+
+  @Override
+  public List<Vertex> getVertices() {
+    List<Vertex> vertices = this.base.getVertices();
+    for (Vertex vertex : super.getVertices()) if (!this.base.contains(vertex)) vertices.add(vertex);
+    return vertices;
+  }
+
+  @Override
+  public List<Edge> getEdges() {
+    List<Edge> edges = this.base.getEdges();
+    edges.addAll(super.getEdges());
+    return edges;
+  }
+
+  @Override
+  public List<Edge> getOutgoingEdgesOf(Vertex vertex) {
+    if (!super.contains(vertex)) return this.base.getOutgoingEdgesOf(vertex);
+    if (!this.base.contains(vertex)) return super.getOutgoingEdgesOf(vertex);
+    List<Edge> edges = this.base.getOutgoingEdgesOf(vertex);
+    edges.addAll(super.getOutgoingEdgesViewOf(vertex));
+    return edges;
+  }
+
+  @Override
+  public List<Edge> getOutgoingEdgesViewOf(Vertex vertex) {
+    if (!super.contains(vertex)) return this.base.getOutgoingEdgesViewOf(vertex);
+    List<Edge> added = super.getOutgoingEdgesViewOf(vertex);
+    if (!this.base.contains(vertex)) return added;
+    if (added.isEmpty()) return this.base.getOutgoingEdgesViewOf(vertex);
+    return Collections.unmodifiableList(this.getOutgoingEdgesOf(vertex));
+  }
+
+  @Override
+  public boolean contains(Vertex vertex) {
+    return super.contains(vertex) || this.base.contains(vertex);
+  }
+
+  /**
+   * Returns this OverlayGraph as an IndexedGraph extending the IndexedGraph of its base (see {@link
+   * IndexedGraph#getBaseGraph()}). It is built on first use and kept until a Vertex or an Edge is
+   * added to this OverlayGraph. Building it costs as much as the added vertices and edges and the
+   * outgoing edges in the base of the vertices that have added outgoing edges.
+   *
+   * @return the IndexedGraph form of this OverlayGraph
+   */
+  @Override
+  public IndexedGraph getIndexedGraph() {
+    IndexedGraph indexedBaseGraph = this.base.getIndexedGraph();
+    if (this.indexedGraph == null
+        || this.indexedBase != indexedBaseGraph
+        || this.indexedModificationCount != this.getModificationCount()) {
+      this.indexedGraph = new Indexed(indexedBaseGraph, this);
+      this.indexedBase = indexedBaseGraph;
+      this.indexedModificationCount = this.getModificationCount();
+    }
+    return this.indexedGraph;
+  }
+
+  // Returns the vertices and edges added over the base
+  private List<Vertex> getAddedVertices() {
+    return super.getVertices();
+  }
+
+  private List<Edge> getAddedOutgoingEdgesOf(Vertex vertex) {
+    return super.getOutgoingEdgesViewOf(vertex);
+  }
+
+  // The IndexedGraph of an OverlayGraph. The vertices and edges of the base keep their ids, the
+  // added vertices get the ids after those of the base, and the added edges get the ids after
+  // those of the base. The outgoing edges of a vertex of the base with added outgoing edges are
+  // its outgoing edges in the base followed by the added ones, given new ids after those of the
+  // base too
+  private static final class Indexed implements IndexedGraph {
+    private final IndexedGraph base;
+    private final int baseVertexCount;
+    private final int baseEdgeCount;
+
+    // The added vertices, and their ids
+    private final Vertex[] vertices;
+    private final Map<Vertex, Integer> vertexIds;
+
+    // The edges with new ids, with the ids of their origin and destination
+    private final Edge[] edges;
+    private final int[] edgeSources;
+    private final int[] edgeTargets;
+
+    // The outgoing edges of the added vertex baseVertexCount + i have the ids addedStart[i] to
+    // addedEnd[i] - 1
+    private final int[] addedStart;
+    private final int[] addedEnd;
+
+    // The sorted ids of the vertices of the base with added outgoing edges, whose outgoing edges
+    // have the ids extendedStart[i] to extendedEnd[i] - 1
+    private final int[] extended;
+    private final int[] extendedStart;
+    private final int[] extendedEnd;
+
+    private Indexed(IndexedGraph base, OverlayGraph overlay) {
+      this.base = base;
+      this.baseVertexCount = base.getVertexCount();
+      this.baseEdgeCount = base.getEdgeCount();
+
+      List<Vertex> addedVertices = new ArrayList<>();
+      List<Vertex> extendedVertices = new ArrayList<>();
+      this.vertexIds = new HashMap<>();
+      for (Vertex vertex : overlay.getAddedVertices()) {
+        int id = base.getVertexId(vertex);
+        if (id < 0) {
+          this.vertexIds.put(vertex, this.baseVertexCount + addedVertices.size());
+          addedVertices.add(vertex);
+        } else if (!overlay.getAddedOutgoingEdgesOf(vertex).isEmpty()) {
+          extendedVertices.add(vertex);
+        }
+      }
+      this.vertices = addedVertices.toArray(new Vertex[0]);
+      extendedVertices.sort(Comparator.comparingInt(base::getVertexId));
+
+      List<Edge> edgeList = new ArrayList<>();
+      List<Integer> sourceList = new ArrayList<>();
+      this.addedStart = new int[this.vertices.length];
+      this.addedEnd = new int[this.vertices.length];
+      for (int i = 0; i < this.vertices.length; i++) {
+        this.addedStart[i] = this.baseEdgeCount + edgeList.size();
+        for (Edge edge : overlay.getAddedOutgoingEdgesOf(this.vertices[i])) {
+          edgeList.add(edge);
+          sourceList.add(this.baseVertexCount + i);
+        }
+        this.addedEnd[i] = this.baseEdgeCount + edgeList.size();
+      }
+      this.extended = new int[extendedVertices.size()];
+      this.extendedStart = new int[this.extended.length];
+      this.extendedEnd = new int[this.extended.length];
+      for (int i = 0; i < this.extended.length; i++) {
+        Vertex vertex = extendedVertices.get(i);
+        int id = base.getVertexId(vertex);
+        this.extended[i] = id;
+        this.extendedStart[i] = this.baseEdgeCount + edgeList.size();
+        for (int e = base.getFirstOutgoingEdge(id); e < base.getOutgoingEdgesEnd(id); e++) {
+          edgeList.add(base.getEdge(e));
+          sourceList.add(id);
+        }
+        for (Edge edge : overlay.getAddedOutgoingEdgesOf(vertex)) {
+          edgeList.add(edge);
+          sourceList.add(id);
+        }
+        this.extendedEnd[i] = this.baseEdgeCount + edgeList.size();
+      }
+
+      this.edges = edgeList.toArray(new Edge[0]);
+      this.edgeSources = new int[this.edges.length];
+      this.edgeTargets = new int[this.edges.length];
+      for (int e = 0; e < this.edges.length; e++) {
+        this.edgeSources[e] = sourceList.get(e);
+        this.edgeTargets[e] = this.getVertexId(this.edges[e].getTo());
+      }
+    }
+
+    @Override
+    public int getVertexCount() {
+      return this.baseVertexCount + this.vertices.length;
+    }
+
+    @Override
+    public int getEdgeCount() {
+      return this.baseEdgeCount + this.edges.length;
+    }
+
+    @Override
+    public int getVertexId(Vertex vertex) {
+      int id = this.base.getVertexId(vertex);
+      if (id >= 0) return id;
+      Integer addedId = this.vertexIds.get(vertex);
+      return addedId == null ? -1 : addedId;
+    }
+
+    @Override
+    public Vertex getVertex(int vertex) {
+      if (vertex < this.baseVertexCount) return this.base.getVertex(vertex);
+      return this.vertices[vertex - this.baseVertexCount];
+    }
+
+    @Override
+    public Edge getEdge(int edge) {
+      if (edge < this.baseEdgeCount) return this.base.getEdge(edge);
+      return this.edges[edge - this.baseEdgeCount];
+    }
+
+    @Override
+    public int getFirstOutgoingEdge(int vertex) {
+      if (vertex >= this.baseVertexCount) return this.addedStart[vertex - this.baseVertexCount];
+      int i = this.extendedIndex(vertex);
+      return i < 0 ? this.base.getFirstOutgoingEdge(vertex) : this.extendedStart[i];
+    }
+
+    @Override
+    public int getOutgoingEdgesEnd(int vertex) {
+      if (vertex >= this.baseVertexCount) return this.addedEnd[vertex - this.baseVertexCount];
+      int i = this.extendedIndex(vertex);
+      return i < 0 ? this.base.getOutgoingEdgesEnd(vertex) : this.extendedEnd[i];
+    }
+
+    // Returns the index of vertex in extended, or a negative value if it has no added edges
+    private int extendedIndex(int vertex) {
+      if (this.extended.length == 0) return -1;
+      return Arrays.binarySearch(this.extended, vertex);
+    }
+
+    @Override
+    public int getEdgeSource(int edge) {
+      if (edge < this.baseEdgeCount) return this.base.getEdgeSource(edge);
+      return this.edgeSources[edge - this.baseEdgeCount];
+    }
+
+    @Override
+    public int getEdgeTarget(int edge) {
+      if (edge < this.baseEdgeCount) return this.base.getEdgeTarget(edge);
+      return this.edgeTargets[edge - this.baseEdgeCount];
+    }
+
+    @Override
+    public IndexedGraph getBaseGraph() {
+      return this.base;
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package dev.moriamap.model.network;
+
+import java.time.LocalTime;
+
+/**
+ * Utility methods for times represented as a number of seconds since the start of the service day
+ * (midnight). Timetables repeat every day, so a time of day t also occurs at t + SECONDS_PER_DAY, t
+ * + 2 * SECONDS_PER_DAY, and so on.
+ */
+public final class ServiceTime {
+
+  /** The number of seconds in a day. */
+  public static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+  private ServiceTime() {
+    throw new AssertionError();
+  }
+
+  /**
+   * {@return the number of whole seconds elapsed since midnight at the given time of day}
+   *
+   * @param time a time of day
+   * @throws NullPointerException if time is null
+   */
+  public static int toSeconds(LocalTime time) {
+    return time.toSecondOfDay();
+  }
+
+  /**
+   * {@return the number of seconds elapsed since midnight at the given time of day, rounded up to
+   * the next second if time has a fraction of second} It is the first whole second at which a
+   * traveller waiting since time can take a transport.
+   *
+   * @param time a time of day
+   * @throws NullPointerException if time is null
+   */
+  public static int toSecondsRoundedUp(LocalTime time) {
+    return time.toSecondOfDay() + (time.getNano() > 0 ? 1 : 0);
+  }
+
+  /**
+   * {@return the time of day corresponding to the given number of seconds since midnight, wrapped
+   * around midnight if seconds is negative or not less than SECONDS_PER_DAY}
+   *
+   * @param seconds a number of seconds since midnight
+   */
+  public static LocalTime toLocalTime(int seconds) {
+    return LocalTime.ofSecondOfDay(Math.floorMod(seconds, SECONDS_PER_DAY));
+  }
+
+  /**
+   * Returns the earliest occurrence not before time of one of the given daily times. The daily
+   * times must be sorted in ascending order and span less than a day, so that every one of them
+   * occurs exactly once per day. They do not have to be less than SECONDS_PER_DAY: a time of
+   * 25:00:00 is 01:00:00 the next day. The search is a binary search.
+   *
+   * @param dailyTimes sorted times repeated every day, in seconds
+   * @param time the time from which to look for the next occurrence, in seconds
+   * @return the earliest occurrence of one of dailyTimes that is not before time, or -1 if
+   *     dailyTimes is empty
+   */
+  public static int nextOccurrence(int[] dailyTimes, int time) {
+    return nextOccurrence(dailyTimes, 0, dailyTimes.length, time);
+  }
+
+  /**
+   * Returns the earliest occurrence not before time of one of the daily times between the indices
+   * from (inclusive) and to (exclusive) of the given array. These daily times must satisfy the
+   * requirements of {@link #nextOccurrence(int[], int)}.
+   *
+   * @param dailyTimes an array containing sorted times repeated every day, in seconds
+   * @param from the index of the first daily time
+   * @param to the index after the last daily time
+   * @param time the time from which to look for the next occurrence, in seconds
+   * @return the earliest occurrence of one of the daily times that is not before time, or -1 if
+   *     there is none between from and to
+   */
+  public static int nextOccurrence(int[] dailyTimes, int from, int to, int time) {
+    if (from >= to) return -1;
+    int first = dailyTimes[from];
+    // The number of days to add to dailyTimes for first to be in (time - SECONDS_PER_DAY, time]
+    int days = Math.floorDiv(time - first, SECONDS_PER_DAY);
+    int shift = days * SECONDS_PER_DAY;
+    int index = firstIndexNotBefore(dailyTimes, from, to, time - shift);
+    if (index == to) return first + shift + SECONDS_PER_DAY;
+    return dailyTimes[index] + shift;
+  }
+
+  /**
+   * {@return the index of the first element of sorted that is not less than value, or sorted.length
+   * if there is none}
+   *
+   * @param sorted an array of int sorted in ascending order
+   * @param value the value to look for
+   */
+  public static int firstIndexNotBefore(int[] sorted, int value) {
+    return firstIndexNotBefore(sorted, 0, sorted.length, value);
+  }
+
+  /**
+   * {@return the index of the first element of sorted between the indices from (inclusive) and to
+   * (exclusive) that is not less than value, or to if there is none}
+   *
+   * @param sorted an array of int sorted in ascending order between from and to
+   * @param from the index of the first element to search
+   * @param to the index after the last element to search
+   * @param value the value to look for
+   */
+  public static int firstIndexNotBefore(int[] sorted, int from, int to, int value) {
+    int low = from;
+    int high = to;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (sorted[mid] < value) low = mid + 1;
+      else high = mid;
+    }
+    return low;
+  }
+}
@@ -0,0 +1,251 @@
+package dev.moriamap.model.network;
+
+import java.util.*;
+
+/**
+ * An immutable k-d tree of GeographicVertices, answering nearest neighbours, within radius and
+ * exact position queries in logarithmic time instead of computing the distance to every
+ * GeographicVertex. The vertices are stored with their cartesian coordinates on Earth (see {@link
+ * GeographicPosition#toCartesian(double)}), so the distances it compares are exactly those of
+ * {@link GeographicPosition#distanceFrom(GeographicPosition)}, computed without creating any
+ * object.
+ *
+ * <p>The results are sorted by increasing distance. Vertices at the same distance are all kept, in
+ * the order in which they were given to {@link #of(List)}.
+ */
+public final class SpatialIndex {
+
+  // The margin added to distances when pruning the tree, in meters, for rounding errors
+  private static final double PRUNING_MARGIN = 1e-6;
+
+  // The vertices in tree order: the root of the subtree of the range [low, high) is at the middle
+  // index (low + high) / 2, the vertices of its left subtree are before it and those of its right
+  // subtree after it
+  private final GeographicVertex[] vertices;
+
+  // The index of each vertex in the list given to of()
+  private final int[] ranks;
+
+  // The cartesian coordinates of each vertex, as coordinates[3 * i + axis]
+  private final double[] coordinates;
+
+  // The axis along which each subtree root splits its subtree
+  private final byte[] axes;
+
+  // A vertex found by a search, with its tree index and its distance to the searched point
+  private record Candidate(int index, double distance) {}
+
+  // Orders candidates by distance, then by the order their vertices were given in
+  private final Comparator<Candidate> byDistance;
+
+  private SpatialIndex(
+      GeographicVertex[] vertices, int[] ranks, double[] coordinates, byte[] axes) {
+    this.vertices = vertices;
+    this.ranks = ranks;
+    this.coordinates = coordinates;
+    this.axes = axes;
+    this.byDistance =
+        Comparator.comparingDouble(Candidate::distance)
+            .thenComparingInt(candidate -> ranks[candidate.index()]);
+  }
+
+  /**
+   * {@return a new SpatialIndex of the given GeographicVertices}
+   *
+   * @param vertices the GeographicVertices to index
+   * @throws NullPointerException if vertices or one of its elements is null
+   */
+  public static SpatialIndex of(List<? extends GeographicVertex> vertices) {
+    Objects.requireNonNull(vertices);
+    int n = vertices.size();
+    double[] points = new double[3 * n];
+    for (int i = 0; i < n; i++) {
+      double[] cartesian =
+          vertices.get(i).getGeographicPosition().toCartesian(GeographicPosition.EARTH_RADIUS);
+      System.arraycopy(cartesian, 0, points, 3 * i, 3);
+    }
+    int[] order = new int[n];
+    for (int i = 0; i < n; i++) order[i] = i;
+    byte[] axes = new byte[n];
+    build(order, points, axes, 0, n);
+
+    GeographicVertex[] treeVertices = new GeographicVertex[n];
+    double[] coordinates = new double[3 * n];
+    for (int i = 0; i < n; i++) {
+      treeVertices[i] = vertices.get(order[i]);
+      System.arraycopy(points, 3 * order[i], coordinates, 3 * i, 3);
+    }
+    return new SpatialIndex(treeVertices, order, coordinates, axes);
+  }
+
+  // Arranges order[low, high) in tree order, splitting each subtree along the axis on which its
+  // points are the most spread
+  private static void build(int[] order, double[] points, byte[] axes, int low, int high) {
+    if (high - low <= 1) return;
+    int axis = widestAxis(order, points, low, high);
+    int middle = (low + high) >>> 1;
+    select(order, points, axis, low, high - 1, middle);
+    axes[middle] = (byte) axis;
+    build(order, points, axes, low, middle);
+    build(order, points, axes, middle + 1, high);
+  }
+
+  // Returns the axis on which the points of order[low, high) are the most spread
+  private static int widestAxis(int[] order, double[] points, int low, int high) {
+    int widest = 0;
+    double widestSpread = -1;
+    for (int axis = 0; axis < 3; axis++) {
+      double min = Double.POSITIVE_INFINITY;
+      double max = Double.NEGATIVE_INFINITY;
+      for (int i = low; i < high; i++) {
+        double value = points[3 * order[i] + axis];
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+      }
+      if (max - min > widestSpread) {
+        widest = axis;
+        widestSpread = max - min;
+      }
+    }
+    return widest;
+  }
+
+  // Moves the points of order[left, right] so that the k-th is at index k, those before it are not
+  // greater on axis and those after it are not lower
+  private static void select(int[] order, double[] points, int axis, int left, int right, int k) {
+    while (left < right) {
+      double pivot = points[3 * order[(left + right) >>> 1] + axis];
+      int i = left;
+      int j = right;
+      while (i <= j) {
+        while (points[3 * order[i] + axis] < pivot) i++;
+        while (points[3 * order[j] + axis] > pivot) j--;
+        if (i <= j) {
+          int tmp = order[i];
+          order[i] = order[j];
+          order[j] = tmp;
+          i++;
+          j--;
+        }
+      }
+      if (k <= j) right = j;
+      else if (k >= i) left = i;
+      else return;
+    }
+  }
+
+  /** {@return the number of GeographicVertices in this SpatialIndex} */
+  public int size() {
+    return this.vertices.length;
+  }
+
+  /**
+   * Returns the at most k GeographicVertices of this SpatialIndex closest to position and at most
+   * radius meters away from it, by increasing distance.
+   *
+   * @param position the position to search around
+   * @param k the maximum number of GeographicVertices to return
+   * @param radius the maximum distance to position in meters, possibly infinite
+   * @return the at most k closest GeographicVertices within radius
+   * @throws NullPointerException if position is null
+   * @throws IllegalArgumentException if k is negative or radius is negative or NaN
+   */
+  public List<GeographicVertex> getNearest(GeographicPosition position, int k, double radius) {
+    Objects.requireNonNull(position);
+    if (k < 0) throw new IllegalArgumentException("k must be positive");
+    if (!(radius >= 0)) throw new IllegalArgumentException("Radius must be positive");
+    Search search = new Search(position.toCartesian(GeographicPosition.EARTH_RADIUS), k, radius);
+    if (k > 0) search.visit(0, this.vertices.length);
+    return search.result();
+  }
+
+  /**
+   * Returns the GeographicVertices of this SpatialIndex at most radius meters away from position,
+   * by increasing distance.
+   *
+   * @param position the position to search around
+   * @param radius the maximum distance to position in meters
+   * @return the GeographicVertices within radius
+   * @throws NullPointerException if position is null
+   * @throws IllegalArgumentException if radius is negative or NaN
+   */
+  public List<GeographicVertex> getWithinRadius(GeographicPosition position, double radius) {
+    return this.getNearest(position, Integer.MAX_VALUE, radius);
+  }
+
+  /**
+   * {@return the GeographicVertices of this SpatialIndex at exactly the given position, in the
+   * order they were given to of()}
+   *
+   * @param position some position
+   * @throws NullPointerException if position is null
+   */
+  public List<GeographicVertex> getAt(GeographicPosition position) {
+    List<GeographicVertex> res = new ArrayList<>();
+    for (GeographicVertex vertex : this.getWithinRadius(position, 0))
+      if (vertex.getGeographicPosition().equals(position)) res.add(vertex);
+    return res;
+  }
+
+  // A search of the closest vertices to a point, keeping the best ones found so far in a heap whose
+  // head is the worst of them
+  private final class Search {
+    private final double[] point;
+    private final int k;
+    private final double radius;
+    private final PriorityQueue<Candidate> best;
+
+    private Search(double[] point, int k, double radius) {
+      this.point = point;
+      this.k = k;
+      this.radius = radius;
+      this.best = new PriorityQueue<>(SpatialIndex.this.byDistance.reversed());
+    }
+
+    // Returns the largest distance a vertex can have to be kept
+    private double bound() {
+      if (this.best.size() < this.k) return this.radius;
+      return this.best.element().distance();
+    }
+
+    // Visits the subtree of the range [low, high), the closest side of each split first
+    private void visit(int low, int high) {
+      if (low >= high) return;
+      int middle = (low + high) >>> 1;
+      this.offer(middle);
+      if (high - low == 1) return;
+      int axis = SpatialIndex.this.axes[middle];
+      double difference = this.point[axis] - SpatialIndex.this.coordinates[3 * middle + axis];
+      boolean leftFirst = difference <= 0;
+      this.visit(leftFirst ? low : middle + 1, leftFirst ? middle : high);
+      if (Math.abs(difference) <= this.bound() + PRUNING_MARGIN)
+        this.visit(leftFirst ? middle + 1 : low, leftFirst ? high : middle);
+    }
+
+    // Keeps the vertex of the given tree index if it is among the best ones found so far. The
+    // distance is computed like GeographicPosition.euclideanDistance
+    private void offer(int i) {
+      double distance = 0.0;
+      for (int axis = 0; axis < 3; axis++)
+        distance += Math.pow(SpatialIndex.this.coordinates[3 * i + axis] - this.point[axis], 2);
+      distance = Math.sqrt(distance);
+      if (distance > this.radius) return;
+      Candidate candidate = new Candidate(i, distance);
+      if (this.best.size() < this.k) {
+        this.best.add(candidate);
+      } else if (SpatialIndex.this.byDistance.compare(candidate, this.best.element()) < 0) {
+        this.best.poll();
+        this.best.add(candidate);
+      }
+    }
+
+    // Returns the vertices kept, by increasing distance
+    private List<GeographicVertex> result() {
+      List<Candidate> candidates = new ArrayList<>(this.best);
+      candidates.sort(SpatialIndex.this.byDistance);
+      List<GeographicVertex> res = new ArrayList<>(candidates.size());
+      for (Candidate candidate : candidates) res.add(SpatialIndex.this.vertices[candidate.index()]);
+      return res;
+    }
+  }
+}
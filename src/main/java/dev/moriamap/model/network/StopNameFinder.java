@@ -2,7 +2,7 @@ package dev.moriamap.model.network;
 
 import java.util.Arrays;
 
-/** */
+/** Computes edit distances between stop names. */
 public class StopNameFinder {
 
   private StopNameFinder() {
@@ -33,30 +33,63 @@ public class StopNameFinder {
 
   /**
    * Calculates the minimum edit distance between two strings using the Wagner-Fisher algorithm,
-   * also known as the Levenshtein distance.
+   * also known as the Levenshtein distance. Only two rows of the distance matrix are kept.
    *
    * @param x the first string
    * @param y the second string
    * @return the minimum number of insertions, deletions, and substitutions needed to transform x
    *     into y
+   * @throws NullPointerException if x or y is null
    */
   public static int levenshteinDistance(String x, String y) {
-    int[][] dp = new int[x.length() + 1][y.length() + 1];
-    for (int i = 0; i <= x.length(); i++) {
-      for (int j = 0; j <= y.length(); j++) {
-        if (i == 0) {
-          dp[i][j] = j;
-        } else if (j == 0) {
-          dp[i][j] = i;
-        } else {
-          dp[i][j] =
-              min(
-                  dp[i - 1][j - 1] + costOfSubstitution(x.charAt(i - 1), y.charAt(j - 1)),
-                  dp[i - 1][j] + 1,
-                  dp[i][j - 1] + 1);
-        }
+    return levenshteinDistanceAtMost(x, y, Math.max(x.length(), y.length()));
+  }
+
+  /**
+   * Calculates the Levenshtein distance between two strings if it is at most k. Only the cells of
+   * the distance matrix at most k away from its diagonal are computed, on two rows, and the
+   * computation stops as soon as every cell of a row is greater than k, so strings that are far
+   * apart are compared in a few characters.
+   *
+   * @param x the first string
+   * @param y the second string
+   * @param k the largest distance to compute
+   * @return the Levenshtein distance between x and y if it is at most k, or k + 1 otherwise
+   * @throws NullPointerException if x or y is null
+   * @throws IllegalArgumentException if k is negative
+   */
+  public static int levenshteinDistanceAtMost(String x, String y, int k) {
+    if (k < 0) throw new IllegalArgumentException("k must be positive");
+    int m = x.length();
+    int n = y.length();
+    // The distance is at most max(m, n), and k + 1 must not overflow
+    k = Math.min(k, Math.max(m, n));
+    if (Math.abs(m - n) > k) return k + 1;
+    int outside = k + 1; // The value of the cells outside the band
+    int[] previous = new int[n + 1];
+    int[] current = new int[n + 1];
+    for (int j = 0; j <= n; j++) previous[j] = j <= k ? j : outside;
+    for (int i = 1; i <= m; i++) {
+      int low = Math.max(1, i - k);
+      int high = Math.min(n, i + k);
+      current[low - 1] = low == 1 ? Math.min(i, outside) : outside;
+      int rowMin = current[low - 1];
+      char c = x.charAt(i - 1);
+      for (int j = low; j <= high; j++) {
+        int value =
+            Math.min(
+                previous[j - 1] + costOfSubstitution(c, y.charAt(j - 1)),
+                Math.min(previous[j], current[j - 1]) + 1);
+        current[j] = Math.min(value, outside);
+        rowMin = Math.min(rowMin, current[j]);
       }
+      // The next row reads this cell, which is outside of the band of this row
+      if (high < n) current[high + 1] = outside;
+      if (rowMin > k) return outside;
+      int[] tmp = previous;
+      previous = current;
+      current = tmp;
     }
-    return dp[x.length()][y.length()];
+    return previous[n];
   }
 }
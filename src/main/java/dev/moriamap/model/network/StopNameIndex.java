@@ -0,0 +1,412 @@
+package dev.moriamap.model.network;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * An immutable index of the names of Stops, finding the stops whose names are the closest to a
+ * given name without computing the distance to most of the names. Names are compared after {@link
+ * #normalize(String) normalization}, by their Levenshtein distance (see {@link StopNameFinder}).
+ *
+ * <p>The index maps each trigram of the names, padded with {@value #GRAM_LENGTH} - 1 characters on
+ * both sides, to the names holding it. An edit changes at most {@value #GRAM_LENGTH} trigrams, so a
+ * name sharing c trigrams with the searched name is at least (max(m, n) + {@value #GRAM_LENGTH} - 1
+ * - c) / {@value #GRAM_LENGTH} edits away from it, where m and n are the lengths of the two names.
+ * A search counts the trigrams shared with the searched name from the rarest, and takes the most
+ * common ones as shared by every name once it read as many postings as there are names. Then it
+ * computes the distances of the names by increasing lower bound, with the bit-parallel algorithm of
+ * Myers when the searched name fits in a long, and stops once the lower bound exceeds the distance
+ * of the worst name kept so far.
+ *
+ * <p>A search computes the distances of at most {@value #MAX_COMPARED_NAMES} names, so that it
+ * takes well under a millisecond however many stops there are. The results are exact when fewer
+ * names have a lower bound within the distance of the last result, which is the case for names with
+ * a few typos. Otherwise, they are the closest among the names sharing the most trigrams with the
+ * searched name.
+ *
+ * <p>The results are sorted by increasing distance between normalized names, then by increasing
+ * distance between the names as they are, then in the order the stops were given to {@link
+ * #of(List)}.
+ */
+public final class StopNameIndex {
+
+  /** The length of the n-grams of the names indexed. */
+  public static final int GRAM_LENGTH = 3;
+
+  /** The maximum number of names whose distance to the searched name is computed by a search. */
+  public static final int MAX_COMPARED_NAMES = 256;
+
+  // The largest range of characters of a name searched with the bit-parallel distance
+  private static final int MAX_CHARACTER_RANGE = 1 << 10;
+
+  // The characters added before and after a name to make its n-grams
+  private static final String PADDING = "\0".repeat(GRAM_LENGTH - 1);
+
+  // The stops, in the order given to of()
+  private final Stop[] stops;
+
+  // The distinct normalized names, their lengths and the largest one, and the indices of the stops
+  // with each of them
+  private final String[] names;
+  private final int[] nameLengths;
+  private final int maxNameLength;
+  private final int[][] nameStops;
+
+  // The names holding each n-gram
+  private final Map<String, Postings> postings;
+
+  // The ids of the names holding an n-gram, in increasing order, and how many times each holds it
+  private record Postings(int[] names, int[] counts) {}
+
+  // Gathers the Postings of an n-gram while the index is built
+  private static final class PostingsBuilder {
+    private int[] names = new int[4];
+    private int[] counts = new int[4];
+    private int size = 0;
+
+    private void add(int name, int count) {
+      if (this.size == this.names.length) {
+        this.names = Arrays.copyOf(this.names, 2 * this.size);
+        this.counts = Arrays.copyOf(this.counts, 2 * this.size);
+      }
+      this.names[this.size] = name;
+      this.counts[this.size++] = count;
+    }
+
+    private Postings build() {
+      return new Postings(
+          Arrays.copyOf(this.names, this.size), Arrays.copyOf(this.counts, this.size));
+    }
+  }
+
+  // A stop found by a search, with its index and the distances of its name to the searched name,
+  // normalized or not
+  private record Candidate(int stop, int distance, int exactDistance) {}
+
+  // Orders candidates from the closest to the farthest
+  private static final Comparator<Candidate> CLOSEST_FIRST =
+      Comparator.comparingInt(Candidate::distance)
+          .thenComparingInt(Candidate::exactDistance)
+          .thenComparingInt(Candidate::stop);
+
+  private StopNameIndex(
+      Stop[] stops, String[] names, int[][] nameStops, Map<String, Postings> postings) {
+    this.stops = stops;
+    this.names = names;
+    this.nameLengths = Arrays.stream(names).mapToInt(String::length).toArray();
+    this.maxNameLength = Arrays.stream(this.nameLengths).max().orElse(0);
+    this.nameStops = nameStops;
+    this.postings = postings;
+  }
+
+  /**
+   * {@return a new StopNameIndex of the names of the given stops}
+   *
+   * @param stops the stops to index
+   * @throws NullPointerException if stops or one of its elements is null
+   */
+  public static StopNameIndex of(List<Stop> stops) {
+    Stop[] array = stops.toArray(new Stop[0]);
+    Map<String, List<Integer>> stopsByName = new LinkedHashMap<>();
+    for (int i = 0; i < array.length; i++)
+      stopsByName.computeIfAbsent(normalize(array[i].getName()), name -> new ArrayList<>()).add(i);
+
+    String[] names = stopsByName.keySet().toArray(new String[0]);
+    int[][] nameStops = new int[names.length][];
+    Map<String, PostingsBuilder> builders = new HashMap<>();
+    for (int id = 0; id < names.length; id++) {
+      nameStops[id] = stopsByName.get(names[id]).stream().mapToInt(Integer::intValue).toArray();
+      String[] grams = grams(names[id]);
+      for (int i = 0; i < grams.length; ) {
+        int j = i + 1;
+        while (j < grams.length && grams[j].equals(grams[i])) j++;
+        builders.computeIfAbsent(grams[i], gram -> new PostingsBuilder()).add(id, j - i);
+        i = j;
+      }
+    }
+    Map<String, Postings> postings = new HashMap<>();
+    builders.forEach((gram, builder) -> postings.put(gram, builder.build()));
+    return new StopNameIndex(array, names, nameStops, postings);
+  }
+
+  // Returns the n-grams of the padded normalized name, sorted so that equal ones are adjacent.
+  // There are as many as the length of name plus GRAM_LENGTH - 1
+  private static String[] grams(String name) {
+    String padded = PADDING + name + PADDING;
+    String[] res = new String[padded.length() - GRAM_LENGTH + 1];
+    for (int i = 0; i < res.length; i++) res[i] = padded.substring(i, i + GRAM_LENGTH);
+    Arrays.sort(res);
+    return res;
+  }
+
+  /**
+   * Returns the given name in lower case and without accents, so that names written with other
+   * cases or without accents are at a distance of 0 from it.
+   *
+   * @param name some name
+   * @return name without diacritical marks, in lower case
+   * @throws NullPointerException if name is null
+   */
+  public static String normalize(String name) {
+    String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+    StringBuilder res = new StringBuilder(decomposed.length());
+    for (int i = 0; i < decomposed.length(); i++) {
+      char c = decomposed.charAt(i);
+      if (Character.getType(c) != Character.NON_SPACING_MARK) res.append(c);
+    }
+    return res.toString().toLowerCase(Locale.ROOT);
+  }
+
+  /** {@return the number of stops of this StopNameIndex} */
+  public int size() {
+    return this.stops.length;
+  }
+
+  /**
+   * Returns the at most k stops of this StopNameIndex whose names are the closest to the given
+   * name, from the closest to the farthest.
+   *
+   * @param name the searched name
+   * @param k the maximum number of stops to return
+   * @return the k stops closest to name, or all the stops if there are less than k
+   * @throws NullPointerException if name is null
+   * @throws IllegalArgumentException if k is negative
+   */
+  public List<Stop> getNearest(String name, int k) {
+    return this.getNearest(name, k, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns the at most k stops of this StopNameIndex whose normalized names are at most
+   * maxDistance away from the normalized given name, from the closest to the farthest.
+   *
+   * @param name the searched name
+   * @param k the maximum number of stops to return
+   * @param maxDistance the largest distance between normalized names of the stops returned
+   * @return the k stops closest to name within maxDistance
+   * @throws NullPointerException if name is null
+   * @throws IllegalArgumentException if k or maxDistance is negative
+   */
+  public List<Stop> getNearest(String name, int k, int maxDistance) {
+    Objects.requireNonNull(name);
+    if (k < 0) throw new IllegalArgumentException("k must be positive");
+    if (maxDistance < 0) throw new IllegalArgumentException("Distance must be positive");
+    Search search = new Search(name, k, maxDistance);
+    if (k > 0 && this.names.length > 0) search.run();
+    return search.result();
+  }
+
+  // A search of the closest names to a name, keeping the best stops found so far in a heap whose
+  // head is the worst of them
+  private final class Search {
+    private final String name;
+    private final String normalizedName;
+    private final int k;
+    private final int maxDistance;
+    private final PriorityQueue<Candidate> best = new PriorityQueue<>(CLOSEST_FIRST.reversed());
+
+    // The number of n-grams each name shares with the searched name
+    private final int[] shared;
+
+    // The number of names whose distance was computed
+    private int compared = 0;
+
+    // The positions of each character in the searched name, as bits, by character from the
+    // smallest one of the searched name, for the bit-parallel distance of Myers, or null if the
+    // searched name is empty, longer than a long or has too distant characters
+    private final long[] positions;
+
+    // The smallest character of the searched name
+    private final char smallest;
+
+    private Search(String name, int k, int maxDistance) {
+      this.name = name;
+      this.normalizedName = normalize(name);
+      this.k = k;
+      this.maxDistance = maxDistance;
+      this.shared = new int[StopNameIndex.this.names.length];
+      int length = this.normalizedName.length();
+      char smallest = Character.MAX_VALUE;
+      char largest = Character.MIN_VALUE;
+      for (int i = 0; i < length; i++) {
+        smallest = (char) Math.min(smallest, this.normalizedName.charAt(i));
+        largest = (char) Math.max(largest, this.normalizedName.charAt(i));
+      }
+      this.smallest = smallest;
+      if (length == 0 || length > Long.SIZE || largest - smallest >= MAX_CHARACTER_RANGE)
+        this.positions = null;
+      else {
+        this.positions = new long[largest - smallest + 1];
+        for (int i = 0; i < length; i++)
+          this.positions[this.normalizedName.charAt(i) - smallest] |= 1L << i;
+      }
+    }
+
+    // Returns the largest distance a name can have to be kept
+    private int bound() {
+      if (this.best.size() < this.k) return this.maxDistance;
+      return this.best.element().distance();
+    }
+
+    // Returns a lower bound of the distance between the searched name and a name of the given
+    // length sharing the given number of n-grams with it
+    private int lowerBound(int length, int sharedGrams) {
+      int searchedLength = this.normalizedName.length();
+      // The n-grams of the longest name that the other does not have, which is never negative
+      int missing = Math.max(length, searchedLength) + GRAM_LENGTH - 1 - sharedGrams;
+      return Math.max(Math.abs(length - searchedLength), (missing + GRAM_LENGTH - 1) / GRAM_LENGTH);
+    }
+
+    // Visits the names by increasing lower bound of their distance, until MAX_COMPARED_NAMES were
+    // visited or the lower bounds exceed bound()
+    private void run() {
+      int[] bounds = new int[StopNameIndex.this.names.length];
+      int[] counts = this.lowerBounds(this.countSharedGrams(), bounds);
+      for (int id : this.sortSmallest(bounds, counts)) {
+        if (bounds[id] > this.bound() || this.compared == MAX_COMPARED_NAMES) return;
+        this.visit(id);
+      }
+    }
+
+    // Counts the n-grams each name shares with the searched name in shared, and returns the number
+    // of n-grams of the searched name that were skipped. The n-grams are counted from the rarest,
+    // and the ones after the first are skipped once as many postings as names were read: a name
+    // may share them all, so their number is to be added to the shared n-grams of every name.
+    private int countSharedGrams() {
+      String[] grams = grams(this.normalizedName);
+      List<Postings> found = new ArrayList<>();
+      List<Integer> multiplicities = new ArrayList<>();
+      for (int i = 0; i < grams.length; ) {
+        int j = i + 1;
+        while (j < grams.length && grams[j].equals(grams[i])) j++;
+        Postings postings = StopNameIndex.this.postings.get(grams[i]);
+        if (postings != null) {
+          found.add(postings);
+          multiplicities.add(j - i);
+        }
+        i = j;
+      }
+      Integer[] order = new Integer[found.size()];
+      for (int g = 0; g < order.length; g++) order[g] = g;
+      Arrays.sort(order, Comparator.comparingInt(g -> found.get(g).names().length));
+
+      int skipped = 0;
+      long read = 0;
+      for (int g : order) {
+        Postings postings = found.get(g);
+        int multiplicity = multiplicities.get(g);
+        read += postings.names().length;
+        if (read > this.shared.length && g != order[0]) {
+          skipped += multiplicity;
+          continue;
+        }
+        int[] ids = postings.names();
+        int[] counts = postings.counts();
+        // A name has each of its n-grams at least once
+        if (multiplicity == 1) for (int id : ids) this.shared[id]++;
+        else
+          for (int p = 0; p < ids.length; p++)
+            this.shared[ids[p]] += Math.min(multiplicity, counts[p]);
+      }
+      return skipped;
+    }
+
+    // Sets the lower bounds of the distances of the names in bounds, by id, given the number of
+    // skipped n-grams of the searched name, and returns how many names have each lower bound
+    private int[] lowerBounds(int skipped, int[] bounds) {
+      int[] lengths = StopNameIndex.this.nameLengths;
+      // The lower bounds are the largest for the names sharing nothing, the shortest or the longest
+      int maxBound =
+          Math.max(this.lowerBound(0, 0), this.lowerBound(StopNameIndex.this.maxNameLength, 0));
+      int[] counts = new int[maxBound + 1];
+      for (int id = 0; id < lengths.length; id++) {
+        bounds[id] = this.lowerBound(lengths[id], this.shared[id] + skipped);
+        counts[bounds[id]]++;
+      }
+      return counts;
+    }
+
+    // Returns the ids of the names whose lower bound is among the MAX_COMPARED_NAMES smallest,
+    // sorted by lower bound with a counting sort, given the lower bounds and their counts
+    private int[] sortSmallest(int[] bounds, int[] counts) {
+      // The largest lower bound of the names to sort, and the number of names up to it
+      int cut = 0;
+      int kept = counts[0];
+      while (kept < MAX_COMPARED_NAMES && cut < counts.length - 1) {
+        cut++;
+        kept += counts[cut];
+      }
+      int[] starts = new int[cut + 1];
+      for (int b = 1; b <= cut; b++) starts[b] = starts[b - 1] + counts[b - 1];
+      int[] sorted = new int[kept];
+      for (int id = 0; id < bounds.length; id++)
+        if (bounds[id] <= cut) sorted[starts[bounds[id]]++] = id;
+      return sorted;
+    }
+
+    // Computes the distance of the name with the given id, up to bound(), and offers its stops if
+    // it is within it
+    private void visit(int id) {
+      this.compared++;
+      int bound = this.bound();
+      String other = StopNameIndex.this.names[id];
+      int distance =
+          this.positions == null
+              ? StopNameFinder.levenshteinDistanceAtMost(this.normalizedName, other, bound)
+              : this.distanceAtMost(other, bound);
+      if (distance > bound) return;
+      for (int stop : StopNameIndex.this.nameStops[id]) this.offer(stop, distance);
+    }
+
+    // Returns the Levenshtein distance between the searched name and other if it is at most
+    // bound, and a larger number otherwise. The columns of the distance matrix are computed with
+    // the bit-parallel algorithm of Myers, which keeps the vertical differences of a column in two
+    // longs, so the searched name must not be longer than a long.
+    private int distanceAtMost(String other, int bound) {
+      int length = this.normalizedName.length();
+      long last = 1L << (length - 1);
+      // The cells of the column whose vertical difference is +1, and those where it is -1
+      long plus = -1L;
+      long minus = 0L;
+      int distance = length;
+      for (int j = 0; j < other.length(); j++) {
+        int character = other.charAt(j) - this.smallest;
+        long equal =
+            character >= 0 && character < this.positions.length ? this.positions[character] : 0L;
+        long vertical = equal | minus;
+        long horizontal = (((equal & plus) + plus) ^ plus) | equal;
+        long horizontalPlus = minus | ~(horizontal | plus);
+        long horizontalMinus = plus & horizontal;
+        if ((horizontalPlus & last) != 0) distance++;
+        else if ((horizontalMinus & last) != 0) distance--;
+        // The first row of the matrix increases by 1 in each column
+        horizontalPlus = (horizontalPlus << 1) | 1L;
+        horizontalMinus <<= 1;
+        plus = horizontalMinus | ~(vertical | horizontalPlus);
+        minus = horizontalPlus & vertical;
+        // The distance decreases by at most 1 in each of the remaining columns
+        if (distance - (other.length() - j - 1) > bound) return bound + 1;
+      }
+      return distance;
+    }
+
+    private void offer(int stop, int distance) {
+      int exactDistance =
+          StopNameFinder.levenshteinDistance(this.name, StopNameIndex.this.stops[stop].getName());
+      Candidate candidate = new Candidate(stop, distance, exactDistance);
+      if (this.best.size() < this.k) this.best.add(candidate);
+      else if (CLOSEST_FIRST.compare(candidate, this.best.element()) < 0) {
+        this.best.poll();
+        this.best.add(candidate);
+      }
+    }
+
+    private List<Stop> result() {
+      List<Candidate> sorted = new ArrayList<>(this.best);
+      sorted.sort(CLOSEST_FIRST);
+      List<Stop> res = new ArrayList<>(sorted.size());
+      for (Candidate candidate : sorted) res.add(StopNameIndex.this.stops[candidate.stop()]);
+      return res;
+    }
+  }
+}
@@ -0,0 +1,200 @@
+package dev.moriamap.model.network;
+
+import java.util.*;
+
+/**
+ * An immutable radix trie of the names of Stops, completing the beginning of a stop name as it is
+ * typed. Names are compared after {@link StopNameIndex#normalize(String) normalization}, so a
+ * prefix in another case or without accents has the same completions.
+ *
+ * <p>The completions of a prefix are ranked by a Comparator of Stops given to {@link #of(List,
+ * Comparator)}, then in the order the stops were given. Every node of the trie keeps the best rank
+ * of its subtree, so the N best completions are found by visiting the nodes in the order of their
+ * best rank, in time depending on the length of the prefix and on N but not on the number of stops.
+ */
+public final class StopNameTrie {
+
+  /** Ranks the shortest names first, then in alphabetical order. */
+  public static final Comparator<Stop> SHORTEST_FIRST =
+      Comparator.comparingInt((Stop stop) -> stop.getName().length()).thenComparing(Stop::getName);
+
+  // The stops, from the best ranked to the worst
+  private final Stop[] stopsByRank;
+
+  // The root of the trie, whose label is empty
+  private final Node root;
+
+  // A node of the trie, with the label of the edge from its parent, its children sorted by the
+  // first character of their label, the ranks of the stops whose normalized name ends at it, in
+  // increasing order, and the best rank of its subtree
+  private static final class Node {
+    private String label;
+    private char[] keys = new char[0];
+    private Node[] children = new Node[0];
+    private int[] ranks = new int[0];
+    private int best = Integer.MAX_VALUE;
+
+    private Node(String label) {
+      this.label = label;
+    }
+
+    // Returns the index of the child whose label starts with c, or a negative number if there is
+    // none
+    private int indexOf(char c) {
+      return Arrays.binarySearch(this.keys, c);
+    }
+
+    private void addChild(Node child) {
+      int i = -this.indexOf(child.label.charAt(0)) - 1;
+      this.keys = insert(this.keys, i, child.label.charAt(0));
+      Node[] newChildren = new Node[this.children.length + 1];
+      System.arraycopy(this.children, 0, newChildren, 0, i);
+      newChildren[i] = child;
+      System.arraycopy(this.children, i, newChildren, i + 1, this.children.length - i);
+      this.children = newChildren;
+    }
+
+    private void addRank(int rank) {
+      this.ranks = Arrays.copyOf(this.ranks, this.ranks.length + 1);
+      this.ranks[this.ranks.length - 1] = rank;
+    }
+  }
+
+  // A node or a stop to visit during a search, with its best rank. The node is null for a stop.
+  private record Pending(int rank, Node node) {}
+
+  private StopNameTrie(Stop[] stopsByRank, Node root) {
+    this.stopsByRank = stopsByRank;
+    this.root = root;
+  }
+
+  /**
+   * {@return a new StopNameTrie of the names of the given stops, whose completions are ranked by
+   * {@link #SHORTEST_FIRST}}
+   *
+   * @param stops the stops to index
+   * @throws NullPointerException if stops or one of its elements is null
+   */
+  public static StopNameTrie of(List<Stop> stops) {
+    return of(stops, SHORTEST_FIRST);
+  }
+
+  /**
+   * {@return a new StopNameTrie of the names of the given stops, whose completions are ranked by
+   * the given Comparator, then in the order of stops}
+   *
+   * @param stops the stops to index
+   * @param ranking the order of the completions of a prefix
+   * @throws NullPointerException if stops, one of its elements or ranking is null
+   */
+  public static StopNameTrie of(List<Stop> stops, Comparator<? super Stop> ranking) {
+    Objects.requireNonNull(ranking);
+    Stop[] stopsByRank = stops.toArray(new Stop[0]);
+    for (Stop stop : stopsByRank) Objects.requireNonNull(stop);
+    // Arrays.sort is stable, so equally ranked stops stay in the order of stops
+    Arrays.sort(stopsByRank, ranking);
+    Node root = new Node("");
+    for (int rank = 0; rank < stopsByRank.length; rank++)
+      insert(root, StopNameIndex.normalize(stopsByRank[rank].getName()), rank);
+    return new StopNameTrie(stopsByRank, root);
+  }
+
+  // Adds the stop of the given rank and normalized name under root. Stops are added by increasing
+  // rank, so the best rank of a node is the rank of the first stop added to its subtree.
+  private static void insert(Node root, String name, int rank) {
+    Node node = root;
+    int i = 0;
+    while (true) {
+      node.best = Math.min(node.best, rank);
+      if (i == name.length()) {
+        node.addRank(rank);
+        return;
+      }
+      int index = node.indexOf(name.charAt(i));
+      if (index < 0) {
+        Node leaf = new Node(name.substring(i));
+        leaf.best = rank;
+        leaf.addRank(rank);
+        node.addChild(leaf);
+        return;
+      }
+      Node child = node.children[index];
+      int common = 1;
+      while (common < child.label.length()
+          && i + common < name.length()
+          && child.label.charAt(common) == name.charAt(i + common)) common++;
+      if (common < child.label.length()) {
+        // Split the edge to child after the common part of its label
+        Node middle = new Node(child.label.substring(0, common));
+        middle.best = child.best;
+        child.label = child.label.substring(common);
+        middle.addChild(child);
+        node.children[index] = middle;
+        child = middle;
+      }
+      i += common;
+      node = child;
+    }
+  }
+
+  // Returns a copy of keys with c inserted at index i
+  private static char[] insert(char[] keys, int i, char c) {
+    char[] res = new char[keys.length + 1];
+    System.arraycopy(keys, 0, res, 0, i);
+    res[i] = c;
+    System.arraycopy(keys, i, res, i + 1, keys.length - i);
+    return res;
+  }
+
+  /** {@return the number of stops of this StopNameTrie} */
+  public int size() {
+    return this.stopsByRank.length;
+  }
+
+  /**
+   * Returns the at most n best ranked stops of this StopNameTrie whose normalized names start with
+   * the normalized given prefix, from the best ranked to the worst.
+   *
+   * @param prefix the beginning of a stop name
+   * @param n the maximum number of stops to return
+   * @return the n best ranked stops whose names start with prefix
+   * @throws NullPointerException if prefix is null
+   * @throws IllegalArgumentException if n is negative
+   */
+  public List<Stop> getCompletions(String prefix, int n) {
+    Objects.requireNonNull(prefix);
+    if (n < 0) throw new IllegalArgumentException("n must be positive");
+    Node node = this.find(StopNameIndex.normalize(prefix));
+    List<Stop> res = new ArrayList<>();
+    if (node == null || n == 0) return res;
+    PriorityQueue<Pending> toVisit = new PriorityQueue<>(Comparator.comparingInt(Pending::rank));
+    toVisit.add(new Pending(node.best, node));
+    while (res.size() < n && !toVisit.isEmpty()) {
+      Pending pending = toVisit.poll();
+      Node visited = pending.node();
+      if (visited == null) {
+        res.add(this.stopsByRank[pending.rank()]);
+        continue;
+      }
+      for (int rank : visited.ranks) toVisit.add(new Pending(rank, null));
+      for (Node child : visited.children) toVisit.add(new Pending(child.best, child));
+    }
+    return res;
+  }
+
+  // Returns the highest node whose subtree holds exactly the names starting with prefix, or null
+  // if no name starts with prefix
+  private Node find(String prefix) {
+    Node node = this.root;
+    int i = 0;
+    while (i < prefix.length()) {
+      int index = node.indexOf(prefix.charAt(i));
+      if (index < 0) return null;
+      node = node.children[index];
+      int length = Math.min(node.label.length(), prefix.length() - i);
+      if (!prefix.regionMatches(i, node.label, 0, length)) return null;
+      i += length;
+    }
+    return node;
+  }
+}
@@ -0,0 +1,308 @@
+package dev.moriamap.model.network;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * An immutable index of the passages of the transports of a TransportNetwork at its stops. For
+ * every Stop of every Variant except the last one, it holds the sorted times at which the
+ * transports of the Variant pass at the Stop, as a primitive array of seconds since midnight (see
+ * {@link ServiceTime}). The next passage of a Variant at a Stop is found with a hash lookup and a
+ * binary search, wrapping around midnight like {@link Passages#getNextTimeWithWrap(LocalTime,
+ * String, String)}.
+ *
+ * <p>The passages of a Variant at a Stop also have a dense int id, between 0 and {@link
+ * #getPassagesCount()} - 1, so that the wait for a transport can be computed in seconds without
+ * creating any object (see {@link #getWaitSecondsWithWrap(int, int)}). The passages of the Variant
+ * of id v of the {@link VariantIndex} of the network have consecutive ids, in the order of its
+ * stops, so the id of the passages of a Variant at a Stop is found from the id of the Variant and
+ * the position of the Stop in it.
+ */
+public final class StopTimetableIndex {
+
+  // The passages of a variant at a stop in the order of the departures from the first stop. times
+  // holds them in seconds since midnight of the day of the departure, rounded up to the next
+  // second, so they are sorted but possibly not less than a day. nanos holds their fractions of
+  // second, or is null if they are all whole seconds, which is the case of most timetables.
+  private record Entry(Variant variant, int[] times, int[] nanos) {
+
+    // Returns the fraction of second of the i-th passage, in nanoseconds
+    private int getNanos(int i) {
+      return this.nanos == null ? 0 : this.nanos[i];
+    }
+
+    // Returns the exact time of day of the i-th passage
+    private LocalTime getPassage(int i) {
+      int nano = this.getNanos(i);
+      int seconds = this.times[i] - (nano > 0 ? 1 : 0);
+      return ServiceTime.toLocalTime(seconds).withNano(nano);
+    }
+  }
+
+  // The ids of the variants of the network
+  private final VariantIndex variantIndex;
+
+  // The entries, indexed by their id
+  private final Entry[] entryArray;
+
+  // The id of the first entry of each variant, indexed by the id of the variant, followed by the
+  // number of entries
+  private final int[] variantEntryStart;
+
+  // The entries of each stop, in the order of the variants of the network
+  private final Map<Stop, List<Entry>> stopEntries;
+
+  private StopTimetableIndex(
+      VariantIndex variantIndex,
+      List<Entry> entryList,
+      int[] variantEntryStart,
+      Map<Stop, List<Entry>> stopEntries) {
+    this.variantIndex = variantIndex;
+    this.entryArray = entryList.toArray(new Entry[0]);
+    this.variantEntryStart = variantEntryStart;
+    this.stopEntries = stopEntries;
+  }
+
+  /**
+   * {@return a new StopTimetableIndex of the passages of the transports of the given
+   * TransportNetwork}
+   *
+   * @param network the TransportNetwork whose passages are indexed
+   * @throws NullPointerException if network is null
+   * @throws NoSuchElementException if a Variant of network is not in the shape of a line
+   */
+  public static StopTimetableIndex of(TransportNetwork network) {
+    Objects.requireNonNull(network);
+    VariantIndex variantIndex = network.getVariantIndex();
+    List<Entry> entryList = new ArrayList<>();
+    int[] variantEntryStart = new int[variantIndex.getVariantCount() + 1];
+    Map<Stop, List<Entry>> stopEntries = new HashMap<>();
+    for (int v = 0; v < variantIndex.getVariantCount(); v++) {
+      variantEntryStart[v] = entryList.size();
+      Variant variant = variantIndex.getVariant(v);
+      if (variant.getTransportSegments().isEmpty()) continue;
+      List<LocalTime> departures = variant.getDepartures();
+      // The departures rounded up to the next second, and their fractions of second if any
+      int[] departureTimes = new int[departures.size()];
+      int[] nanos = null;
+      for (int j = 0; j < departureTimes.length; j++) {
+        departureTimes[j] = ServiceTime.toSecondsRoundedUp(departures.get(j));
+        if (departures.get(j).getNano() != 0) {
+          if (nanos == null) nanos = new int[departureTimes.length];
+          nanos[j] = departures.get(j).getNano();
+        }
+      }
+      List<Stop> stops = variant.getStops();
+      for (int i = 0; i < stops.size() - 1; i++) {
+        Stop stop = stops.get(i);
+        int offset = variant.getTravelSecondsTo(stop);
+        int[] times = new int[departureTimes.length];
+        for (int j = 0; j < times.length; j++) times[j] = departureTimes[j] + offset;
+        // The passages at the stops of a variant share the fractions of second of its departures
+        Entry entry = new Entry(variant, times, nanos);
+        entryList.add(entry);
+        stopEntries.computeIfAbsent(stop, s -> new ArrayList<>()).add(entry);
+      }
+    }
+    variantEntryStart[variantIndex.getVariantCount()] = entryList.size();
+    return new StopTimetableIndex(variantIndex, entryList, variantEntryStart, stopEntries);
+  }
+
+  /**
+   * Returns the time at which the next transport of the given Variant passes at the given Stop,
+   * like {@link Passages#getNextTimeWithWrap(LocalTime, String, String)}. If there are no
+   * transports left for the day, the time of the first transport of the next day is returned.
+   *
+   * @param stop the Stop where the transport is waited for
+   * @param waitStart time at which we start waiting at the stop
+   * @param variantName of the transport we are waiting for
+   * @param lineName of the transport we are waiting for
+   * @return time at which next transport will come, or null if no transport of the Variant passes
+   *     at the Stop. If waitStart is equal to the next transport time, it returns waitStart
+   */
+  public LocalTime getNextTimeWithWrap(
+      Stop stop, LocalTime waitStart, String variantName, String lineName) {
+    return this.getNextTimeWithWrap(this.getPassagesId(stop, variantName, lineName), waitStart);
+  }
+
+  /**
+   * Returns the time at which the next transport of the given passages passes, like {@link
+   * #getNextTimeWithWrap(Stop, LocalTime, String, String)} for the Stop and Variant of the
+   * passages.
+   *
+   * @param passages the id of the passages of a Variant at a Stop, or -1
+   * @param waitStart time at which we start waiting at the stop
+   * @return time at which next transport will come, or null if passages is -1 or the passages are
+   *     empty
+   * @throws IndexOutOfBoundsException if passages is not between -1 and getPassagesCount() - 1
+   */
+  public LocalTime getNextTimeWithWrap(int passages, LocalTime waitStart) {
+    if (passages == -1) return null;
+    Entry entry = this.entryArray[Objects.checkIndex(passages, this.entryArray.length)];
+    if (entry.times().length == 0) return null;
+    int[] times = entry.times();
+    int start = ServiceTime.toSecondsRoundedUp(waitStart);
+    // The number of seconds to add to times for times[0] to be in (start - 1 day, start]
+    int shift =
+        Math.floorDiv(start - times[0], ServiceTime.SECONDS_PER_DAY) * ServiceTime.SECONDS_PER_DAY;
+    int i = ServiceTime.firstIndexNotBefore(times, start - shift);
+    while (true) {
+      if (i == times.length) {
+        i = 0;
+        shift += ServiceTime.SECONDS_PER_DAY;
+      }
+      // A passage in the same second as waitStart may be just before it
+      if (times[i] + shift != start
+          || positionInSecond(entry.getNanos(i)) >= positionInSecond(waitStart.getNano()))
+        return entry.getPassage(i);
+      i++;
+    }
+  }
+
+  // Returns the position of a time whose fraction of second is nano in the second that ends at its
+  // value rounded up to the next second, in nanoseconds
+  private static int positionInSecond(int nano) {
+    return nano == 0 ? 1_000_000_000 : nano;
+  }
+
+  /**
+   * Returns the time one has to wait at the given Stop to ride the next transport of the given
+   * Variant, like {@link Passages#getWaitTimeWithWrap(LocalTime, String, String)}. It returns a
+   * Duration of zero if there is transport at waitStart. If the next transport comes the next day
+   * (after midnight), that's okay.
+   *
+   * @param stop the Stop where the transport is waited for
+   * @param waitStart time at which we start waiting
+   * @param variantName of the transport we are waiting for
+   * @param lineName of the transport we are waiting for
+   * @return the amount of time we have to wait until the next transport arrives, or null if no
+   *     transport of the Variant passes at the Stop
+   */
+  public Duration getWaitTimeWithWrap(
+      Stop stop, LocalTime waitStart, String variantName, String lineName) {
+    LocalTime nextTransportTime = this.getNextTimeWithWrap(stop, waitStart, variantName, lineName);
+    if (nextTransportTime == null) return null;
+    Duration toWait = Duration.between(waitStart, nextTransportTime);
+    if (toWait.isNegative()) toWait = toWait.plusDays(1);
+    return toWait;
+  }
+
+  /** {@return the number of passages ids of this StopTimetableIndex} */
+  public int getPassagesCount() {
+    return this.entryArray.length;
+  }
+
+  /**
+   * {@return the id of the passages of the given Variant at the given Stop, or -1 if the Variant
+   * does not leave the Stop}
+   *
+   * @param stop some Stop
+   * @param variantName the name of the Variant
+   * @param lineName the name of the Line of the Variant
+   */
+  public int getPassagesId(Stop stop, String variantName, String lineName) {
+    return this.getPassagesId(stop, this.variantIndex.getVariantId(lineName, variantName));
+  }
+
+  /**
+   * {@return the id of the passages of the Variant of the given id at the given Stop, or -1 if the
+   * Variant does not leave the Stop}
+   *
+   * @param stop some Stop
+   * @param variantId the id of a Variant in the VariantIndex of the network, or -1
+   */
+  public int getPassagesId(Stop stop, int variantId) {
+    if (variantId < 0 || variantId >= this.variantIndex.getVariantCount()) return -1;
+    int position = this.variantIndex.getVariant(variantId).indexOf(stop);
+    int id = this.variantEntryStart[variantId] + position;
+    return position < 0 || id >= this.variantEntryStart[variantId + 1] ? -1 : id;
+  }
+
+  /**
+   * {@return the id of the passages of the transports of the given TransportSegment at its first
+   * Stop, or -1 if its Variant does not leave the Stop} The Variant of the segment is found by
+   * {@link VariantIndex#getVariantId(TransportSegment)}.
+   *
+   * @param segment some TransportSegment
+   * @throws NullPointerException if segment is null
+   */
+  public int getPassagesId(TransportSegment segment) {
+    return this.getPassagesId((Stop) segment.getFrom(), this.variantIndex.getVariantId(segment));
+  }
+
+  /**
+   * Returns the number of whole seconds one has to wait to ride the next transport of the given
+   * passages when starting to wait at waitStart. It is the number of seconds of {@link
+   * #getWaitTimeWithWrap(Stop, LocalTime, String, String)} for the same passages and a waitStart of
+   * {@code ServiceTime.toLocalTime(waitStart)}, but it creates no object.
+   *
+   * @param passages the id of the passages of a Variant at a Stop
+   * @param waitStart the time at which we start waiting, in seconds since midnight, possibly on
+   *     another day
+   * @return the number of seconds to wait, or -1 if the passages are empty
+   * @throws IndexOutOfBoundsException if passages is not between 0 and getPassagesCount() - 1
+   */
+  public int getWaitSecondsWithWrap(int passages, int waitStart) {
+    Entry entry = this.entryArray[Objects.checkIndex(passages, this.entryArray.length)];
+    int[] times = entry.times();
+    if (times.length == 0) return -1;
+    int start = Math.floorMod(waitStart, ServiceTime.SECONDS_PER_DAY);
+    int shift =
+        Math.floorDiv(start - times[0], ServiceTime.SECONDS_PER_DAY) * ServiceTime.SECONDS_PER_DAY;
+    int i = ServiceTime.firstIndexNotBefore(times, start - shift);
+    while (true) {
+      if (i == times.length) {
+        i = 0;
+        shift += ServiceTime.SECONDS_PER_DAY;
+      }
+      // A passage with a fraction of second is rounded up in times, so it is before start if it is
+      // rounded up to start, and the wait is truncated to one second less
+      boolean exact = entry.getNanos(i) == 0;
+      if (times[i] + shift != start || exact) return times[i] + shift - start - (exact ? 0 : 1);
+      i++;
+    }
+  }
+
+  /**
+   * {@return true if at least one transport of the given Variant passes at the given Stop}
+   *
+   * @param stop some Stop
+   * @param variantName the name of the Variant
+   * @param lineName the name of the Line of the Variant
+   */
+  public boolean hasPassages(Stop stop, String variantName, String lineName) {
+    return this.hasPassages(this.getPassagesId(stop, variantName, lineName));
+  }
+
+  /**
+   * {@return true if at least one transport of the given TransportSegment leaves its first Stop}
+   *
+   * @param segment some TransportSegment
+   * @throws NullPointerException if segment is null
+   */
+  public boolean hasPassages(TransportSegment segment) {
+    return this.hasPassages(this.getPassagesId(segment));
+  }
+
+  // Returns true if the passages of the given id, or -1, are not empty
+  private boolean hasPassages(int passages) {
+    return passages >= 0 && this.entryArray[passages].times().length > 0;
+  }
+
+  /**
+   * {@return the TransportSchedules of all the passages at the given Stop, grouped by Variant in
+   * the order of the variants of the network, and in the order of their departure from the first
+   * Stop of the Variant}
+   *
+   * @param stop some Stop
+   */
+  public List<TransportSchedule> getTransportSchedules(Stop stop) {
+    List<TransportSchedule> res = new ArrayList<>();
+    for (Entry entry : this.stopEntries.getOrDefault(stop, List.of())) {
+      for (int i = 0; i < entry.times().length; i++)
+        res.add(new TransportSchedule(entry.getPassage(i), stop, entry.variant()));
+    }
+    return res;
+  }
+}
@@ -1,22 +1,95 @@
 package dev.moriamap.model.network;
 
 import dev.moriamap.model.query.PrettyPrinter;
-import java.time.Duration;
 import java.time.LocalTime;
 import java.util.*;
 
 /**
  * Represents an arbitrary transport network. A TransportNetwork contains Lines. It also contains
  * Stops and TransportSegments which are used for path calculations on the underlying Graph.
+ *
+ * <p>A TransportNetwork is built by adding lines, stops, segments and departures to it, then it can
+ * be frozen (see {@link #freeze()}). A frozen TransportNetwork cannot change and has all its
+ * derived data built, so any number of threads can query it at the same time without locking.
  */
 public final class TransportNetwork extends Graph {
   private final List<Line> lines;
 
+  // The lines of this network by name, in the order of lines
+  private final Map<String, List<Line>> linesByName;
+
+  // The stops of this network by name
+  private final Map<String, Stop> stopsByName;
+
+  // Whether this network, its lines and its variants can no longer change
+  private final boolean frozen;
+
+  // The number of lines, variants, transport segments of variants and departures added to this
+  // network, kept up to date by its lines
+  private long scheduleVersion = 0;
+
+  // The highest crow-fly speed of the transport segments of this network, in meters per second
+  private double maxCrowFlySpeed = 0.0;
+
+  // The lowest ratio of the distance of a transport segment to the crow-fly distance between its
+  // ends, both in kilometers
+  private double minDistanceToCrowFlyRatio = Double.POSITIVE_INFINITY;
+
+  // The connections of this network and the stops and departures of its variants as flat tables,
+  // built on first use
+  private final DerivedDataCache<ConnectionTable> connectionTable =
+      new DerivedDataCache<>(ConnectionTable::of);
+  private final DerivedDataCache<VariantTimetable> variantTimetable =
+      new DerivedDataCache<>(VariantTimetable::of);
+
+  // The passages at each stop of this network, built on first use
+  private final DerivedDataCache<StopTimetableIndex> stopTimetableIndex =
+      new DerivedDataCache<>(StopTimetableIndex::of);
+
+  // The ids of the lines and variants of this network, built on first use
+  private final DerivedDataCache<VariantIndex> variantIndex =
+      new DerivedDataCache<>(VariantIndex::of);
+
+  // The geographic vertices of this network as a k-d tree, built on first use
+  private final DerivedDataCache<SpatialIndex> spatialIndex =
+      new DerivedDataCache<>(tn -> SpatialIndex.of(tn.getGeographicVertices()));
+
+  // The stops by name for inexact name searches, built on first use
+  private final DerivedDataCache<StopNameIndex> stopNameIndex =
+      new DerivedDataCache<>(tn -> StopNameIndex.of(tn.getStops()));
+
+  // The stops by name for completions of prefixes, built on first use
+  private final DerivedDataCache<StopNameTrie> stopNameTrie =
+      new DerivedDataCache<>(tn -> StopNameTrie.of(tn.getStops()));
+
+  // The footpaths between the stops of this network, and this network with them added over it
+  private record Footpaths(FootpathTable table, OverlayGraph graph) {}
+
+  // The footpaths of this network, built on first use
+  private final DerivedDataCache<Footpaths> footpaths =
+      new DerivedDataCache<>(TransportNetwork::buildFootpaths);
+
   private static final String ERR_NULL_ARG_MESSAGE = "Argument cannot be null";
 
   private TransportNetwork() {
     super();
     this.lines = new ArrayList<>();
+    this.linesByName = new HashMap<>();
+    this.stopsByName = new HashMap<>();
+    this.frozen = false;
+  }
+
+  // Creates a frozen copy of other with the given lines. They are new lines, so the copy builds
+  // its own derived data
+  private TransportNetwork(TransportNetwork other, List<Line> lines) {
+    super(other);
+    this.lines = new ArrayList<>(lines);
+    this.linesByName = new HashMap<>();
+    for (Line line : lines) this.indexLine(line);
+    this.stopsByName = new HashMap<>(other.stopsByName);
+    this.frozen = true;
+    this.maxCrowFlySpeed = other.maxCrowFlySpeed;
+    this.minDistanceToCrowFlyRatio = other.minDistanceToCrowFlyRatio;
   }
 
   /** {@return a new empty TransportNetwork with no lines, no stops and no transport segments} */
@@ -24,6 +97,95 @@ public final class TransportNetwork extends Graph {
     return new TransportNetwork();
   }
 
+  /**
+   * Returns a frozen copy of this TransportNetwork, with the same stops, segments, geographic
+   * vertices and traversal strategy, and frozen copies of its lines and variants. Nothing can be
+   * added to or removed from a frozen TransportNetwork, its lines or its variants: the methods that
+   * would change them throw an UnsupportedOperationException. The IndexedGraph, the
+   * StopTimetableIndex, the ConnectionTable, the VariantTimetable, the SpatialIndex and the
+   * FootpathTable of the copy are built by this method, so reading a frozen TransportNetwork never
+   * changes it, and it can be read by several threads at the same time once it is safely published
+   * to them.
+   *
+   * <p>Queries that need temporary vertices and edges add them to an {@link OverlayGraph} over a
+   * frozen TransportNetwork.
+   *
+   * @return a frozen copy of this TransportNetwork, or this TransportNetwork if it is frozen
+   * @throws NoSuchElementException if a Variant of this network is not in the shape of a line
+   */
+  public TransportNetwork freeze() {
+    if (this.frozen) return this;
+    List<Line> frozenLines = new ArrayList<>();
+    for (Line line : this.lines) frozenLines.add(line.frozenCopy());
+    TransportNetwork res = new TransportNetwork(this, frozenLines);
+    res.getIndexedGraph();
+    res.getVariantIndex();
+    res.getStopTimetableIndex();
+    res.getConnectionTable();
+    res.getVariantTimetable();
+    res.getSpatialIndex();
+    res.getStopNameIndex();
+    res.getStopNameTrie();
+    res.getGraphWithFootpaths().getIndexedGraph();
+    return res;
+  }
+
+  /** {@return true if this TransportNetwork is frozen (see {@link #freeze()})} */
+  public boolean isFrozen() {
+    return this.frozen;
+  }
+
+  /**
+   * Returns the footpaths of at most {@link FootpathTable#DEFAULT_RADIUS} meters between the stops
+   * of this TransportNetwork. The table is built on first use and kept until a Vertex or an Edge is
+   * added to or removed from this network.
+   *
+   * @return the FootpathTable of this TransportNetwork
+   */
+  public FootpathTable getFootpathTable() {
+    return this.getFootpaths().table();
+  }
+
+  /**
+   * Returns an OverlayGraph over this TransportNetwork with every footpath of {@link
+   * #getFootpathTable()} added over it, so that routes can walk from any Stop to the stops nearby.
+   * It is built with the FootpathTable and kept as long as it. It is shared by every query, so it
+   * is frozen (see {@link OverlayGraph#isFrozen()}): queries add their vertices and edges to an
+   * OverlayGraph over it.
+   *
+   * @return this TransportNetwork with its footpaths, which cannot be changed
+   */
+  public OverlayGraph getGraphWithFootpaths() {
+    return this.getFootpaths().graph();
+  }
+
+  // Returns the footpaths of this network, building them if the network has changed since they
+  // were built
+  private Footpaths getFootpaths() {
+    return this.footpaths.get(this, this.getModificationCount());
+  }
+
+  // Returns the footpaths between the stops of this network and this network with them added over
+  // it
+  private Footpaths buildFootpaths() {
+    FootpathTable table = FootpathTable.of(this, FootpathTable.DEFAULT_RADIUS);
+    OverlayGraph graph = OverlayGraph.over(this);
+    for (Stop stop : this.getStops())
+      for (WalkSegment footpath : table.getFootpathsFrom(stop)) graph.addEdge(footpath);
+    graph.freeze();
+    return new Footpaths(table, graph);
+  }
+
+  /**
+   * Throws an UnsupportedOperationException if this TransportNetwork is frozen.
+   *
+   * @throws UnsupportedOperationException if this TransportNetwork is frozen
+   */
+  @Override
+  protected void checkModifiable() {
+    if (this.frozen) throw new UnsupportedOperationException("This TransportNetwork is frozen");
+  }
+
   /**
    * {@return the Stop at position gp in the transport network, or null if not found}
    *
@@ -32,31 +194,30 @@ public final class TransportNetwork extends Graph {
    */
   public Stop getStopFromPosition(GeographicPosition gp) {
     if (gp == null) throw new IllegalArgumentException(ERR_NULL_ARG_MESSAGE);
-    for (Stop s : this.getStops()) {
-      if (s.getGeographicPosition().equals(gp)) return s;
+    for (GeographicVertex v : this.getSpatialIndex().getAt(gp)) {
+      if (v.getClass() == Stop.class) return (Stop) v;
     }
     return null;
   }
 
+  /**
+   * Returns the geographic vertices of this TransportNetwork, including its stops, as a {@link
+   * SpatialIndex}. It is built on first use and kept until a Vertex or an Edge is added to or
+   * removed from this network.
+   *
+   * @return the SpatialIndex of the geographic vertices of this TransportNetwork
+   */
+  public SpatialIndex getSpatialIndex() {
+    return this.spatialIndex.get(this, this.getModificationCount());
+  }
+
   /**
    * {@return a list containing all the Passages for a given Stop }
    *
    * @param s the Stop for which we want the Passages
    */
   public Passages getPassages(Stop s) {
-    List<Variant> variantsOfStop = new ArrayList<>();
-    for (Variant v : this.getVariants()) {
-      if (v.getStops().contains(s) && !s.equals(v.getEnd())) variantsOfStop.add(v);
-    }
-    List<TransportSchedule> transportSchedules = new ArrayList<>();
-    for (Variant v : variantsOfStop) {
-      Duration travelTime = v.getTravelTimeTo(s);
-      for (LocalTime t : v.getDepartures()) {
-        TransportSchedule ts = new TransportSchedule(t.plus(travelTime), s, v);
-        transportSchedules.add(ts);
-      }
-    }
-    return Passages.of(transportSchedules);
+    return Passages.of(this.getStopTimetableIndex().getTransportSchedules(s));
   }
 
   /**
@@ -67,57 +228,73 @@ public final class TransportNetwork extends Graph {
    */
   public Stop getStopByName(String name) {
     if (name == null) throw new IllegalArgumentException(ERR_NULL_ARG_MESSAGE);
-    for (Stop s : this.getStops()) {
-      if (s.getName().equals(name)) return s;
-    }
-    return null;
+    return this.stopsByName.get(name);
   }
 
   /**
    * Finds the stop in the transport network stop list that has the closest name to the given stop
-   * name, as measured by the Levenshtein distance.
+   * name, as measured by the Levenshtein distance between names in lower case and without accents
+   * (see {@link StopNameIndex}).
    *
    * @param name the name of the stop to find the closest match for
    * @return the stop in the list with the closest name to the given stop name, or null if no match
    *     was found
+   * @throws IllegalArgumentException if name is null
    */
   public Stop getStopByInexactName(String name) {
-    var stops = this.getStops();
-    var min = StopNameFinder.levenshteinDistance(name, stops.get(0).getName());
-    var res = stops.get(0);
-    for (int i = 1; i < stops.size(); i++) {
-      var distance = StopNameFinder.levenshteinDistance(name, stops.get(i).getName());
-      if (distance < min) {
-        min = distance;
-        res = stops.get(i);
-      }
-    }
+    if (name == null) throw new IllegalArgumentException(ERR_NULL_ARG_MESSAGE);
     // If the closest match is more than three edit operations away, return null
-    if (min >= 3) return null;
-    return res;
+    List<Stop> closest = this.getStopNameIndex().getNearest(name, 1, 2);
+    return closest.isEmpty() ? null : closest.get(0);
   }
 
   /**
-   * Returns a list of the X nearest stops to the given name, based on their Levenshtein distance.
+   * Returns a list of the X nearest stops to the given name, based on the Levenshtein distance
+   * between names in lower case and without accents (see {@link StopNameIndex}).
    *
    * @param name the name to compare to.
    * @param x the number of nearest stops to return.
    * @return a list of the X nearest stop to the given name.
+   * @throws IllegalArgumentException if name is null
    */
   public List<Stop> getNearestStopsByInexactName(String name, int x) {
-    Map<Stop, Integer> distances = new HashMap<>();
-    var stops = this.getStops();
-    for (Stop stop : stops) {
-      int distance = StopNameFinder.levenshteinDistance(name, stop.getName());
-      distances.put(stop, distance);
-    }
-    List<Stop> sortedNames = new ArrayList<>(distances.keySet());
-    sortedNames.sort(Comparator.comparingInt(distances::get));
-    List<Stop> nearestNames = new ArrayList<>();
-    for (int i = 0; i < Math.min(x, sortedNames.size()); i++) {
-      nearestNames.add(sortedNames.get(i));
-    }
-    return nearestNames;
+    if (name == null) throw new IllegalArgumentException(ERR_NULL_ARG_MESSAGE);
+    return this.getStopNameIndex().getNearest(name, Math.max(x, 0));
+  }
+
+  /**
+   * Returns the stops of this TransportNetwork as a {@link StopNameIndex}. It is built on first use
+   * and kept until a Vertex or an Edge is added to or removed from this network.
+   *
+   * @return the StopNameIndex of the stops of this TransportNetwork
+   */
+  public StopNameIndex getStopNameIndex() {
+    return this.stopNameIndex.get(this, this.getModificationCount());
+  }
+
+  /**
+   * Returns at most n stops whose names start with the given prefix, ignoring case and accents,
+   * from the shortest name to the longest (see {@link StopNameTrie}).
+   *
+   * @param prefix the beginning of a stop name
+   * @param n the maximum number of stops to return
+   * @return the at most n stops with the shortest names starting with prefix
+   * @throws IllegalArgumentException if prefix is null
+   */
+  public List<Stop> getStopsByNamePrefix(String prefix, int n) {
+    if (prefix == null) throw new IllegalArgumentException(ERR_NULL_ARG_MESSAGE);
+    return this.getStopNameTrie().getCompletions(prefix, Math.max(n, 0));
+  }
+
+  /**
+   * Returns the stops of this TransportNetwork as a {@link StopNameTrie} ranking the shortest names
+   * first. It is built on first use and kept until a Vertex or an Edge is added to or removed from
+   * this network.
+   *
+   * @return the StopNameTrie of the stops of this TransportNetwork
+   */
+  public StopNameTrie getStopNameTrie() {
+    return this.stopNameTrie.get(this, this.getModificationCount());
   }
 
   /** {@return the lines (e.g. bus, tram) of this network} */
@@ -155,11 +332,23 @@ public final class TransportNetwork extends Graph {
    * @return true if added, false if already present
    * @param line the Line to add
    * @throws IllegalArgumentException if line is null
+   * @throws UnsupportedOperationException if this TransportNetwork is frozen
    */
   public boolean addLine(Line line) {
     if (line == null) throw new IllegalArgumentException(ERR_NULL_ARG_MESSAGE);
-    if (lines.contains(line)) return false;
-    return lines.add(line);
+    this.checkModifiable();
+    List<Line> named = this.linesByName.get(line.getName());
+    if (named != null && named.contains(line)) return false;
+    this.indexLine(line);
+    lines.add(line);
+    line.addedTo(this);
+    this.scheduleChanged();
+    return true;
+  }
+
+  // Adds line to the lines of this network by name
+  private void indexLine(Line line) {
+    this.linesByName.computeIfAbsent(line.getName(), n -> new ArrayList<>(1)).add(line);
   }
 
   /**
@@ -170,8 +359,7 @@ public final class TransportNetwork extends Graph {
    */
   public Stop findStop(Stop stop) {
     if (stop == null) throw new IllegalArgumentException(ERR_NULL_ARG_MESSAGE);
-    for (Stop s : this.getStops()) if (s.equals(stop)) return s;
-    return null;
+    return this.stopsByName.get(stop.getName());
   }
 
   /**
@@ -182,26 +370,184 @@ public final class TransportNetwork extends Graph {
    */
   public Line findLine(String name) {
     if (name == null) throw new IllegalArgumentException(ERR_NULL_ARG_MESSAGE);
-    for (Line l : this.getLines()) if (l.getName().equals(name)) return l;
-    return null;
+    List<Line> named = this.linesByName.get(name);
+    return named == null ? null : named.get(0);
+  }
+
+  /**
+   * {@return the Variant of the given name of the Line of the given name, or null if not found}
+   * Like {@link #findLine(String)} and {@link Line#getVariantNamed(String)}, it returns the first
+   * Variant of that name of the first Line of that name.
+   *
+   * @param lineName the name of the Line of the Variant
+   * @param variantName the name of the Variant
+   * @throws IllegalArgumentException if lineName or variantName is null
+   */
+  public Variant findVariant(String lineName, String variantName) {
+    if (lineName == null || variantName == null)
+      throw new IllegalArgumentException(ERR_NULL_ARG_MESSAGE);
+    Line line = this.findLine(lineName);
+    if (line == null || !line.containsVariantNamed(variantName)) return null;
+    return line.getVariantNamed(variantName);
   }
 
   /**
    * Add a Stop to this TransportNetwork. This will actually add a Vertex to the Graph.
    *
    * @param stop the Stop to add
+   * @throws UnsupportedOperationException if this TransportNetwork is frozen
    */
   public void addStop(Stop stop) {
     this.addVertex(stop);
   }
 
+  /**
+   * Adds the specified vertex to this TransportNetwork, indexing it by name if it is a Stop. If it
+   * is already present, does nothing.
+   *
+   * @param vertex the Vertex to add
+   * @throws IllegalArgumentException if the given vertex is null
+   * @throws UnsupportedOperationException if this TransportNetwork is frozen
+   */
+  @Override
+  protected void addVertex(Vertex vertex) {
+    super.addVertex(vertex);
+    if (vertex.getClass() == Stop.class) {
+      Stop stop = (Stop) vertex;
+      this.stopsByName.putIfAbsent(stop.getName(), stop);
+    }
+  }
+
+  /**
+   * Removes the given vertex from this TransportNetwork and all edges that have this vertex on
+   * either side.
+   *
+   * @param v the vertex to be removed
+   * @throws NoSuchElementException if the vertex is not found
+   * @throws UnsupportedOperationException if this TransportNetwork is frozen
+   */
+  @Override
+  protected void removeVertex(Vertex v) {
+    super.removeVertex(v);
+    if (v.getClass() == Stop.class) this.stopsByName.remove(((Stop) v).getName(), v);
+  }
+
   /**
    * Add a TransportSegment to this TransportNetwork. This will actually add an Edge to the Graph.
    *
    * @param transportSegment the TransportSegment to add
+   * @throws UnsupportedOperationException if this TransportNetwork is frozen
    */
   public void addTransportSegment(TransportSegment transportSegment) {
     this.addEdge(transportSegment);
+    GeographicPosition from = ((Stop) transportSegment.getFrom()).getGeographicPosition();
+    GeographicPosition to = ((Stop) transportSegment.getTo()).getGeographicPosition();
+    double crowFlyDistance = from.distanceFrom(to);
+    if (crowFlyDistance > 0.0) {
+      long seconds = transportSegment.getTravelDuration().toSeconds();
+      double speed = seconds > 0 ? crowFlyDistance / seconds : Double.POSITIVE_INFINITY;
+      this.maxCrowFlySpeed = Math.max(this.maxCrowFlySpeed, speed);
+      double ratio = transportSegment.getDistance() / (crowFlyDistance / 1000.0);
+      this.minDistanceToCrowFlyRatio = Math.min(this.minDistanceToCrowFlyRatio, ratio);
+    }
+  }
+
+  /**
+   * Returns the highest speed, in meters per second, at which a transport of this network moves
+   * between the ends of one of its TransportSegments, measured as the crow-fly distance between the
+   * ends divided by the travel duration. It is maintained as TransportSegments are added, so any
+   * route of transport segments takes at least the crow-fly distance between its ends divided by
+   * this speed.
+   *
+   * @return the highest crow-fly speed of the TransportSegments of this network, or 0.0 if there
+   *     are none
+   */
+  public double getMaxCrowFlySpeed() {
+    return this.maxCrowFlySpeed;
+  }
+
+  /**
+   * Returns the lowest ratio of the distance of a TransportSegment of this network to the crow-fly
+   * distance between its ends, both in kilometers. It is maintained as TransportSegments are added,
+   * so any route of transport segments is at least as long as the crow-fly distance between its
+   * ends multiplied by this ratio.
+   *
+   * @return the lowest ratio of distance to crow-fly distance of the TransportSegments of this
+   *     network, or Double.POSITIVE_INFINITY if there are none
+   */
+  public double getMinDistanceToCrowFlyRatio() {
+    return this.minDistanceToCrowFlyRatio;
+  }
+
+  /**
+   * Returns the StopTimetableIndex of the passages at the stops of this TransportNetwork. It is
+   * built on first use and kept until a Line, a Variant, a TransportSegment of a Variant or a
+   * departure is added. It serves getPassages(Stop), the next passages of getRouteDescription and
+   * the weight functions of traversals.
+   *
+   * @return the StopTimetableIndex of this TransportNetwork
+   * @throws NoSuchElementException if a Variant of this network is not in the shape of a line
+   */
+  public StopTimetableIndex getStopTimetableIndex() {
+    return this.stopTimetableIndex.get(this, this.scheduleVersion());
+  }
+
+  /**
+   * Returns the VariantIndex giving dense ids to the lines and variants of this TransportNetwork.
+   * It is built on first use and kept until a Line, a Variant, a TransportSegment of a Variant or a
+   * departure is added.
+   *
+   * @return the VariantIndex of this TransportNetwork
+   */
+  public VariantIndex getVariantIndex() {
+    return this.variantIndex.get(this, this.scheduleVersion());
+  }
+
+  /**
+   * Returns the ConnectionTable of the connections of this TransportNetwork. It is built on first
+   * use and kept until a Line, a Variant, a TransportSegment of a Variant or a departure is added.
+   *
+   * @return the ConnectionTable of this TransportNetwork
+   * @throws NoSuchElementException if a Variant of this network is not in the shape of a line
+   */
+  public ConnectionTable getConnectionTable() {
+    return this.connectionTable.get(this, this.scheduleVersion());
+  }
+
+  /**
+   * Returns the VariantTimetable of the variants of this TransportNetwork. It is built on first use
+   * and kept until a Line, a Variant, a TransportSegment of a Variant or a departure is added.
+   *
+   * @return the VariantTimetable of this TransportNetwork
+   * @throws NoSuchElementException if a Variant of this network is not in the shape of a line
+   */
+  public VariantTimetable getVariantTimetable() {
+    return this.variantTimetable.get(this, this.scheduleVersion());
+  }
+
+  /**
+   * Returns a number that grows whenever this TransportNetwork changes: when a vertex or an edge is
+   * added to or removed from it, or when a Line, a Variant, a TransportSegment of a Variant or a
+   * departure is added to it, including departures added to its variants directly. Data computed
+   * from this network is still valid as long as its version is the same. The version of a frozen
+   * TransportNetwork never changes.
+   *
+   * @return the version of this TransportNetwork
+   */
+  public long getVersion() {
+    return this.getModificationCount() + this.scheduleVersion();
+  }
+
+  // Returns a number that grows whenever a line, a variant, a transport segment of a variant or a
+  // departure is added to this network
+  private long scheduleVersion() {
+    return this.scheduleVersion;
+  }
+
+  // Records that a line, a variant, a transport segment of a variant or a departure was added to
+  // this network
+  void scheduleChanged() {
+    this.scheduleVersion++;
   }
 
   /**
@@ -214,14 +560,12 @@ public final class TransportNetwork extends Graph {
    *     PrettyPrinter.printTransportSegmentPathWithLineChangeTimes()
    */
   public String getRouteDescription(List<Edge> route, LocalTime startTime) {
+    StopTimetableIndex index = this.getStopTimetableIndex();
     LocalTime cur = startTime;
     List<LocalTime> lts = new ArrayList<>();
     for (Edge e : route) {
       if (e instanceof TransportSegment transportSegment) {
-        Passages p = this.getPassages((Stop) e.getFrom());
-        LocalTime next =
-            p.getNextTimeWithWrap(
-                cur, transportSegment.getVariantName(), transportSegment.getLineName());
+        LocalTime next = index.getNextTimeWithWrap(index.getPassagesId(transportSegment), cur);
         if (next == null)
           throw new IllegalStateException(
               "There are no transports on the line "
@@ -246,17 +590,16 @@ public final class TransportNetwork extends Graph {
    * @param departureTime the departure time to add to the variant
    * @return true if the departure was added, false if not or if the line was not found
    * @throws IllegalArgumentException if lineName, variantName or variantName are null
+   * @throws UnsupportedOperationException if this TransportNetwork is frozen
    */
   public boolean addDepartureToVariant(
       String lineName, String variantName, LocalTime departureTime) {
     if (lineName == null || variantName == null || departureTime == null)
       throw new IllegalArgumentException(ERR_NULL_ARG_MESSAGE);
-    for (Line l : this.getLines()) {
-      if (l.getName().equals(lineName)) {
-        return l.getVariantNamed(variantName).addDeparture(departureTime);
-      }
-    }
-    return false;
+    this.checkModifiable();
+    Line line = this.findLine(lineName);
+    if (line == null) return false;
+    return line.getVariantNamed(variantName).addDeparture(departureTime);
   }
 
   /**
@@ -265,6 +608,7 @@ public final class TransportNetwork extends Graph {
    *
    * @param geoVertex the GeographicVertex to add
    * @throws NullPointerException if the given GeographicVertex is null
+   * @throws UnsupportedOperationException if this TransportNetwork is frozen
    */
   public void addGeographicVertex(GeographicVertex geoVertex) {
     Objects.requireNonNull(geoVertex);
@@ -278,6 +622,7 @@ public final class TransportNetwork extends Graph {
    * @param geoVertex the GeographicVertex to be removed
    * @throws NoSuchElementException if the GeographicVertex is not found
    * @throws NullPointerException if the given GeographicVertex is null
+   * @throws UnsupportedOperationException if this TransportNetwork is frozen
    */
   public void removeGeographicVertex(GeographicVertex geoVertex) {
     Objects.requireNonNull(geoVertex);
@@ -303,6 +648,7 @@ public final class TransportNetwork extends Graph {
    *
    * @param walkSegment the WalkSegment to add
    * @throws IllegalArgumentException if the WalkSegment is null
+   * @throws UnsupportedOperationException if this TransportNetwork is frozen
    */
   public void addWalkSegment(WalkSegment walkSegment) {
     this.addEdge(walkSegment);
@@ -314,6 +660,7 @@ public final class TransportNetwork extends Graph {
    * @param walkSegment the WalkSegment to be removed
    * @throws NullPointerException if walkSegment is null
    * @throws NoSuchElementException if the WalkSegment is not found
+   * @throws UnsupportedOperationException if this TransportNetwork is frozen
    */
   public void removeWalkSegment(WalkSegment walkSegment) {
     this.removeEdge(walkSegment);
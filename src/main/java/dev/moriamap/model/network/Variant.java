@@ -3,8 +3,13 @@ package dev.moriamap.model.network;
 import java.time.Duration;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * Represents a Line variant, a unidirectional traversal of a Line such that the first Stop has no
@@ -23,8 +28,45 @@ public final class Variant {
   /** The TransportSegments in this Variant. */
   private final List<TransportSegment> transportSegments;
 
-  /** The departures of transports from this Variant first Stop. */
-  private final List<LocalTime> departures;
+  /** The same TransportSegments, to find whether one is in this Variant without a scan. */
+  private final Set<TransportSegment> transportSegmentSet;
+
+  /**
+   * The departures of transports from this Variant first Stop in ascending order, as whole seconds
+   * since midnight (see {@link ServiceTime}), in the first departureCount elements.
+   */
+  private int[] departureSeconds = new int[0];
+
+  /** The fractions of second of the departures in nanoseconds, or null if there are none. */
+  private int[] departureNanos = null;
+
+  /** The number of departures of this Variant. */
+  private int departureCount = 0;
+
+  // The lines this Variant was added to, told when its segments or departures change
+  private final List<Line> lines = new ArrayList<>(1);
+
+  // Whether the segments and departures of this Variant can no longer change
+  private boolean frozen = false;
+
+  // The traversal of the segments of this Variant, computed on first use and forgotten when a
+  // segment is added
+  private Traversal traversal = null;
+
+  // The first and last Stop of a Variant, or null if there is none, the stops of its segments, the
+  // first outgoing segment of each Stop, and the stops reached from the first Stop by following the
+  // outgoing segments, with their position, the travel time from the first Stop to each of them,
+  // as a sum of the whole seconds of each segment and exactly, and whether the last Stop is reached
+  private record Traversal(
+      Stop start,
+      Stop end,
+      Set<Stop> stops,
+      Map<Stop, TransportSegment> outgoingSegments,
+      List<Stop> path,
+      Map<Stop, Integer> positions,
+      int[] travelSeconds,
+      Duration[] travelTimes,
+      boolean complete) {}
 
   /**
    * Class constructor specifying variant name and owner line name
@@ -36,7 +78,7 @@ public final class Variant {
     this.name = name;
     this.lineName = lineName;
     this.transportSegments = new ArrayList<>();
-    this.departures = new ArrayList<>();
+    this.transportSegmentSet = new HashSet<>();
   }
 
   /**
@@ -59,18 +101,12 @@ public final class Variant {
    * only one first stop and be in the shape of a line (not a circular shape or a fork).
    *
    * @return the first Stop of this Variant
+   * @throws NoSuchElementException if every Stop of this Variant is a destination
    */
   public Stop getStart() {
-    List<Stop> stops = new ArrayList<>();
-    List<Stop> prevTo = new ArrayList<>();
-    for (TransportSegment ts : transportSegments) {
-      Stop from = (Stop) ts.getFrom();
-      Stop to = (Stop) ts.getTo();
-      prevTo.add(to);
-      stops.remove(to);
-      if (!prevTo.contains(from)) stops.add(from);
-    }
-    return stops.get(0);
+    Stop start = this.getTraversal().start();
+    if (start == null) throw new NoSuchElementException("Variant has no first stop");
+    return start;
   }
 
   /**
@@ -79,18 +115,77 @@ public final class Variant {
    * one first stop and be in the shape of a line.
    *
    * @return the last Stop of this Variant
+   * @throws NoSuchElementException if every Stop of this Variant is a departure
    */
   public Stop getEnd() {
-    List<Stop> stops = new ArrayList<>();
-    List<Stop> prevFrom = new ArrayList<>();
-    for (TransportSegment ts : transportSegments) {
+    Stop end = this.getTraversal().end();
+    if (end == null) throw new NoSuchElementException("Variant has no last stop");
+    return end;
+  }
+
+  // Returns the traversal of the segments of this Variant, computing it if a segment was added
+  // since it was last computed
+  private Traversal getTraversal() {
+    if (this.traversal == null) this.traversal = this.computeTraversal();
+    return this.traversal;
+  }
+
+  // Computes the traversal of the segments of this Variant in time linear in their number. The
+  // first Stop is the departure of the first segment in order which is no segment destination, and
+  // the last Stop is the destination of the first segment which is no segment departure.
+  private Traversal computeTraversal() {
+    Set<Stop> departures = new HashSet<>();
+    Set<Stop> destinations = new HashSet<>();
+    Map<Stop, TransportSegment> outgoingSegments = new HashMap<>();
+    for (TransportSegment ts : this.transportSegments) {
       Stop from = (Stop) ts.getFrom();
-      Stop to = (Stop) ts.getTo();
-      prevFrom.add(from);
-      stops.remove(from);
-      if (!prevFrom.contains(to)) stops.add(to);
+      departures.add(from);
+      destinations.add((Stop) ts.getTo());
+      outgoingSegments.putIfAbsent(from, ts);
+    }
+    Stop start = null;
+    Stop end = null;
+    for (TransportSegment ts : this.transportSegments) {
+      if (start == null && !destinations.contains(ts.getFrom())) start = (Stop) ts.getFrom();
+      if (end == null && !departures.contains(ts.getTo())) end = (Stop) ts.getTo();
+    }
+    Set<Stop> stops = new HashSet<>(departures);
+    stops.addAll(destinations);
+
+    List<Stop> path = new ArrayList<>();
+    Map<Stop, Integer> positions = new HashMap<>();
+    int[] travelSeconds = new int[stops.size()];
+    Duration[] travelTimes = new Duration[stops.size()];
+    boolean complete = false;
+    Stop cur = start;
+    int seconds = 0;
+    Duration time = Duration.ZERO;
+    // Each Stop is reached at most once, so a loop stops the traversal
+    while (cur != null && !positions.containsKey(cur)) {
+      positions.put(cur, path.size());
+      travelSeconds[path.size()] = seconds;
+      travelTimes[path.size()] = time;
+      path.add(cur);
+      if (cur.equals(end)) {
+        complete = true;
+        break;
+      }
+      TransportSegment ts = outgoingSegments.get(cur);
+      if (ts == null) break;
+      seconds += (int) ts.getTravelDuration().toSeconds();
+      time = time.plus(ts.getTravelDuration());
+      cur = (Stop) ts.getTo();
     }
-    return stops.get(0);
+    return new Traversal(
+        start,
+        end,
+        stops,
+        outgoingSegments,
+        List.copyOf(path),
+        positions,
+        travelSeconds,
+        travelTimes,
+        complete);
   }
 
   /**
@@ -100,15 +195,20 @@ public final class Variant {
    * @return false if the given transport segment was added
    * @throws IllegalArgumentException if the TransportSegment is Null or if the names don't
    *     correspond
+   * @throws UnsupportedOperationException if this Variant is frozen
    */
   public boolean addTransportSegment(TransportSegment ts) {
     if (ts == null) {
       throw new IllegalArgumentException("Null TransportSegment is not allowed");
     }
+    this.checkNotFrozen();
     if (!(this.lineName.equals(ts.getLineName()) && this.name.equals(ts.getVariantName())))
       throw new IllegalArgumentException("Line name or Variant nane don't correspond");
-    if (this.transportSegments.contains(ts)) return false;
-    return this.transportSegments.add(ts);
+    if (!this.transportSegmentSet.add(ts)) return false;
+    this.traversal = null;
+    this.transportSegments.add(ts);
+    this.changed();
+    return true;
   }
 
   /**
@@ -117,11 +217,98 @@ public final class Variant {
    * @param departure the departure to be added
    * @return true if the given departure was added
    * @throws IllegalArgumentException if departure is null
+   * @throws UnsupportedOperationException if this Variant is frozen
    */
   public boolean addDeparture(LocalTime departure) {
     if (departure == null) throw new IllegalArgumentException(NULL_ARG_ERR_MSG);
-    if (this.departures.contains(departure)) return false;
-    return this.departures.add(departure);
+    this.checkNotFrozen();
+    int seconds = departure.toSecondOfDay();
+    int nanos = departure.getNano();
+    int i = this.findDeparture(seconds, nanos);
+    if (i >= 0) return false;
+    i = -i - 1;
+    if (this.departureCount == this.departureSeconds.length) {
+      int capacity = Math.max(8, 2 * this.departureCount);
+      this.departureSeconds = Arrays.copyOf(this.departureSeconds, capacity);
+      if (this.departureNanos != null)
+        this.departureNanos = Arrays.copyOf(this.departureNanos, capacity);
+    }
+    if (nanos != 0 && this.departureNanos == null)
+      this.departureNanos = new int[this.departureSeconds.length];
+    int moved = this.departureCount - i;
+    System.arraycopy(this.departureSeconds, i, this.departureSeconds, i + 1, moved);
+    this.departureSeconds[i] = seconds;
+    if (this.departureNanos != null) {
+      System.arraycopy(this.departureNanos, i, this.departureNanos, i + 1, moved);
+      this.departureNanos[i] = nanos;
+    }
+    this.departureCount++;
+    this.changed();
+    return true;
+  }
+
+  // Returns the index of the departure at the given time, or (-(insertion point) - 1) if there is
+  // none, like Arrays.binarySearch
+  private int findDeparture(int seconds, int nanos) {
+    int low = 0;
+    int high = this.departureCount - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = Integer.compare(this.departureSeconds[mid], seconds);
+      if (cmp == 0) cmp = Integer.compare(this.getDepartureNanos(mid), nanos);
+      if (cmp < 0) low = mid + 1;
+      else if (cmp > 0) high = mid - 1;
+      else return mid;
+    }
+    return -(low + 1);
+  }
+
+  // Returns the fraction of second of the i-th departure, in nanoseconds
+  private int getDepartureNanos(int i) {
+    return this.departureNanos == null ? 0 : this.departureNanos[i];
+  }
+
+  // Returns the i-th departure in nanoseconds since midnight
+  private long getDepartureNanoOfDay(int i) {
+    return this.departureSeconds[i] * 1_000_000_000L + this.getDepartureNanos(i);
+  }
+
+  // Returns a frozen Variant with the name, segments and departures of this Variant
+  Variant frozenCopy() {
+    Variant copy = new Variant(this.name, this.lineName);
+    copy.transportSegments.addAll(this.transportSegments);
+    copy.transportSegmentSet.addAll(this.transportSegmentSet);
+    copy.departureSeconds = Arrays.copyOf(this.departureSeconds, this.departureCount);
+    if (this.departureNanos != null)
+      copy.departureNanos = Arrays.copyOf(this.departureNanos, this.departureCount);
+    copy.departureCount = this.departureCount;
+    copy.traversal = this.traversal;
+    copy.frozen = true;
+    return copy;
+  }
+
+  /**
+   * {@return true if this Variant is frozen} The segments and departures of a frozen Variant cannot
+   * change. The variants of a frozen TransportNetwork are frozen.
+   */
+  public boolean isFrozen() {
+    return this.frozen;
+  }
+
+  // Throws an UnsupportedOperationException if this Variant is frozen
+  private void checkNotFrozen() {
+    if (this.frozen) throw new UnsupportedOperationException("This Variant is frozen");
+  }
+
+  // Records that this Variant was added to line, which is then told about its changes
+  void addedTo(Line line) {
+    for (Line other : this.lines) if (other == line) return;
+    this.lines.add(line);
+  }
+
+  // Tells the lines of this Variant that its segments or departures changed
+  private void changed() {
+    for (Line line : this.lines) line.changed();
   }
 
   /** {@return the name of this Variant} */
@@ -136,11 +323,26 @@ public final class Variant {
 
   /** {@return an ascending sorted copy of this Variant's transport departures list} */
   public List<LocalTime> getDepartures() {
-    ArrayList<LocalTime> res = new ArrayList<>(this.departures);
-    res.sort(LocalTime::compareTo);
+    List<LocalTime> res = new ArrayList<>(this.departureCount);
+    for (int i = 0; i < this.departureCount; i++)
+      res.add(LocalTime.ofNanoOfDay(this.getDepartureNanoOfDay(i)));
     return res;
   }
 
+  /**
+   * {@return the number of whole seconds since midnight of the departures of this Variant, in
+   * ascending order} It is the seconds of {@link #getDepartures()} without creating a LocalTime for
+   * each of them.
+   */
+  public int[] getDepartureSeconds() {
+    return Arrays.copyOf(this.departureSeconds, this.departureCount);
+  }
+
+  /** {@return the number of departures of this Variant} */
+  public int getDepartureCount() {
+    return this.departureCount;
+  }
+
   /** {@return a copy of this Variant's transport segments} */
   public List<TransportSegment> getTransportSegments() {
     return new ArrayList<>(this.transportSegments);
@@ -149,8 +351,8 @@ public final class Variant {
   /**
    * Check if this variant is equal to the given line.
    *
-   * <p>Two variants are equal if they have the same lineName, the same id and the same (by a call
-   * to equals) transportSegments in the same order.
+   * <p>Two variants are equal if they have the same lineName, the same id, the same departures and
+   * the same (by a call to equals) transportSegments in the same order.
    *
    * @param object the Object to compare
    * @return true if this is equal to object
@@ -162,30 +364,31 @@ public final class Variant {
     Variant other = (Variant) object;
     return other.lineName.equals(this.lineName)
         && other.name.equals(this.name)
-        && other.departures.equals(this.departures)
+        && other.hasSameDepartures(this)
         && other.transportSegments.equals(this.transportSegments);
   }
 
+  // Returns true if other has the same departures as this Variant
+  private boolean hasSameDepartures(Variant other) {
+    if (other.departureCount != this.departureCount) return false;
+    for (int i = 0; i < this.departureCount; i++) {
+      if (other.getDepartureNanoOfDay(i) != this.getDepartureNanoOfDay(i)) return false;
+    }
+    return true;
+  }
+
   /**
    * {@return the list of Stop in the order of the traversal contained in this variant }
    *
-   * @throws NoSuchElementException if during the traversal one of the stops encountered is not the
-   *     destination, and it has no outgoing segment.
-   * @throws IllegalStateException if the given stop has an outgoing segment in this Variant but was
-   *     not found
+   * @throws NoSuchElementException if this Variant has no first or last stop, or if during the
+   *     traversal one of the stops encountered is not the destination, and it has no outgoing
+   *     segment.
    */
   public List<Stop> getStops() {
-    List<Stop> res = new ArrayList<>();
-    Stop cur = getStart();
-    TransportSegment ts;
-    Stop end = getEnd();
-    while (!cur.equals(end)) {
-      res.add(cur);
-      ts = getOutgoingSegment(cur);
-      cur = (Stop) ts.getTo();
-    }
-    res.add(end);
-    return res;
+    Traversal t = this.getTraversal();
+    if (t.start() == null || t.end() == null || !t.complete())
+      throw new NoSuchElementException("Variant is not in the shape of a line");
+    return new ArrayList<>(t.path());
   }
 
   /** {@return the hash code of this Variant} */
@@ -197,7 +400,9 @@ public final class Variant {
     hash += this.name.hashCode();
     hash += this.lineName.hashCode();
     for (TransportSegment ts : this.transportSegments) hash += ts.hashCode();
-    for (LocalTime t : this.departures) hash += t.hashCode();
+    // The hash code of a LocalTime is the hash code of its nanoseconds since midnight
+    for (int i = 0; i < this.departureCount; i++)
+      hash += Long.hashCode(this.getDepartureNanoOfDay(i));
     return hash;
   }
 
@@ -209,10 +414,7 @@ public final class Variant {
    */
   public boolean hasStop(Stop stop) {
     if (stop == null) throw new IllegalArgumentException(NULL_ARG_ERR_MSG);
-    for (TransportSegment ts : this.transportSegments) {
-      if (ts.getFrom().equals(stop) || ts.getTo().equals(stop)) return true;
-    }
-    return false;
+    return this.getTraversal().stops().contains(stop);
   }
 
   /**
@@ -223,10 +425,7 @@ public final class Variant {
    */
   public boolean hasOutgoingSegment(Stop stop) {
     if (stop == null) throw new IllegalArgumentException(NULL_ARG_ERR_MSG);
-    for (TransportSegment ts : this.transportSegments) {
-      if (ts.getFrom().equals(stop)) return true;
-    }
-    return false;
+    return this.getTraversal().outgoingSegments().containsKey(stop);
   }
 
   /**
@@ -235,16 +434,12 @@ public final class Variant {
    * @param stop Some stop
    * @throws IllegalArgumentException if stop is null
    * @throws NoSuchElementException if the given stop has no outgoing segment in this Variant
-   * @throws IllegalStateException if the given stop has an outgoing segment in this Variant but was
-   *     not found
    */
   public TransportSegment getOutgoingSegment(Stop stop) {
-    if (!hasOutgoingSegment(stop))
-      throw new NoSuchElementException("No such segment for given stop");
-    for (TransportSegment ts : this.transportSegments) {
-      if (ts.getFrom().equals(stop)) return ts;
-    }
-    throw new IllegalStateException("Segment in variant not found");
+    if (stop == null) throw new IllegalArgumentException(NULL_ARG_ERR_MSG);
+    TransportSegment res = this.getTraversal().outgoingSegments().get(stop);
+    if (res == null) throw new NoSuchElementException("No such segment for given stop");
+    return res;
   }
 
   /**
@@ -252,21 +447,41 @@ public final class Variant {
    *
    * @param to the destination Stop
    * @throws IllegalArgumentException if to is null
-   * @throws NoSuchElementException if during the traversal one of the stops encountered is not the
-   *     destination, and it has no outgoing segment.
-   * @throws IllegalStateException if the given stop has an outgoing segment in this Variant but was
-   *     not found
+   * @throws NoSuchElementException if this Variant has no first stop, or if to is not reached from
+   *     the first stop by following the outgoing segments of the stops
    */
   public Duration getTravelTimeTo(Stop to) {
+    return this.getTraversal().travelTimes()[this.getPosition(to)];
+  }
+
+  /**
+   * Returns the travel time from this Variant's first Stop to the given stop, as the sum of the
+   * whole seconds of the travel duration of each segment, which is how the timetables of a
+   * TransportNetwork offset the departures of this Variant.
+   *
+   * @param to the destination Stop
+   * @return the travel time in seconds from the first Stop to the given stop
+   * @throws IllegalArgumentException if to is null
+   * @throws NoSuchElementException if this Variant has no first stop, or if to is not reached from
+   *     the first stop by following the outgoing segments of the stops
+   */
+  public int getTravelSecondsTo(Stop to) {
+    return this.getTraversal().travelSeconds()[this.getPosition(to)];
+  }
+
+  // Returns the position of stop in the traversal of this Variant, or -1 if it is not reached
+  int indexOf(Stop stop) {
+    Integer position = this.getTraversal().positions().get(stop);
+    return position == null ? -1 : position;
+  }
+
+  // Returns the position of to in the traversal of this Variant
+  private int getPosition(Stop to) {
     if (to == null) throw new IllegalArgumentException(NULL_ARG_ERR_MSG);
-    Duration res = Duration.ZERO;
-    TransportSegment ts;
-    Stop cur = getStart();
-    while (!cur.equals(to)) {
-      ts = getOutgoingSegment(cur);
-      res = res.plus(ts.getTravelDuration());
-      cur = (Stop) ts.getTo();
-    }
-    return res;
+    Traversal t = this.getTraversal();
+    if (t.start() == null) throw new NoSuchElementException("Variant has no first stop");
+    Integer position = t.positions().get(to);
+    if (position == null) throw new NoSuchElementException("No such segment for given stop");
+    return position;
   }
 }
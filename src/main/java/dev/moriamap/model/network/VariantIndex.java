@@ -0,0 +1,172 @@
+package dev.moriamap.model.network;
+
+import java.util.*;
+
+/**
+ * An immutable numbering of the lines and variants of a TransportNetwork. Every Line gets a dense
+ * int id between 0 and {@link #getLineCount()} - 1, in the order of the lines of the network, and
+ * every Variant gets a dense int id between 0 and {@link #getVariantCount()} - 1, in the order of
+ * {@link TransportNetwork#getVariants()}. Data about the variants can then live in arrays indexed
+ * by id, and comparing variants is comparing ints, names being only needed for display.
+ *
+ * <p>The Variant of a TransportSegment is the Variant the segment was added to, found by identity,
+ * or else the Variant named by the line and variant names of the segment. Like {@link
+ * TransportNetwork#findVariant(String, String)}, a search by names finds the first Variant of that
+ * name of the first Line of that name.
+ */
+public final class VariantIndex {
+
+  // The lines and the variants, indexed by their id
+  private final Line[] lines;
+  private final Variant[] variants;
+
+  // The id of the Line of each Variant
+  private final int[] variantLines;
+
+  // The ids of the lines and variants, compared by identity
+  private final Map<Line, Integer> lineIds = new IdentityHashMap<>();
+  private final Map<Variant, Integer> variantIds = new IdentityHashMap<>();
+
+  // The id of the first Line of each name, and the ids of the first Variant of each name of each
+  // Line, indexed by the id of the Line
+  private final Map<String, Integer> lineIdsByName = new HashMap<>();
+  private final List<Map<String, Integer>> variantIdsByName = new ArrayList<>();
+
+  // The id of the Variant of the segments of the variants, compared by identity
+  private final Map<TransportSegment, Integer> segmentVariantIds = new IdentityHashMap<>();
+
+  private VariantIndex(List<Line> lines) {
+    this.lines = lines.toArray(new Line[0]);
+    List<Variant> variantList = new ArrayList<>();
+    List<Integer> variantLineList = new ArrayList<>();
+    for (int l = 0; l < this.lines.length; l++) {
+      Line line = this.lines[l];
+      this.lineIds.putIfAbsent(line, l);
+      this.lineIdsByName.putIfAbsent(line.getName(), l);
+      Map<String, Integer> byName = new HashMap<>();
+      for (Variant variant : line.getVariants()) {
+        int v = variantList.size();
+        variantList.add(variant);
+        variantLineList.add(l);
+        this.variantIds.putIfAbsent(variant, v);
+        byName.putIfAbsent(variant.getName(), v);
+        for (TransportSegment segment : variant.getTransportSegments())
+          this.segmentVariantIds.putIfAbsent(segment, v);
+      }
+      this.variantIdsByName.add(byName);
+    }
+    this.variants = variantList.toArray(new Variant[0]);
+    this.variantLines = new int[this.variants.length];
+    for (int v = 0; v < this.variantLines.length; v++)
+      this.variantLines[v] = variantLineList.get(v);
+  }
+
+  /**
+   * {@return a new VariantIndex of the lines and variants of the given TransportNetwork}
+   *
+   * @param network the TransportNetwork whose lines and variants are numbered
+   * @throws NullPointerException if network is null
+   */
+  public static VariantIndex of(TransportNetwork network) {
+    return new VariantIndex(network.getLines());
+  }
+
+  /** {@return the number of lines of this VariantIndex} */
+  public int getLineCount() {
+    return this.lines.length;
+  }
+
+  /** {@return the number of variants of this VariantIndex} */
+  public int getVariantCount() {
+    return this.variants.length;
+  }
+
+  /**
+   * {@return the Line of the given id}
+   *
+   * @param id the id of a Line
+   * @throws IndexOutOfBoundsException if id is not between 0 and getLineCount() - 1
+   */
+  public Line getLine(int id) {
+    return this.lines[Objects.checkIndex(id, this.lines.length)];
+  }
+
+  /**
+   * {@return the Variant of the given id}
+   *
+   * @param id the id of a Variant
+   * @throws IndexOutOfBoundsException if id is not between 0 and getVariantCount() - 1
+   */
+  public Variant getVariant(int id) {
+    return this.variants[Objects.checkIndex(id, this.variants.length)];
+  }
+
+  /**
+   * {@return the id of the Line of the Variant of the given id}
+   *
+   * @param variantId the id of a Variant
+   * @throws IndexOutOfBoundsException if variantId is not between 0 and getVariantCount() - 1
+   */
+  public int getLineIdOfVariant(int variantId) {
+    return this.variantLines[Objects.checkIndex(variantId, this.variantLines.length)];
+  }
+
+  /**
+   * {@return the id of the given Line, or -1 if it is not a Line of this VariantIndex}
+   *
+   * @param line some Line
+   * @throws NullPointerException if line is null
+   */
+  public int getLineId(Line line) {
+    return this.lineIds.getOrDefault(Objects.requireNonNull(line), -1);
+  }
+
+  /**
+   * {@return the id of the first Line of the given name, or -1 if there is none}
+   *
+   * @param lineName the name of a Line
+   * @throws NullPointerException if lineName is null
+   */
+  public int getLineId(String lineName) {
+    return this.lineIdsByName.getOrDefault(Objects.requireNonNull(lineName), -1);
+  }
+
+  /**
+   * {@return the id of the given Variant, or -1 if it is not a Variant of this VariantIndex}
+   *
+   * @param variant some Variant
+   * @throws NullPointerException if variant is null
+   */
+  public int getVariantId(Variant variant) {
+    return this.variantIds.getOrDefault(Objects.requireNonNull(variant), -1);
+  }
+
+  /**
+   * {@return the id of the first Variant of the given name of the first Line of the given name, or
+   * -1 if there is none}
+   *
+   * @param lineName the name of the Line of the Variant
+   * @param variantName the name of the Variant
+   * @throws NullPointerException if lineName or variantName is null
+   */
+  public int getVariantId(String lineName, String variantName) {
+    Objects.requireNonNull(variantName);
+    int line = this.getLineId(lineName);
+    if (line < 0) return -1;
+    return this.variantIdsByName.get(line).getOrDefault(variantName, -1);
+  }
+
+  /**
+   * {@return the id of the Variant of the given TransportSegment, or -1 if there is none} It is the
+   * Variant the segment belongs to, or else the Variant of the line and variant names of the
+   * segment.
+   *
+   * @param segment some TransportSegment
+   * @throws NullPointerException if segment is null
+   */
+  public int getVariantId(TransportSegment segment) {
+    Integer id = this.segmentVariantIds.get(Objects.requireNonNull(segment));
+    if (id != null) return id;
+    return this.getVariantId(segment.getLineName(), segment.getVariantName());
+  }
+}
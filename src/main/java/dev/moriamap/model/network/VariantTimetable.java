@@ -0,0 +1,329 @@
+package dev.moriamap.model.network;
+
+import java.util.*;
+
+/**
+ * An immutable table of the stops and departures of the variants of a TransportNetwork, stored in
+ * flat primitive arrays for round-based routing. Variants are identified by their ids in the {@link
+ * VariantIndex} of the network, between 0 and {@link #getVariantCount()}, and stops by an int id
+ * between 0 and {@link #getStopCount()}. A Variant without departures or segments has no stops in
+ * the table and serves no Stop.
+ *
+ * <p>All the transports of a Variant take the same time between two stops, so the time at which a
+ * transport passes at a Stop is its departure time from the first Stop plus the time offset of the
+ * Stop in the Variant. A transport is identified by its departure time from the first Stop, in
+ * seconds since midnight (see {@link ServiceTime}), and repeats every day.
+ */
+public final class VariantTimetable {
+
+  // The stops of the network, indexed by their id
+  private final Stop[] stops;
+
+  // The id of each stop of the network
+  private final Map<Stop, Integer> stopIds;
+
+  // The ids of the variants
+  private final VariantIndex variantIndex;
+
+  // The stops of variant r are at the indices variantStart[r] to variantStart[r + 1] - 1 of
+  // variantStops, in traversal order, with their time offset from the first stop and the segment
+  // leaving them (null for the last stop)
+  private final int[] variantStart;
+  private final int[] variantStops;
+  private final int[] timeOffsets;
+  private final TransportSegment[] segments;
+
+  // The sorted departures of variant r are at the indices departureStart[r] to
+  // departureStart[r + 1] - 1 of departures
+  private final int[] departureStart;
+  private final int[] departures;
+
+  // The variants serving stop s are at the indices servingStart[s] to servingStart[s + 1] - 1 of
+  // servingVariants, with the position of s in each of them
+  private final int[] servingStart;
+  private final int[] servingVariants;
+  private final int[] servingPositions;
+
+  private VariantTimetable(
+      Stop[] stops,
+      Map<Stop, Integer> stopIds,
+      VariantIndex variantIndex,
+      int[] variantStart,
+      int[] variantStops,
+      int[] timeOffsets,
+      TransportSegment[] segments,
+      int[] departureStart,
+      int[] departures,
+      int[] servingStart,
+      int[] servingVariants,
+      int[] servingPositions) {
+    this.stops = stops;
+    this.stopIds = stopIds;
+    this.variantIndex = variantIndex;
+    this.variantStart = variantStart;
+    this.variantStops = variantStops;
+    this.timeOffsets = timeOffsets;
+    this.segments = segments;
+    this.departureStart = departureStart;
+    this.departures = departures;
+    this.servingStart = servingStart;
+    this.servingVariants = servingVariants;
+    this.servingPositions = servingPositions;
+  }
+
+  /**
+   * {@return a new VariantTimetable of the variants of the given TransportNetwork}
+   *
+   * @param network the TransportNetwork whose variants are tabulated
+   * @throws NullPointerException if network is null
+   * @throws NoSuchElementException if a Variant of network is not in the shape of a line
+   */
+  public static VariantTimetable of(TransportNetwork network) {
+    Objects.requireNonNull(network);
+    List<Stop> stopList = network.getStops();
+    Map<Stop, Integer> stopIds = new HashMap<>();
+    for (Stop stop : stopList) stopIds.put(stop, stopIds.size());
+
+    VariantIndex variantIndex = network.getVariantIndex();
+    int variantCount = variantIndex.getVariantCount();
+    // The stops of each variant, empty for the variants left out of the table
+    List<List<Stop>> variantStopLists = new ArrayList<>(variantCount);
+    int stopCount = 0;
+    int departureCount = 0;
+    for (int r = 0; r < variantCount; r++) {
+      Variant variant = variantIndex.getVariant(r);
+      if (variant.getDepartureCount() == 0 || variant.getTransportSegments().isEmpty()) {
+        variantStopLists.add(List.of());
+        continue;
+      }
+      List<Stop> variantStopList = variant.getStops();
+      for (Stop stop : variantStopList) {
+        if (!stopIds.containsKey(stop)) {
+          stopIds.put(stop, stopList.size());
+          stopList.add(stop);
+        }
+      }
+      variantStopLists.add(variantStopList);
+      stopCount += variantStopList.size();
+      departureCount += variant.getDepartureCount();
+    }
+
+    int[] variantStart = new int[variantCount + 1];
+    int[] variantStops = new int[stopCount];
+    int[] timeOffsets = new int[stopCount];
+    TransportSegment[] segments = new TransportSegment[stopCount];
+    int[] departureStart = new int[variantCount + 1];
+    int[] departures = new int[departureCount];
+    int[] servingCounts = new int[stopList.size()];
+    int p = 0;
+    int d = 0;
+    for (int r = 0; r < variantCount; r++) {
+      Variant variant = variantIndex.getVariant(r);
+      List<Stop> variantStopList = variantStopLists.get(r);
+      variantStart[r] = p;
+      departureStart[r] = d;
+      if (variantStopList.isEmpty()) continue;
+      int offset = 0;
+      for (int i = 0; i < variantStopList.size(); i++) {
+        Stop stop = variantStopList.get(i);
+        int id = stopIds.get(stop);
+        variantStops[p] = id;
+        timeOffsets[p] = offset;
+        servingCounts[id]++;
+        if (i < variantStopList.size() - 1) {
+          segments[p] = variant.getOutgoingSegment(stop);
+          offset += (int) segments[p].getTravelDuration().toSeconds();
+        }
+        p++;
+      }
+      for (int departure : variant.getDepartureSeconds()) departures[d++] = departure;
+    }
+    variantStart[variantCount] = p;
+    departureStart[variantCount] = d;
+
+    int[] servingStart = new int[stopList.size() + 1];
+    for (int s = 0; s < stopList.size(); s++)
+      servingStart[s + 1] = servingStart[s] + servingCounts[s];
+    int[] servingVariants = new int[stopCount];
+    int[] servingPositions = new int[stopCount];
+    int[] next = Arrays.copyOf(servingStart, stopList.size());
+    for (int r = 0; r < variantCount; r++) {
+      for (int q = variantStart[r]; q < variantStart[r + 1]; q++) {
+        int s = variantStops[q];
+        servingVariants[next[s]] = r;
+        servingPositions[next[s]] = q - variantStart[r];
+        next[s]++;
+      }
+    }
+
+    return new VariantTimetable(
+        stopList.toArray(new Stop[0]),
+        stopIds,
+        variantIndex,
+        variantStart,
+        variantStops,
+        timeOffsets,
+        segments,
+        departureStart,
+        departures,
+        servingStart,
+        servingVariants,
+        servingPositions);
+  }
+
+  /** {@return the number of stops of this VariantTimetable} */
+  public int getStopCount() {
+    return this.stops.length;
+  }
+
+  /**
+   * {@return the Stop with the given id}
+   *
+   * @param id the id of a Stop
+   * @throws IndexOutOfBoundsException if id is not between 0 and getStopCount() - 1
+   */
+  public Stop getStop(int id) {
+    return this.stops[id];
+  }
+
+  /**
+   * {@return the id of the given Stop, or -1 if it is not a Stop of this VariantTimetable}
+   *
+   * @param stop a Stop
+   */
+  public int getStopId(Stop stop) {
+    Integer id = this.stopIds.get(stop);
+    return id == null ? -1 : id;
+  }
+
+  /** {@return the number of variants of this VariantTimetable, as in its VariantIndex} */
+  public int getVariantCount() {
+    return this.variantIndex.getVariantCount();
+  }
+
+  /**
+   * {@return the Variant with the given id}
+   *
+   * @param variant the id of a Variant
+   * @throws IndexOutOfBoundsException if variant is not between 0 and getVariantCount() - 1
+   */
+  public Variant getVariant(int variant) {
+    return this.variantIndex.getVariant(variant);
+  }
+
+  /** {@return the VariantIndex giving their ids to the variants of this VariantTimetable} */
+  public VariantIndex getVariantIndex() {
+    return this.variantIndex;
+  }
+
+  /**
+   * {@return the number of stops of the given Variant}
+   *
+   * @param variant the id of a Variant
+   * @throws IndexOutOfBoundsException if variant is not between 0 and getVariantCount() - 1
+   */
+  public int getLength(int variant) {
+    return this.variantStart[variant + 1] - this.variantStart[variant];
+  }
+
+  /**
+   * {@return the id of the Stop at the given position of the given Variant}
+   *
+   * @param variant the id of a Variant
+   * @param position the position of the Stop in the Variant, 0 being the first Stop
+   * @throws IndexOutOfBoundsException if variant or position is out of bounds
+   */
+  public int getStopAt(int variant, int position) {
+    return this.variantStops[this.index(variant, position)];
+  }
+
+  /**
+   * {@return the time in seconds taken by the transports of the given Variant from its first Stop
+   * to the Stop at the given position}
+   *
+   * @param variant the id of a Variant
+   * @param position the position of the Stop in the Variant, 0 being the first Stop
+   * @throws IndexOutOfBoundsException if variant or position is out of bounds
+   */
+  public int getTimeOffset(int variant, int position) {
+    return this.timeOffsets[this.index(variant, position)];
+  }
+
+  /**
+   * {@return the TransportSegment of the given Variant leaving the Stop at the given position}
+   *
+   * @param variant the id of a Variant
+   * @param position the position of the Stop in the Variant, 0 being the first Stop
+   * @throws IndexOutOfBoundsException if variant or position is out of bounds, or if position is
+   *     the position of the last Stop
+   */
+  public TransportSegment getSegmentFrom(int variant, int position) {
+    if (position == this.getLength(variant) - 1)
+      throw new IndexOutOfBoundsException("The last Stop of a Variant has no outgoing segment");
+    return this.segments[this.index(variant, position)];
+  }
+
+  /**
+   * Returns the earliest transport of the given Variant that passes at the Stop at the given
+   * position at or after time. The search is a binary search on the departures of the Variant.
+   *
+   * @param variant the id of a Variant
+   * @param position the position of the Stop in the Variant, 0 being the first Stop
+   * @param time a time in seconds since midnight, possibly on a later day
+   * @return the departure time from the first Stop of the earliest transport passing at the Stop
+   *     not before time, on the same day as time or later
+   * @throws IndexOutOfBoundsException if variant or position is out of bounds
+   */
+  public int earliestTrip(int variant, int position, int time) {
+    int offset = this.getTimeOffset(variant, position);
+    return ServiceTime.nextOccurrence(
+        this.departures,
+        this.departureStart[variant],
+        this.departureStart[variant + 1],
+        time - offset);
+  }
+
+  /**
+   * {@return the number of variants of this VariantTimetable that serve the given Stop}
+   *
+   * @param stop the id of a Stop
+   * @throws IndexOutOfBoundsException if stop is not between 0 and getStopCount() - 1
+   */
+  public int getServingVariantCount(int stop) {
+    return this.servingStart[stop + 1] - this.servingStart[stop];
+  }
+
+  /**
+   * {@return the id of the j-th Variant serving the given Stop}
+   *
+   * @param stop the id of a Stop
+   * @param j an index between 0 and getServingVariantCount(stop) - 1
+   * @throws IndexOutOfBoundsException if stop or j is out of bounds
+   */
+  public int getServingVariant(int stop, int j) {
+    return this.servingVariants[this.servingIndex(stop, j)];
+  }
+
+  /**
+   * {@return the position of the given Stop in the j-th Variant serving it}
+   *
+   * @param stop the id of a Stop
+   * @param j an index between 0 and getServingVariantCount(stop) - 1
+   * @throws IndexOutOfBoundsException if stop or j is out of bounds
+   */
+  public int getServingPosition(int stop, int j) {
+    return this.servingPositions[this.servingIndex(stop, j)];
+  }
+
+  // Returns the index in the flat arrays of the Stop at position in variant
+  private int index(int variant, int position) {
+    Objects.checkIndex(position, this.getLength(variant));
+    return this.variantStart[variant] + position;
+  }
+
+  // Returns the index in the flat arrays of the j-th Variant serving stop
+  private int servingIndex(int stop, int j) {
+    Objects.checkIndex(j, this.getServingVariantCount(stop));
+    return this.servingStart[stop] + j;
+  }
+}
@@ -30,6 +30,11 @@ public class WalkSegment extends Edge {
 
   /** {@return the travel duration of this WalkSegment} */
   public Duration travelTime() {
-    return Duration.ofSeconds((long) (this.distance / (WalkSegment.WALK_SPEED / 3.6)));
+    return Duration.ofSeconds(this.travelSeconds());
+  }
+
+  /** {@return the travel duration of this WalkSegment in whole seconds} */
+  public long travelSeconds() {
+    return (long) (this.distance / (WalkSegment.WALK_SPEED / 3.6));
   }
 }
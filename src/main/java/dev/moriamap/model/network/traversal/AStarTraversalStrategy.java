@@ -0,0 +1,138 @@
+package dev.moriamap.model.network.traversal;
+
+import dev.moriamap.model.network.GeographicPosition;
+import dev.moriamap.model.network.GeographicVertex;
+import dev.moriamap.model.network.Graph;
+import dev.moriamap.model.network.IndexedGraph;
+import dev.moriamap.model.network.OverlayGraph;
+import dev.moriamap.model.network.TransportNetwork;
+import dev.moriamap.model.network.Vertex;
+import dev.moriamap.model.network.WalkSegment;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Represents the A* graph traversal strategy on a TransportNetwork. Vertices are settled in
+ * increasing order of their distance from the source plus a lower bound of their remaining weight
+ * to the destination, computed from the crow-fly distance between their GeographicPositions. It
+ * settles far fewer vertices than Dijkstra when a destination is given, while still returning the
+ * shortest routes.
+ *
+ * <p>For {@link RouteOptimization#DISTANCE}, the bound is the crow-fly distance in kilometers,
+ * multiplied by the smallest factor between the distance of a TransportSegment and the crow-fly
+ * distance between its ends ({@link TransportNetwork#getMinDistanceToCrowFlyRatio()}), and the
+ * walking drudgery factor. For {@link RouteOptimization#TIME}, the bound is the crow-fly distance
+ * divided by the fastest crow-fly speed of the network ({@link
+ * TransportNetwork#getMaxCrowFlySpeed()}), or by the walking speed if it is faster. As the walking
+ * time of a WalkSegment is in whole seconds ({@link WalkSegment#travelSeconds()}), the time bound
+ * per meter is also at most the lowest walking time per meter of the walk segments of the explored
+ * Graph, so that it never exceeds the weight of a short walk. When the explored Graph is not a
+ * TransportNetwork or an OverlayGraph over one, or a Vertex is not a GeographicVertex, the bound is
+ * 0.0. The weight function must match the chosen optimization, like {@link DistanceAsWeight} and
+ * {@link TravelTimeAsWeight}.
+ */
+public class AStarTraversalStrategy extends HeapDijkstraTraversalStrategy {
+
+  // The optimization the weight function of traversals computes
+  private final RouteOptimization optimization;
+
+  // The lowest walking time per meter of the walk segments of the base graphs explored by any
+  // traversal, shared so that traversals on the same network do not compute it again
+  private static final BaseGraphCache<Double> sharedBaseWalkSecondsPerMeter =
+      new BaseGraphCache<>();
+
+  /**
+   * Constructor of AStarTraversalStrategy.
+   *
+   * @param optimization the optimization computed by the weight function of traversals
+   * @throws NullPointerException if optimization is null
+   */
+  public AStarTraversalStrategy(RouteOptimization optimization) {
+    Objects.requireNonNull(optimization);
+    this.optimization = optimization;
+  }
+
+  /**
+   * {@return the class of this strategy with the optimization of its bounds} The bounds of one
+   * optimization may not be lower bounds of the weights of the other.
+   */
+  @Override
+  public Object getRouteKey() {
+    return List.of(this.getClass(), this.optimization);
+  }
+
+  @Override
+  protected ToDoubleFunction<Vertex> remainingWeightEstimate(Vertex dst, Graph graph) {
+    if (!(dst instanceof GeographicVertex geoVertex)) return vertex -> 0.0;
+    Graph network = graph;
+    while (network instanceof OverlayGraph overlay) network = overlay.getBase();
+    double boundPerMeter =
+        network instanceof TransportNetwork tn ? this.boundPerMeter(tn, graph) : 0.0;
+    return new Bounds(geoVertex.getGeographicPosition(), boundPerMeter);
+  }
+
+  // Returns the factor converting a crow-fly distance in meters to a lower bound of the weight of
+  // a route in graph, which is tn or tn with vertices and edges added over it
+  private double boundPerMeter(TransportNetwork tn, Graph graph) {
+    if (this.optimization == RouteOptimization.DISTANCE) {
+      double factor = Math.min(tn.getMinDistanceToCrowFlyRatio(), WalkSegment.WALK_DRUDGERY);
+      return factor / 1000.0;
+    }
+    double walkSpeed = WalkSegment.WALK_SPEED / 3.6;
+    double bound = 1.0 / Math.max(tn.getMaxCrowFlySpeed(), walkSpeed);
+    return Math.min(bound, walkSecondsPerMeter(graph.getIndexedGraph()));
+  }
+
+  // Returns the lowest walking time in whole seconds per meter of the walk segments of graph, or
+  // positive infinity if it has none. The one of its base is computed once for all traversals
+  private static double walkSecondsPerMeter(IndexedGraph graph) {
+    IndexedGraph base = graph.getBaseGraph();
+    double shared =
+        sharedBaseWalkSecondsPerMeter.get(base, value -> true, b -> walkSecondsPerMeter(b, 0));
+    return Math.min(shared, walkSecondsPerMeter(graph, base.getEdgeCount()));
+  }
+
+  // Returns the lowest walking time in whole seconds per meter of the walk segments of graph whose
+  // ids are at least from. A WalkSegment between two vertices at the same position does not
+  // change the bound, so it is ignored
+  private static double walkSecondsPerMeter(IndexedGraph graph, int from) {
+    double res = Double.POSITIVE_INFINITY;
+    for (int e = from; e < graph.getEdgeCount(); e++) {
+      if (graph.getEdge(e) instanceof WalkSegment walk && walk.distance > 0.0)
+        res = Math.min(res, walk.travelSeconds() / walk.distance);
+    }
+    return res;
+  }
+
+  // The bounds of the remaining weight to the destination of one traversal
+  private static final class Bounds implements ToDoubleFunction<Vertex> {
+    // The position of the destination
+    private final GeographicPosition destination;
+
+    // The factor converting a crow-fly distance in meters to a lower bound of the remaining weight
+    private final double boundPerMeter;
+
+    // The bounds already computed
+    private final Map<Vertex, Double> bounds = new HashMap<>();
+
+    private Bounds(GeographicPosition destination, double boundPerMeter) {
+      this.destination = destination;
+      this.boundPerMeter = boundPerMeter;
+    }
+
+    @Override
+    public double applyAsDouble(Vertex vertex) {
+      if (!(vertex instanceof GeographicVertex geoVertex)) return 0.0;
+      Double bound = this.bounds.get(vertex);
+      if (bound == null) {
+        double crowFlyDistance = geoVertex.getGeographicPosition().distanceFrom(this.destination);
+        bound = crowFlyDistance * this.boundPerMeter;
+        this.bounds.put(vertex, bound);
+      }
+      return bound;
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package dev.moriamap.model.network.traversal;
+
+import dev.moriamap.model.network.IndexedGraph;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Holds data computed from base IndexedGraphs (see {@link IndexedGraph#getBaseGraph()}), shared by
+ * all the traversals and weight functions of the application so that queries on the same network do
+ * not compute it again. The base graphs are weakly referenced, so the data of a network is dropped
+ * with the network. It is safe to use from several threads.
+ *
+ * @param <T> the type of the data computed from a base graph
+ */
+final class BaseGraphCache<T> {
+
+  // The data computed from each base graph
+  private final Map<IndexedGraph, T> values = new WeakHashMap<>();
+
+  // Returns the data computed from base, computing it again with compute if there is none or if
+  // upToDate rejects it
+  synchronized T get(
+      IndexedGraph base, Predicate<? super T> upToDate, Function<IndexedGraph, T> compute) {
+    T value = this.values.get(base);
+    if (value == null || !upToDate.test(value)) {
+      value = compute.apply(base);
+      this.values.put(base, value);
+    }
+    return value;
+  }
+}
@@ -0,0 +1,221 @@
+package dev.moriamap.model.network.traversal;
+
+import dev.moriamap.Logging;
+import dev.moriamap.model.network.ConnectionTable;
+import dev.moriamap.model.network.Edge;
+import dev.moriamap.model.network.Graph;
+import dev.moriamap.model.network.ServiceTime;
+import dev.moriamap.model.network.Stop;
+import dev.moriamap.model.network.Vertex;
+import dev.moriamap.model.network.WalkSegment;
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * Represents the Connection Scan Algorithm, which computes earliest arrival times. Instead of
+ * exploring the TransportSegments of the Graph and asking the weight function for the next passage
+ * at every Stop, it scans once, in order of departure time, the {@link ConnectionTable} of the
+ * TransportNetwork the travel is on. A connection is taken if its departure Stop is reached before
+ * it departs, and WalkSegments of the Graph are followed from every Stop whose arrival time is
+ * improved.
+ *
+ * <p>The weight function must be a {@link TravelTimeAsWeight}, which gives the start time and the
+ * TransportNetwork of the travel. The routes found have the earliest arrival time, like those found
+ * by Dijkstra with the same weight function. Connections departing up to {@value #DAYS_SCANNED}
+ * days after the start time are scanned.
+ */
+public class ConnectionScanTraversalStrategy implements TraversalStrategy {
+
+  /** The number of days of connections scanned after the start time of a traversal. */
+  public static final int DAYS_SCANNED = 2;
+
+  /**
+   * Computes the earliest arrival at dst from src if singleDestination is true, or at all other
+   * reachable vertices if false, when starting at the start time of weightFunction. The map
+   * returned associates each reached Vertex with the Edge taken to reach it at its earliest arrival
+   * time. If singleDestination is true, the scan stops once no connection can improve the arrival
+   * at dst. The number of connections scanned is logged.
+   *
+   * @param src the starting Vertex of the traversal
+   * @param dst the destination Vertex if singleDestination is true
+   * @param weightFunction the weight calculation function, which must be a TravelTimeAsWeight
+   * @param singleDestination a flag that indicates whether to stop when destination Vertex is found
+   * @param graph the graph to explore
+   * @return the earliest arrival tree from src to dst if singleDestination is true, the earliest
+   *     arrival tree from src to all other reachable vertices otherwise
+   * @throws NullPointerException if one of the arguments is null, except dst when singleDestination
+   *     is false
+   * @throws NoSuchElementException if src is not in graph
+   * @throws UnsupportedOperationException if weightFunction is not a TravelTimeAsWeight
+   */
+  @Override
+  public Map<Vertex, Edge> traversal(
+      Vertex src,
+      Vertex dst,
+      BiFunction<Double, Edge, Double> weightFunction,
+      boolean singleDestination,
+      Graph graph) {
+    Result result = this.search(src, dst, weightFunction, singleDestination, graph);
+    Logging.getLogger()
+        .fine(() -> "Connections scanned by the traversal: " + result.getScannedCount());
+    return result.getTree();
+  }
+
+  /**
+   * Computes the earliest arrivals like {@link #traversal}, and returns the earliest arrival tree
+   * with the number of connections scanned.
+   *
+   * @param src the starting Vertex of the traversal
+   * @param dst the destination Vertex if singleDestination is true
+   * @param weightFunction the weight calculation function, which must be a TravelTimeAsWeight
+   * @param singleDestination a flag that indicates whether to stop when destination Vertex is found
+   * @param graph the graph to explore
+   * @return the result of the traversal
+   * @throws NullPointerException if one of the arguments is null, except dst when singleDestination
+   *     is false
+   * @throws NoSuchElementException if src is not in graph
+   * @throws UnsupportedOperationException if weightFunction is not a TravelTimeAsWeight
+   */
+  public Result search(
+      Vertex src,
+      Vertex dst,
+      BiFunction<Double, Edge, Double> weightFunction,
+      boolean singleDestination,
+      Graph graph) {
+    Objects.requireNonNull(src);
+    if (singleDestination) Objects.requireNonNull(dst);
+    Objects.requireNonNull(weightFunction);
+    Objects.requireNonNull(graph);
+    if (!graph.contains(src)) throw new NoSuchElementException("Absent source Vertex");
+    if (!(weightFunction instanceof TravelTimeAsWeight travelTime))
+      throw new UnsupportedOperationException(
+          "The Connection Scan Algorithm can only optimize the travel time");
+
+    ConnectionTable table = travelTime.getTransportNetwork().getConnectionTable();
+    Scan scan = new Scan(table, graph, singleDestination ? dst : null);
+    int start = ServiceTime.toSecondsRoundedUp(travelTime.getStartTime());
+    scan.reach(src, start, null);
+    int scannedCount = scan.scanConnections(start);
+    return new Result(scan.res, scannedCount);
+  }
+
+  /**
+   * The result of a traversal done by a ConnectionScanTraversalStrategy: the earliest arrival tree
+   * and the number of connections scanned.
+   */
+  public static final class Result {
+
+    // The Edge taken to reach each Vertex at its earliest arrival time
+    private final Map<Vertex, Edge> tree;
+
+    // The number of connections scanned
+    private final int scannedCount;
+
+    private Result(Map<Vertex, Edge> tree, int scannedCount) {
+      this.tree = tree;
+      this.scannedCount = scannedCount;
+    }
+
+    /** {@return the map associating each Vertex reached with the Edge taken to reach it} */
+    public Map<Vertex, Edge> getTree() {
+      return this.tree;
+    }
+
+    /** {@return the number of connections scanned} */
+    public int getScannedCount() {
+      return this.scannedCount;
+    }
+  }
+
+  // The state of one traversal
+  private static final class Scan {
+    private final ConnectionTable table;
+    private final Graph graph;
+    private final Vertex dst;
+
+    // The earliest arrival time found at each Stop of the table, indexed by Stop id
+    private final int[] stopArrivals;
+
+    // The earliest arrival time found at the other vertices
+    private final Map<Vertex, Integer> otherArrivals = new HashMap<>();
+
+    // The earliest arrival time found at dst
+    private int dstArrival = Integer.MAX_VALUE;
+
+    private final Map<Vertex, Edge> res = new HashMap<>();
+    private final Deque<Vertex> pending = new ArrayDeque<>();
+
+    private Scan(ConnectionTable table, Graph graph, Vertex dst) {
+      this.table = table;
+      this.graph = graph;
+      this.dst = dst;
+      this.stopArrivals = new int[table.getStopCount()];
+      Arrays.fill(this.stopArrivals, Integer.MAX_VALUE);
+    }
+
+    // Scans the connections departing from start until DAYS_SCANNED days later and returns the
+    // number of connections scanned
+    private int scanConnections(int start) {
+      int size = this.table.size();
+      int shift = Math.floorDiv(start, ServiceTime.SECONDS_PER_DAY) * ServiceTime.SECONDS_PER_DAY;
+      int first = this.table.firstConnectionNotBefore(start - shift);
+      int end = start + DAYS_SCANNED * ServiceTime.SECONDS_PER_DAY;
+      int scanned = 0;
+      for (int i = first; ; i++) {
+        if (i == size) {
+          if (size == 0) return scanned;
+          i = 0;
+          shift += ServiceTime.SECONDS_PER_DAY;
+        }
+        int departure = this.table.getDepartureTime(i) + shift;
+        if (departure >= end || departure >= this.dstArrival) return scanned;
+        scanned++;
+        if (this.stopArrivals[this.table.getDepartureStop(i)] > departure) continue;
+        int arrival = this.table.getArrivalTime(i) + shift;
+        int to = this.table.getArrivalStop(i);
+        if (arrival < this.stopArrivals[to])
+          this.reach(this.table.getStop(to), arrival, this.table.getSegment(i));
+      }
+    }
+
+    // Records that vertex is reached at time through edge if it is earlier than before, then
+    // follows the WalkSegments from every Vertex whose arrival time is improved
+    private void reach(Vertex vertex, int time, Edge edge) {
+      if (!this.improve(vertex, time, edge)) return;
+      this.pending.add(vertex);
+      while (!this.pending.isEmpty()) {
+        Vertex a = this.pending.poll();
+        if (!this.graph.contains(a)) continue;
+        int arrivalA = this.arrivalAt(a);
+        for (Edge ab : this.graph.getOutgoingEdgesViewOf(a)) {
+          if (!(ab instanceof WalkSegment walk)) continue;
+          int arrivalB = arrivalA + (int) walk.travelTime().toSeconds();
+          if (this.improve(walk.getTo(), arrivalB, walk)) this.pending.add(walk.getTo());
+        }
+      }
+    }
+
+    // Sets the arrival time at vertex to time if it is earlier than the current one, and returns
+    // whether it was
+    private boolean improve(Vertex vertex, int time, Edge edge) {
+      int id = vertex instanceof Stop stop ? this.table.getStopId(stop) : -1;
+      if (id >= 0) {
+        if (time >= this.stopArrivals[id]) return false;
+        this.stopArrivals[id] = time;
+      } else {
+        Integer current = this.otherArrivals.get(vertex);
+        if (current != null && time >= current) return false;
+        this.otherArrivals.put(vertex, time);
+      }
+      if (vertex.equals(this.dst)) this.dstArrival = time;
+      if (edge != null) this.res.put(vertex, edge);
+      return true;
+    }
+
+    private int arrivalAt(Vertex vertex) {
+      int id = vertex instanceof Stop stop ? this.table.getStopId(stop) : -1;
+      if (id >= 0) return this.stopArrivals[id];
+      return this.otherArrivals.get(vertex);
+    }
+  }
+}
@@ -1,25 +1,40 @@
 package dev.moriamap.model.network.traversal;
 
 import dev.moriamap.model.network.Edge;
-import dev.moriamap.model.network.Stop;
+import dev.moriamap.model.network.IndexedGraph;
+import dev.moriamap.model.network.StopTimetableIndex;
 import dev.moriamap.model.network.TransportNetwork;
 import dev.moriamap.model.network.TransportSegment;
 import dev.moriamap.model.network.WalkSegment;
-import java.time.Duration;
-import java.time.LocalTime;
 import java.util.*;
-import java.util.function.*;
 
 /**
  * The interface {@code BiFunction<Double, Edge, Double>} is used by our Graph traversal strategies
  * (implementing TraversalStrategy) to compute the weight of an Edge only when the algorithm needs
- * it. For a TransportSegment, this class returns its length in kilometers.
+ * it. For a TransportSegment, this class returns its length in kilometers. When weighing the edges
+ * of an IndexedGraph by id, the weight of every Edge is computed once in {@link
+ * #prepare(IndexedGraph)}. A DistanceAsWeight must not be used by several threads at once.
  */
-public class DistanceAsWeight implements BiFunction<Double, Edge, Double> {
+public class DistanceAsWeight implements EdgeWeigher {
 
   /** Transport network the travel is on */
   final TransportNetwork tn;
 
+  // The weight of each Edge id of an IndexedGraph, NaN for edges that are neither transport nor
+  // walk segments, with the StopTimetableIndex the weights were computed with
+  private record EdgeWeights(StopTimetableIndex index, double[] weights) {}
+
+  // The weights of the edges of the base graphs prepared by any DistanceAsWeight, shared so that
+  // queries on the same network do not compute them again
+  private static final BaseGraphCache<EdgeWeights> sharedBaseWeights = new BaseGraphCache<>();
+
+  // The weights of the edges of the base of the prepared IndexedGraph, and of its other edges,
+  // whose ids start at baseEdgeCount
+  private EdgeWeights baseWeights = null;
+  private EdgeWeights extraWeights = null;
+  private IndexedGraph preparedGraph = null;
+  private int baseEdgeCount;
+
   /**
    * Constructor for TravelTimeAsWeight
    *
@@ -45,10 +60,7 @@ public class DistanceAsWeight implements BiFunction<Double, Edge, Double> {
     Objects.requireNonNull(current);
     Objects.requireNonNull(edge);
     if (edge instanceof TransportSegment ts) {
-      Duration nextFromSchedule =
-          tn.getPassages((Stop) ts.getFrom())
-              .getWaitTimeWithWrap(LocalTime.MIN, ts.getVariantName(), ts.getLineName());
-      if (nextFromSchedule == null) return Double.POSITIVE_INFINITY;
+      if (!tn.getStopTimetableIndex().hasPassages(ts)) return Double.POSITIVE_INFINITY;
       return ts.getDistance();
     } else if (edge instanceof WalkSegment ws) {
       return WalkSegment.WALK_DRUDGERY * ws.distance / 1000.0;
@@ -56,4 +68,51 @@ public class DistanceAsWeight implements BiFunction<Double, Edge, Double> {
       throw new UnsupportedOperationException("Unknown Edge");
     }
   }
+
+  /**
+   * Computes the weights of the edges of graph. The weights of the edges of the base of graph (see
+   * {@link IndexedGraph#getBaseGraph()}) are shared by all the DistanceAsWeight instances, so when
+   * graph extends the base graph of a previous query, only its other edges are weighed.
+   *
+   * @param graph the IndexedGraph whose edges will be weighed
+   * @throws NullPointerException if graph is null
+   */
+  @Override
+  public void prepare(IndexedGraph graph) {
+    Objects.requireNonNull(graph);
+    StopTimetableIndex index = tn.getStopTimetableIndex();
+    if (graph == this.preparedGraph && index == this.baseWeights.index()) return;
+    IndexedGraph base = graph.getBaseGraph();
+    this.baseWeights =
+        sharedBaseWeights.get(
+            base, weights -> weights.index() == index, g -> this.computeEdgeWeights(g, index, 0));
+    this.baseEdgeCount = base.getEdgeCount();
+    this.extraWeights = this.computeEdgeWeights(graph, index, this.baseEdgeCount);
+    this.preparedGraph = graph;
+  }
+
+  // Returns the weights of the edges of graph whose ids are at least from
+  private EdgeWeights computeEdgeWeights(IndexedGraph graph, StopTimetableIndex index, int from) {
+    double[] weights = new double[graph.getEdgeCount() - from];
+    for (int e = 0; e < weights.length; e++) {
+      Edge edge = graph.getEdge(from + e);
+      if (edge instanceof TransportSegment ts)
+        weights[e] = index.hasPassages(ts) ? ts.getDistance() : Double.POSITIVE_INFINITY;
+      else if (edge instanceof WalkSegment ws)
+        weights[e] = WalkSegment.WALK_DRUDGERY * ws.distance / 1000.0;
+      else weights[e] = Double.NaN;
+    }
+    return new EdgeWeights(index, weights);
+  }
+
+  @Override
+  public double weight(double current, int edge, IndexedGraph graph) {
+    if (graph != this.preparedGraph) this.prepare(graph);
+    double weight =
+        edge < this.baseEdgeCount
+            ? this.baseWeights.weights()[edge]
+            : this.extraWeights.weights()[edge - this.baseEdgeCount];
+    if (Double.isNaN(weight)) throw new UnsupportedOperationException("Unknown Edge");
+    return weight;
+  }
 }
@@ -0,0 +1,60 @@
+package dev.moriamap.model.network.traversal;
+
+import dev.moriamap.model.network.Edge;
+import dev.moriamap.model.network.IndexedGraph;
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+/**
+ * A weight function that can also weigh the edges of an {@link IndexedGraph} by their id with
+ * primitive doubles, so that traversal strategies working on vertex and edge ids relax edges
+ * without boxing or creating any other object. It is still a {@code BiFunction<Double, Edge,
+ * Double>}, so it can be given to any TraversalStrategy; the strategies that work on an
+ * IndexedGraph use {@link #weight(double, int, IndexedGraph)} instead of {@link #apply(Object,
+ * Object)}. Both must return the same weight for the same Edge.
+ */
+public interface EdgeWeigher extends BiFunction<Double, Edge, Double> {
+
+  /**
+   * Prepares this EdgeWeigher to weigh the edges of graph, for instance by computing data for every
+   * Edge id. Traversal strategies call it once before they weigh the edges of graph. This
+   * implementation does nothing.
+   *
+   * @param graph the IndexedGraph whose edges will be weighed
+   */
+  default void prepare(IndexedGraph graph) {}
+
+  /**
+   * {@return the weight of the Edge with the given id in graph} It is equal to {@code
+   * apply(current, graph.getEdge(edge))}.
+   *
+   * @param current the value that {@link #apply(Object, Object)} takes as first argument
+   * @param edge the id of an Edge of graph
+   * @param graph the IndexedGraph being explored
+   * @throws IndexOutOfBoundsException if edge is not an Edge id of graph
+   */
+  double weight(double current, int edge, IndexedGraph graph);
+
+  /**
+   * {@return weightFunction if it is an EdgeWeigher, or an EdgeWeigher that weighs edges with
+   * weightFunction otherwise}
+   *
+   * @param weightFunction a weight function
+   * @throws NullPointerException if weightFunction is null
+   */
+  static EdgeWeigher of(BiFunction<Double, Edge, Double> weightFunction) {
+    Objects.requireNonNull(weightFunction);
+    if (weightFunction instanceof EdgeWeigher weigher) return weigher;
+    return new EdgeWeigher() {
+      @Override
+      public double weight(double current, int edge, IndexedGraph graph) {
+        return weightFunction.apply(current, graph.getEdge(edge));
+      }
+
+      @Override
+      public Double apply(Double current, Edge edge) {
+        return weightFunction.apply(current, edge);
+      }
+    };
+  }
+}
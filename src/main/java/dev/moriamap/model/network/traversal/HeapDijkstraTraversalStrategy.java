@@ -0,0 +1,208 @@
+package dev.moriamap.model.network.traversal;
+
+import dev.moriamap.Logging;
+import dev.moriamap.model.network.Edge;
+import dev.moriamap.model.network.Graph;
+import dev.moriamap.model.network.IndexedGraph;
+import dev.moriamap.model.network.Vertex;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Represents the Dijkstra graph traversal strategy backed by a binary heap. Unlike {@link
+ * DijkstraTraversalStrategy}, which scans every unvisited Vertex to find the next one to settle,
+ * this strategy keeps the tentative distances in a priority queue. A Vertex whose distance is
+ * improved is pushed again rather than updated in place, and outdated queue entries are skipped
+ * when they are polled (lazy deletion). The traversal runs on the {@link IndexedGraph} form of the
+ * Graph, so distances, settled vertices and the queue are primitive arrays indexed by Vertex id. If
+ * the weight function is an {@link EdgeWeigher}, edges are weighed by id without boxing.
+ *
+ * <p>Subclasses can order the queue with a lower bound of the remaining weight to the destination
+ * by overriding {@link #remainingWeightEstimate(Vertex, Graph)}, which turns this strategy into A*.
+ * The state of a traversal is local to it, so a strategy can be used by several threads.
+ */
+public class HeapDijkstraTraversalStrategy implements TraversalStrategy {
+
+  /**
+   * Explores the vertices of the given Graph, computing the shortest path from src to dst if
+   * singleDestination is true or to all other reachable vertices if false. weightFunction is used
+   * to determine which Edge to take during the traversal. The map returned corresponds to the
+   * shortest path tree from src to all other reachable vertices in the given Graph if
+   * singleDestination is false. If singleDestination is true, the map returned contains the
+   * shortest path from src to dst. The number of vertices settled is logged.
+   *
+   * @param src the starting Vertex of the traversal
+   * @param dst the destination Vertex if singleDestination is true
+   * @param weightFunction the weight calculation function
+   * @param singleDestination a flag that indicates whether to stop when destination Vertex is found
+   * @param graph the graph to explore
+   * @return the shortest path tree from src to dst if singleDestination is true, the shortest path
+   *     tree from src to all other reachable vertices otherwise
+   * @throws NullPointerException if one of the arguments is null, except dst when singleDestination
+   *     is false
+   * @throws NoSuchElementException if src is not in graph
+   */
+  @Override
+  public Map<Vertex, Edge> traversal(
+      Vertex src,
+      Vertex dst,
+      BiFunction<Double, Edge, Double> weightFunction,
+      boolean singleDestination,
+      Graph graph) {
+    Result result = this.search(src, dst, weightFunction, singleDestination, graph);
+    Logging.getLogger()
+        .fine(() -> "Vertices settled by the traversal: " + result.getSettledCount());
+    return result.getTree();
+  }
+
+  /**
+   * Explores the vertices of the given Graph like {@link #traversal}, and returns the shortest path
+   * tree with the weight of the route to each Vertex reached and the number of vertices settled.
+   *
+   * @param src the starting Vertex of the traversal
+   * @param dst the destination Vertex if singleDestination is true
+   * @param weightFunction the weight calculation function
+   * @param singleDestination a flag that indicates whether to stop when destination Vertex is found
+   * @param graph the graph to explore
+   * @return the result of the traversal
+   * @throws NullPointerException if one of the arguments is null, except dst when singleDestination
+   *     is false
+   * @throws NoSuchElementException if src is not in graph
+   */
+  public Result search(
+      Vertex src,
+      Vertex dst,
+      BiFunction<Double, Edge, Double> weightFunction,
+      boolean singleDestination,
+      Graph graph) {
+    Objects.requireNonNull(src);
+    if (singleDestination) Objects.requireNonNull(dst);
+    Objects.requireNonNull(weightFunction);
+    Objects.requireNonNull(graph);
+    if (!graph.contains(src)) throw new NoSuchElementException("Absent source Vertex");
+
+    IndexedGraph indexed = graph.getIndexedGraph();
+    int n = indexed.getVertexCount();
+    int source = indexed.getVertexId(src);
+    int destination = singleDestination ? indexed.getVertexId(dst) : -1;
+    // The estimate of the remaining weight to dst, which is 0.0 if the traversal has no
+    // destination
+    ToDoubleFunction<Vertex> estimate =
+        singleDestination ? this.remainingWeightEstimate(dst, graph) : vertex -> 0.0;
+    // distance[v] is the tentative distance of v, and parentEdge[v] the id of the Edge reaching it
+    // (-1 if v was not reached)
+    double[] distance = new double[n];
+    Arrays.fill(distance, Double.POSITIVE_INFINITY);
+    int[] parentEdge = new int[n];
+    Arrays.fill(parentEdge, -1);
+    boolean[] settled = new boolean[n];
+    int settledCount = 0;
+    VertexQueue queue = new VertexQueue(n);
+    EdgeWeigher weigher = EdgeWeigher.of(weightFunction);
+    weigher.prepare(indexed);
+
+    distance[source] = 0.0;
+    queue.add(source, estimate.applyAsDouble(src));
+
+    while (!queue.isEmpty()) {
+      int a = queue.poll();
+      // Outdated entry: a was pushed again with a smaller distance, or already settled
+      if (settled[a]) continue;
+      settled[a] = true;
+      settledCount++;
+
+      if (a == destination) break;
+
+      double distA = distance[a];
+      int end = indexed.getOutgoingEdgesEnd(a);
+      for (int ab = indexed.getFirstOutgoingEdge(a); ab < end; ab++) {
+        int b = indexed.getEdgeTarget(ab);
+        if (settled[b]) continue;
+        double distanceFromSrcToB = distA + weigher.weight(distA, ab, indexed);
+        if (distanceFromSrcToB == Double.POSITIVE_INFINITY) continue;
+        if (distance[b] > distanceFromSrcToB) {
+          distance[b] = distanceFromSrcToB;
+          parentEdge[b] = ab;
+          double priority = distanceFromSrcToB + estimate.applyAsDouble(indexed.getVertex(b));
+          queue.add(b, priority);
+        }
+      }
+    }
+    return new Result(indexed, distance, parentEdge, settledCount);
+  }
+
+  /**
+   * Returns the lower bound of the weight of any route to dst in graph used by one traversal.
+   * Vertices are settled in increasing order of their distance from the source plus this estimate.
+   * For the routes found to be the shortest ones, the estimate of a Vertex must never exceed the
+   * weight of one of its outgoing Edges plus the estimate of the Edge destination. The function
+   * returned is only used by the traversal it is made for, so it can keep the bounds it computes.
+   * This implementation always returns 0.0, which gives the Dijkstra algorithm.
+   *
+   * @param dst the destination Vertex of the traversal
+   * @param graph the graph being explored
+   * @return a function giving a lower bound of the weight of any route from a Vertex to dst
+   */
+  protected ToDoubleFunction<Vertex> remainingWeightEstimate(Vertex dst, Graph graph) {
+    return vertex -> 0.0;
+  }
+
+  /**
+   * The result of a traversal done by a HeapDijkstraTraversalStrategy: the shortest path tree, the
+   * weight of the route to each Vertex reached, and the number of vertices settled.
+   */
+  public static final class Result {
+
+    // The explored graph, with the tentative distance and the id of the Edge reaching each of its
+    // vertices by id (-1 if the Vertex was not reached)
+    private final IndexedGraph graph;
+    private final double[] distance;
+    private final int[] parentEdge;
+
+    // The number of vertices settled
+    private final int settledCount;
+
+    private Result(IndexedGraph graph, double[] distance, int[] parentEdge, int settledCount) {
+      this.graph = graph;
+      this.distance = distance;
+      this.parentEdge = parentEdge;
+      this.settledCount = settledCount;
+    }
+
+    /**
+     * {@return the map associating each Vertex reached with the Edge reaching it} If the traversal
+     * had a destination, it contains the shortest path from the source to the destination.
+     */
+    public Map<Vertex, Edge> getTree() {
+      Map<Vertex, Edge> res = new HashMap<>();
+      for (int v = 0; v < this.parentEdge.length; v++) {
+        if (this.parentEdge[v] >= 0)
+          res.put(this.graph.getVertex(v), this.graph.getEdge(this.parentEdge[v]));
+      }
+      return res;
+    }
+
+    /**
+     * Returns the weight of the route from the source to the given Vertex in the tree, which is 0.0
+     * for the source and positive infinity for a Vertex that was not reached.
+     *
+     * @param vertex a Vertex of the explored graph
+     * @return the weight of the route from the source to vertex
+     * @throws NoSuchElementException if vertex is not in the explored graph
+     */
+    public double getWeight(Vertex vertex) {
+      int id = this.graph.getVertexId(vertex);
+      if (id < 0) throw new NoSuchElementException("Absent Vertex");
+      return this.distance[id];
+    }
+
+    /**
+     * {@return the number of vertices settled} It measures how much of the Graph had to be
+     * explored.
+     */
+    public int getSettledCount() {
+      return this.settledCount;
+    }
+  }
+}
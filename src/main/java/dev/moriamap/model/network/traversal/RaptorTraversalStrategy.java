@@ -0,0 +1,403 @@
+package dev.moriamap.model.network.traversal;
+
+import dev.moriamap.Logging;
+import dev.moriamap.model.network.Edge;
+import dev.moriamap.model.network.Graph;
+import dev.moriamap.model.network.ServiceTime;
+import dev.moriamap.model.network.Stop;
+import dev.moriamap.model.network.TransportSegment;
+import dev.moriamap.model.network.VariantTimetable;
+import dev.moriamap.model.network.Vertex;
+import dev.moriamap.model.network.WalkSegment;
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * Represents the RAPTOR (Round-bAsed Public Transit Optimized Router) algorithm, which computes
+ * earliest arrival times with a bounded number of transfers. It works in rounds on the {@link
+ * VariantTimetable} of the TransportNetwork the travel is on: round k rides one more Variant from
+ * every Stop whose arrival time was improved in round k - 1, so after round k the arrival times are
+ * the earliest ones using at most k - 1 transfers. WalkSegments of the Graph are followed at the
+ * end of every round. Its cost grows with the number of transfers rather than with the size of the
+ * Graph.
+ *
+ * <p>The weight function must be a {@link TravelTimeAsWeight}, which gives the start time and the
+ * TransportNetwork of the travel. With enough transfers allowed, the routes found have the earliest
+ * arrival time, like those found by Dijkstra with the same weight function. The route to the
+ * destination is a list of Edges that {@link
+ * dev.moriamap.model.network.TransportNetwork#getRouteDescription} and the PrettyPrinter can
+ * format.
+ */
+public class RaptorTraversalStrategy implements TraversalStrategy {
+
+  /** The maximum number of transfers of the routes found by the default constructor. */
+  public static final int DEFAULT_MAX_TRANSFERS = 10;
+
+  // The maximum number of transfers of the routes found
+  private final int maxTransfers;
+
+  /** Constructor of RaptorTraversalStrategy allowing DEFAULT_MAX_TRANSFERS transfers. */
+  public RaptorTraversalStrategy() {
+    this(DEFAULT_MAX_TRANSFERS);
+  }
+
+  /**
+   * Constructor of RaptorTraversalStrategy.
+   *
+   * @param maxTransfers the maximum number of transfers between two variants of the routes found
+   * @throws IllegalArgumentException if maxTransfers is negative
+   */
+  public RaptorTraversalStrategy(int maxTransfers) {
+    if (maxTransfers < 0) throw new IllegalArgumentException("maxTransfers can't be negative");
+    this.maxTransfers = maxTransfers;
+  }
+
+  /** {@return the maximum number of transfers of the routes found by this strategy} */
+  public int getMaxTransfers() {
+    return this.maxTransfers;
+  }
+
+  /**
+   * {@return the class of this strategy with its maximum number of transfers} Strategies allowing
+   * different numbers of transfers can find different routes.
+   */
+  @Override
+  public Object getRouteKey() {
+    return List.of(this.getClass(), this.maxTransfers);
+  }
+
+  /**
+   * Computes the earliest arrival at dst from src if singleDestination is true, or at all other
+   * reachable vertices if false, when starting at the start time of weightFunction and with at most
+   * getMaxTransfers() transfers. If singleDestination is true, the map returned contains the route
+   * to dst, or is empty if dst can not be reached. If singleDestination is false, it associates
+   * each reached Vertex with the last Edge of the route reaching it the earliest. The number of
+   * rounds done is logged.
+   *
+   * @param src the starting Vertex of the traversal
+   * @param dst the destination Vertex if singleDestination is true
+   * @param weightFunction the weight calculation function, which must be a TravelTimeAsWeight
+   * @param singleDestination a flag that indicates whether to stop when destination Vertex is found
+   * @param graph the graph to explore
+   * @return the route from src to dst if singleDestination is true, the earliest arrival tree from
+   *     src to all other reachable vertices otherwise
+   * @throws NullPointerException if one of the arguments is null, except dst when singleDestination
+   *     is false
+   * @throws NoSuchElementException if src is not in graph
+   * @throws UnsupportedOperationException if weightFunction is not a TravelTimeAsWeight
+   */
+  @Override
+  public Map<Vertex, Edge> traversal(
+      Vertex src,
+      Vertex dst,
+      BiFunction<Double, Edge, Double> weightFunction,
+      boolean singleDestination,
+      Graph graph) {
+    Result result = this.search(src, dst, weightFunction, singleDestination, graph);
+    Logging.getLogger().fine(() -> "Rounds done by the traversal: " + result.getRoundCount());
+    return result.getTree();
+  }
+
+  /**
+   * Computes the earliest arrivals like {@link #traversal}, and returns the route or the earliest
+   * arrival tree with the number of rounds done.
+   *
+   * @param src the starting Vertex of the traversal
+   * @param dst the destination Vertex if singleDestination is true
+   * @param weightFunction the weight calculation function, which must be a TravelTimeAsWeight
+   * @param singleDestination a flag that indicates whether to stop when destination Vertex is found
+   * @param graph the graph to explore
+   * @return the result of the traversal
+   * @throws NullPointerException if one of the arguments is null, except dst when singleDestination
+   *     is false
+   * @throws NoSuchElementException if src is not in graph
+   * @throws UnsupportedOperationException if weightFunction is not a TravelTimeAsWeight
+   */
+  public Result search(
+      Vertex src,
+      Vertex dst,
+      BiFunction<Double, Edge, Double> weightFunction,
+      boolean singleDestination,
+      Graph graph) {
+    Objects.requireNonNull(src);
+    if (singleDestination) Objects.requireNonNull(dst);
+    Objects.requireNonNull(weightFunction);
+    Objects.requireNonNull(graph);
+    if (!graph.contains(src)) throw new NoSuchElementException("Absent source Vertex");
+    if (!(weightFunction instanceof TravelTimeAsWeight travelTime))
+      throw new UnsupportedOperationException("RAPTOR can only optimize the travel time");
+
+    VariantTimetable table = travelTime.getTransportNetwork().getVariantTimetable();
+    Search search = new Search(table, graph);
+    if (singleDestination) search.dst = search.idOf(dst);
+    search.run(src, ServiceTime.toSecondsRoundedUp(travelTime.getStartTime()), maxTransfers + 1);
+    Map<Vertex, Edge> tree = singleDestination ? search.routeTo(dst) : search.lastEdges(src);
+    return new Result(tree, search.rounds.size() - 1);
+  }
+
+  /**
+   * The result of a traversal done by a RaptorTraversalStrategy: the route or the earliest arrival
+   * tree, and the number of rounds done.
+   */
+  public static final class Result {
+
+    // The Edge taken to reach each Vertex of the route or of the tree
+    private final Map<Vertex, Edge> tree;
+
+    // The number of rounds done
+    private final int roundCount;
+
+    private Result(Map<Vertex, Edge> tree, int roundCount) {
+      this.tree = tree;
+      this.roundCount = roundCount;
+    }
+
+    /**
+     * {@return the map associating each Vertex of the route or of the tree with the Edge reaching
+     * it}
+     */
+    public Map<Vertex, Edge> getTree() {
+      return this.tree;
+    }
+
+    /**
+     * {@return the number of rounds done} Each round rides one more Variant, so it is at most the
+     * maximum number of transfers plus one.
+     */
+    public int getRoundCount() {
+      return this.roundCount;
+    }
+  }
+
+  // The arrival times found during one round, and how each one was found
+  private static final class Round {
+    // The earliest arrival time at each vertex with at most as many rides as this round
+    private int[] labels;
+
+    // The last Edge taken to reach each vertex whose arrival time was improved in this round, null
+    // for the others
+    private Edge[] parents;
+
+    // For the vertices reached by a ride in this round, the Variant ridden and the positions in it
+    // where the ride started and ended
+    private int[] rideVariants;
+    private int[] rideStarts;
+    private int[] rideEnds;
+
+    private Round(int[] labels) {
+      this.labels = labels;
+      this.parents = new Edge[labels.length];
+      this.rideVariants = new int[labels.length];
+      this.rideStarts = new int[labels.length];
+      this.rideEnds = new int[labels.length];
+    }
+
+    private void grow(int capacity) {
+      int size = this.labels.length;
+      this.labels = Arrays.copyOf(this.labels, capacity);
+      Arrays.fill(this.labels, size, capacity, Integer.MAX_VALUE);
+      this.parents = Arrays.copyOf(this.parents, capacity);
+      this.rideVariants = Arrays.copyOf(this.rideVariants, capacity);
+      this.rideStarts = Arrays.copyOf(this.rideStarts, capacity);
+      this.rideEnds = Arrays.copyOf(this.rideEnds, capacity);
+    }
+  }
+
+  // The state of one traversal. Vertices are identified by the id of their Stop in the table, or by
+  // an id after those for the other vertices
+  private static final class Search {
+    private final VariantTimetable table;
+    private final Graph graph;
+
+    // The vertices that are not stops of the table, and their ids
+    private final List<Vertex> others = new ArrayList<>();
+    private final Map<Vertex, Integer> otherIds = new HashMap<>();
+
+    // The id of the destination, or -1 if there is none
+    private int dst = -1;
+
+    private final List<Round> rounds = new ArrayList<>();
+
+    // The earliest arrival time found at each vertex in any round
+    private int[] best;
+
+    // The vertices whose arrival time was improved in the current round
+    private final List<Integer> marked = new ArrayList<>();
+
+    private Search(VariantTimetable table, Graph graph) {
+      this.table = table;
+      this.graph = graph;
+      this.best = new int[table.getStopCount()];
+      Arrays.fill(this.best, Integer.MAX_VALUE);
+      int[] labels = new int[table.getStopCount()];
+      Arrays.fill(labels, Integer.MAX_VALUE);
+      this.rounds.add(new Round(labels));
+    }
+
+    private int idOf(Vertex vertex) {
+      int id = vertex instanceof Stop stop ? this.table.getStopId(stop) : -1;
+      if (id >= 0) return id;
+      Integer otherId = this.otherIds.get(vertex);
+      if (otherId != null) return otherId;
+      id = this.table.getStopCount() + this.others.size();
+      this.others.add(vertex);
+      this.otherIds.put(vertex, id);
+      if (id >= this.best.length) {
+        int capacity = Math.max(id + 1, 2 * this.best.length);
+        int size = this.best.length;
+        this.best = Arrays.copyOf(this.best, capacity);
+        Arrays.fill(this.best, size, capacity, Integer.MAX_VALUE);
+        for (Round round : this.rounds) round.grow(capacity);
+      }
+      return id;
+    }
+
+    private Vertex vertexOf(int id) {
+      int stopCount = this.table.getStopCount();
+      return id < stopCount ? this.table.getStop(id) : this.others.get(id - stopCount);
+    }
+
+    // Does up to maxRounds rounds from src reached at start
+    private void run(Vertex src, int start, int maxRounds) {
+      int srcId = this.idOf(src);
+      Round first = this.rounds.get(0);
+      first.labels[srcId] = start;
+      this.best[srcId] = start;
+      this.marked.add(srcId);
+      this.followWalkSegments(first);
+
+      int[] boardingPositions = new int[this.table.getVariantCount()];
+      Arrays.fill(boardingPositions, Integer.MAX_VALUE);
+      List<Integer> variants = new ArrayList<>();
+      while (!this.marked.isEmpty() && this.rounds.size() <= maxRounds) {
+        Round previous = this.rounds.get(this.rounds.size() - 1);
+        Round round = new Round(previous.labels.clone());
+        this.rounds.add(round);
+
+        // The variants to ride, from the first position where one of their stops was improved
+        for (int v : this.marked) {
+          if (v >= this.table.getStopCount()) continue;
+          for (int j = 0; j < this.table.getServingVariantCount(v); j++) {
+            int variant = this.table.getServingVariant(v, j);
+            if (boardingPositions[variant] == Integer.MAX_VALUE) variants.add(variant);
+            boardingPositions[variant] =
+                Math.min(boardingPositions[variant], this.table.getServingPosition(v, j));
+          }
+        }
+        this.marked.clear();
+        for (int variant : variants) {
+          this.ride(variant, boardingPositions[variant], previous, round);
+          boardingPositions[variant] = Integer.MAX_VALUE;
+        }
+        variants.clear();
+        this.followWalkSegments(round);
+      }
+    }
+
+    // Rides the given variant from the given position, boarding at each Stop the earliest transport
+    // that can be taken with the arrival times of the previous round
+    private void ride(int variant, int from, Round previous, Round round) {
+      int length = this.table.getLength(variant);
+      boolean onBoard = false;
+      int tripStart = 0;
+      int boardedAt = 0;
+      for (int i = from; i < length; i++) {
+        int stop = this.table.getStopAt(variant, i);
+        int offset = this.table.getTimeOffset(variant, i);
+        if (onBoard) {
+          int arrival = tripStart + offset;
+          if (this.improves(stop, arrival)) {
+            this.set(round, stop, arrival, this.table.getSegmentFrom(variant, i - 1));
+            round.rideVariants[stop] = variant;
+            round.rideStarts[stop] = boardedAt;
+            round.rideEnds[stop] = i;
+          }
+        }
+        int previousLabel = previous.labels[stop];
+        if (i < length - 1
+            && previousLabel != Integer.MAX_VALUE
+            && (!onBoard || previousLabel < tripStart + offset)) {
+          int trip = this.table.earliestTrip(variant, i, previousLabel);
+          if (!onBoard || trip < tripStart) {
+            onBoard = true;
+            tripStart = trip;
+            boardedAt = i;
+          }
+        }
+      }
+    }
+
+    // Follows the WalkSegments from the vertices improved in the given round
+    private void followWalkSegments(Round round) {
+      Deque<Integer> pending = new ArrayDeque<>(this.marked);
+      while (!pending.isEmpty()) {
+        int a = pending.poll();
+        Vertex vertexA = this.vertexOf(a);
+        if (!this.graph.contains(vertexA)) continue;
+        for (Edge ab : this.graph.getOutgoingEdgesViewOf(vertexA)) {
+          if (!(ab instanceof WalkSegment walk)) continue;
+          int b = this.idOf(walk.getTo());
+          int arrival = round.labels[a] + (int) walk.travelTime().toSeconds();
+          if (this.improves(b, arrival)) {
+            this.set(round, b, arrival, walk);
+            pending.add(b);
+          }
+        }
+      }
+    }
+
+    // Returns whether arrival is earlier than the earliest arrival times found at v and at the
+    // destination
+    private boolean improves(int v, int arrival) {
+      return arrival < this.best[v] && (this.dst < 0 || arrival < this.best[this.dst]);
+    }
+
+    private void set(Round round, int v, int arrival, Edge edge) {
+      round.labels[v] = arrival;
+      round.parents[v] = edge;
+      this.best[v] = arrival;
+      this.marked.add(v);
+    }
+
+    // Returns the route to dst as a map from each Vertex of the route to the Edge reaching it, or
+    // an empty map if dst was not reached
+    private Map<Vertex, Edge> routeTo(Vertex dst) {
+      Map<Vertex, Edge> res = new HashMap<>();
+      if (this.best[this.dst] == Integer.MAX_VALUE) return res;
+      int v = this.dst;
+      int k = this.rounds.size() - 1;
+      while (k >= 0) {
+        Round round = this.rounds.get(k);
+        Edge edge = round.parents[v];
+        if (edge == null) {
+          k--;
+        } else if (edge instanceof WalkSegment) {
+          res.put(edge.getTo(), edge);
+          v = this.idOf(edge.getFrom());
+        } else {
+          int variant = round.rideVariants[v];
+          for (int i = round.rideStarts[v]; i < round.rideEnds[v]; i++) {
+            TransportSegment segment = this.table.getSegmentFrom(variant, i);
+            res.put(segment.getTo(), segment);
+          }
+          v = this.table.getStopAt(variant, round.rideStarts[v]);
+          k--;
+        }
+      }
+      return res;
+    }
+
+    // Returns a map from each reached Vertex to the last Edge of the route reaching it the earliest
+    private Map<Vertex, Edge> lastEdges(Vertex src) {
+      Map<Vertex, Edge> res = new HashMap<>();
+      for (int k = this.rounds.size() - 1; k >= 0; k--) {
+        Edge[] parents = this.rounds.get(k).parents;
+        for (int v = 0; v < parents.length; v++) {
+          if (parents[v] != null) res.putIfAbsent(this.vertexOf(v), parents[v]);
+        }
+      }
+      res.remove(src);
+      return res;
+    }
+  }
+}
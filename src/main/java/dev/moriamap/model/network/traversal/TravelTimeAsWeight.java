@@ -1,17 +1,32 @@
 package dev.moriamap.model.network.traversal;
 
 import dev.moriamap.model.network.Edge;
+import dev.moriamap.model.network.IndexedGraph;
+import dev.moriamap.model.network.ServiceTime;
 import dev.moriamap.model.network.Stop;
+import dev.moriamap.model.network.StopTimetableIndex;
 import dev.moriamap.model.network.TransportNetwork;
 import dev.moriamap.model.network.TransportSegment;
 import dev.moriamap.model.network.WalkSegment;
 import java.time.Duration;
 import java.time.LocalTime;
 import java.util.Objects;
-import java.util.function.BiFunction;
 
-/** */
-public class TravelTimeAsWeight implements BiFunction<Double, Edge, Double> {
+/**
+ * Weighs an Edge with the time in seconds it takes to go along it, when it is reached current
+ * seconds after the start time of the travel. For a TransportSegment, it is the wait for the next
+ * transport plus the travel duration of the segment. For a WalkSegment, it is its walking time.
+ *
+ * <p>When weighing the edges of an IndexedGraph by id, the passages and durations of every Edge are
+ * looked up once in {@link #prepare(IndexedGraph)}, and the wait is then computed in seconds
+ * without creating any object. A TravelTimeAsWeight must not be used by several threads at once.
+ */
+public class TravelTimeAsWeight implements EdgeWeigher {
+
+  // Kinds of edges in edgePassages, other values being passages ids
+  private static final int NO_PASSAGES = -1;
+  private static final int WALK = -2;
+  private static final int UNKNOWN = -3;
 
   /** Time when the travel started */
   LocalTime startTime;
@@ -19,6 +34,21 @@ public class TravelTimeAsWeight implements BiFunction<Double, Edge, Double> {
   /** Transport network the travel is on */
   TransportNetwork tn;
 
+  // For each Edge id of an IndexedGraph, the id of the passages at its origin or its kind, and its
+  // duration in seconds, with the StopTimetableIndex the passages ids are from
+  private record EdgeData(StopTimetableIndex index, int[] passages, long[] seconds) {}
+
+  // The data of the edges of the base graphs prepared by any TravelTimeAsWeight, shared so that
+  // queries on the same network do not compute them again
+  private static final BaseGraphCache<EdgeData> sharedBaseData = new BaseGraphCache<>();
+
+  // The data of the edges of the base of the prepared IndexedGraph, and of its other edges, whose
+  // ids start at baseEdgeCount
+  private EdgeData baseData = null;
+  private EdgeData extraData = null;
+  private IndexedGraph preparedGraph = null;
+  private int baseEdgeCount;
+
   /**
    * Constructor for TravelTimeAsWeight
    *
@@ -32,21 +62,110 @@ public class TravelTimeAsWeight implements BiFunction<Double, Edge, Double> {
     this.tn = tn;
   }
 
+  /** {@return the time when the travel started} */
+  public LocalTime getStartTime() {
+    return this.startTime;
+  }
+
+  /** {@return the transport network the travel is on} */
+  public TransportNetwork getTransportNetwork() {
+    return this.tn;
+  }
+
   @Override
   public Double apply(Double current, Edge edge) {
     Objects.requireNonNull(current);
     Objects.requireNonNull(edge);
     if (edge instanceof TransportSegment segment) {
+      StopTimetableIndex index = tn.getStopTimetableIndex();
+      if (startTime.getNano() == 0) {
+        int passages = index.getPassagesId(segment);
+        int wait = passages < 0 ? -1 : waitSeconds(index, passages, current);
+        if (wait < 0) return Double.POSITIVE_INFINITY;
+        return (double) wait + segment.getTravelDuration().toSeconds();
+      }
+      // A start time with a fraction of second is rare enough to be weighed with objects
       LocalTime time = startTime.plusSeconds(current.longValue());
       Duration nextFromSchdl =
-          tn.getPassages((Stop) segment.getFrom())
-              .getWaitTimeWithWrap(time, segment.getVariantName(), segment.getLineName());
+          index.getWaitTimeWithWrap(
+              (Stop) segment.getFrom(), time, segment.getVariantName(), segment.getLineName());
       if (nextFromSchdl == null) return Double.POSITIVE_INFINITY;
       return (double) nextFromSchdl.toSeconds() + segment.getTravelDuration().toSeconds();
     } else if (edge instanceof WalkSegment segment) {
       return (double) segment.travelTime().toSeconds();
     }
     throw new UnsupportedOperationException(
-        "Invalid edge type. The apply() method can only handle TransportSegment and WalkSegment edges.");
+        "Invalid edge type. The apply() method can only handle TransportSegment and WalkSegment"
+            + " edges.");
+  }
+
+  /**
+   * Looks up the passages and durations of the edges of graph. The data of the edges of the base of
+   * graph (see {@link IndexedGraph#getBaseGraph()}) is shared by all the TravelTimeAsWeight
+   * instances, so when graph extends the base graph of a previous query, only its other edges are
+   * looked up.
+   *
+   * @param graph the IndexedGraph whose edges will be weighed
+   * @throws NullPointerException if graph is null
+   */
+  @Override
+  public void prepare(IndexedGraph graph) {
+    Objects.requireNonNull(graph);
+    StopTimetableIndex index = tn.getStopTimetableIndex();
+    if (graph == this.preparedGraph && index == this.baseData.index()) return;
+    IndexedGraph base = graph.getBaseGraph();
+    this.baseData =
+        sharedBaseData.get(base, data -> data.index() == index, g -> computeEdgeData(g, index, 0));
+    this.baseEdgeCount = base.getEdgeCount();
+    this.extraData = computeEdgeData(graph, index, this.baseEdgeCount);
+    this.preparedGraph = graph;
+  }
+
+  // Returns the data of the edges of graph whose ids are at least from
+  private static EdgeData computeEdgeData(IndexedGraph graph, StopTimetableIndex index, int from) {
+    int[] passages = new int[graph.getEdgeCount() - from];
+    long[] seconds = new long[passages.length];
+    for (int e = 0; e < passages.length; e++) {
+      Edge edge = graph.getEdge(from + e);
+      if (edge instanceof TransportSegment segment) {
+        int id = index.getPassagesId(segment);
+        passages[e] = id < 0 ? NO_PASSAGES : id;
+        seconds[e] = segment.getTravelDuration().toSeconds();
+      } else if (edge instanceof WalkSegment segment) {
+        passages[e] = WALK;
+        seconds[e] = segment.travelSeconds();
+      } else {
+        passages[e] = UNKNOWN;
+      }
+    }
+    return new EdgeData(index, passages, seconds);
+  }
+
+  @Override
+  public double weight(double current, int edge, IndexedGraph graph) {
+    if (graph != this.preparedGraph) this.prepare(graph);
+    EdgeData data = this.baseData;
+    int e = edge;
+    if (edge >= this.baseEdgeCount) {
+      data = this.extraData;
+      e = edge - this.baseEdgeCount;
+    }
+    int passages = data.passages()[e];
+    if (passages == WALK) return data.seconds()[e];
+    if (passages == NO_PASSAGES) return Double.POSITIVE_INFINITY;
+    // A start time with a fraction of second is rare enough to be weighed with objects
+    if (passages == UNKNOWN || startTime.getNano() != 0)
+      return this.apply(current, graph.getEdge(edge));
+    int wait = waitSeconds(data.index(), passages, current);
+    if (wait < 0) return Double.POSITIVE_INFINITY;
+    return (double) wait + data.seconds()[e];
+  }
+
+  // Returns the number of seconds to wait for the next transport of the given passages when
+  // reaching them current seconds after a start time without a fraction of second, or -1 if there
+  // is none
+  private int waitSeconds(StopTimetableIndex index, int passages, double current) {
+    long waitStart = ServiceTime.toSeconds(startTime) + (long) current;
+    return index.getWaitSecondsWithWrap(passages, (int) (waitStart % ServiceTime.SECONDS_PER_DAY));
   }
 }
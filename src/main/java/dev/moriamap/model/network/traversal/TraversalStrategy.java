@@ -30,4 +30,17 @@ public interface TraversalStrategy {
       BiFunction<Double, Edge, Double> weightFunction,
       boolean stopAtDestination,
       Graph graph);
+
+  /**
+   * Returns an object telling which routes this strategy finds. Two strategies with equal route
+   * keys find the same routes, so a route found by one of them can be used instead of a traversal
+   * with the other, for instance by a cache of routes. This implementation returns the class of the
+   * strategy, so a strategy whose settings change the routes it finds must override it to include
+   * them.
+   *
+   * @return an object equal to the route keys of the strategies finding the same routes
+   */
+  default Object getRouteKey() {
+    return this.getClass();
+  }
 }
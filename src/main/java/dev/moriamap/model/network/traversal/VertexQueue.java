@@ -0,0 +1,97 @@
+package dev.moriamap.model.network.traversal;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min-heap of int vertex ids ordered by a double priority, stored in two primitive arrays
+ * so that pushing and polling allocate nothing once the arrays are large enough. Vertices with the
+ * same priority are polled in the same order as with a {@link java.util.PriorityQueue}.
+ */
+final class VertexQueue {
+
+  // The heap, as parallel arrays of vertex ids and priorities
+  private int[] vertices;
+  private double[] priorities;
+  private int size = 0;
+
+  /**
+   * Creates a new empty VertexQueue.
+   *
+   * @param initialCapacity the number of entries the queue can hold before growing
+   * @throws IllegalArgumentException if initialCapacity is negative
+   */
+  VertexQueue(int initialCapacity) {
+    if (initialCapacity < 0) throw new IllegalArgumentException("Negative initial capacity");
+    this.vertices = new int[Math.max(1, initialCapacity)];
+    this.priorities = new double[this.vertices.length];
+  }
+
+  /** {@return true if this VertexQueue has no entry} */
+  boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /** {@return the number of entries of this VertexQueue} */
+  int size() {
+    return this.size;
+  }
+
+  /** Removes all the entries of this VertexQueue. */
+  void clear() {
+    this.size = 0;
+  }
+
+  /**
+   * Adds an entry to this VertexQueue. A Vertex can be added several times.
+   *
+   * @param vertex the id of a Vertex
+   * @param priority the priority of the entry, smallest first
+   */
+  void add(int vertex, double priority) {
+    if (this.size == this.vertices.length) {
+      this.vertices = Arrays.copyOf(this.vertices, this.size * 2);
+      this.priorities = Arrays.copyOf(this.priorities, this.size * 2);
+    }
+    int k = this.size++;
+    while (k > 0) {
+      int parent = (k - 1) >>> 1;
+      if (priority >= this.priorities[parent]) break;
+      this.vertices[k] = this.vertices[parent];
+      this.priorities[k] = this.priorities[parent];
+      k = parent;
+    }
+    this.vertices[k] = vertex;
+    this.priorities[k] = priority;
+  }
+
+  /**
+   * Removes the entry with the smallest priority.
+   *
+   * @return the id of the Vertex of the removed entry
+   * @throws NoSuchElementException if this VertexQueue is empty
+   */
+  int poll() {
+    if (this.size == 0) throw new NoSuchElementException("Empty VertexQueue");
+    int res = this.vertices[0];
+    int n = --this.size;
+    if (n > 0) {
+      int vertex = this.vertices[n];
+      double priority = this.priorities[n];
+      int k = 0;
+      int half = n >>> 1;
+      while (k < half) {
+        int child = 2 * k + 1;
+        int right = child + 1;
+        if (right < n && this.priorities[child] > this.priorities[right]) child = right;
+        if (priority <= this.priorities[child]) break;
+        this.vertices[k] = this.vertices[child];
+        this.priorities[k] = this.priorities[child];
+        k = child;
+      }
+      this.vertices[k] = vertex;
+      this.priorities[k] = priority;
+    }
+    return res;
+  }
+}
@@ -1,10 +1,11 @@
 package dev.moriamap.model.parser;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Scanner;
 
 /** This class parses data from CSV file and provides it as raw string. */
 public final class CSVParser {
@@ -37,11 +38,13 @@ public final class CSVParser {
   }
 
   /**
-   * Parses a CSV file.
+   * Parses a CSV file. The records are read one at a time by a {@link CSVReader}, so a reader of
+   * the records that does not need them all at once should use a CSVReader instead.
    *
    * @param resource to CSV file
    * @return a list of lists of strings containing raw data.
    * @throws InconsistentCSVException if two lines do not have same number of fields
+   * @throws UncheckedIOException if the file cannot be read
    */
   public static List<List<String>> extractLines(InputStream resource)
       throws InconsistentCSVException {
@@ -49,23 +52,15 @@ public final class CSVParser {
       throw new IllegalArgumentException("Path can not be null");
     }
     List<List<String>> content = new ArrayList<>();
-    Scanner sc = new Scanner(resource);
-    while (sc.hasNextLine()) {
-      content.add(CSVParser.parseCSVLine(sc.nextLine(), ";"));
-    }
-    int len = content.get(0).size();
-    boolean same = true;
-    for (List<String> fields : content) {
-      if (fields.size() != len) {
-        same = false;
-        break;
+    try (CSVReader reader = CSVReader.of(resource, ';')) {
+      while (reader.next()) {
+        List<String> fields = new ArrayList<>(reader.getFieldCount());
+        for (int i = 0; i < reader.getFieldCount(); i++) fields.add(reader.getField(i));
+        content.add(fields);
       }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
-    if (!same) {
-      sc.close();
-      throw new InconsistentCSVException();
-    }
-    sc.close();
     return content;
   }
 }
@@ -0,0 +1,184 @@
+package dev.moriamap.model.parser;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Reads the records of a UTF-8 CSV file one at a time. The file is read through a channel (the
+ * FileChannel of a FileInputStream, or a channel over any other InputStream) into a buffer, and the
+ * fields of the current record are only located in it: a field is decoded to a String when it is
+ * asked for. Only the current record and the bytes read after it are held in memory, so reading a
+ * file takes the same memory whatever its size.
+ *
+ * <p>Records are separated by line feeds, optionally preceded by a carriage return. Like {@link
+ * CSVParser#parseCSVLine(String, String)}, empty records are rejected and the empty fields at the
+ * end of a record are dropped. Every record must have as many fields as the first one.
+ */
+public final class CSVReader implements Closeable {
+
+  // The initial size of the buffer. It grows if a record does not fit in it
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final ReadableByteChannel channel;
+  private final byte delimiter;
+
+  // The bytes read, of which those from start to end are not consumed yet
+  private byte[] data = new byte[BUFFER_SIZE];
+  private int start = 0;
+  private int end = 0;
+  private boolean endOfInput = false;
+
+  // The positions in data of the fields of the current record
+  private int[] fieldStarts = new int[8];
+  private int[] fieldEnds = new int[8];
+  private int fieldCount = 0;
+
+  // The number of fields of the first record, or -1 before it is read
+  private int expectedFieldCount = -1;
+
+  // The number of the current record, from 1
+  private int recordNumber = 0;
+
+  private CSVReader(ReadableByteChannel channel, byte delimiter) {
+    this.channel = channel;
+    this.delimiter = delimiter;
+  }
+
+  /**
+   * {@return a new CSVReader of the records of in, whose fields are separated by delimiter}
+   *
+   * @param in the stream of the CSV file, closed by {@link #close()}
+   * @param delimiter the fields separator, an ASCII character
+   * @throws IllegalArgumentException if in is null or delimiter is not an ASCII character
+   */
+  public static CSVReader of(InputStream in, char delimiter) {
+    if (in == null) throw new IllegalArgumentException("Stream can not be null");
+    if (delimiter >= 0x80 || delimiter == '\n' || delimiter == '\r')
+      throw new IllegalArgumentException("Delimiter must be an ASCII character");
+    ReadableByteChannel channel =
+        in instanceof FileInputStream file ? file.getChannel() : Channels.newChannel(in);
+    return new CSVReader(channel, (byte) delimiter);
+  }
+
+  /**
+   * Moves to the next record. The fields of the previous record can no longer be read.
+   *
+   * @return true if there is a next record, false if the end of the file is reached
+   * @throws IOException if the file cannot be read
+   * @throws InconsistentCSVException if the next record is empty, or does not have as many fields
+   *     as the first one
+   */
+  public boolean next() throws IOException, InconsistentCSVException {
+    int scanned = this.start;
+    while (true) {
+      for (int i = scanned; i < this.end; i++) {
+        if (this.data[i] == '\n') {
+          int lineEnd = i > this.start && this.data[i - 1] == '\r' ? i - 1 : i;
+          this.parseRecord(this.start, lineEnd);
+          this.start = i + 1;
+          return true;
+        }
+      }
+      if (this.endOfInput) {
+        if (this.start == this.end) return false;
+        int lineEnd = this.data[this.end - 1] == '\r' ? this.end - 1 : this.end;
+        this.parseRecord(this.start, lineEnd);
+        this.start = this.end;
+        return true;
+      }
+      int consumed = this.start;
+      scanned = this.end;
+      this.fill();
+      scanned -= consumed - this.start;
+    }
+  }
+
+  // Reads more bytes, moving the bytes not consumed yet to the start of data and growing it if they
+  // fill it
+  private void fill() throws IOException {
+    if (this.start > 0) {
+      System.arraycopy(this.data, this.start, this.data, 0, this.end - this.start);
+      this.end -= this.start;
+      this.start = 0;
+    }
+    if (this.end == this.data.length) {
+      byte[] larger = new byte[2 * this.data.length];
+      System.arraycopy(this.data, 0, larger, 0, this.end);
+      this.data = larger;
+    }
+    int read = this.channel.read(ByteBuffer.wrap(this.data, this.end, this.data.length - this.end));
+    if (read < 0) this.endOfInput = true;
+    else this.end += read;
+  }
+
+  // Locates the fields of the record in data[from, to)
+  private void parseRecord(int from, int to) throws InconsistentCSVException {
+    this.recordNumber++;
+    if (from == to) throw new InconsistentCSVException();
+    this.fieldCount = 0;
+    int fieldStart = from;
+    for (int i = from; i <= to; i++) {
+      if (i == to || this.data[i] == this.delimiter) {
+        this.addField(fieldStart, i);
+        fieldStart = i + 1;
+      }
+    }
+    // Like String.split, empty fields at the end are dropped
+    while (this.fieldCount > 0
+        && this.fieldStarts[this.fieldCount - 1] == this.fieldEnds[this.fieldCount - 1])
+      this.fieldCount--;
+    if (this.expectedFieldCount < 0) this.expectedFieldCount = this.fieldCount;
+    else if (this.fieldCount != this.expectedFieldCount) throw new InconsistentCSVException();
+  }
+
+  // Adds data[from, to) to the fields of the current record
+  private void addField(int from, int to) {
+    if (this.fieldCount == this.fieldStarts.length) {
+      this.fieldStarts = Arrays.copyOf(this.fieldStarts, 2 * this.fieldCount);
+      this.fieldEnds = Arrays.copyOf(this.fieldEnds, 2 * this.fieldCount);
+    }
+    this.fieldStarts[this.fieldCount] = from;
+    this.fieldEnds[this.fieldCount] = to;
+    this.fieldCount++;
+  }
+
+  /** {@return the number of fields of the current record} */
+  public int getFieldCount() {
+    return this.fieldCount;
+  }
+
+  /** {@return the number of the current record, from 1, or 0 before the first record} */
+  public int getRecordNumber() {
+    return this.recordNumber;
+  }
+
+  /**
+   * {@return the field of the current record at the given index, decoded from UTF-8}
+   *
+   * @param index the index of the field, from 0
+   * @throws IndexOutOfBoundsException if index is not between 0 and getFieldCount() - 1
+   */
+  public String getField(int index) {
+    Objects.checkIndex(index, this.fieldCount);
+    int from = this.fieldStarts[index];
+    return new String(this.data, from, this.fieldEnds[index] - from, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Closes the file read by this CSVReader.
+   *
+   * @throws IOException if the file cannot be closed
+   */
+  @Override
+  public void close() throws IOException {
+    this.channel.close();
+  }
+}
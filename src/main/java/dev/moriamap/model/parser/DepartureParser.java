@@ -3,8 +3,9 @@ package dev.moriamap.model.parser;
 import dev.moriamap.model.network.Line;
 import dev.moriamap.model.network.TransportNetwork;
 import dev.moriamap.model.network.Variant;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.List;
+import java.io.UncheckedIOException;
 
 /** This class read a departure file and add the departure to a TransportNetwork */
 public class DepartureParser {
@@ -13,27 +14,32 @@ public class DepartureParser {
 
   /**
    * Take a TransportNetwork and a departure file and add the departures read from it to the
-   * TransportNetwork
+   * TransportNetwork. The file is read one record at a time, and each departure is added as soon as
+   * it is read, so the departures read before an error in the file are added.
    *
    * @param tn the TransportNetwork to which we add the departures
    * @param departures a Stream to the departures file
    * @throws InconsistentCSVException if there is an error in the departure file
    * @throws IllegalArgumentException if the TransportNetwork is null
+   * @throws UncheckedIOException if the departures file cannot be read
    */
   public static void addDeparturesTo(TransportNetwork tn, InputStream departures)
       throws InconsistentCSVException, IllegalArgumentException {
     if (tn == null) throw new IllegalArgumentException("TransportNetwork is null");
-    List<DepartureRecord> records = DepartureRecord.fromTuples(CSVParser.extractLines(departures));
+    try (CSVReader reader = CSVReader.of(departures, ';')) {
+      while (reader.next()) {
+        DepartureRecord t = DepartureRecord.fromReader(reader);
+        Line l = tn.findLine(t.lineName());
+        if (l == null) throw new InconsistentCSVException();
 
-    for (DepartureRecord t : records) {
-      Line l = tn.findLine(t.lineName());
-      if (l == null) throw new InconsistentCSVException();
+        Variant v = l.getVariantNamed(t.variantName());
 
-      Variant v = l.getVariantNamed(t.variantName());
+        if (!t.terminusName().equals(v.getStart().getName())) throw new InconsistentCSVException();
 
-      if (!t.terminusName().equals(v.getStart().getName())) throw new InconsistentCSVException();
-
-      v.addDeparture(t.departureTime());
+        v.addDeparture(t.departureTime());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
   }
 }
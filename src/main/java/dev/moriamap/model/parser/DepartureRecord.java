@@ -4,6 +4,7 @@ import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.IntFunction;
 
 /**
  * Holds the data that represents the departure time of transport from the starting terminus of a
@@ -56,17 +57,38 @@ public record DepartureRecord(
     if (tuple.size() != VALID_TUPLE_SIZE) {
       throw new IllegalArgumentException("Invalid tuple size");
     }
+    return fromFields(tuple::get);
+  }
+
+  /**
+   * {@return a DepartureRecord corresponding to the current record of reader} Throws
+   * DateTimeParseException if the departure time value cannot be parsed.
+   *
+   * @param reader a CSVReader of departures, on a record
+   * @throws NullPointerException if reader is null
+   * @throws IllegalArgumentException if the number of fields of the record is different from
+   *     VALID_TUPLE_SIZE
+   */
+  public static DepartureRecord fromReader(CSVReader reader) {
+    Objects.requireNonNull(reader);
+    if (reader.getFieldCount() != VALID_TUPLE_SIZE) {
+      throw new IllegalArgumentException("Invalid tuple size");
+    }
+    return fromFields(reader::getField);
+  }
 
-    String time = tuple.get(DEPARTURE_TIME_TUPLE_INDEX);
+  // Returns the DepartureRecord of the given fields
+  private static DepartureRecord fromFields(IntFunction<String> fields) {
+    String time = fields.apply(DEPARTURE_TIME_TUPLE_INDEX);
     String[] timeArray = time.split(":");
     String timeCorrectFormat =
         String.format("%02d", Integer.parseInt(timeArray[0])) + ":" + timeArray[1];
 
     return new DepartureRecord(
-        tuple.get(LINE_NAME_TUPLE_INDEX),
-        tuple.get(TERMINUS_NAME_TUPLE_INDEX),
+        fields.apply(LINE_NAME_TUPLE_INDEX),
+        fields.apply(TERMINUS_NAME_TUPLE_INDEX),
         LocalTime.parse(timeCorrectFormat),
-        tuple.get(VARIANT_NAME_TUPLE_INDEX));
+        fields.apply(VARIANT_NAME_TUPLE_INDEX));
   }
 
   /**
@@ -0,0 +1,134 @@
+package dev.moriamap.model.parser;
+
+import dev.moriamap.Logging;
+import dev.moriamap.model.network.GeographicPosition;
+import dev.moriamap.model.network.Line;
+import dev.moriamap.model.network.Stop;
+import dev.moriamap.model.network.TransportNetwork;
+import dev.moriamap.model.network.TransportSegment;
+import dev.moriamap.model.network.Variant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds a TransportNetwork from TransportSegmentRecords in time linear in their number. The stops,
+ * lines, variants and transport segments of the records are deduplicated with hash tables as they
+ * are added, and the TransportNetwork is only created by {@link #build()}, which adds each of them
+ * once. The network is the same as the one built by adding the records one by one, as described in
+ * diagrams/transport-network-generation-algorithm: a Stop is identified by its name and keeps the
+ * position of its first record, and the lines, variants and segments are in the order of their
+ * first record.
+ *
+ * <p>The time spent reading the records and building the network is logged at the FINE level.
+ */
+public final class NetworkBuilder {
+
+  // Identifies a variant of a line
+  private record VariantKey(String lineName, String variantName) {}
+
+  // The stops by name, the lines by name and the variants of the records, in the order of their
+  // first record
+  private final Map<String, Stop> stops = new LinkedHashMap<>();
+  private final Map<String, Line> lines = new LinkedHashMap<>();
+  private final Map<VariantKey, Variant> variants = new HashMap<>();
+
+  // The transport segments of the records, in the order of their first record
+  private final Set<TransportSegment> transportSegments = new LinkedHashSet<>();
+
+  // The value of System.nanoTime() when this NetworkBuilder was created
+  private final long creationTime = System.nanoTime();
+
+  // Whether build() was called
+  private boolean built = false;
+
+  private NetworkBuilder() {}
+
+  /** {@return a new NetworkBuilder without records} */
+  public static NetworkBuilder create() {
+    return new NetworkBuilder();
+  }
+
+  /**
+   * Adds the stops, line, variant and transport segment of the given record to the network being
+   * built, unless they were added by a previous record.
+   *
+   * @param t the TransportSegmentRecord to add
+   * @return true if the transport segment of t was not added by a previous record
+   * @throws IllegalArgumentException if t is null
+   * @throws IllegalStateException if {@link #build()} was called
+   */
+  public boolean add(TransportSegmentRecord t) {
+    if (t == null) throw new IllegalArgumentException("Record can not be null");
+    this.checkNotBuilt();
+    Stop from = this.getStop(t.fromName(), t.fromLatitude(), t.fromLongitude());
+    Stop to = this.getStop(t.toName(), t.toLatitude(), t.toLongitude());
+    TransportSegment segment =
+        TransportSegment.from(from, to, t.lineName(), t.variantName(), t.duration(), t.distance());
+    if (!this.transportSegments.add(segment)) return false;
+    this.getVariant(t.lineName(), t.variantName()).addTransportSegment(segment);
+    return true;
+  }
+
+  // Returns the Stop named name, created at the given position if no record added it yet
+  private Stop getStop(String name, double latitude, double longitude) {
+    Stop stop = this.stops.get(name);
+    if (stop == null) {
+      stop = Stop.from(name, GeographicPosition.at(latitude, longitude));
+      this.stops.put(name, stop);
+    }
+    return stop;
+  }
+
+  // Returns the Variant of the given names, created with its Line if no record added it yet
+  private Variant getVariant(String lineName, String variantName) {
+    VariantKey key = new VariantKey(lineName, variantName);
+    Variant variant = this.variants.get(key);
+    if (variant == null) {
+      variant = Variant.empty(variantName, lineName);
+      this.variants.put(key, variant);
+      this.lines.computeIfAbsent(lineName, Line::of).addVariant(variant);
+    }
+    return variant;
+  }
+
+  /**
+   * Returns a new TransportNetwork with the stops, lines, variants and transport segments of the
+   * added records. This NetworkBuilder can no longer be used afterwards.
+   *
+   * @return the TransportNetwork of the added records
+   * @throws IllegalStateException if build() was already called
+   */
+  public TransportNetwork build() {
+    this.checkNotBuilt();
+    this.built = true;
+    long readEnd = System.nanoTime();
+    TransportNetwork tn = TransportNetwork.empty();
+    for (Stop stop : this.stops.values()) tn.addStop(stop);
+    for (Line line : this.lines.values()) tn.addLine(line);
+    long linesEnd = System.nanoTime();
+    for (TransportSegment segment : this.transportSegments) tn.addTransportSegment(segment);
+    long segmentsEnd = System.nanoTime();
+    Logging.getLogger()
+        .fine(
+            () ->
+                String.format(
+                    "Built a network of %d stops, %d variants and %d transport segments: "
+                        + "records read in %d ms, stops and lines added in %d ms, "
+                        + "segments added in %d ms",
+                    this.stops.size(),
+                    this.variants.size(),
+                    this.transportSegments.size(),
+                    (readEnd - this.creationTime) / 1_000_000,
+                    (linesEnd - readEnd) / 1_000_000,
+                    (segmentsEnd - linesEnd) / 1_000_000));
+    return tn;
+  }
+
+  // Throws an IllegalStateException if build() was called
+  private void checkNotBuilt() {
+    if (this.built) throw new IllegalStateException("The network was already built");
+  }
+}
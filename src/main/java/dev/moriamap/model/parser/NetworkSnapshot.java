@@ -0,0 +1,454 @@
+package dev.moriamap.model.parser;
+
+import dev.moriamap.model.network.GeographicPosition;
+import dev.moriamap.model.network.Line;
+import dev.moriamap.model.network.Stop;
+import dev.moriamap.model.network.TransportNetwork;
+import dev.moriamap.model.network.TransportSegment;
+import dev.moriamap.model.network.Variant;
+import dev.moriamap.model.network.Vertex;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A binary snapshot of the stops, lines, variants, transport segments and departures of a
+ * TransportNetwork, written once with {@link #write(TransportNetwork, Path)} and then read with
+ * {@link #open(Path)} instead of parsing the CSV files again. The snapshot file is memory-mapped,
+ * so opening it reads nothing but its header, the JVMs which open the same snapshot share its
+ * pages, and stops are looked up directly in the mapped file. {@link #toTransportNetwork()} decodes
+ * the whole network without any text parsing.
+ *
+ * <p>The file starts with a magic number and a format version, {@link #VERSION}, and a snapshot of
+ * another version cannot be opened. The other vertices and edges of the network, such as
+ * GeographicVertices and WalkSegments, are not part of the snapshot, and the departures of each
+ * Variant are stored in ascending order.
+ */
+public final class NetworkSnapshot {
+
+  /** The version of the format of the snapshots written and read by this class. */
+  public static final int VERSION = 1;
+
+  // The first 4 bytes of a snapshot, "MMNS"
+  private static final int MAGIC = 0x4D4D4E53;
+
+  // The header: the magic number, the version and the counts below
+  private static final int HEADER_INTS = 11;
+
+  // The size in bytes of a stop (name, latitude, longitude), of a transport segment (from, to,
+  // line name, variant name, duration seconds and nanoseconds, distance), of a line (name, number
+  // of variants) and of a variant (name, line name, number of segments, number of departures)
+  private static final int STOP_BYTES = Integer.BYTES + 2 * Double.BYTES;
+  private static final int SEGMENT_BYTES = 5 * Integer.BYTES + Long.BYTES + Double.BYTES;
+  private static final int LINE_BYTES = 2 * Integer.BYTES;
+  private static final int VARIANT_BYTES = 4 * Integer.BYTES;
+
+  private static final String CORRUPT_MESSAGE = "Corrupt network snapshot: ";
+
+  // The mapped snapshot file
+  private final ByteBuffer buffer;
+
+  // The counts of the header
+  private final int stringCount;
+  private final int stopCount;
+  private final int segmentCount;
+  private final int graphSegmentCount;
+  private final int lineCount;
+  private final int variantCount;
+  private final int segmentRefCount;
+  private final int departureCount;
+
+  // The offsets of the sections of the file
+  private final int stringOffsetsStart;
+  private final int stringDataStart;
+  private final int stopsStart;
+  private final int stopsByNameStart;
+  private final int segmentsStart;
+  private final int linesStart;
+  private final int variantsStart;
+  private final int segmentRefsStart;
+  private final int departuresStart;
+
+  private NetworkSnapshot(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+    if (buffer.capacity() < HEADER_INTS * Integer.BYTES || buffer.getInt(0) != MAGIC)
+      throw new IOException("Not a network snapshot");
+    int version = buffer.getInt(Integer.BYTES);
+    if (version != VERSION)
+      throw new IOException("Unsupported network snapshot version: " + version);
+    int[] header = new int[HEADER_INTS - 2];
+    for (int i = 0; i < header.length; i++) {
+      header[i] = buffer.getInt((i + 2) * Integer.BYTES);
+      if (header[i] < 0) throw new IOException(CORRUPT_MESSAGE + "negative count");
+    }
+    this.stringCount = header[0];
+    int stringDataLength = header[1];
+    this.stopCount = header[2];
+    this.segmentCount = header[3];
+    this.graphSegmentCount = header[4];
+    this.lineCount = header[5];
+    this.variantCount = header[6];
+    this.segmentRefCount = header[7];
+    this.departureCount = header[8];
+    long offset = HEADER_INTS * Integer.BYTES;
+    this.stringOffsetsStart = (int) offset;
+    offset += (this.stringCount + 1L) * Integer.BYTES;
+    this.stringDataStart = checkOffset(offset);
+    offset += stringDataLength;
+    this.stopsStart = checkOffset(offset);
+    offset += (long) this.stopCount * STOP_BYTES;
+    this.stopsByNameStart = checkOffset(offset);
+    offset += (long) this.stopCount * Integer.BYTES;
+    this.segmentsStart = checkOffset(offset);
+    offset += (long) this.segmentCount * SEGMENT_BYTES;
+    this.linesStart = checkOffset(offset);
+    offset += (long) this.lineCount * LINE_BYTES;
+    this.variantsStart = checkOffset(offset);
+    offset += (long) this.variantCount * VARIANT_BYTES;
+    this.segmentRefsStart = checkOffset(offset);
+    offset += (long) this.segmentRefCount * Integer.BYTES;
+    this.departuresStart = checkOffset(offset);
+    offset += (long) this.departureCount * Long.BYTES;
+    if (offset != buffer.capacity())
+      throw new IOException(CORRUPT_MESSAGE + "the size does not match the header");
+    if (this.graphSegmentCount > this.segmentCount)
+      throw new IOException(CORRUPT_MESSAGE + "too many graph segments");
+  }
+
+  // Returns offset if it is within the mapped file
+  private int checkOffset(long offset) throws IOException {
+    if (offset > this.buffer.capacity())
+      throw new IOException(CORRUPT_MESSAGE + "the size does not match the header");
+    return (int) offset;
+  }
+
+  /**
+   * Returns a NetworkSnapshot of the snapshot file at the given path. The file is memory-mapped and
+   * can be closed by the operating system once the NetworkSnapshot is no longer used.
+   *
+   * @param file the path of a snapshot file
+   * @return the NetworkSnapshot of file
+   * @throws NullPointerException if file is null
+   * @throws IOException if file cannot be read, or is not a snapshot of version {@link #VERSION}
+   */
+  public static NetworkSnapshot open(Path file) throws IOException {
+    Objects.requireNonNull(file);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE)
+        throw new IOException("Network snapshot too large: " + file);
+      return new NetworkSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * {@return true if the file at the given path starts like a network snapshot, of any version}
+   *
+   * @param file some path
+   * @throws NullPointerException if file is null
+   * @throws IOException if file cannot be read
+   */
+  public static boolean isSnapshot(Path file) throws IOException {
+    Objects.requireNonNull(file);
+    try (InputStream in = Files.newInputStream(file)) {
+      byte[] start = in.readNBytes(Integer.BYTES);
+      return start.length == Integer.BYTES && ByteBuffer.wrap(start).getInt() == MAGIC;
+    }
+  }
+
+  /**
+   * Writes a snapshot of the stops, lines, variants, transport segments and departures of the given
+   * TransportNetwork to the given file, replacing it if it exists.
+   *
+   * @param tn the TransportNetwork to write
+   * @param file the path of the snapshot file
+   * @throws NullPointerException if an argument is null
+   * @throws IOException if file cannot be written
+   */
+  public static void write(TransportNetwork tn, Path file) throws IOException {
+    Objects.requireNonNull(tn);
+    Objects.requireNonNull(file);
+    new Writer(tn).writeTo(file);
+  }
+
+  // Collects the data of a network in the order of the sections of a snapshot
+  private static final class Writer {
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+    private final List<Stop> stops;
+    private final Map<Stop, Integer> stopIds = new HashMap<>();
+    private final List<TransportSegment> segments;
+    private final Map<TransportSegment, Integer> segmentIds = new HashMap<>();
+    private final int graphSegmentCount;
+    private final List<Line> lines;
+    private final List<Variant> variants = new ArrayList<>();
+
+    private Writer(TransportNetwork tn) {
+      this.stops = tn.getStops();
+      for (Stop stop : this.stops) {
+        this.stopIds.put(stop, this.stopIds.size());
+        this.stringId(stop.getName());
+      }
+      // The segments of the graph come first, in its order, so that the outgoing edges of each
+      // stop are added back in the same order
+      this.segments = tn.getTransportSegments();
+      this.graphSegmentCount = this.segments.size();
+      for (TransportSegment segment : this.segments)
+        this.segmentIds.put(segment, this.segmentIds.size());
+      this.lines = tn.getLines();
+      for (Line line : this.lines) {
+        this.stringId(line.getName());
+        this.variants.addAll(line.getVariants());
+      }
+      for (Variant variant : this.variants) {
+        for (TransportSegment segment : variant.getTransportSegments()) {
+          if (!this.segmentIds.containsKey(segment)) {
+            this.segmentIds.put(segment, this.segments.size());
+            this.segments.add(segment);
+          }
+        }
+      }
+      for (TransportSegment segment : this.segments) {
+        this.stopId(segment.getFrom());
+        this.stopId(segment.getTo());
+        this.stringId(segment.getLineName());
+        this.stringId(segment.getVariantName());
+      }
+      for (Variant variant : this.variants) {
+        this.stringId(variant.getName());
+        this.stringId(variant.getLineName());
+      }
+    }
+
+    // Returns the id of s in the string table, adding it if needed
+    private int stringId(String s) {
+      return this.strings.computeIfAbsent(s, k -> this.strings.size());
+    }
+
+    // Returns the id of the stop v
+    private int stopId(Vertex v) {
+      Integer id = this.stopIds.get(v);
+      if (id == null) throw new IllegalArgumentException("Transport segment of a missing stop");
+      return id;
+    }
+
+    private void writeTo(Path file) throws IOException {
+      List<byte[]> encoded = new ArrayList<>(this.strings.size());
+      for (String s : this.strings.keySet()) encoded.add(s.getBytes(StandardCharsets.UTF_8));
+      int stringDataLength = 0;
+      for (byte[] bytes : encoded) stringDataLength = Math.addExact(stringDataLength, bytes.length);
+      int segmentRefCount = 0;
+      int departureCount = 0;
+      for (Variant variant : this.variants) {
+        segmentRefCount += variant.getTransportSegments().size();
+        departureCount += variant.getDepartures().size();
+      }
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+        for (int value :
+            new int[] {
+              MAGIC,
+              VERSION,
+              encoded.size(),
+              stringDataLength,
+              this.stops.size(),
+              this.segments.size(),
+              this.graphSegmentCount,
+              this.lines.size(),
+              this.variants.size(),
+              segmentRefCount,
+              departureCount
+            }) out.writeInt(value);
+        int stringOffset = 0;
+        out.writeInt(stringOffset);
+        for (byte[] bytes : encoded) out.writeInt(stringOffset += bytes.length);
+        for (byte[] bytes : encoded) out.write(bytes);
+        for (Stop stop : this.stops) {
+          out.writeInt(this.stringId(stop.getName()));
+          out.writeDouble(stop.getGeographicPosition().getLatitude());
+          out.writeDouble(stop.getGeographicPosition().getLongitude());
+        }
+        Integer[] byName = new Integer[this.stops.size()];
+        for (int i = 0; i < byName.length; i++) byName[i] = i;
+        Arrays.sort(byName, Comparator.comparing(i -> this.stops.get(i).getName()));
+        for (int id : byName) out.writeInt(id);
+        for (TransportSegment segment : this.segments) {
+          out.writeInt(this.stopId(segment.getFrom()));
+          out.writeInt(this.stopId(segment.getTo()));
+          out.writeInt(this.stringId(segment.getLineName()));
+          out.writeInt(this.stringId(segment.getVariantName()));
+          out.writeLong(segment.getTravelDuration().getSeconds());
+          out.writeInt(segment.getTravelDuration().getNano());
+          out.writeDouble(segment.getDistance());
+        }
+        for (Line line : this.lines) {
+          out.writeInt(this.stringId(line.getName()));
+          out.writeInt(line.getVariants().size());
+        }
+        for (Variant variant : this.variants) {
+          out.writeInt(this.stringId(variant.getName()));
+          out.writeInt(this.stringId(variant.getLineName()));
+          out.writeInt(variant.getTransportSegments().size());
+          out.writeInt(variant.getDepartures().size());
+        }
+        for (Variant variant : this.variants) {
+          for (TransportSegment segment : variant.getTransportSegments())
+            out.writeInt(this.segmentIds.get(segment));
+        }
+        for (Variant variant : this.variants) {
+          for (LocalTime departure : variant.getDepartures())
+            out.writeLong(departure.toNanoOfDay());
+        }
+      }
+    }
+  }
+
+  /** {@return the number of stops of this NetworkSnapshot} */
+  public int getStopCount() {
+    return this.stopCount;
+  }
+
+  /**
+   * {@return the name of the stop of the given id, read from the mapped file}
+   *
+   * @param stop the id of a stop, from 0 to getStopCount() - 1
+   * @throws IndexOutOfBoundsException if stop is out of range
+   */
+  public String getStopName(int stop) {
+    Objects.checkIndex(stop, this.stopCount);
+    return this.getString(this.buffer.getInt(this.stopsStart + stop * STOP_BYTES));
+  }
+
+  /**
+   * {@return the position of the stop of the given id, read from the mapped file}
+   *
+   * @param stop the id of a stop, from 0 to getStopCount() - 1
+   * @throws IndexOutOfBoundsException if stop is out of range
+   */
+  public GeographicPosition getStopPosition(int stop) {
+    Objects.checkIndex(stop, this.stopCount);
+    int offset = this.stopsStart + stop * STOP_BYTES + Integer.BYTES;
+    return GeographicPosition.at(
+        this.buffer.getDouble(offset), this.buffer.getDouble(offset + Double.BYTES));
+  }
+
+  /**
+   * Returns the id of the stop of the given name, found by a binary search of the stops sorted by
+   * name in the mapped file.
+   *
+   * @param name the name of a stop
+   * @return the id of the stop named name, or -1 if there is none
+   * @throws NullPointerException if name is null
+   */
+  public int findStop(String name) {
+    Objects.requireNonNull(name);
+    int low = 0;
+    int high = this.stopCount - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int stop = this.buffer.getInt(this.stopsByNameStart + mid * Integer.BYTES);
+      int comparison = this.getStopName(stop).compareTo(name);
+      if (comparison < 0) low = mid + 1;
+      else if (comparison > 0) high = mid - 1;
+      else return stop;
+    }
+    return -1;
+  }
+
+  // Returns the string of the given id
+  private String getString(int id) {
+    Objects.checkIndex(id, this.stringCount);
+    int start = this.buffer.getInt(this.stringOffsetsStart + id * Integer.BYTES);
+    int end = this.buffer.getInt(this.stringOffsetsStart + (id + 1) * Integer.BYTES);
+    byte[] bytes = new byte[end - start];
+    this.buffer.get(this.stringDataStart + start, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Decodes the TransportNetwork of this NetworkSnapshot. Each call returns a new TransportNetwork,
+   * which is not frozen.
+   *
+   * @return a new TransportNetwork with the stops, lines, variants, transport segments and
+   *     departures of this NetworkSnapshot
+   * @throws IllegalStateException if the content of the snapshot is inconsistent
+   */
+  public TransportNetwork toTransportNetwork() {
+    try {
+      return this.decode();
+    } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+      throw new IllegalStateException(CORRUPT_MESSAGE + e.getMessage(), e);
+    }
+  }
+
+  // Decodes the TransportNetwork of this NetworkSnapshot
+  private TransportNetwork decode() {
+    String[] strings = new String[this.stringCount];
+    for (int i = 0; i < strings.length; i++) strings[i] = this.getString(i);
+    TransportNetwork tn = TransportNetwork.empty();
+    Stop[] stops = new Stop[this.stopCount];
+    for (int i = 0; i < stops.length; i++) {
+      stops[i] =
+          Stop.from(
+              strings[this.buffer.getInt(this.stopsStart + i * STOP_BYTES)], getStopPosition(i));
+      tn.addStop(stops[i]);
+    }
+    TransportSegment[] segments = new TransportSegment[this.segmentCount];
+    for (int i = 0; i < segments.length; i++) {
+      int offset = this.segmentsStart + i * SEGMENT_BYTES;
+      segments[i] =
+          TransportSegment.from(
+              stops[this.buffer.getInt(offset)],
+              stops[this.buffer.getInt(offset + 4)],
+              strings[this.buffer.getInt(offset + 8)],
+              strings[this.buffer.getInt(offset + 12)],
+              Duration.ofSeconds(this.buffer.getLong(offset + 16), this.buffer.getInt(offset + 24)),
+              this.buffer.getDouble(offset + 28));
+    }
+    int variant = 0;
+    int segmentRef = 0;
+    int departure = 0;
+    for (int i = 0; i < this.lineCount; i++) {
+      Line line = Line.of(strings[this.buffer.getInt(this.linesStart + i * LINE_BYTES)]);
+      int lineVariantCount = this.buffer.getInt(this.linesStart + i * LINE_BYTES + Integer.BYTES);
+      for (int j = 0; j < lineVariantCount; j++, variant++) {
+        Objects.checkIndex(variant, this.variantCount);
+        int offset = this.variantsStart + variant * VARIANT_BYTES;
+        Variant v =
+            Variant.empty(
+                strings[this.buffer.getInt(offset)], strings[this.buffer.getInt(offset + 4)]);
+        int variantSegmentCount = this.buffer.getInt(offset + 8);
+        for (int k = 0; k < variantSegmentCount; k++, segmentRef++) {
+          Objects.checkIndex(segmentRef, this.segmentRefCount);
+          v.addTransportSegment(
+              segments[this.buffer.getInt(this.segmentRefsStart + segmentRef * Integer.BYTES)]);
+        }
+        int variantDepartureCount = this.buffer.getInt(offset + 12);
+        for (int k = 0; k < variantDepartureCount; k++, departure++) {
+          Objects.checkIndex(departure, this.departureCount);
+          v.addDeparture(
+              LocalTime.ofNanoOfDay(this.buffer.getLong(this.departuresStart + departure * 8)));
+        }
+        line.addVariant(v);
+      }
+      tn.addLine(line);
+    }
+    for (int i = 0; i < this.graphSegmentCount; i++) tn.addTransportSegment(segments[i]);
+    return tn;
+  }
+}
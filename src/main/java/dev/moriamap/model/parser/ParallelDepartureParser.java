@@ -0,0 +1,201 @@
+package dev.moriamap.model.parser;
+
+import dev.moriamap.model.network.Line;
+import dev.moriamap.model.network.TransportNetwork;
+import dev.moriamap.model.network.Variant;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Reads departure files in parallel and adds their departures to a TransportNetwork. Each file is
+ * split into chunks of whole lines, and the chunks of all the files are parsed at the same time on
+ * the common ForkJoinPool. The departures of each Variant are then added in the order of the files
+ * and of the lines in each file, so the TransportNetwork is the same as after reading the files one
+ * after another with {@link DepartureParser#addDeparturesTo(TransportNetwork,
+ * java.io.InputStream)}.
+ *
+ * <p>The files must be in the same format as for DepartureParser, with a header-less record on
+ * every line. Unlike DepartureParser, no departure is added if a file cannot be read or has an
+ * error.
+ */
+public final class ParallelDepartureParser {
+
+  /** The smallest size in bytes of the chunks a departure file is split into. */
+  public static final int MIN_CHUNK_SIZE = 1 << 20;
+
+  // The number of chunks per thread of the pool a large file is split into, so that threads which
+  // finish early can take more chunks
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  // The size of the blocks read to find the end of a line
+  private static final int SCAN_BLOCK_SIZE = 1 << 12;
+
+  // A line-aligned byte range [start, end) of a departure file
+  private record Chunk(Path file, long start, long end) {}
+
+  // The departures read from a chunk, in the order of its lines, as parallel arrays of their
+  // Variant and time, or the error in the chunk if it is inconsistent. The error is returned
+  // rather than thrown, as the pool would wrap it in a RuntimeException.
+  private record ChunkDepartures(
+      List<Variant> variants, List<LocalTime> times, InconsistentCSVException error) {}
+
+  // A Variant and the name of its first Stop
+  private record VariantStart(Variant variant, String startName) {}
+
+  private ParallelDepartureParser() {}
+
+  /**
+   * Reads the given departure files in parallel and adds their departures to the given
+   * TransportNetwork, in the order of the files.
+   *
+   * @param tn the TransportNetwork to which we add the departures
+   * @param departureFiles the paths of the departure files
+   * @throws InconsistentCSVException if there is an error in a departure file
+   * @throws IllegalArgumentException if the TransportNetwork is null
+   * @throws NullPointerException if departureFiles or one of its paths is null
+   * @throws UncheckedIOException if a departure file cannot be read
+   */
+  public static void addDeparturesTo(TransportNetwork tn, List<Path> departureFiles)
+      throws InconsistentCSVException {
+    addDeparturesTo(tn, departureFiles, MIN_CHUNK_SIZE);
+  }
+
+  // Same as addDeparturesTo(tn, departureFiles), with chunks of at least minChunkSize bytes
+  static void addDeparturesTo(TransportNetwork tn, List<Path> departureFiles, int minChunkSize)
+      throws InconsistentCSVException {
+    if (tn == null) throw new IllegalArgumentException("TransportNetwork is null");
+    Objects.requireNonNull(departureFiles);
+    departureFiles.forEach(Objects::requireNonNull);
+    ForkJoinPool pool = ForkJoinPool.commonPool();
+    List<ForkJoinTask<ChunkDepartures>> tasks = new ArrayList<>();
+    try {
+      for (Path file : departureFiles) {
+        for (Chunk chunk : split(file, minChunkSize, pool.getParallelism()))
+          tasks.add(pool.submit(() -> parse(tn, chunk)));
+      }
+    } catch (IOException e) {
+      tasks.forEach(task -> task.cancel(true));
+      throw new UncheckedIOException(e);
+    }
+    List<ChunkDepartures> results = new ArrayList<>(tasks.size());
+    // The tasks are joined in order, so the error reported is the first one in the files
+    for (ForkJoinTask<ChunkDepartures> task : tasks) {
+      ChunkDepartures result = task.join();
+      if (result.error() != null) throw result.error();
+      results.add(result);
+    }
+    merge(results);
+  }
+
+  // Splits file into chunks of at least minChunkSize bytes, ending at the end of a line
+  private static List<Chunk> split(Path file, int minChunkSize, int parallelism)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      long chunkSize = Math.max(minChunkSize, size / ((long) parallelism * CHUNKS_PER_THREAD));
+      List<Chunk> chunks = new ArrayList<>();
+      long start = 0;
+      while (start < size) {
+        long end = start + chunkSize >= size ? size : lineEnd(channel, start + chunkSize);
+        chunks.add(new Chunk(file, start, end));
+        start = end;
+      }
+      return chunks;
+    }
+  }
+
+  // Returns the position just after the first newline at or after position, or the size of the
+  // file if there is none
+  private static long lineEnd(FileChannel channel, long position) throws IOException {
+    ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK_SIZE);
+    while (true) {
+      block.clear();
+      int read = channel.read(block, position);
+      if (read < 0) return channel.size();
+      for (int i = 0; i < read; i++) if (block.get(i) == '\n') return position + i + 1;
+      position += read;
+    }
+  }
+
+  // Reads the departures of chunk and finds their Variant in tn
+  private static ChunkDepartures parse(TransportNetwork tn, Chunk chunk) {
+    try {
+      return parseDepartures(tn, chunk);
+    } catch (InconsistentCSVException e) {
+      return new ChunkDepartures(null, null, e);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // Same as parse(tn, chunk), throwing the error in chunk
+  private static ChunkDepartures parseDepartures(TransportNetwork tn, Chunk chunk)
+      throws IOException, InconsistentCSVException {
+    byte[] bytes = new byte[Math.toIntExact(chunk.end() - chunk.start())];
+    try (FileChannel channel = FileChannel.open(chunk.file(), StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, chunk.start() + buffer.position()) < 0)
+          throw new IOException("File changed while being read: " + chunk.file());
+      }
+    }
+    List<Variant> variants = new ArrayList<>();
+    List<LocalTime> times = new ArrayList<>();
+    // The Variant of each line and variant name, and the name of its first Stop
+    Map<List<String>, VariantStart> variantsByName = new HashMap<>();
+    try (CSVReader reader = CSVReader.of(new ByteArrayInputStream(bytes), ';')) {
+      while (reader.next()) {
+        DepartureRecord t = DepartureRecord.fromReader(reader);
+        List<String> key = List.of(t.lineName(), t.variantName());
+        VariantStart found = variantsByName.get(key);
+        if (found == null) {
+          Line l = tn.findLine(t.lineName());
+          if (l == null) throw new InconsistentCSVException();
+          Variant v = l.getVariantNamed(t.variantName());
+          found = new VariantStart(v, v.getStart().getName());
+          variantsByName.put(key, found);
+        }
+        if (!t.terminusName().equals(found.startName())) throw new InconsistentCSVException();
+        variants.add(found.variant());
+        times.add(t.departureTime());
+      }
+    }
+    return new ChunkDepartures(variants, times, null);
+  }
+
+  // Adds the departures of the chunks to their Variant, grouped by Variant in the order of the
+  // chunks. Variants are compared by identity, as their hash code depends on their departures.
+  private static void merge(List<ChunkDepartures> results) {
+    Map<Variant, List<LocalTime>> departures = new IdentityHashMap<>();
+    List<Variant> order = new ArrayList<>();
+    for (ChunkDepartures result : results) {
+      for (int i = 0; i < result.variants().size(); i++) {
+        Variant v = result.variants().get(i);
+        List<LocalTime> times = departures.get(v);
+        if (times == null) {
+          times = new ArrayList<>();
+          departures.put(v, times);
+          order.add(v);
+        }
+        times.add(result.times().get(i));
+      }
+    }
+    for (Variant v : order) {
+      for (LocalTime time : departures.get(v)) v.addDeparture(time);
+    }
+  }
+}
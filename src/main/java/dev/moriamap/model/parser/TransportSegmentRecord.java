@@ -3,6 +3,8 @@ package dev.moriamap.model.parser;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.IntFunction;
 
 /**
  * This record holds data for a transport segment
@@ -63,30 +65,52 @@ public record TransportSegmentRecord(
    * @return a TransportSegmentRecord represented by fields parameter
    */
   private static TransportSegmentRecord fromLine(List<String> fields) {
-    String[] longitudeAndLatitude = fields.get(1).split(", ");
+    return fromFields(fields::get);
+  }
+
+  /**
+   * Transforms the current record of a CSVReader to a TransportSegmentRecord.
+   *
+   * <p>The format of fields is assumed to be correct.
+   *
+   * @param reader a CSVReader of transport segments, on a record
+   * @return the TransportSegmentRecord of the current record of reader
+   * @throws NullPointerException if reader is null
+   */
+  public static TransportSegmentRecord fromReader(CSVReader reader) {
+    Objects.requireNonNull(reader);
+    return fromFields(reader::getField);
+  }
+
+  // Returns the TransportSegmentRecord of the given fields
+  private static TransportSegmentRecord fromFields(IntFunction<String> field) {
+    String from = field.apply(0);
+    String to = field.apply(2);
+    String lineAndVariant = field.apply(4);
+    String[] longitudeAndLatitude = field.apply(1).split(", ");
     double lon1 = Double.parseDouble(longitudeAndLatitude[0]);
     double lat1 = Double.parseDouble(longitudeAndLatitude[1]);
-    String[] longitudeAndLatitude1 = fields.get(3).split(", ");
+    String[] longitudeAndLatitude1 = field.apply(3).split(", ");
     double lon2 = Double.parseDouble(longitudeAndLatitude1[0]);
     double lat2 = Double.parseDouble(longitudeAndLatitude1[1]);
-    String lineName = fields.get(4).split(" variant ")[0];
-    String variantName = fields.get(4).split(" variant ")[1];
-    String[] time = fields.get(5).split(":");
+    String lineName = lineAndVariant.split(" variant ")[0];
+    String variantName = lineAndVariant.split(" variant ")[1];
+    String[] time = field.apply(5).split(":");
     Duration d =
         Duration.ofSeconds(
             Integer.parseInt(time[0].trim()) * 60L + Integer.parseInt(time[1].trim()));
 
     return new TransportSegmentRecord(
-        fields.get(0),
+        from,
         lon1,
         lat1,
-        fields.get(2),
+        to,
         lon2,
         lat2,
         lineName,
         variantName,
         d,
-        Double.parseDouble(fields.get(6)));
+        Double.parseDouble(field.apply(6)));
   }
 
   /**
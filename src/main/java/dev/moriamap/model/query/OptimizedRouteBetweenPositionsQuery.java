@@ -1,16 +1,22 @@
 package dev.moriamap.model.query;
 
+import dev.moriamap.Logging;
 import dev.moriamap.model.network.Edge;
+import dev.moriamap.model.network.FootpathTable;
+import dev.moriamap.model.network.GeographicPosition;
 import dev.moriamap.model.network.GeographicVertex;
 import dev.moriamap.model.network.Graph;
+import dev.moriamap.model.network.OverlayGraph;
+import dev.moriamap.model.network.SpatialIndex;
 import dev.moriamap.model.network.Stop;
 import dev.moriamap.model.network.TransportNetwork;
 import dev.moriamap.model.network.Vertex;
 import dev.moriamap.model.network.WalkSegment;
-import dev.moriamap.model.network.traversal.DijkstraTraversalStrategy;
 import dev.moriamap.model.network.traversal.DistanceAsWeight;
+import dev.moriamap.model.network.traversal.HeapDijkstraTraversalStrategy;
 import dev.moriamap.model.network.traversal.RouteOptimization;
 import dev.moriamap.model.network.traversal.TravelTimeAsWeight;
+import dev.moriamap.model.network.traversal.TraversalStrategy;
 import java.io.OutputStream;
 import java.time.LocalTime;
 import java.util.*;
@@ -23,9 +29,10 @@ import java.util.function.BiFunction;
 public class OptimizedRouteBetweenPositionsQuery extends Query {
   /**
    * The radius of the circle inside which we are looking for geographic vertices that are close to
-   * the start or the destination point of the route. It is in meters.
+   * the start or the destination point of the route. It is in meters, and it is the length of the
+   * longest footpaths between stops (see {@link FootpathTable#DEFAULT_RADIUS}).
    */
-  protected static final double GEOVERTEX_SEARCH_RADIUS = 2000;
+  protected static final double GEOVERTEX_SEARCH_RADIUS = FootpathTable.DEFAULT_RADIUS;
 
   /**
    * The maximum number of geographic vertices to keep within the above-mentioned circle. The
@@ -38,9 +45,14 @@ public class OptimizedRouteBetweenPositionsQuery extends Query {
   private final GeographicVertex targetPoint;
   private final RouteOptimization optimizationChoice;
   private final LocalTime startTime;
+  private final TraversalStrategy traversalStrategy;
+
+  // The cache of the routes computed by the queries, or null if routes are not cached
+  private final RouteCache routeCache;
 
   /**
-   * Constructor of OptimizedRouteBetweenPositionsQuery
+   * Constructor of OptimizedRouteBetweenPositionsQuery. The route is computed with a {@link
+   * HeapDijkstraTraversalStrategy}.
    *
    * @param out the outputStream where the result will be written
    * @param startPoint geographic Vertex of the starting point
@@ -55,57 +67,168 @@ public class OptimizedRouteBetweenPositionsQuery extends Query {
       GeographicVertex targetPoint,
       RouteOptimization optimizationChoice,
       LocalTime startTime) {
+    this(
+        out,
+        startPoint,
+        targetPoint,
+        optimizationChoice,
+        startTime,
+        new HeapDijkstraTraversalStrategy());
+  }
+
+  /**
+   * Constructor of OptimizedRouteBetweenPositionsQuery specifying the traversal strategy used to
+   * compute the route.
+   *
+   * @param out the outputStream where the result will be written
+   * @param startPoint geographic Vertex of the starting point
+   * @param targetPoint geographic Vertex of the starting point
+   * @param optimizationChoice optimization method used
+   * @param startTime starting time when the travel start
+   * @param traversalStrategy the strategy used to explore the transport network
+   * @throws NullPointerException if any argument is null except out
+   */
+  public OptimizedRouteBetweenPositionsQuery(
+      OutputStream out,
+      GeographicVertex startPoint,
+      GeographicVertex targetPoint,
+      RouteOptimization optimizationChoice,
+      LocalTime startTime,
+      TraversalStrategy traversalStrategy) {
+    this(out, startPoint, targetPoint, optimizationChoice, startTime, traversalStrategy, null);
+  }
+
+  /**
+   * Constructor of OptimizedRouteBetweenPositionsQuery specifying the traversal strategy used to
+   * compute the route and the RouteCache in which the route is looked up before computing it and
+   * added after.
+   *
+   * @param out the outputStream where the result will be written
+   * @param startPoint geographic Vertex of the starting point
+   * @param targetPoint geographic Vertex of the starting point
+   * @param optimizationChoice optimization method used
+   * @param startTime starting time when the travel start
+   * @param traversalStrategy the strategy used to explore the transport network
+   * @param routeCache the cache of the computed routes, or null to always compute the route
+   * @throws NullPointerException if any argument is null except out and routeCache
+   */
+  public OptimizedRouteBetweenPositionsQuery(
+      OutputStream out,
+      GeographicVertex startPoint,
+      GeographicVertex targetPoint,
+      RouteOptimization optimizationChoice,
+      LocalTime startTime,
+      TraversalStrategy traversalStrategy,
+      RouteCache routeCache) {
     super(out);
     Objects.requireNonNull(startPoint);
     Objects.requireNonNull(targetPoint);
     Objects.requireNonNull(optimizationChoice);
     Objects.requireNonNull(startTime);
+    Objects.requireNonNull(traversalStrategy);
     this.startPoint = startPoint;
     this.targetPoint = targetPoint;
     this.optimizationChoice = optimizationChoice;
     this.startTime = startTime;
+    this.traversalStrategy = traversalStrategy;
+    this.routeCache = routeCache;
   }
 
-  private void addWalkSegments(TransportNetwork network, GeographicVertex gv, boolean outgoing) {
+  private void addWalkSegments(
+      TransportNetwork network,
+      OverlayGraph overlay,
+      GeographicVertex gv,
+      GeographicVertex other,
+      boolean outgoing) {
     if (!(gv instanceof Stop)) { // We created the GeographicVertex
-      var distanceMap = GeographicVertex.makeDistanceSortedMap(gv, network.getGeographicVertices());
-      List<GeographicVertex> closestGVs =
-          GeographicVertex.getNClosestGVsWithinRadiusOrLeastDistantGV(
-              MAX_CLOSEST_GEOVERTICES, GEOVERTEX_SEARCH_RADIUS, distanceMap);
-
-      for (GeographicVertex v : closestGVs) {
+      for (GeographicVertex v : getClosestGVs(network, gv, other)) {
         var ws = outgoing ? new WalkSegment(gv, v) : new WalkSegment(v, gv);
-        network.addWalkSegment(ws);
+        overlay.addEdge(ws);
       }
     }
   }
 
+  // Returns the at most MAX_CLOSEST_GEOVERTICES geographic vertices closest to gv within
+  // GEOVERTEX_SEARCH_RADIUS, or the least distant one if none are within it. They are searched
+  // among the geographic vertices of network and other, the other end of the route, if we created
+  // it. The closest vertices of the network are found with its SpatialIndex.
+  private static List<GeographicVertex> getClosestGVs(
+      TransportNetwork network, GeographicVertex gv, GeographicVertex other) {
+    GeographicPosition position = gv.getGeographicPosition();
+    SpatialIndex index = network.getSpatialIndex();
+    // gv may be in the network, so one more vertex is searched
+    List<GeographicVertex> closestGVs =
+        closestFirst(
+            position,
+            index.getNearest(position, MAX_CLOSEST_GEOVERTICES + 1, GEOVERTEX_SEARCH_RADIUS),
+            gv,
+            other);
+    closestGVs.removeIf(
+        v -> v.getGeographicPosition().distanceFrom(position) > GEOVERTEX_SEARCH_RADIUS);
+    if (closestGVs.size() > MAX_CLOSEST_GEOVERTICES)
+      return closestGVs.subList(0, MAX_CLOSEST_GEOVERTICES);
+    if (!closestGVs.isEmpty()) return closestGVs;
+    closestGVs =
+        closestFirst(position, index.getNearest(position, 2, Double.POSITIVE_INFINITY), gv, other);
+    if (closestGVs.isEmpty()) throw new NoSuchElementException("No geographic vertex to walk to");
+    return closestGVs.subList(0, 1);
+  }
+
+  // Returns the given vertices and other if we created it, except those equal to gv, sorted by
+  // increasing distance to position
+  private static List<GeographicVertex> closestFirst(
+      GeographicPosition position,
+      List<GeographicVertex> vertices,
+      GeographicVertex gv,
+      GeographicVertex other) {
+    List<GeographicVertex> res = new ArrayList<>(vertices);
+    if (!(other instanceof Stop)) res.add(other);
+    res.removeIf(gv::equals);
+    res.sort(Comparator.comparingDouble(v -> v.getGeographicPosition().distanceFrom(position)));
+    return res;
+  }
+
   /**
    * This method take a geographic vertex and try to find a Stop in the transport network that have
    * exactly the same position, if a Stop is found then it's returned, otherwise it add the
-   * geographic vertex to the network and return the same geographic vertex;
+   * geographic vertex to the overlay and return the same geographic vertex;
    *
    * @param network the network where we try to find the Stop
+   * @param overlay the OverlayGraph over network the geographic vertex is added to
    * @param gv the geographic vertex we try to convert to a Stop
    * @return a geographic vertex, which is either instance of a Stop or the same gv as passed to
    *     method's arguments
    */
-  private GeographicVertex getStopFromGeoVertex(TransportNetwork network, GeographicVertex gv) {
+  private GeographicVertex getStopFromGeoVertex(
+      TransportNetwork network, OverlayGraph overlay, GeographicVertex gv) {
     if (!(gv instanceof Stop)) {
       GeographicVertex startStop = network.getStopFromPosition(gv.getGeographicPosition());
       if (startStop == null) {
-        network.addGeographicVertex(gv);
+        overlay.addVertex(gv);
       } else return startStop;
     }
     return gv;
   }
 
   /**
-   * For use by subclasses. Run at the start of run().
+   * Returns the Graph in which the route is searched, over which the start, the destination and the
+   * WalkSegments reaching them are added. This implementation returns network.
    *
    * @param network the network this Query acts on
+   * @return the Graph the route is searched in, network or a Graph over it
    */
-  protected void pre(TransportNetwork network) {
+  protected Graph getGraphToRoute(TransportNetwork network) {
+    return network;
+  }
+
+  /**
+   * For use by subclasses. Run at the start of run(), to add vertices and edges to the route search
+   * without changing the network.
+   *
+   * @param network the network this Query acts on
+   * @param overlay the OverlayGraph over network in which the route is searched
+   */
+  protected void pre(TransportNetwork network, OverlayGraph overlay) {
     // For use by subclasses
   }
 
@@ -113,8 +236,11 @@ public class OptimizedRouteBetweenPositionsQuery extends Query {
    * Returns an optimized route between two positions. If one of the positions matches a Stop that
    * is in the transport network, the route uses it as start/destination. If the start or
    * destination is not a Stop, we add a few WalkSegments to connect it to the nearest Stops. Then
-   * we apply a time or distance-optimized Dijkstra algorithm to get a good route, and we finally
-   * remove the start, destination and WalkSegments we added.
+   * we apply a time or distance-optimized traversal strategy (Dijkstra by default) to get a good
+   * route. The start, destination and WalkSegments are added to an {@link OverlayGraph} over the
+   * network, so the network is never changed and nothing has to be removed afterwards. If this
+   * Query has a {@link RouteCache}, a route cached for the same positions is used instead of
+   * computing it again.
    *
    * @param network the network this Query acts on
    * @return a route going from the start position to the destination position
@@ -122,16 +248,46 @@ public class OptimizedRouteBetweenPositionsQuery extends Query {
    */
   @Override
   protected String run(TransportNetwork network) throws QueryFailureException {
-    pre(network);
+    RouteCache.Key key = null;
+    List<Edge> path = null;
+    if (this.routeCache != null) {
+      key =
+          this.routeCache.keyOf(
+              startPoint,
+              targetPoint,
+              optimizationChoice,
+              startTime,
+              this.getClass(),
+              traversalStrategy.getRouteKey());
+      path = this.routeCache.get(network, key);
+    }
+    if (path == null) {
+      path = this.findRoute(network);
+      if (key != null) this.routeCache.put(network, key, path);
+    } else Logging.getLogger().fine("Route found in the route cache");
 
-    GeographicVertex startGV = getStopFromGeoVertex(network, startPoint);
-    GeographicVertex targetGV = getStopFromGeoVertex(network, targetPoint);
+    try {
+      return network.getRouteDescription(path, startTime);
+    } catch (NoSuchElementException | IllegalStateException e) {
+      throw new QueryFailureException("Impossible to find a route");
+    } catch (UnsupportedOperationException e) {
+      throw new QueryFailureException(e.getMessage());
+    }
+  }
+
+  // Computes the route from the start to the target in network
+  private List<Edge> findRoute(TransportNetwork network) throws QueryFailureException {
+    OverlayGraph overlay = OverlayGraph.over(this.getGraphToRoute(network));
+    pre(network, overlay);
+
+    GeographicVertex startGV = getStopFromGeoVertex(network, overlay, startPoint);
+    GeographicVertex targetGV = getStopFromGeoVertex(network, overlay, targetPoint);
 
     if (startGV.equals(targetGV))
       throw new QueryFailureException("Start and target stop should be different");
 
-    this.addWalkSegments(network, startGV, true);
-    this.addWalkSegments(network, targetGV, false);
+    this.addWalkSegments(network, overlay, startGV, targetGV, true);
+    this.addWalkSegments(network, overlay, targetGV, startGV, false);
 
     BiFunction<Double, Edge, Double> optimizationBiFun;
     if (optimizationChoice == RouteOptimization.DISTANCE)
@@ -142,19 +298,14 @@ public class OptimizedRouteBetweenPositionsQuery extends Query {
       throw new UnsupportedOperationException(
           "Optimization choice doesn't exist or is not yet supported");
 
-    network.setTraversalStrategy(new DijkstraTraversalStrategy());
-
-    Map<Vertex, Edge> traversal = network.traversal(startGV, targetGV, optimizationBiFun, true);
-
     try {
-      List<Edge> path = Graph.getRouteFromTraversal(traversal, startGV, targetGV);
-      return network.getRouteDescription(path, startTime);
+      Map<Vertex, Edge> traversal =
+          traversalStrategy.traversal(startGV, targetGV, optimizationBiFun, true, overlay);
+      return Graph.getRouteFromTraversal(traversal, startGV, targetGV);
     } catch (NoSuchElementException | IllegalStateException e) {
       throw new QueryFailureException("Impossible to find a route");
-    } finally {
-      for (WalkSegment ws : network.getWalkSegments()) network.removeWalkSegment(ws);
-      if (!(startGV instanceof Stop)) network.removeGeographicVertex(startGV);
-      if (!(targetGV instanceof Stop)) network.removeGeographicVertex(targetGV);
+    } catch (UnsupportedOperationException e) {
+      throw new QueryFailureException(e.getMessage());
     }
   }
 }
@@ -1,13 +1,12 @@
 package dev.moriamap.model.query;
 
 import dev.moriamap.model.network.GeographicVertex;
-import dev.moriamap.model.network.Stop;
+import dev.moriamap.model.network.Graph;
 import dev.moriamap.model.network.TransportNetwork;
-import dev.moriamap.model.network.WalkSegment;
 import dev.moriamap.model.network.traversal.RouteOptimization;
+import dev.moriamap.model.network.traversal.TraversalStrategy;
 import java.io.OutputStream;
 import java.time.LocalTime;
-import java.util.List;
 
 /**
  * Query that computes and prints the shortest path from a starting geographic position to a target
@@ -36,20 +35,64 @@ public class OptimizedRouteBetweenPositionsWithWalkQuery
     super(out, startPoint, targetPoint, optimizationChoice, startTime);
   }
 
-  private void addWalkSegments(TransportNetwork network, GeographicVertex gv) {
-    var distanceMap = GeographicVertex.makeDistanceSortedMap(gv, network.getGeographicVertices());
-    List<GeographicVertex> gvsWithinRadius =
-        GeographicVertex.getNClosestGVsWithinRadius(
-            Integer.MAX_VALUE, GEOVERTEX_SEARCH_RADIUS, distanceMap);
+  /**
+   * Constructor of OptimizedRouteBetweenPositionsWithWalkQuery specifying the traversal strategy
+   * used to compute the route.
+   *
+   * @param out the outputStream where the result will be written
+   * @param startPoint geographic Vertex of the starting point
+   * @param targetPoint geographic Vertex of the starting point
+   * @param optimizationChoice optimization method used
+   * @param startTime starting time when the travel start
+   * @param traversalStrategy the strategy used to explore the transport network
+   * @throws NullPointerException if any argument is null except out
+   */
+  public OptimizedRouteBetweenPositionsWithWalkQuery(
+      OutputStream out,
+      GeographicVertex startPoint,
+      GeographicVertex targetPoint,
+      RouteOptimization optimizationChoice,
+      LocalTime startTime,
+      TraversalStrategy traversalStrategy) {
+    super(out, startPoint, targetPoint, optimizationChoice, startTime, traversalStrategy);
+  }
 
-    for (GeographicVertex v : gvsWithinRadius) {
-      var ws = new WalkSegment(gv, v);
-      network.addWalkSegment(ws);
-    }
+  /**
+   * Constructor of OptimizedRouteBetweenPositionsWithWalkQuery specifying the traversal strategy
+   * used to compute the route and the RouteCache in which the route is looked up before computing
+   * it and added after.
+   *
+   * @param out the outputStream where the result will be written
+   * @param startPoint geographic Vertex of the starting point
+   * @param targetPoint geographic Vertex of the starting point
+   * @param optimizationChoice optimization method used
+   * @param startTime starting time when the travel start
+   * @param traversalStrategy the strategy used to explore the transport network
+   * @param routeCache the cache of the computed routes, or null to always compute the route
+   * @throws NullPointerException if any argument is null except out and routeCache
+   */
+  public OptimizedRouteBetweenPositionsWithWalkQuery(
+      OutputStream out,
+      GeographicVertex startPoint,
+      GeographicVertex targetPoint,
+      RouteOptimization optimizationChoice,
+      LocalTime startTime,
+      TraversalStrategy traversalStrategy,
+      RouteCache routeCache) {
+    super(
+        out, startPoint, targetPoint, optimizationChoice, startTime, traversalStrategy, routeCache);
   }
 
+  /**
+   * Returns the network with the footpaths between its stops (see {@link
+   * TransportNetwork#getGraphWithFootpaths()}), which are built once for the network and not for
+   * every query.
+   *
+   * @param network the network this Query acts on
+   * @return network with the footpaths between its stops
+   */
   @Override
-  protected void pre(TransportNetwork network) {
-    for (Stop stop : network.getStops()) this.addWalkSegments(network, stop);
+  protected Graph getGraphToRoute(TransportNetwork network) {
+    return network.getGraphWithFootpaths();
   }
 }
@@ -20,6 +20,15 @@ public abstract class Query {
     this.out = out;
   }
 
+  /**
+   * Returns the OutputStream where the result of this Query is written
+   *
+   * @return the OutputStream of this Query, or null if its result is not written
+   */
+  protected OutputStream getOutputStream() {
+    return this.out;
+  }
+
   /**
    * Executes this Query on the given network.
    *
@@ -30,19 +39,17 @@ public abstract class Query {
   protected abstract String run(TransportNetwork network) throws QueryFailureException;
 
   /**
-   * Call the method run() and print its result in the outputStream
+   * Call the method run() and return its result, or the error it failed with
    *
    * @param network the network that will be passed to the run() method
-   * @throws IOException if an issue happened writing ou the OutputStream
+   * @return the result of run() or its error, followed by a newline
    */
-  private void writeResult(TransportNetwork network) throws IOException {
-    String result;
+  private String getResult(TransportNetwork network) {
     try {
-      result = run(network) + "\n";
+      return run(network) + "\n";
     } catch (QueryFailureException e) {
-      result = "Error: " + e.getMessage() + "\n";
+      return "Error: " + e.getMessage() + "\n";
     }
-    if (out != null) out.write(result.getBytes());
   }
 
   /**
@@ -51,10 +58,18 @@ public abstract class Query {
    * @param network the network that will be used to run the query
    */
   public void execute(TransportNetwork network) {
+    this.executeForResult(network);
+  }
+
+  // Same as execute(network), and returns what was written or failed to be written to the
+  // OutputStream
+  String executeForResult(TransportNetwork network) {
+    String result = getResult(network);
     try {
-      writeResult(network);
+      if (out != null) out.write(result.getBytes());
     } catch (IOException ex) {
       Logging.getLogger().severe("Failed to write query's output to OutputStream");
     }
+    return result;
   }
 }
@@ -0,0 +1,151 @@
+package dev.moriamap.model.query;
+
+import dev.moriamap.model.network.TransportNetwork;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs queries concurrently on a frozen TransportNetwork (see {@link TransportNetwork#freeze()}),
+ * which any number of threads can read at the same time. At most a given number of queries run at
+ * the same time, each on its own thread, and the others wait for one of them to finish.
+ *
+ * <p>Each Query writes its result to its own OutputStream, as {@link
+ * Query#execute(TransportNetwork)} does, so queries sharing an OutputStream may write their results
+ * in any order. The result is also returned, by a Future, so a Query may have no OutputStream at
+ * all. A {@link TravelTimeMatrixQuery} is the exception: it writes its matrix to its OutputStream
+ * as it computes it, and its Future only gives its error, so the matrix is never held whole.
+ *
+ * <p>A QueryExecutor must be closed once no more queries are submitted to it, which waits for the
+ * queries already submitted to finish.
+ */
+public final class QueryExecutor implements AutoCloseable {
+
+  // The network the queries run on
+  private final TransportNetwork network;
+
+  // The maximum number of queries running at the same time
+  private final int parallelism;
+
+  // Runs the queries on parallelism threads
+  private final ExecutorService executor;
+
+  // Numbers the threads of the executors
+  private static final AtomicInteger threadCount = new AtomicInteger();
+
+  private QueryExecutor(TransportNetwork network, int parallelism) {
+    this.network = network;
+    this.parallelism = parallelism;
+    ThreadFactory factory =
+        runnable -> {
+          Thread thread = new Thread(runnable, "query-executor-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        };
+    this.executor = Executors.newFixedThreadPool(parallelism, factory);
+  }
+
+  /**
+   * {@return a new QueryExecutor running as many queries at the same time as there are available
+   * processors, on the frozen form of the given network}
+   *
+   * @param network the network the queries run on
+   * @throws NullPointerException if network is null
+   */
+  public static QueryExecutor of(TransportNetwork network) {
+    return of(network, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * {@return a new QueryExecutor running at most parallelism queries at the same time, on the
+   * frozen form of the given network}
+   *
+   * @param network the network the queries run on
+   * @param parallelism the maximum number of queries running at the same time
+   * @throws NullPointerException if network is null
+   * @throws IllegalArgumentException if parallelism is not positive
+   */
+  public static QueryExecutor of(TransportNetwork network, int parallelism) {
+    Objects.requireNonNull(network);
+    if (parallelism <= 0) throw new IllegalArgumentException("Parallelism must be positive");
+    return new QueryExecutor(network.freeze(), parallelism);
+  }
+
+  /** {@return the frozen TransportNetwork the queries of this QueryExecutor run on} */
+  public TransportNetwork getNetwork() {
+    return this.network;
+  }
+
+  /** {@return the maximum number of queries this QueryExecutor runs at the same time} */
+  public int getParallelism() {
+    return this.parallelism;
+  }
+
+  /**
+   * Runs the given Query as soon as fewer than getParallelism() queries are running. Its result is
+   * written to its OutputStream, as by {@link Query#execute(TransportNetwork)}, and given by the
+   * returned Future.
+   *
+   * @param query the Query to run
+   * @return the Future of the result of query, or of its error, followed by a newline
+   * @throws NullPointerException if query is null
+   * @throws RejectedExecutionException if this QueryExecutor is closed
+   */
+  public Future<String> submit(Query query) {
+    Objects.requireNonNull(query);
+    return this.executor.submit(() -> query.executeForResult(this.network));
+  }
+
+  /**
+   * Runs the given queries, at most getParallelism() at the same time, and returns their results
+   * once they have all finished. The result of each Query is also written to its OutputStream.
+   *
+   * @param queries the queries to run
+   * @return the results of queries, or their errors, each followed by a newline, in the order of
+   *     queries
+   * @throws NullPointerException if queries or one of its elements is null
+   * @throws RejectedExecutionException if this QueryExecutor is closed
+   * @throws InterruptedException if the current thread is interrupted while waiting
+   */
+  public List<String> executeAll(List<? extends Query> queries) throws InterruptedException {
+    queries.forEach(Objects::requireNonNull);
+    List<Future<String>> futures = new ArrayList<>(queries.size());
+    for (Query query : queries) futures.add(this.submit(query));
+    List<String> results = new ArrayList<>(futures.size());
+    for (Future<String> future : futures) {
+      try {
+        results.add(future.get());
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException cause) throw cause;
+        if (e.getCause() instanceof Error cause) throw cause;
+        throw new IllegalStateException(e.getCause());
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Stops accepting queries and waits for the queries already submitted to finish. If the current
+   * thread is interrupted while waiting, the running queries are interrupted too.
+   */
+  @Override
+  public void close() {
+    this.executor.shutdown();
+    try {
+      while (!this.executor.awaitTermination(1, TimeUnit.MINUTES)) {
+        // Queries are still running
+      }
+    } catch (InterruptedException e) {
+      this.executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package dev.moriamap.model.query;
+
+import dev.moriamap.model.network.Edge;
+import dev.moriamap.model.network.GeographicVertex;
+import dev.moriamap.model.network.TransportNetwork;
+import dev.moriamap.model.network.traversal.RouteOptimization;
+import dev.moriamap.model.network.traversal.TraversalStrategy;
+import java.lang.ref.WeakReference;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * A bounded cache of the routes computed by {@link OptimizedRouteBetweenPositionsQuery}, so that
+ * asking again for a route between the same positions does not traverse the network again. A route
+ * is cached for its start, its destination, its {@link RouteOptimization}, the kind of query that
+ * computed it, the {@link TraversalStrategy#getRouteKey() route key} of its traversal strategy and,
+ * for routes optimized for time, its start time rounded down to a multiple of the bucket of the
+ * cache. The route is cached and not its description, which is computed again with the exact start
+ * time of each query.
+ *
+ * <p>The cache holds at most a given number of routes and drops the least recently used one when it
+ * is full. A route older than the maximum age of the cache, or computed for another network or
+ * another {@link TransportNetwork#getVersion() version} of the network, is dropped when it is
+ * looked up, so adding departures to the network invalidates its cached routes.
+ *
+ * <p>A RouteCache can be used by several threads at the same time.
+ */
+public final class RouteCache {
+
+  // The maximum number of routes, their maximum age and the length of the time buckets
+  private final int maxSize;
+  private final Duration maxAge;
+  private final long bucketNanos;
+
+  // Tells the time at which routes are added and looked up
+  private final Clock clock;
+
+  // The routes from the least recently used to the most recently used
+  private final LinkedHashMap<Key, Route> routes;
+
+  // The number of lookups that found a route and that did not
+  private long hitCount = 0;
+  private long missCount = 0;
+
+  // What a route is cached for. Routes optimized for distance do not depend on the start time, so
+  // their bucket is -1.
+  record Key(
+      GeographicVertex start,
+      GeographicVertex target,
+      RouteOptimization optimization,
+      long bucket,
+      Class<?> queryClass,
+      Object strategyKey) {}
+
+  // A cached route, with the network and the version of the network it was computed for, and the
+  // time it was added at. The network is weakly referenced so that the cache does not keep it alive
+  private record Route(
+      WeakReference<TransportNetwork> network, long version, Instant added, List<Edge> edges) {}
+
+  private RouteCache(int maxSize, Duration maxAge, Duration bucket, Clock clock) {
+    this.maxSize = maxSize;
+    this.maxAge = maxAge;
+    this.bucketNanos = bucket.toNanos();
+    this.clock = clock;
+    this.routes =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Key, Route> eldest) {
+            return this.size() > RouteCache.this.maxSize;
+          }
+        };
+  }
+
+  /**
+   * {@return a new empty RouteCache telling the time with the system clock}
+   *
+   * @param maxSize the maximum number of routes in the cache
+   * @param maxAge the time after which a cached route is no longer used
+   * @param bucket the length of the intervals of start times sharing the same cached routes
+   * @throws NullPointerException if maxAge or bucket is null
+   * @throws IllegalArgumentException if maxSize, maxAge or bucket is not positive, or if bucket is
+   *     longer than a day
+   */
+  public static RouteCache of(int maxSize, Duration maxAge, Duration bucket) {
+    return of(maxSize, maxAge, bucket, Clock.systemUTC());
+  }
+
+  /**
+   * {@return a new empty RouteCache telling the time with the given Clock}
+   *
+   * @param maxSize the maximum number of routes in the cache
+   * @param maxAge the time after which a cached route is no longer used
+   * @param bucket the length of the intervals of start times sharing the same cached routes
+   * @param clock the clock telling the age of cached routes
+   * @throws NullPointerException if maxAge, bucket or clock is null
+   * @throws IllegalArgumentException if maxSize, maxAge or bucket is not positive, or if bucket is
+   *     longer than a day
+   */
+  public static RouteCache of(int maxSize, Duration maxAge, Duration bucket, Clock clock) {
+    Objects.requireNonNull(maxAge);
+    Objects.requireNonNull(bucket);
+    Objects.requireNonNull(clock);
+    if (maxSize <= 0) throw new IllegalArgumentException("Size must be positive");
+    if (maxAge.isNegative() || maxAge.isZero())
+      throw new IllegalArgumentException("Age must be positive");
+    if (bucket.isNegative() || bucket.isZero() || bucket.compareTo(Duration.ofDays(1)) > 0)
+      throw new IllegalArgumentException("Bucket must be positive and at most a day");
+    return new RouteCache(maxSize, maxAge, bucket, clock);
+  }
+
+  // Returns the Key of the routes with the given start, target, optimization and start time,
+  // computed by the given kind of query and a traversal strategy with the given route key
+  Key keyOf(
+      GeographicVertex start,
+      GeographicVertex target,
+      RouteOptimization optimization,
+      LocalTime startTime,
+      Class<?> queryClass,
+      Object strategyKey) {
+    long bucket =
+        optimization == RouteOptimization.DISTANCE
+            ? -1
+            : startTime.toNanoOfDay() / this.bucketNanos;
+    return new Key(start, target, optimization, bucket, queryClass, strategyKey);
+  }
+
+  // Returns the route cached for key in network, or null if there is none or if it is outdated
+  synchronized List<Edge> get(TransportNetwork network, Key key) {
+    Route route = this.routes.get(key);
+    if (route != null && !this.isValid(route, network)) {
+      this.routes.remove(key);
+      route = null;
+    }
+    if (route == null) {
+      this.missCount++;
+      return null;
+    }
+    this.hitCount++;
+    return route.edges();
+  }
+
+  // Caches route for key in network
+  synchronized void put(TransportNetwork network, Key key, List<Edge> route) {
+    this.routes.put(
+        key,
+        new Route(
+            new WeakReference<>(network),
+            network.getVersion(),
+            this.clock.instant(),
+            List.copyOf(route)));
+  }
+
+  // Returns true if route was computed for the current version of network and is not too old
+  private boolean isValid(Route route, TransportNetwork network) {
+    return route.network().get() == network
+        && route.version() == network.getVersion()
+        && Duration.between(route.added(), this.clock.instant()).compareTo(this.maxAge) < 0;
+  }
+
+  /** {@return the number of routes in this RouteCache, including outdated ones} */
+  public synchronized int size() {
+    return this.routes.size();
+  }
+
+  /** {@return the number of lookups of this RouteCache that found a route} */
+  public synchronized long getHitCount() {
+    return this.hitCount;
+  }
+
+  /** {@return the number of lookups of this RouteCache that found no route} */
+  public synchronized long getMissCount() {
+    return this.missCount;
+  }
+
+  /** Removes all the routes of this RouteCache. Its hit and miss counts are kept. */
+  public synchronized void clear() {
+    this.routes.clear();
+  }
+}
@@ -0,0 +1,238 @@
+package dev.moriamap.model.query;
+
+import dev.moriamap.Logging;
+import dev.moriamap.model.network.Stop;
+import dev.moriamap.model.network.TransportNetwork;
+import dev.moriamap.model.network.traversal.DistanceAsWeight;
+import dev.moriamap.model.network.traversal.EdgeWeigher;
+import dev.moriamap.model.network.traversal.HeapDijkstraTraversalStrategy;
+import dev.moriamap.model.network.traversal.RouteOptimization;
+import dev.moriamap.model.network.traversal.TravelTimeAsWeight;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Query that computes the travel times or the distances of the optimized routes from every origin
+ * Stop to every destination Stop, as a matrix in CSV form. Its first line holds the names of the
+ * destinations after an empty cell, and each of the other lines holds the name of an origin
+ * followed by the weights of the routes from it to each destination, separated by semicolons. A
+ * travel time is in whole seconds and a distance in kilometers; the cell of an unreachable
+ * destination is empty.
+ *
+ * <p>Each row is computed with a single traversal from its origin to all the vertices of the frozen
+ * form of the network (see {@link TransportNetwork#freeze()}), and the rows are computed by several
+ * threads at the same time. When the Query is executed, directly or by a {@link QueryExecutor}, the
+ * rows are written to its OutputStream in the order of the origins as soon as they are computed,
+ * and at most twice as many rows as threads are kept in memory, so the memory used does not depend
+ * on the number of origins. The matrix is only built in memory by {@link #run(TransportNetwork)},
+ * which refuses matrices of more than {@value #MAX_RETURNED_CELLS} cells.
+ */
+public class TravelTimeMatrixQuery extends Query {
+
+  /** The maximum number of cells of a matrix returned by {@link #run(TransportNetwork)}. */
+  public static final int MAX_RETURNED_CELLS = 1 << 20;
+
+  // The separator of the cells of the matrix
+  private static final String SEPARATOR = ";";
+
+  private final List<Stop> origins;
+  private final List<Stop> destinations;
+  private final RouteOptimization optimizationChoice;
+  private final LocalTime startTime;
+
+  // The number of threads computing rows
+  private final int parallelism;
+
+  /**
+   * Constructor of TravelTimeMatrixQuery computing rows with as many threads as there are available
+   * processors.
+   *
+   * @param out the outputStream where the matrix will be written
+   * @param origins the stops the routes start from, one per row
+   * @param destinations the stops the routes go to, one per column
+   * @param optimizationChoice optimization method used, and weight of the routes in the matrix
+   * @param startTime starting time of every route
+   * @throws NullPointerException if any argument or stop is null except out
+   */
+  public TravelTimeMatrixQuery(
+      OutputStream out,
+      List<Stop> origins,
+      List<Stop> destinations,
+      RouteOptimization optimizationChoice,
+      LocalTime startTime) {
+    this(
+        out,
+        origins,
+        destinations,
+        optimizationChoice,
+        startTime,
+        Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructor of TravelTimeMatrixQuery specifying the number of threads computing rows.
+   *
+   * @param out the outputStream where the matrix will be written
+   * @param origins the stops the routes start from, one per row
+   * @param destinations the stops the routes go to, one per column
+   * @param optimizationChoice optimization method used, and weight of the routes in the matrix
+   * @param startTime starting time of every route
+   * @param parallelism the number of threads computing rows
+   * @throws NullPointerException if any argument or stop is null except out
+   * @throws IllegalArgumentException if parallelism is not positive
+   */
+  public TravelTimeMatrixQuery(
+      OutputStream out,
+      List<Stop> origins,
+      List<Stop> destinations,
+      RouteOptimization optimizationChoice,
+      LocalTime startTime,
+      int parallelism) {
+    super(out);
+    Objects.requireNonNull(optimizationChoice);
+    Objects.requireNonNull(startTime);
+    if (parallelism <= 0) throw new IllegalArgumentException("Parallelism must be positive");
+    this.origins = List.copyOf(origins);
+    this.destinations = List.copyOf(destinations);
+    this.optimizationChoice = optimizationChoice;
+    this.startTime = startTime;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Returns the whole matrix, without a newline at its end. As it is built in memory, the matrix
+   * must have at most MAX_RETURNED_CELLS cells; executing the Query writes larger matrices.
+   *
+   * @param network the network this Query acts on
+   * @return the matrix of the weights of the routes from the origins to the destinations
+   * @throws QueryFailureException if a stop is not in network, or if the matrix has more than
+   *     MAX_RETURNED_CELLS cells
+   */
+  @Override
+  protected String run(TransportNetwork network) throws QueryFailureException {
+    if ((long) this.origins.size() * this.destinations.size() > MAX_RETURNED_CELLS)
+      throw new QueryFailureException(
+          "The matrix has more than " + MAX_RETURNED_CELLS + " cells, execute the query instead");
+    StringBuilder res = new StringBuilder();
+    try {
+      this.writeMatrix(network, res);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e); // Appending to a StringBuilder does not fail
+    }
+    res.setLength(res.length() - 1);
+    return res.toString();
+  }
+
+  // Writes the matrix to the OutputStream of this Query row by row, as the rows are computed,
+  // instead of building the whole matrix first. What is written is the same as what run(network)
+  // returns followed by a newline, or the error of the Query. The matrix is not returned, as it
+  // may not fit in memory, so the result is empty unless the Query fails. Query.execute and
+  // QueryExecutor.submit both call this method
+  @Override
+  String executeForResult(TransportNetwork network) {
+    OutputStream out = this.getOutputStream();
+    Writer writer =
+        out == null ? Writer.nullWriter() : new BufferedWriter(new OutputStreamWriter(out));
+    String result = "";
+    try {
+      try {
+        this.writeMatrix(network, writer);
+      } catch (QueryFailureException e) {
+        result = "Error: " + e.getMessage() + "\n";
+        writer.write(result);
+      }
+      writer.flush();
+    } catch (IOException ex) {
+      Logging.getLogger().severe("Failed to write query's output to OutputStream");
+    }
+    return result;
+  }
+
+  // Writes the matrix to sink, each line followed by a newline
+  private void writeMatrix(TransportNetwork network, Appendable sink)
+      throws QueryFailureException, IOException {
+    for (Stop stop : this.origins) this.checkStop(network, stop);
+    for (Stop stop : this.destinations) this.checkStop(network, stop);
+    // The threads computing the rows read the frozen form of the network, whose derived data is
+    // already built
+    TransportNetwork frozen;
+    try {
+      frozen = network.freeze();
+    } catch (NoSuchElementException e) {
+      throw new QueryFailureException("Impossible to find a route");
+    }
+
+    for (Stop destination : this.destinations) sink.append(SEPARATOR).append(destination.getName());
+    sink.append("\n");
+
+    ExecutorService executor = Executors.newFixedThreadPool(this.parallelism);
+    try {
+      Deque<Future<double[]>> pending = new ArrayDeque<>();
+      int next = 0;
+      for (Stop origin : this.origins) {
+        while (next < this.origins.size() && pending.size() < 2 * this.parallelism) {
+          Stop nextOrigin = this.origins.get(next++);
+          pending.add(executor.submit(() -> this.computeRow(frozen, nextOrigin)));
+        }
+        this.writeRow(sink, origin, join(pending.poll()));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void checkStop(TransportNetwork network, Stop stop) throws QueryFailureException {
+    if (!network.contains(stop))
+      throw new QueryFailureException("Stop " + stop.getName() + " is not in the network");
+  }
+
+  // Returns the result of future, rethrowing what its task threw
+  private static double[] join(Future<double[]> future) {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) throw cause;
+      if (e.getCause() instanceof Error cause) throw cause;
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while computing the matrix", e);
+    }
+  }
+
+  // Returns the weights of the routes from origin to each destination, read from the distances
+  // settled by the traversal, positive infinity if it is unreachable
+  private double[] computeRow(TransportNetwork network, Stop origin) {
+    EdgeWeigher weigher =
+        this.optimizationChoice == RouteOptimization.TIME
+            ? new TravelTimeAsWeight(this.startTime, network)
+            : new DistanceAsWeight(network);
+    HeapDijkstraTraversalStrategy.Result result =
+        new HeapDijkstraTraversalStrategy().search(origin, null, weigher, false, network);
+    double[] row = new double[this.destinations.size()];
+    for (int i = 0; i < row.length; i++) row[i] = result.getWeight(this.destinations.get(i));
+    return row;
+  }
+
+  private void writeRow(Appendable sink, Stop origin, double[] row) throws IOException {
+    sink.append(origin.getName());
+    for (double weight : row) {
+      sink.append(SEPARATOR);
+      if (weight == Double.POSITIVE_INFINITY) continue;
+      if (this.optimizationChoice == RouteOptimization.TIME)
+        sink.append(Long.toString((long) weight));
+      else sink.append(String.format(Locale.ROOT, "%.3f", weight));
+    }
+    sink.append("\n");
+  }
+}
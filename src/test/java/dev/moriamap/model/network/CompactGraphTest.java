@@ -0,0 +1,95 @@
+package dev.moriamap.model.network;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CompactGraphTest {
+  private static class DummyGraph extends Graph {}
+
+  private static class DummyVertex implements Vertex {}
+
+  private static class DummyEdge extends Edge {
+    public DummyEdge(Vertex from, Vertex to) {
+      super(from, to);
+    }
+  }
+
+  private final Vertex a = new DummyVertex();
+  private final Vertex b = new DummyVertex();
+  private final Vertex c = new DummyVertex();
+  private final Edge ab = new DummyEdge(a, b);
+  private final Edge ac = new DummyEdge(a, c);
+  private final Edge ba = new DummyEdge(b, a);
+
+  private Graph graph() {
+    Graph graph = new DummyGraph();
+    graph.addEdge(ab);
+    graph.addEdge(ac);
+    graph.addEdge(ba);
+    return graph;
+  }
+
+  @Test
+  void ofNullGraphThrowsException() {
+    assertThrows(NullPointerException.class, () -> CompactGraph.of(null));
+  }
+
+  @Test
+  void compactGraphOfEmptyGraphIsEmpty() {
+    CompactGraph sut = CompactGraph.of(new DummyGraph());
+    assertEquals(0, sut.getVertexCount());
+    assertEquals(0, sut.getEdgeCount());
+  }
+
+  @Test
+  void vertexIdsAreABijection() {
+    CompactGraph sut = CompactGraph.of(graph());
+    assertEquals(3, sut.getVertexCount());
+    for (Vertex v : List.of(a, b, c)) assertSame(v, sut.getVertex(sut.getVertexId(v)));
+  }
+
+  @Test
+  void vertexIdOfAbsentVertexIsMinusOne() {
+    CompactGraph sut = CompactGraph.of(graph());
+    assertEquals(-1, sut.getVertexId(new DummyVertex()));
+    assertEquals(-1, sut.getVertexId(null));
+  }
+
+  @Test
+  void outgoingEdgesAreInTheOrderOfTheGraph() {
+    Graph graph = graph();
+    CompactGraph sut = CompactGraph.of(graph);
+    assertEquals(3, sut.getEdgeCount());
+    for (Vertex v : List.of(a, b, c)) {
+      int id = sut.getVertexId(v);
+      List<Edge> expected = graph.getOutgoingEdgesViewOf(v);
+      assertEquals(expected.size(), sut.getOutgoingEdgesEnd(id) - sut.getFirstOutgoingEdge(id));
+      for (int i = 0; i < expected.size(); i++) {
+        int e = sut.getFirstOutgoingEdge(id) + i;
+        assertSame(expected.get(i), sut.getEdge(e));
+        assertEquals(id, sut.getEdgeSource(e));
+        assertEquals(sut.getVertexId(expected.get(i).getTo()), sut.getEdgeTarget(e));
+      }
+    }
+  }
+
+  @Test
+  void compactGraphIsNotChangedByLaterChangesOfTheGraph() {
+    Graph graph = graph();
+    CompactGraph sut = CompactGraph.of(graph);
+    graph.removeEdge(ab);
+    graph.addVertex(new DummyVertex());
+    assertEquals(3, sut.getVertexCount());
+    assertEquals(3, sut.getEdgeCount());
+  }
+
+  @Test
+  void outOfBoundsVertexIdThrowsException() {
+    CompactGraph sut = CompactGraph.of(graph());
+    assertThrows(IndexOutOfBoundsException.class, () -> sut.getFirstOutgoingEdge(3));
+    assertThrows(IndexOutOfBoundsException.class, () -> sut.getOutgoingEdgesEnd(-1));
+    assertThrows(IndexOutOfBoundsException.class, () -> sut.getVertex(3));
+  }
+}
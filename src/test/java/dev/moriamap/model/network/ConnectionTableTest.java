@@ -0,0 +1,115 @@
+package dev.moriamap.model.network;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import org.junit.jupiter.api.Test;
+
+class ConnectionTableTest {
+
+  private final Stop s1 = Stop.from("s1", GeographicPosition.at(48.0, 2.0));
+  private final Stop s2 = Stop.from("s2", GeographicPosition.at(48.1, 2.0));
+  private final Stop s3 = Stop.from("s3", GeographicPosition.at(48.2, 2.0));
+
+  private TransportNetwork newTransportNetworkHelper() {
+    TransportSegment ts1 = TransportSegment.from(s1, s2, "A", "1", Duration.ofMinutes(3), 4);
+    TransportSegment ts2 = TransportSegment.from(s2, s3, "A", "1", Duration.ofMinutes(5), 4);
+    Variant v = Variant.empty("1", "A");
+    v.addTransportSegment(ts1);
+    v.addTransportSegment(ts2);
+    v.addDeparture(LocalTime.of(23, 58));
+    v.addDeparture(LocalTime.of(8, 0));
+    Line l = Line.of("A");
+    l.addVariant(v);
+
+    TransportNetwork tn = TransportNetwork.empty();
+    tn.addStop(s1);
+    tn.addStop(s2);
+    tn.addStop(s3);
+    tn.addTransportSegment(ts1);
+    tn.addTransportSegment(ts2);
+    tn.addLine(l);
+    return tn;
+  }
+
+  @Test
+  void ofNullThrowsException() {
+    assertThrows(NullPointerException.class, () -> ConnectionTable.of(null));
+  }
+
+  @Test
+  void emptyNetworkHasNoConnections() {
+    ConnectionTable table = ConnectionTable.of(TransportNetwork.empty());
+    assertEquals(0, table.size());
+    assertEquals(0, table.getStopCount());
+    assertEquals(0, table.firstConnectionNotBefore(0));
+  }
+
+  @Test
+  void oneConnectionPerDepartureAndSegment() {
+    ConnectionTable table = ConnectionTable.of(newTransportNetworkHelper());
+    assertEquals(4, table.size());
+    assertEquals(3, table.getStopCount());
+  }
+
+  @Test
+  void connectionsAreSortedByDepartureTime() {
+    ConnectionTable table = ConnectionTable.of(newTransportNetworkHelper());
+    int[] expected = {60, 8 * 3600, 8 * 3600 + 3 * 60, (23 * 60 + 58) * 60};
+    for (int i = 0; i < table.size(); i++) assertEquals(expected[i], table.getDepartureTime(i));
+  }
+
+  @Test
+  void connectionsDepartingAtTheSameTimeAreSortedByArrivalTime() {
+    TransportNetwork tn = TransportNetwork.empty();
+    int[] minutes = {7, 0, 3, 0};
+    for (int i = 0; i < minutes.length; i++) {
+      String name = Integer.toString(i);
+      TransportSegment ts =
+          TransportSegment.from(s1, s2, name, "1", Duration.ofMinutes(minutes[i]), 4);
+      Variant v = Variant.empty("1", name);
+      v.addTransportSegment(ts);
+      v.addDeparture(LocalTime.of(8, 0));
+      Line l = Line.of(name);
+      l.addVariant(v);
+      tn.addTransportSegment(ts);
+      tn.addLine(l);
+    }
+    ConnectionTable table = ConnectionTable.of(tn);
+    String[] expectedLines = {"1", "3", "2", "0"};
+    for (int i = 0; i < table.size(); i++) {
+      assertEquals(8 * 3600, table.getDepartureTime(i));
+      assertEquals(expectedLines[i], table.getSegment(i).getLineName());
+      assertEquals(tn.getVariantIndex().getVariantId(table.getSegment(i)), table.getVariantId(i));
+    }
+  }
+
+  @Test
+  void connectionAfterMidnightIsWrapped() {
+    ConnectionTable table = ConnectionTable.of(newTransportNetworkHelper());
+    // The 23:58 departure reaches s2 at 00:01 and leaves it at 00:01 for s3
+    assertEquals(60, table.getDepartureTime(0));
+    assertEquals(6 * 60, table.getArrivalTime(0));
+    assertEquals(s2, table.getStop(table.getDepartureStop(0)));
+    assertEquals(s3, table.getStop(table.getArrivalStop(0)));
+    // The 23:58 departure from s1 arrives after midnight
+    assertEquals((23 * 60 + 58) * 60 + 3 * 60, table.getArrivalTime(3));
+    assertEquals(s1, table.getSegment(3).getFrom());
+  }
+
+  @Test
+  void getStopIdOfUnknownStopIsMinusOne() {
+    ConnectionTable table = ConnectionTable.of(newTransportNetworkHelper());
+    assertEquals(-1, table.getStopId(Stop.from("unknown", GeographicPosition.NORTH_POLE)));
+    assertEquals(s1, table.getStop(table.getStopId(s1)));
+  }
+
+  @Test
+  void firstConnectionNotBefore() {
+    ConnectionTable table = ConnectionTable.of(newTransportNetworkHelper());
+    assertEquals(1, table.firstConnectionNotBefore(61));
+    assertEquals(1, table.firstConnectionNotBefore(8 * 3600));
+    assertEquals(4, table.firstConnectionNotBefore(23 * 3600 + 59 * 60));
+  }
+}
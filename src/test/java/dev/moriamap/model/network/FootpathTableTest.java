@@ -0,0 +1,95 @@
+package dev.moriamap.model.network;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class FootpathTableTest {
+
+  private final Stop s1 = Stop.from("s1", GeographicPosition.at(48.8500, 2.3000));
+  private final Stop s2 = Stop.from("s2", GeographicPosition.at(48.8510, 2.3000));
+  private final Stop s3 = Stop.from("s3", GeographicPosition.at(48.8500, 2.3020));
+  private final Stop s4 = Stop.from("s4", GeographicPosition.at(48.9500, 2.3000));
+
+  // Returns the destinations of the footpaths from stop
+  private static List<Vertex> targets(FootpathTable table, Stop stop) {
+    List<Vertex> res = new ArrayList<>();
+    for (WalkSegment footpath : table.getFootpathsFrom(stop)) {
+      assertSame(stop, footpath.getFrom());
+      res.add(footpath.getTo());
+    }
+    return res;
+  }
+
+  private TransportNetwork newTransportNetworkHelper(Stop... stops) {
+    TransportNetwork tn = TransportNetwork.empty();
+    for (Stop stop : stops) tn.addStop(stop);
+    return tn;
+  }
+
+  @Test
+  void ofNullNetworkThrowsException() {
+    assertThrows(NullPointerException.class, () -> FootpathTable.of(null, 100));
+  }
+
+  @Test
+  void ofNegativeRadiusThrowsException() {
+    TransportNetwork tn = newTransportNetworkHelper(s1);
+    assertThrows(IllegalArgumentException.class, () -> FootpathTable.of(tn, -1));
+    assertThrows(IllegalArgumentException.class, () -> FootpathTable.of(tn, Double.NaN));
+  }
+
+  @Test
+  void footpathsAreSortedByDistanceAndWithinRadius() {
+    FootpathTable sut = FootpathTable.of(newTransportNetworkHelper(s1, s2, s3, s4), 500);
+    assertEquals(500, sut.getRadius());
+    assertEquals(List.of(s2, s3), targets(sut, s1));
+    assertEquals(List.of(s1, s3), targets(sut, s2));
+    assertTrue(sut.getFootpathsFrom(s4).isEmpty());
+    assertEquals(6, sut.size());
+  }
+
+  @Test
+  void footpathsOfAbsentStopIsEmpty() {
+    FootpathTable sut = FootpathTable.of(newTransportNetworkHelper(s1, s2), 500);
+    assertTrue(sut.getFootpathsFrom(s4).isEmpty());
+  }
+
+  @Test
+  void stopsAtTheSameDistanceAreAllKept() {
+    Stop twin = Stop.from("twin", s2.getGeographicPosition());
+    FootpathTable sut = FootpathTable.of(newTransportNetworkHelper(s1, s2, twin), 500);
+    assertEquals(Set.of(s2, twin), Set.copyOf(targets(sut, s1)));
+    assertEquals(List.of(twin, s1), targets(sut, s2));
+  }
+
+  @Test
+  void footpathsAreTheSameAsComparingEveryPair() {
+    Random random = new Random(3);
+    List<Stop> stops = new ArrayList<>();
+    for (int i = 0; i < 300; i++)
+      stops.add(
+          Stop.from(
+              "s" + i,
+              GeographicPosition.at(
+                  48.8 + random.nextDouble() * 0.1, 2.25 + random.nextDouble() * 0.15)));
+    TransportNetwork tn = newTransportNetworkHelper(stops.toArray(new Stop[0]));
+    FootpathTable sut = FootpathTable.of(tn, 800);
+    for (Stop stop : stops) {
+      List<Stop> expected = new ArrayList<>();
+      for (Stop other : stops)
+        if (other != stop
+            && stop.getGeographicPosition().distanceFrom(other.getGeographicPosition()) <= 800)
+          expected.add(other);
+      expected.sort(
+          Comparator.comparingDouble(
+              other -> stop.getGeographicPosition().distanceFrom(other.getGeographicPosition())));
+      assertEquals(expected, targets(sut, stop));
+    }
+  }
+}
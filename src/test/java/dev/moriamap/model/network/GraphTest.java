@@ -92,6 +92,38 @@ class GraphTest {
     assertEquals(outgoingEdges, sut.getOutgoingEdgesOf(from));
   }
 
+  @Test
+  void getOutgoingEdgesViewOfNullVertexThrowsIllegalArgumentException() {
+    Graph sut = new DummyGraph();
+    assertThrows(IllegalArgumentException.class, () -> sut.getOutgoingEdgesViewOf(null));
+  }
+
+  @Test
+  void getOutgoingEdgesViewOfAbsentVertexThrowsNoSuchElementException() {
+    Graph sut = new DummyGraph();
+    Vertex dummy = new DummyVertex();
+    assertThrows(NoSuchElementException.class, () -> sut.getOutgoingEdgesViewOf(dummy));
+  }
+
+  @Test
+  void getOutgoingEdgesViewOfVertexWithoutOutgoingEdgesIsEmptyList() {
+    Graph sut = new DummyGraph();
+    Vertex from = new DummyVertex();
+    sut.addVertex(from);
+    assertTrue(sut.getOutgoingEdgesViewOf(from).isEmpty());
+  }
+
+  @Test
+  void getOutgoingEdgesViewOfReflectsAddedEdgesAndIsUnmodifiable() {
+    Graph sut = new DummyGraph();
+    Vertex from = new DummyVertex();
+    Edge edge = new DummyEdge(from, new DummyVertex());
+    sut.addEdge(edge);
+    List<Edge> view = sut.getOutgoingEdgesViewOf(from);
+    assertEquals(List.of(edge), view);
+    assertThrows(UnsupportedOperationException.class, () -> view.add(edge));
+  }
+
   @Test
   void testIfVertexIsInGraphWithNullVertexThrowsException() {
     Graph sut = new DummyGraph();
@@ -222,4 +254,27 @@ class GraphTest {
     g.removeVertex(v1);
     assertEquals(List.of(v2), g.getVertices());
   }
+
+  @Test
+  void indexedGraphIsKeptWhileGraphIsUnchanged() {
+    Graph sut = new DummyGraph();
+    sut.addEdge(new DummyEdge());
+    IndexedGraph indexed = sut.getIndexedGraph();
+    sut.addVertex(sut.getVertices().get(0));
+    assertSame(indexed, sut.getIndexedGraph());
+  }
+
+  @Test
+  void indexedGraphIsRebuiltWhenGraphChanges() {
+    Graph sut = new DummyGraph();
+    Edge edge = new DummyEdge();
+    sut.addEdge(edge);
+    assertEquals(1, sut.getIndexedGraph().getEdgeCount());
+    sut.removeEdge(edge);
+    assertEquals(0, sut.getIndexedGraph().getEdgeCount());
+    sut.addVertex(new DummyVertex());
+    assertEquals(3, sut.getIndexedGraph().getVertexCount());
+    sut.removeVertex(edge.getTo());
+    assertEquals(2, sut.getIndexedGraph().getVertexCount());
+  }
 }
@@ -2,6 +2,7 @@ package dev.moriamap.model.network;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.LocalTime;
 import java.util.NoSuchElementException;
 import org.junit.jupiter.api.Test;
 
@@ -153,4 +154,26 @@ class LineTest {
     sut.addVariant(v2);
     assertEquals(v1, sut.getVariantNamed(name));
   }
+
+  @Test
+  void getVariantNamedReturnsTheFirstVariantOfThatName() {
+    var sut = Line.of("8");
+    var v1 = Variant.empty("same", "8");
+    var v2 = Variant.empty("same", "8");
+    v2.addDeparture(LocalTime.NOON);
+    assertTrue(sut.addVariant(v1));
+    assertTrue(sut.addVariant(v2));
+    assertSame(v1, sut.getVariantNamed("same"));
+    assertTrue(sut.containsVariant(v2));
+    assertFalse(sut.addVariant(Variant.empty("same", "8")));
+  }
+
+  @Test
+  void frozenCopyFindsVariantsByName() {
+    var sut = Line.of("8");
+    sut.addVariant(Variant.empty("1", "8"));
+    Line frozen = sut.frozenCopy();
+    assertTrue(frozen.getVariantNamed("1").isFrozen());
+    assertTrue(frozen.containsVariant(Variant.empty("1", "8")));
+  }
 }
@@ -0,0 +1,181 @@
+package dev.moriamap.model.network;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class OverlayGraphTest {
+  private static class DummyGraph extends Graph {}
+
+  private static class DummyVertex implements Vertex {}
+
+  private static class DummyEdge extends Edge {
+    public DummyEdge(Vertex from, Vertex to) {
+      super(from, to);
+    }
+  }
+
+  private final Vertex a = new DummyVertex();
+  private final Vertex b = new DummyVertex();
+  private final Vertex c = new DummyVertex();
+  private final Vertex d = new DummyVertex();
+  private final Edge ab = new DummyEdge(a, b);
+  private final Edge ac = new DummyEdge(a, c);
+  private final Edge ba = new DummyEdge(b, a);
+  private final Edge ad = new DummyEdge(a, d);
+  private final Edge da = new DummyEdge(d, a);
+  private final Edge cd = new DummyEdge(c, d);
+
+  private Graph base() {
+    Graph graph = new DummyGraph();
+    graph.addEdge(ab);
+    graph.addEdge(ac);
+    graph.addEdge(ba);
+    return graph;
+  }
+
+  // Returns the edges of vertex in graph by id
+  private static List<Edge> outgoingEdges(IndexedGraph graph, Vertex vertex) {
+    int id = graph.getVertexId(vertex);
+    List<Edge> edges = new ArrayList<>();
+    for (int e = graph.getFirstOutgoingEdge(id); e < graph.getOutgoingEdgesEnd(id); e++) {
+      assertEquals(id, graph.getEdgeSource(e));
+      assertSame(graph.getEdge(e).getTo(), graph.getVertex(graph.getEdgeTarget(e)));
+      edges.add(graph.getEdge(e));
+    }
+    return edges;
+  }
+
+  @Test
+  void overNullGraphThrowsException() {
+    assertThrows(NullPointerException.class, () -> OverlayGraph.over(null));
+  }
+
+  @Test
+  void newOverlayHasTheVerticesAndEdgesOfItsBase() {
+    Graph base = base();
+    OverlayGraph overlay = OverlayGraph.over(base);
+    assertSame(base, overlay.getBase());
+    assertEquals(Set.copyOf(base.getVertices()), Set.copyOf(overlay.getVertices()));
+    assertEquals(Set.copyOf(base.getEdges()), Set.copyOf(overlay.getEdges()));
+    assertEquals(List.of(ab, ac), overlay.getOutgoingEdgesViewOf(a));
+    assertTrue(overlay.contains(c));
+  }
+
+  @Test
+  void addedVerticesAndEdgesAreReadWithThoseOfTheBase() {
+    OverlayGraph overlay = OverlayGraph.over(base());
+    overlay.addEdge(ad);
+    overlay.addEdge(da);
+    overlay.addEdge(cd);
+    assertEquals(4, overlay.getVertices().size());
+    assertEquals(6, overlay.getEdges().size());
+    assertEquals(List.of(ab, ac, ad), overlay.getOutgoingEdgesOf(a));
+    assertEquals(List.of(ab, ac, ad), overlay.getOutgoingEdgesViewOf(a));
+    assertEquals(List.of(da), overlay.getOutgoingEdgesViewOf(d));
+    assertEquals(List.of(ba), overlay.getOutgoingEdgesViewOf(b));
+    assertTrue(overlay.contains(d));
+  }
+
+  @Test
+  void addingToOverlayDoesNotChangeBase() {
+    Graph base = base();
+    IndexedGraph indexedBase = base.getIndexedGraph();
+    OverlayGraph overlay = OverlayGraph.over(base);
+    overlay.addVertex(d);
+    overlay.addEdge(ad);
+    assertFalse(base.contains(d));
+    assertEquals(List.of(ab, ac), base.getOutgoingEdgesViewOf(a));
+    assertEquals(3, base.getEdges().size());
+    assertSame(indexedBase, base.getIndexedGraph());
+  }
+
+  @Test
+  void edgeOfTheBaseIsNotAddedAgain() {
+    OverlayGraph overlay = OverlayGraph.over(base());
+    overlay.addEdge(ab);
+    assertEquals(List.of(ab, ac), overlay.getOutgoingEdgesViewOf(a));
+    assertEquals(3, overlay.getEdges().size());
+  }
+
+  @Test
+  void frozenOverlayCannotBeChanged() {
+    OverlayGraph overlay = OverlayGraph.over(base());
+    overlay.addEdge(ad);
+    IndexedGraph indexed = overlay.getIndexedGraph();
+    overlay.freeze();
+    assertTrue(overlay.isFrozen());
+    assertThrows(UnsupportedOperationException.class, () -> overlay.addVertex(d));
+    assertThrows(UnsupportedOperationException.class, () -> overlay.addEdge(cd));
+    assertThrows(UnsupportedOperationException.class, () -> overlay.addEdge(ab));
+    assertThrows(UnsupportedOperationException.class, () -> overlay.removeEdge(ad));
+    assertEquals(List.of(ab, ac, ad), overlay.getOutgoingEdgesViewOf(a));
+    assertSame(indexed, overlay.getIndexedGraph());
+    assertFalse(OverlayGraph.over(base()).isFrozen());
+  }
+
+  @Test
+  void outgoingEdgesOfAbsentVertexThrowsException() {
+    OverlayGraph overlay = OverlayGraph.over(base());
+    assertThrows(NoSuchElementException.class, () -> overlay.getOutgoingEdgesViewOf(d));
+  }
+
+  @Test
+  void indexedOverlayExtendsIndexedBase() {
+    Graph base = base();
+    IndexedGraph indexedBase = base.getIndexedGraph();
+    OverlayGraph overlay = OverlayGraph.over(base);
+    overlay.addEdge(ad);
+    overlay.addEdge(da);
+    overlay.addEdge(cd);
+    IndexedGraph sut = overlay.getIndexedGraph();
+
+    assertSame(indexedBase, sut.getBaseGraph());
+    assertEquals(4, sut.getVertexCount());
+    assertEquals(indexedBase.getVertexCount(), sut.getVertexId(d));
+    for (int v = 0; v < indexedBase.getVertexCount(); v++)
+      assertSame(indexedBase.getVertex(v), sut.getVertex(v));
+    for (int e = 0; e < indexedBase.getEdgeCount(); e++)
+      assertSame(indexedBase.getEdge(e), sut.getEdge(e));
+
+    assertEquals(List.of(ab, ac, ad), outgoingEdges(sut, a));
+    assertEquals(List.of(ba), outgoingEdges(sut, b));
+    assertEquals(List.of(cd), outgoingEdges(sut, c));
+    assertEquals(List.of(da), outgoingEdges(sut, d));
+    assertEquals(-1, sut.getVertexId(new DummyVertex()));
+  }
+
+  @Test
+  void indexedOverlayCoversEveryEdgeOnce() {
+    OverlayGraph overlay = OverlayGraph.over(base());
+    overlay.addEdge(ad);
+    overlay.addEdge(cd);
+    IndexedGraph sut = overlay.getIndexedGraph();
+    Set<Edge> reached = new HashSet<>();
+    for (int v = 0; v < sut.getVertexCount(); v++)
+      reached.addAll(outgoingEdges(sut, sut.getVertex(v)));
+    assertEquals(Set.copyOf(overlay.getEdges()), reached);
+  }
+
+  @Test
+  void indexedOverlayIsRebuiltAfterAddition() {
+    OverlayGraph overlay = OverlayGraph.over(base());
+    IndexedGraph first = overlay.getIndexedGraph();
+    assertSame(first, overlay.getIndexedGraph());
+    overlay.addEdge(ad);
+    IndexedGraph second = overlay.getIndexedGraph();
+    assertNotSame(first, second);
+    assertEquals(List.of(ab, ac, ad), outgoingEdges(second, a));
+  }
+
+  @Test
+  void indexedGraphIsItsOwnBase() {
+    Graph base = base();
+    assertSame(base.getIndexedGraph(), base.getIndexedGraph().getBaseGraph());
+  }
+}
@@ -0,0 +1,80 @@
+package dev.moriamap.model.network;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalTime;
+import org.junit.jupiter.api.Test;
+
+class ServiceTimeTest {
+
+  @Test
+  void toSecondsTruncatesFractionOfSecond() {
+    assertEquals(3661, ServiceTime.toSeconds(LocalTime.of(1, 1, 1, 500)));
+  }
+
+  @Test
+  void toSecondsRoundedUp() {
+    assertEquals(3662, ServiceTime.toSecondsRoundedUp(LocalTime.of(1, 1, 1, 500)));
+    assertEquals(3661, ServiceTime.toSecondsRoundedUp(LocalTime.of(1, 1, 1)));
+  }
+
+  @Test
+  void toLocalTimeWrapsAroundMidnight() {
+    assertEquals(LocalTime.of(0, 1), ServiceTime.toLocalTime(ServiceTime.SECONDS_PER_DAY + 60));
+    assertEquals(LocalTime.of(23, 59), ServiceTime.toLocalTime(-60));
+  }
+
+  @Test
+  void nextOccurrenceOfEmptyTimesIsMinusOne() {
+    assertEquals(-1, ServiceTime.nextOccurrence(new int[0], 100));
+  }
+
+  @Test
+  void nextOccurrenceOnTheSameDay() {
+    int[] times = {100, 200, 300};
+    assertEquals(100, ServiceTime.nextOccurrence(times, 0));
+    assertEquals(200, ServiceTime.nextOccurrence(times, 200));
+    assertEquals(300, ServiceTime.nextOccurrence(times, 201));
+  }
+
+  @Test
+  void nextOccurrenceOnTheNextDay() {
+    int[] times = {100, 200, 300};
+    assertEquals(ServiceTime.SECONDS_PER_DAY + 100, ServiceTime.nextOccurrence(times, 301));
+    int day2 = 2 * ServiceTime.SECONDS_PER_DAY;
+    assertEquals(day2 + 200, ServiceTime.nextOccurrence(times, day2 + 150));
+  }
+
+  @Test
+  void nextOccurrenceOfTimesPastMidnight() {
+    int day = ServiceTime.SECONDS_PER_DAY;
+    int[] times = {day - 100, day + 100};
+    // The time day + 100 of the previous day occurs at 100
+    assertEquals(100, ServiceTime.nextOccurrence(times, 50));
+    assertEquals(day - 100, ServiceTime.nextOccurrence(times, 150));
+  }
+
+  @Test
+  void firstIndexNotBefore() {
+    int[] sorted = {1, 3, 3, 5};
+    assertEquals(0, ServiceTime.firstIndexNotBefore(sorted, 0));
+    assertEquals(1, ServiceTime.firstIndexNotBefore(sorted, 3));
+    assertEquals(3, ServiceTime.firstIndexNotBefore(sorted, 4));
+    assertEquals(4, ServiceTime.firstIndexNotBefore(sorted, 6));
+  }
+
+  @Test
+  void nextOccurrenceInRange() {
+    int[] times = {500, 100, 200, 300, 0};
+    assertEquals(200, ServiceTime.nextOccurrence(times, 1, 4, 150));
+    assertEquals(ServiceTime.SECONDS_PER_DAY + 100, ServiceTime.nextOccurrence(times, 1, 4, 301));
+    assertEquals(-1, ServiceTime.nextOccurrence(times, 2, 2, 0));
+  }
+
+  @Test
+  void firstIndexNotBeforeInRange() {
+    int[] sorted = {9, 1, 3, 5, 0};
+    assertEquals(2, ServiceTime.firstIndexNotBefore(sorted, 1, 4, 2));
+    assertEquals(4, ServiceTime.firstIndexNotBefore(sorted, 1, 4, 6));
+  }
+}
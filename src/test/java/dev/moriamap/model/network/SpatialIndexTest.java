@@ -0,0 +1,93 @@
+package dev.moriamap.model.network;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SpatialIndexTest {
+
+  private final Stop s1 = Stop.from("s1", GeographicPosition.at(48.8500, 2.3000));
+  private final Stop s2 = Stop.from("s2", GeographicPosition.at(48.8510, 2.3000));
+  private final Stop s3 = Stop.from("s3", GeographicPosition.at(48.8500, 2.3020));
+  private final Stop s4 = Stop.from("s4", GeographicPosition.at(48.9500, 2.3000));
+
+  // Returns vertices within radius of position, by increasing distance, computed one by one
+  private static List<GeographicVertex> bruteForce(
+      List<GeographicVertex> vertices, GeographicPosition position, int k, double radius) {
+    List<GeographicVertex> res = new ArrayList<>();
+    for (GeographicVertex v : vertices)
+      if (v.getGeographicPosition().distanceFrom(position) <= radius) res.add(v);
+    res.sort(Comparator.comparingDouble(v -> v.getGeographicPosition().distanceFrom(position)));
+    return res.subList(0, Math.min(k, res.size()));
+  }
+
+  @Test
+  void ofNullThrowsException() {
+    assertThrows(NullPointerException.class, () -> SpatialIndex.of(null));
+  }
+
+  @Test
+  void emptyIndexFindsNothing() {
+    SpatialIndex sut = SpatialIndex.of(List.of());
+    assertEquals(0, sut.size());
+    assertTrue(sut.getNearest(s1.getGeographicPosition(), 3, Double.POSITIVE_INFINITY).isEmpty());
+    assertTrue(sut.getAt(s1.getGeographicPosition()).isEmpty());
+  }
+
+  @Test
+  void invalidArgumentsThrowException() {
+    SpatialIndex sut = SpatialIndex.of(List.of(s1));
+    GeographicPosition position = s1.getGeographicPosition();
+    assertThrows(IllegalArgumentException.class, () -> sut.getNearest(position, -1, 10));
+    assertThrows(IllegalArgumentException.class, () -> sut.getNearest(position, 1, -1));
+    assertThrows(IllegalArgumentException.class, () -> sut.getWithinRadius(position, Double.NaN));
+    assertThrows(NullPointerException.class, () -> sut.getAt(null));
+  }
+
+  @Test
+  void nearestAreSortedByDistance() {
+    SpatialIndex sut = SpatialIndex.of(List.of(s4, s3, s2, s1));
+    GeographicPosition position = GeographicPosition.at(48.8501, 2.3001);
+    assertEquals(List.of(s1, s2), sut.getNearest(position, 2, Double.POSITIVE_INFINITY));
+    assertEquals(List.of(s1, s2, s3), sut.getWithinRadius(position, 1000));
+    assertEquals(List.of(s1, s2, s3, s4), sut.getNearest(position, 10, Double.POSITIVE_INFINITY));
+    assertTrue(sut.getNearest(position, 0, Double.POSITIVE_INFINITY).isEmpty());
+  }
+
+  @Test
+  void verticesAtTheSamePositionAreAllFound() {
+    Stop twin = Stop.from("twin", s2.getGeographicPosition());
+    SpatialIndex sut = SpatialIndex.of(List.of(s1, s2, s3, twin));
+    assertEquals(List.of(s2, twin), sut.getAt(s2.getGeographicPosition()));
+    assertEquals(List.of(s1, s2, twin), sut.getWithinRadius(s1.getGeographicPosition(), 120));
+    assertTrue(sut.getAt(GeographicPosition.NULL_ISLAND).isEmpty());
+  }
+
+  @Test
+  void searchesAreTheSameAsComparingEveryVertex() {
+    Random random = new Random(11);
+    List<GeographicVertex> vertices = new ArrayList<>();
+    for (int i = 0; i < 500; i++)
+      vertices.add(
+          GeographicVertex.at(48.8 + random.nextDouble() * 0.1, 2.25 + random.nextDouble() * 0.15));
+    SpatialIndex sut = SpatialIndex.of(vertices);
+    for (int i = 0; i < 100; i++) {
+      GeographicPosition position =
+          GeographicPosition.at(
+              48.78 + random.nextDouble() * 0.14, 2.2 + random.nextDouble() * 0.25);
+      int k = 1 + random.nextInt(8);
+      double radius =
+          random.nextInt(3) == 0 ? Double.POSITIVE_INFINITY : random.nextDouble() * 2000;
+      assertEquals(bruteForce(vertices, position, k, radius), sut.getNearest(position, k, radius));
+      assertEquals(
+          bruteForce(vertices, position, Integer.MAX_VALUE, radius / 2),
+          sut.getWithinRadius(position, radius / 2));
+    }
+    for (GeographicVertex vertex : vertices)
+      assertEquals(List.of(vertex), sut.getAt(vertex.getGeographicPosition()));
+  }
+}
@@ -0,0 +1,76 @@
+package dev.moriamap.model.network;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class StopNameFinderTest {
+
+  // Computes the Levenshtein distance with the whole matrix of the Wagner-Fisher algorithm
+  private static int fullMatrixDistance(String x, String y) {
+    int[][] dp = new int[x.length() + 1][y.length() + 1];
+    for (int i = 0; i <= x.length(); i++) dp[i][0] = i;
+    for (int j = 0; j <= y.length(); j++) dp[0][j] = j;
+    for (int i = 1; i <= x.length(); i++) {
+      for (int j = 1; j <= y.length(); j++) {
+        int cost = x.charAt(i - 1) == y.charAt(j - 1) ? 0 : 1;
+        dp[i][j] = Math.min(dp[i - 1][j - 1] + cost, Math.min(dp[i - 1][j], dp[i][j - 1]) + 1);
+      }
+    }
+    return dp[x.length()][y.length()];
+  }
+
+  private static String randomString(Random random) {
+    char[] chars = new char[random.nextInt(12)];
+    for (int i = 0; i < chars.length; i++) chars[i] = (char) ('a' + random.nextInt(4));
+    return new String(chars);
+  }
+
+  @Test
+  void levenshteinDistanceOfKnownPairs() {
+    assertEquals(3, StopNameFinder.levenshteinDistance("kitten", "sitting"));
+    assertEquals(0, StopNameFinder.levenshteinDistance("Hoche", "Hoche"));
+    assertEquals(5, StopNameFinder.levenshteinDistance("", "Hoche"));
+    assertEquals(5, StopNameFinder.levenshteinDistance("Hoche", ""));
+  }
+
+  @Test
+  void levenshteinDistanceAtMostOfKnownPairs() {
+    assertEquals(3, StopNameFinder.levenshteinDistanceAtMost("kitten", "sitting", 3));
+    assertEquals(3, StopNameFinder.levenshteinDistanceAtMost("kitten", "sitting", 2));
+    assertEquals(1, StopNameFinder.levenshteinDistanceAtMost("kitten", "sitting", 0));
+    assertEquals(0, StopNameFinder.levenshteinDistanceAtMost("Hoche", "Hoche", 0));
+    assertEquals(3, StopNameFinder.levenshteinDistanceAtMost("Hoche", "Pyramides", 2));
+  }
+
+  @Test
+  void levenshteinDistanceAtMostWithHugeLimit() {
+    assertEquals(
+        3, StopNameFinder.levenshteinDistanceAtMost("kitten", "sitting", Integer.MAX_VALUE));
+  }
+
+  @Test
+  void levenshteinDistanceAtMostWithNegativeLimit() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> StopNameFinder.levenshteinDistanceAtMost("kitten", "sitting", -1));
+  }
+
+  @Test
+  void distancesMatchTheFullMatrixOnRandomStrings() {
+    Random random = new Random(18);
+    for (int n = 0; n < 5000; n++) {
+      String x = randomString(random);
+      String y = randomString(random);
+      int expected = fullMatrixDistance(x, y);
+      assertEquals(expected, StopNameFinder.levenshteinDistance(x, y), x + " " + y);
+      for (int k = 0; k <= 12; k++) {
+        assertEquals(
+            Math.min(expected, k + 1),
+            StopNameFinder.levenshteinDistanceAtMost(x, y, k),
+            x + " " + y + " " + k);
+      }
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package dev.moriamap.model.network;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class StopNameIndexTest {
+
+  private static List<Stop> stopsHelper(String... names) {
+    List<Stop> stops = new ArrayList<>();
+    for (String name : names) stops.add(Stop.from(name, GeographicPosition.SOUTH_POLE));
+    return stops;
+  }
+
+  // Returns the stops sorted like the results of a StopNameIndex, by computing every distance
+  private static List<Stop> bruteForce(List<Stop> stops, String name, int k, int maxDistance) {
+    String normalized = StopNameIndex.normalize(name);
+    List<Integer> indices = new ArrayList<>();
+    for (int i = 0; i < stops.size(); i++) {
+      String other = StopNameIndex.normalize(stops.get(i).getName());
+      if (StopNameFinder.levenshteinDistance(normalized, other) <= maxDistance) indices.add(i);
+    }
+    indices.sort(
+        Comparator.<Integer>comparingInt(
+                i ->
+                    StopNameFinder.levenshteinDistance(
+                        normalized, StopNameIndex.normalize(stops.get(i).getName())))
+            .thenComparingInt(i -> StopNameFinder.levenshteinDistance(name, stops.get(i).getName()))
+            .thenComparingInt(i -> i));
+    return indices.stream().limit(k).map(stops::get).toList();
+  }
+
+  @Test
+  void normalizeRemovesCaseAndAccents() {
+    assertEquals("chatelet", StopNameIndex.normalize("Châtelet"));
+    assertEquals("gare de l'est", StopNameIndex.normalize("GARE DE L'EST"));
+    assertEquals("eglise d'auteuil", StopNameIndex.normalize("Église d'Auteuil"));
+  }
+
+  @Test
+  void nameWrittenWithoutAccentsIsFirst() {
+    List<Stop> stops = stopsHelper("Chatou", "Châtelet", "Château Rouge", "Chatelet");
+    StopNameIndex index = StopNameIndex.of(stops);
+    assertEquals(List.of(stops.get(3), stops.get(1)), index.getNearest("chatelet", 2));
+    assertEquals(List.of(stops.get(1), stops.get(3)), index.getNearest("Châtelet", 2));
+  }
+
+  @Test
+  void maxDistanceLimitsResults() {
+    List<Stop> stops = stopsHelper("Hoche", "Pyramides", "Lourmel");
+    StopNameIndex index = StopNameIndex.of(stops);
+    assertEquals(List.of(stops.get(0)), index.getNearest("hochet", 5, 2));
+    assertEquals(List.of(), index.getNearest("Chatelet-les-halles", 5, 2));
+  }
+
+  @Test
+  void emptyIndexReturnsNothing() {
+    StopNameIndex index = StopNameIndex.of(List.of());
+    assertEquals(0, index.size());
+    assertEquals(List.of(), index.getNearest("a", 3));
+  }
+
+  @Test
+  void invalidArgumentsThrowException() {
+    StopNameIndex index = StopNameIndex.of(stopsHelper("a"));
+    assertThrows(NullPointerException.class, () -> index.getNearest(null, 1));
+    assertThrows(IllegalArgumentException.class, () -> index.getNearest("a", -1));
+    assertThrows(IllegalArgumentException.class, () -> index.getNearest("a", 1, -1));
+    assertEquals(List.of(), index.getNearest("a", 0));
+  }
+
+  @Test
+  void nearestAreTheSameAsComparingEveryName() {
+    Random random = new Random(17);
+    String alphabet = "abcAÉé -";
+    List<String> names = new ArrayList<>();
+    // The search compares every name when there are at most MAX_COMPARED_NAMES of them
+    for (int i = 0; i < StopNameIndex.MAX_COMPARED_NAMES; i++) {
+      StringBuilder name = new StringBuilder();
+      for (int j = random.nextInt(8); j >= 0; j--)
+        name.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      names.add(name.toString());
+    }
+    List<Stop> stops = stopsHelper(names.stream().distinct().toArray(String[]::new));
+    StopNameIndex index = StopNameIndex.of(stops);
+    for (int i = 0; i < 200; i++) {
+      String name = names.get(random.nextInt(names.size())) + (i % 2 == 0 ? "b" : "");
+      int k = 1 + random.nextInt(10);
+      int maxDistance = i % 3 == 0 ? 2 : Integer.MAX_VALUE;
+      assertEquals(bruteForce(stops, name, k, maxDistance), index.getNearest(name, k, maxDistance));
+    }
+  }
+
+  @Test
+  void misspelledNamesAreFoundAmongManyNames() {
+    Random random = new Random(23);
+    String[] words = {
+      "Porte",
+      "de",
+      "la",
+      "Gare",
+      "Saint",
+      "Nord",
+      "Place",
+      "Rue",
+      "Pont",
+      "Marie",
+      "Louis",
+      "Victor",
+      "Hugo",
+      "Étoile",
+      "Bastille",
+      "Nation",
+      "Opéra",
+      "Passy",
+      "Michel",
+      "Lazare",
+      "Mairie",
+      "Lilas",
+      "Château",
+      "Rouge",
+      "École",
+      "Hôpital",
+      "Marché",
+      "Église",
+      "Moulin",
+      "Bois"
+    };
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < 20 * StopNameIndex.MAX_COMPARED_NAMES; i++) {
+      StringBuilder name = new StringBuilder(words[random.nextInt(words.length)]);
+      for (int j = random.nextInt(3); j >= 0; j--)
+        name.append(' ').append(words[random.nextInt(words.length)]);
+      // Some names are too long for the bit-parallel distance
+      if (i % 50 == 0) name.append(" - ").append(name).append(" - ").append(name);
+      names.add(name.append(' ').append(i).toString());
+    }
+    List<Stop> stops = stopsHelper(names.toArray(String[]::new));
+    StopNameIndex index = StopNameIndex.of(stops);
+    for (int i = 0; i < 100; i++) {
+      char[] name = names.get(random.nextInt(names.size())).toCharArray();
+      for (int typos = i % 3; typos > 0; typos--)
+        name[random.nextInt(name.length)] = (char) ('a' + random.nextInt(26));
+      String misspelled = new String(name);
+      assertEquals(
+          bruteForce(stops, misspelled, 5, 2), index.getNearest(misspelled, 5, 2), misspelled);
+      assertEquals(
+          bruteForce(stops, misspelled, 1, Integer.MAX_VALUE),
+          index.getNearest(misspelled, 1),
+          misspelled);
+    }
+  }
+}
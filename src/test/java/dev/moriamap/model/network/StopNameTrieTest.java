@@ -0,0 +1,107 @@
+package dev.moriamap.model.network;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class StopNameTrieTest {
+
+  private static List<Stop> stopsHelper(String... names) {
+    List<Stop> stops = new ArrayList<>();
+    for (String name : names) stops.add(Stop.from(name, GeographicPosition.SOUTH_POLE));
+    return stops;
+  }
+
+  // Returns the completions of prefix like a StopNameTrie, by looking at every name
+  private static List<Stop> bruteForce(
+      List<Stop> stops, String prefix, int n, Comparator<Stop> ranking) {
+    String normalized = StopNameIndex.normalize(prefix);
+    List<Stop> res = new ArrayList<>();
+    for (Stop stop : stops) {
+      if (StopNameIndex.normalize(stop.getName()).startsWith(normalized)) res.add(stop);
+    }
+    // List.sort is stable, so equally ranked stops stay in the order of stops
+    res.sort(ranking);
+    return res.stream().limit(n).toList();
+  }
+
+  @Test
+  void completionsIgnoreCaseAndAccents() {
+    List<Stop> stops = stopsHelper("Châtelet", "Chatou", "Château Rouge", "Nation");
+    StopNameTrie trie = StopNameTrie.of(stops);
+    assertEquals(List.of(stops.get(1), stops.get(0), stops.get(2)), trie.getCompletions("CHA", 5));
+    assertEquals(List.of(stops.get(0), stops.get(2)), trie.getCompletions("châte", 5));
+    assertEquals(List.of(stops.get(1)), trie.getCompletions("chat", 1));
+  }
+
+  @Test
+  void unknownPrefixHasNoCompletions() {
+    StopNameTrie trie = StopNameTrie.of(stopsHelper("Châtelet", "Chatou"));
+    assertEquals(List.of(), trie.getCompletions("Chatr", 5));
+    assertEquals(List.of(), trie.getCompletions("Châtelet-les-Halles", 5));
+  }
+
+  @Test
+  void emptyPrefixCompletesEveryName() {
+    List<Stop> stops = stopsHelper("Lourmel", "Hoche", "Pyramides");
+    StopNameTrie trie = StopNameTrie.of(stops);
+    assertEquals(List.of(stops.get(1), stops.get(0), stops.get(2)), trie.getCompletions("", 5));
+  }
+
+  @Test
+  void rankingOrdersCompletions() {
+    List<Stop> stops = stopsHelper("Nation", "Nationale", "Nation Nord");
+    StopNameTrie trie =
+        StopNameTrie.of(stops, Comparator.comparing(Stop::getName, Comparator.reverseOrder()));
+    assertEquals(
+        List.of(stops.get(1), stops.get(2), stops.get(0)), trie.getCompletions("nation", 3));
+  }
+
+  @Test
+  void emptyTrieHasNoCompletions() {
+    StopNameTrie trie = StopNameTrie.of(List.of());
+    assertEquals(0, trie.size());
+    assertEquals(List.of(), trie.getCompletions("", 3));
+  }
+
+  @Test
+  void invalidArgumentsThrowException() {
+    StopNameTrie trie = StopNameTrie.of(stopsHelper("a"));
+    assertThrows(NullPointerException.class, () -> trie.getCompletions(null, 1));
+    assertThrows(IllegalArgumentException.class, () -> trie.getCompletions("a", -1));
+    assertThrows(NullPointerException.class, () -> StopNameTrie.of(stopsHelper("a"), null));
+    assertEquals(List.of(), trie.getCompletions("a", 0));
+  }
+
+  @Test
+  void completionsAreTheSameAsLookingAtEveryName() {
+    Random random = new Random(19);
+    String alphabet = "abAÉé -";
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      StringBuilder name = new StringBuilder();
+      for (int j = random.nextInt(8); j >= 0; j--)
+        name.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      names.add(name.toString());
+    }
+    List<Stop> stops = stopsHelper(names.toArray(String[]::new));
+    Comparator<Stop> byLastChar =
+        Comparator.comparingInt((Stop stop) -> stop.getName().charAt(stop.getName().length() - 1));
+    StopNameTrie shortestFirst = StopNameTrie.of(stops);
+    StopNameTrie lastCharFirst = StopNameTrie.of(stops, byLastChar);
+    for (int i = 0; i < 300; i++) {
+      String name = names.get(random.nextInt(names.size()));
+      String prefix = name.substring(0, random.nextInt(name.length() + 1));
+      int n = 1 + random.nextInt(20);
+      assertEquals(
+          bruteForce(stops, prefix, n, StopNameTrie.SHORTEST_FIRST),
+          shortestFirst.getCompletions(prefix, n));
+      assertEquals(
+          bruteForce(stops, prefix, n, byLastChar), lastCharFirst.getCompletions(prefix, n));
+    }
+  }
+}
@@ -0,0 +1,216 @@
+package dev.moriamap.model.network;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class StopTimetableIndexTest {
+
+  private final Stop s1 = Stop.from("s1", GeographicPosition.at(48.0, 2.0));
+  private final Stop s2 = Stop.from("s2", GeographicPosition.at(48.1, 2.0));
+  private final Stop s3 = Stop.from("s3", GeographicPosition.at(48.2, 2.0));
+
+  private TransportNetwork newTransportNetworkHelper(LocalTime... departures) {
+    TransportSegment ts1 = TransportSegment.from(s1, s2, "A", "1", Duration.ofMinutes(3), 4);
+    TransportSegment ts2 = TransportSegment.from(s2, s3, "A", "1", Duration.ofMinutes(5), 4);
+    TransportSegment ts3 = TransportSegment.from(s3, s2, "A", "2", Duration.ofMinutes(5), 4);
+    Variant v1 = Variant.empty("1", "A");
+    v1.addTransportSegment(ts2);
+    v1.addTransportSegment(ts1);
+    for (LocalTime departure : departures) v1.addDeparture(departure);
+    Variant v2 = Variant.empty("2", "A");
+    v2.addTransportSegment(ts3);
+    Line l = Line.of("A");
+    l.addVariant(v1);
+    l.addVariant(v2);
+
+    TransportNetwork tn = TransportNetwork.empty();
+    tn.addStop(s1);
+    tn.addStop(s2);
+    tn.addStop(s3);
+    tn.addTransportSegment(ts1);
+    tn.addTransportSegment(ts2);
+    tn.addTransportSegment(ts3);
+    tn.addLine(l);
+    return tn;
+  }
+
+  @Test
+  void ofNullThrowsException() {
+    assertThrows(NullPointerException.class, () -> StopTimetableIndex.of(null));
+  }
+
+  @Test
+  void variantWithoutDeparturesHasNoPassages() {
+    StopTimetableIndex index = StopTimetableIndex.of(newTransportNetworkHelper());
+    assertFalse(index.hasPassages(s3, "2", "A"));
+    assertNull(index.getNextTimeWithWrap(s3, LocalTime.NOON, "2", "A"));
+    assertNull(index.getWaitTimeWithWrap(s3, LocalTime.NOON, "2", "A"));
+  }
+
+  @Test
+  void lastStopOfVariantHasNoPassages() {
+    StopTimetableIndex index = StopTimetableIndex.of(newTransportNetworkHelper(LocalTime.NOON));
+    assertTrue(index.hasPassages(s2, "1", "A"));
+    assertFalse(index.hasPassages(s3, "1", "A"));
+    assertTrue(index.getTransportSchedules(s3).isEmpty());
+  }
+
+  @Test
+  void nextTimeWrapsAroundMidnight() {
+    StopTimetableIndex index =
+        StopTimetableIndex.of(newTransportNetworkHelper(LocalTime.of(8, 0), LocalTime.of(23, 58)));
+    assertEquals(LocalTime.of(8, 3), index.getNextTimeWithWrap(s2, LocalTime.of(8, 3), "1", "A"));
+    assertEquals(LocalTime.of(0, 1), index.getNextTimeWithWrap(s2, LocalTime.of(8, 4), "1", "A"));
+    assertEquals(LocalTime.of(0, 1), index.getNextTimeWithWrap(s2, LocalTime.MIN, "1", "A"));
+    assertEquals(
+        Duration.ofMinutes(2), index.getWaitTimeWithWrap(s1, LocalTime.of(23, 56), "1", "A"));
+    assertEquals(
+        Duration.ofHours(8).minusMinutes(1),
+        index.getWaitTimeWithWrap(s1, LocalTime.of(0, 1), "1", "A"));
+  }
+
+  @Test
+  void transportSchedulesAreTheSameAsBefore() {
+    TransportNetwork tn = newTransportNetworkHelper(LocalTime.of(23, 58), LocalTime.MAX);
+    StopTimetableIndex index = StopTimetableIndex.of(tn);
+    Variant v1 = tn.getLines().get(0).getVariants().get(0);
+    assertEquals(
+        List.of(
+            new TransportSchedule(LocalTime.of(0, 1), s2, v1),
+            new TransportSchedule(LocalTime.MAX.plusMinutes(3), s2, v1)),
+        index.getTransportSchedules(s2));
+  }
+
+  @Test
+  void nextTimeIsTheSameAsPassages() {
+    Random random = new Random(42);
+    for (int n = 0; n < 20; n++) {
+      LocalTime[] departures = new LocalTime[1 + random.nextInt(5)];
+      for (int i = 0; i < departures.length; i++)
+        departures[i] = LocalTime.ofNanoOfDay(random.nextLong(86_400_000_000_000L));
+      departures[0] = departures[0].withNano(0);
+      TransportNetwork tn = newTransportNetworkHelper(departures);
+      StopTimetableIndex index = StopTimetableIndex.of(tn);
+      for (Stop stop : List.of(s1, s2)) {
+        Passages passages =
+            Passages.of(
+                tn.getVariants().stream()
+                    .filter(v -> v.getName().equals("1"))
+                    .flatMap(
+                        v ->
+                            v.getDepartures().stream()
+                                .map(
+                                    d ->
+                                        new TransportSchedule(
+                                            d.plus(v.getTravelTimeTo(stop)), stop, v)))
+                    .toList());
+        for (int i = 0; i < 50; i++) {
+          LocalTime waitStart = LocalTime.ofNanoOfDay(random.nextLong(86_400_000_000_000L));
+          if (i % 3 == 0) waitStart = waitStart.withNano(0);
+          if (i % 7 == 0) waitStart = passages.getTransportSchedules().get(0).time();
+          assertEquals(
+              passages.getNextTimeWithWrap(waitStart, "1", "A"),
+              index.getNextTimeWithWrap(stop, waitStart, "1", "A"));
+          assertEquals(
+              passages.getWaitTimeWithWrap(waitStart, "1", "A"),
+              index.getWaitTimeWithWrap(stop, waitStart, "1", "A"));
+        }
+      }
+    }
+  }
+
+  @Test
+  void passageInTheSameSecondAsWaitStartIsComparedExactly() {
+    LocalTime departure = LocalTime.of(10, 0, 0, 200);
+    StopTimetableIndex index =
+        StopTimetableIndex.of(newTransportNetworkHelper(departure, LocalTime.of(11, 0)));
+    assertEquals(departure, index.getNextTimeWithWrap(s1, LocalTime.of(10, 0, 0, 100), "1", "A"));
+    assertEquals(
+        LocalTime.of(11, 0), index.getNextTimeWithWrap(s1, LocalTime.of(10, 0, 0, 300), "1", "A"));
+  }
+
+  @Test
+  void passagesIdOfVariantNotLeavingStopIsMinusOne() {
+    StopTimetableIndex index = StopTimetableIndex.of(newTransportNetworkHelper(LocalTime.NOON));
+    assertEquals(-1, index.getPassagesId(s3, "1", "A"));
+    assertEquals(-1, index.getPassagesId(s1, "3", "A"));
+    assertEquals(3, index.getPassagesCount());
+  }
+
+  @Test
+  void passagesIdsOfAVariantFollowItsStops() {
+    TransportNetwork tn = newTransportNetworkHelper(LocalTime.NOON);
+    StopTimetableIndex index = tn.getStopTimetableIndex();
+    int v1 = tn.getVariantIndex().getVariantId("A", "1");
+    assertEquals(0, index.getPassagesId(s1, v1));
+    assertEquals(1, index.getPassagesId(s2, v1));
+    assertEquals(-1, index.getPassagesId(s3, v1));
+    assertEquals(-1, index.getPassagesId(s1, -1));
+    assertEquals(-1, index.getPassagesId(s1, 5));
+  }
+
+  @Test
+  void passagesIdOfSegmentIsThePassagesIdOfItsFirstStop() {
+    TransportNetwork tn = newTransportNetworkHelper(LocalTime.NOON);
+    StopTimetableIndex index = tn.getStopTimetableIndex();
+    for (TransportSegment ts : tn.getTransportSegments()) {
+      assertEquals(
+          index.getPassagesId((Stop) ts.getFrom(), ts.getVariantName(), ts.getLineName()),
+          index.getPassagesId(ts));
+      assertEquals(
+          index.hasPassages((Stop) ts.getFrom(), ts.getVariantName(), ts.getLineName()),
+          index.hasPassages(ts));
+    }
+    TransportSegment copy = TransportSegment.from(s1, s2, "A", "1", Duration.ofMinutes(3), 4);
+    assertEquals(index.getPassagesId(s1, "1", "A"), index.getPassagesId(copy));
+  }
+
+  @Test
+  void nextTimeOfPassagesIdIsTheNextTimeOfItsVariant() {
+    StopTimetableIndex index = StopTimetableIndex.of(newTransportNetworkHelper(LocalTime.NOON));
+    int passages = index.getPassagesId(s2, "1", "A");
+    assertEquals(LocalTime.of(12, 3), index.getNextTimeWithWrap(passages, LocalTime.of(11, 0)));
+    assertNull(index.getNextTimeWithWrap(-1, LocalTime.of(11, 0)));
+  }
+
+  @Test
+  void waitSecondsOfEmptyPassagesIsMinusOne() {
+    StopTimetableIndex index = StopTimetableIndex.of(newTransportNetworkHelper());
+    assertEquals(-1, index.getWaitSecondsWithWrap(index.getPassagesId(s3, "2", "A"), 0));
+  }
+
+  @Test
+  void waitSecondsOfInvalidIdThrowsException() {
+    StopTimetableIndex index = StopTimetableIndex.of(newTransportNetworkHelper());
+    assertThrows(IndexOutOfBoundsException.class, () -> index.getWaitSecondsWithWrap(-1, 0));
+  }
+
+  @Test
+  void waitSecondsIsTheSameAsWaitTime() {
+    Random random = new Random(7);
+    for (int n = 0; n < 20; n++) {
+      LocalTime[] departures = new LocalTime[1 + random.nextInt(5)];
+      for (int i = 0; i < departures.length; i++) {
+        departures[i] = LocalTime.ofNanoOfDay(random.nextLong(86_400_000_000_000L));
+        if (i % 2 == 0) departures[i] = departures[i].withNano(0);
+      }
+      StopTimetableIndex index = StopTimetableIndex.of(newTransportNetworkHelper(departures));
+      for (Stop stop : List.of(s1, s2)) {
+        int passages = index.getPassagesId(stop, "1", "A");
+        for (int i = 0; i < 50; i++) {
+          int waitStart = random.nextInt(3 * ServiceTime.SECONDS_PER_DAY);
+          if (i % 5 == 0)
+            waitStart = ServiceTime.toSecondsRoundedUp(departures[i % departures.length]);
+          Duration expected =
+              index.getWaitTimeWithWrap(stop, ServiceTime.toLocalTime(waitStart), "1", "A");
+          assertEquals(expected.toSeconds(), index.getWaitSecondsWithWrap(passages, waitStart));
+        }
+      }
+    }
+  }
+}
@@ -2,9 +2,11 @@ package dev.moriamap.model.network;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import dev.moriamap.model.network.traversal.DFSTraversalStrategy;
 import java.time.Duration;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
 import org.junit.jupiter.api.Test;
@@ -119,6 +121,77 @@ class TransportNetworkTest {
     assertEquals(expected, tn.getNearestStopsByInexactName("John", 2));
   }
 
+  @Test
+  void inexactNameIgnoresCaseAndAccents() {
+    TransportNetwork tn = TransportNetwork.empty();
+    Stop s1 = Stop.from("Châtelet", GeographicPosition.SOUTH_POLE);
+    Stop s2 = Stop.from("Chatou", GeographicPosition.SOUTH_POLE);
+    tn.addStop(s1);
+    tn.addStop(s2);
+    assertEquals(s1, tn.getStopByInexactName("CHATELET"));
+    assertEquals(List.of(s1, s2), tn.getNearestStopsByInexactName("chatelet", 5));
+  }
+
+  @Test
+  void stopsByNamePrefixAreShortestFirst() {
+    TransportNetwork tn = TransportNetwork.empty();
+    Stop s1 = Stop.from("Château Rouge", GeographicPosition.SOUTH_POLE);
+    Stop s2 = Stop.from("Châtelet", GeographicPosition.SOUTH_POLE);
+    Stop s3 = Stop.from("Nation", GeographicPosition.SOUTH_POLE);
+    tn.addStop(s1);
+    tn.addStop(s2);
+    tn.addStop(s3);
+    assertEquals(List.of(s2, s1), tn.getStopsByNamePrefix("chat", 5));
+    assertEquals(List.of(s2), tn.getStopsByNamePrefix("chat", 1));
+    assertEquals(List.of(), tn.getStopsByNamePrefix("chat", -1));
+    assertThrows(IllegalArgumentException.class, () -> tn.getStopsByNamePrefix(null, 1));
+  }
+
+  @Test
+  void versionGrowsWithEveryChange() {
+    TransportNetwork tn = TransportNetwork.empty();
+    Stop s1 = Stop.from("s1", GeographicPosition.SOUTH_POLE);
+    Stop s2 = Stop.from("s2", GeographicPosition.NORTH_POLE);
+    long version = tn.getVersion();
+    tn.addStop(s1);
+    tn.addStop(s2);
+    assertTrue(tn.getVersion() > version);
+    version = tn.getVersion();
+    Line line = Line.of("A");
+    Variant variant = Variant.empty("1", "A");
+    line.addVariant(variant);
+    tn.addLine(line);
+    assertTrue(tn.getVersion() > version);
+    version = tn.getVersion();
+    variant.addDeparture(LocalTime.NOON);
+    assertTrue(tn.getVersion() > version);
+    version = tn.getVersion();
+    variant.addTransportSegment(TransportSegment.from(s1, s2, "A", "1", Duration.ofMinutes(1), 1));
+    assertTrue(tn.getVersion() > version);
+    version = tn.getVersion();
+    line.addVariant(Variant.empty("2", "A"));
+    assertTrue(tn.getVersion() > version);
+    version = tn.getVersion();
+    assertFalse(variant.addDeparture(LocalTime.NOON));
+    assertEquals(version, tn.getVersion());
+  }
+
+  @Test
+  void changesOfALineInTwoNetworksChangeBoth() {
+    TransportNetwork tn1 = TransportNetwork.empty();
+    TransportNetwork tn2 = TransportNetwork.empty();
+    Line line = Line.of("A");
+    Variant variant = Variant.empty("1", "A");
+    line.addVariant(variant);
+    tn1.addLine(line);
+    tn2.addLine(line);
+    long version1 = tn1.getVersion();
+    long version2 = tn2.getVersion();
+    variant.addDeparture(LocalTime.NOON);
+    assertTrue(tn1.getVersion() > version1);
+    assertTrue(tn2.getVersion() > version2);
+  }
+
   @Test
   void getStopByATooFarInexactNameReturnsNull() {
     TransportNetwork tn = TransportNetwork.empty();
@@ -431,4 +504,219 @@ class TransportNetworkTest {
 
     assertThrows(NullPointerException.class, () -> tn.removeWalkSegment(null));
   }
+
+  @Test
+  void crowFlyBoundsOfEmptyNetwork() {
+    TransportNetwork tn = TransportNetwork.empty();
+    assertEquals(0.0, tn.getMaxCrowFlySpeed());
+    assertEquals(Double.POSITIVE_INFINITY, tn.getMinDistanceToCrowFlyRatio());
+  }
+
+  @Test
+  void crowFlyBoundsAreMaintainedWhenAddingTransportSegments() {
+    TransportNetwork tn = TransportNetwork.empty();
+    Stop s1 = Stop.from("s1", GeographicPosition.at(0, 0));
+    Stop s2 = Stop.from("s2", GeographicPosition.at(0, 0.01));
+    Stop s3 = Stop.from("s3", GeographicPosition.at(0, 0.03));
+    double d12 = s1.getGeographicPosition().distanceFrom(s2.getGeographicPosition());
+    double d23 = s2.getGeographicPosition().distanceFrom(s3.getGeographicPosition());
+    tn.addTransportSegment(
+        TransportSegment.from(s1, s2, "l", "1", Duration.ofSeconds(100), 3 * d12 / 1000));
+    tn.addTransportSegment(
+        TransportSegment.from(s2, s3, "l", "1", Duration.ofSeconds(100), 2 * d23 / 1000));
+    assertEquals(d23 / 100, tn.getMaxCrowFlySpeed(), 1e-9);
+    assertEquals(2.0, tn.getMinDistanceToCrowFlyRatio(), 1e-9);
+  }
+
+  @Test
+  void connectionTableIsCachedUntilADepartureIsAdded() {
+    TransportNetwork tn = newTransportNetworkHelper();
+    ConnectionTable table = tn.getConnectionTable();
+    assertSame(table, tn.getConnectionTable());
+    assertEquals(0, table.size());
+
+    tn.getLines().get(0).getVariants().get(0).addDeparture(LocalTime.NOON);
+    ConnectionTable updated = tn.getConnectionTable();
+    assertNotSame(table, updated);
+    assertEquals(1, updated.size());
+  }
+
+  @Test
+  void getPassagesSeesDeparturesAddedLater() {
+    TransportNetwork tn = newTransportNetworkHelper();
+    Stop s1 = tn.getStopByName("s1");
+    assertTrue(tn.getPassages(s1).getTransportSchedules().isEmpty());
+
+    tn.addDepartureToVariant("7B", "1", LocalTime.NOON);
+    assertEquals(1, tn.getPassages(s1).getTransportSchedules().size());
+  }
+
+  @Test
+  void frozenNetworkCannotBeChanged() {
+    TransportNetwork tn = newTransportNetworkHelper().freeze();
+    Stop s1 = tn.getStopByName("s1");
+    Stop s2 = tn.getStopByName("s2");
+    assertTrue(tn.isFrozen());
+    assertThrows(
+        UnsupportedOperationException.class,
+        () -> tn.addStop(Stop.from("s3", GeographicPosition.at(1, 1))));
+    assertThrows(UnsupportedOperationException.class, () -> tn.addLine(Line.of("8")));
+    assertThrows(
+        UnsupportedOperationException.class,
+        () -> tn.addDepartureToVariant("7B", "1", LocalTime.NOON));
+    assertThrows(
+        UnsupportedOperationException.class, () -> tn.addWalkSegment(new WalkSegment(s1, s2)));
+    assertThrows(
+        UnsupportedOperationException.class,
+        () -> tn.setTraversalStrategy(new DFSTraversalStrategy()));
+    for (Line line : tn.getLines()) {
+      assertTrue(line.isFrozen());
+      assertThrows(
+          UnsupportedOperationException.class, () -> line.addVariant(Variant.empty("3", "7B")));
+      for (Variant variant : line.getVariants()) {
+        assertTrue(variant.isFrozen());
+        assertThrows(
+            UnsupportedOperationException.class, () -> variant.addDeparture(LocalTime.NOON));
+      }
+    }
+  }
+
+  @Test
+  void freezeDoesNotChangeTheOriginalNetwork() {
+    TransportNetwork tn = newTransportNetworkHelper();
+    tn.addDepartureToVariant("7B", "1", LocalTime.NOON);
+    TransportNetwork frozen = tn.freeze();
+
+    assertFalse(tn.isFrozen());
+    assertTrue(tn.addDepartureToVariant("7B", "1", LocalTime.MIDNIGHT));
+    assertFalse(tn.getLines().get(0).isFrozen());
+    assertEquals(2, tn.getPassages(tn.getStopByName("s1")).getTransportSchedules().size());
+    assertEquals(1, frozen.getPassages(frozen.getStopByName("s1")).getTransportSchedules().size());
+  }
+
+  @Test
+  void frozenNetworkHasTheSameContentAsTheOriginal() {
+    TransportNetwork tn = newTransportNetworkHelper();
+    tn.addDepartureToVariant("7B", "1", LocalTime.NOON);
+    TransportNetwork frozen = tn.freeze();
+
+    assertEquals(tn.getLines(), frozen.getLines());
+    assertEquals(new HashSet<>(tn.getStops()), new HashSet<>(frozen.getStops()));
+    assertEquals(
+        new HashSet<>(tn.getTransportSegments()), new HashSet<>(frozen.getTransportSegments()));
+    assertEquals(tn.getMaxCrowFlySpeed(), frozen.getMaxCrowFlySpeed());
+    assertEquals(tn.getMinDistanceToCrowFlyRatio(), frozen.getMinDistanceToCrowFlyRatio());
+    Stop s1 = frozen.getStopByName("s1");
+    assertEquals(tn.getPassages(s1), frozen.getPassages(s1));
+    assertEquals(tn.getConnectionTable().size(), frozen.getConnectionTable().size());
+  }
+
+  @Test
+  void freezeOfFrozenNetworkReturnsIt() {
+    TransportNetwork frozen = newTransportNetworkHelper().freeze();
+    assertSame(frozen, frozen.freeze());
+  }
+
+  @Test
+  void derivedDataOfFrozenNetworkIsBuiltOnce() {
+    TransportNetwork frozen = newTransportNetworkHelper().freeze();
+    assertSame(frozen.getIndexedGraph(), frozen.getIndexedGraph());
+    assertSame(frozen.getStopTimetableIndex(), frozen.getStopTimetableIndex());
+    assertSame(frozen.getConnectionTable(), frozen.getConnectionTable());
+    assertSame(frozen.getVariantTimetable(), frozen.getVariantTimetable());
+    assertSame(frozen.getFootpathTable(), frozen.getFootpathTable());
+    assertSame(frozen.getGraphWithFootpaths(), frozen.getGraphWithFootpaths());
+  }
+
+  @Test
+  void spatialIndexHasTheGeographicVerticesAndIsBuiltAgainWhenOneIsAdded() {
+    TransportNetwork tn = newTransportNetworkHelper();
+    SpatialIndex index = tn.getSpatialIndex();
+    assertSame(index, tn.getSpatialIndex());
+    assertEquals(2, index.size());
+    GeographicVertex gv = GeographicVertex.at(GeographicPosition.NULL_ISLAND);
+    tn.addGeographicVertex(gv);
+    assertEquals(List.of(gv), tn.getSpatialIndex().getAt(GeographicPosition.NULL_ISLAND));
+    assertNull(tn.getStopFromPosition(GeographicPosition.NULL_ISLAND));
+  }
+
+  @Test
+  void footpathTableIsBuiltAgainWhenAStopIsAdded() {
+    TransportNetwork tn = newTransportNetworkHelper();
+    Stop s3 = Stop.from("s3", GeographicPosition.at(-89.99, 0));
+    FootpathTable table = tn.getFootpathTable();
+    assertSame(table, tn.getFootpathTable());
+    assertEquals(0, table.size());
+    tn.addStop(s3);
+    assertNotSame(table, tn.getFootpathTable());
+    assertEquals(2, tn.getFootpathTable().size());
+  }
+
+  @Test
+  void graphWithFootpathsHasTheFootpathsWithoutChangingTheNetwork() {
+    TransportNetwork tn = newTransportNetworkHelper();
+    Stop s1 = tn.getStopByName("s1");
+    Stop s3 = Stop.from("s3", GeographicPosition.at(-89.99, 0));
+    tn.addStop(s3);
+    OverlayGraph sut = tn.getGraphWithFootpaths();
+    assertSame(tn, sut.getBase());
+    assertEquals(tn.getOutgoingEdgesOf(s1).size() + 1, sut.getOutgoingEdgesOf(s1).size());
+    assertSame(s3, sut.getOutgoingEdgesOf(s1).get(1).getTo());
+    assertTrue(tn.getWalkSegments().isEmpty());
+  }
+
+  @Test
+  void graphWithFootpathsCannotBeChanged() {
+    TransportNetwork frozen = newTransportNetworkHelper().freeze();
+    OverlayGraph sut = frozen.getGraphWithFootpaths();
+    assertTrue(sut.isFrozen());
+    Stop s1 = frozen.getStopByName("s1");
+    GeographicVertex gv = GeographicVertex.at(GeographicPosition.NULL_ISLAND);
+    WalkSegment walk = new WalkSegment(s1, gv);
+    assertThrows(UnsupportedOperationException.class, () -> sut.addVertex(gv));
+    assertThrows(UnsupportedOperationException.class, () -> sut.addEdge(walk));
+    assertThrows(UnsupportedOperationException.class, () -> sut.removeVertex(s1));
+    OverlayGraph overlay = OverlayGraph.over(sut);
+    overlay.addEdge(walk);
+    assertTrue(overlay.contains(gv));
+    assertFalse(sut.contains(gv));
+  }
+
+  @Test
+  void findVariantSucceeds() {
+    TransportNetwork tn = newTransportNetworkHelper();
+    assertSame(tn.findLine("7B").getVariantNamed("2"), tn.findVariant("7B", "2"));
+    assertNull(tn.findVariant("7B", "3"));
+    assertNull(tn.findVariant("8", "1"));
+    assertThrows(IllegalArgumentException.class, () -> tn.findVariant(null, "1"));
+  }
+
+  @Test
+  void stopsAndLinesAreFoundByNameInFrozenNetwork() {
+    TransportNetwork frozen = newTransportNetworkHelper().freeze();
+    assertEquals("s1", frozen.getStopByName("s1").getName());
+    assertTrue(frozen.findLine("7B").isFrozen());
+    assertTrue(frozen.findVariant("7B", "1").isFrozen());
+  }
+
+  @Test
+  void removedStopIsNotFoundByName() {
+    TransportNetwork tn = newTransportNetworkHelper();
+    Stop s3 = Stop.from("s3", GeographicPosition.NULL_ISLAND);
+    tn.addStop(s3);
+    assertSame(s3, tn.getStopByName("s3"));
+    assertSame(s3, tn.findStop(Stop.from("s3", GeographicPosition.NORTH_POLE)));
+    tn.removeGeographicVertex(s3);
+    assertNull(tn.getStopByName("s3"));
+    assertNull(tn.findStop(s3));
+  }
+
+  @Test
+  void stopAddedWithASegmentIsFoundByName() {
+    TransportNetwork tn = newTransportNetworkHelper();
+    Stop s3 = Stop.from("s3", GeographicPosition.NULL_ISLAND);
+    tn.addTransportSegment(
+        TransportSegment.from(tn.getStopByName("s1"), s3, "7B", "3", Duration.ofMinutes(1), 1));
+    assertSame(s3, tn.getStopByName("s3"));
+  }
 }
@@ -0,0 +1,92 @@
+package dev.moriamap.model.network;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class VariantIndexTest {
+
+  private final Stop s1 = Stop.from("s1", GeographicPosition.at(48.0, 2.0));
+  private final Stop s2 = Stop.from("s2", GeographicPosition.at(48.1, 2.0));
+  private final TransportSegment ts1 =
+      TransportSegment.from(s1, s2, "A", "1", Duration.ofMinutes(3), 4);
+  private final TransportSegment ts2 =
+      TransportSegment.from(s2, s1, "B", "1", Duration.ofMinutes(3), 4);
+
+  private TransportNetwork newTransportNetworkHelper() {
+    Line a = Line.of("A");
+    Variant a1 = Variant.empty("1", "A");
+    a1.addTransportSegment(ts1);
+    a.addVariant(a1);
+    a.addVariant(Variant.empty("2", "A"));
+    Line b = Line.of("B");
+    Variant b1 = Variant.empty("1", "B");
+    b1.addTransportSegment(ts2);
+    b.addVariant(b1);
+    TransportNetwork tn = TransportNetwork.empty();
+    tn.addLine(a);
+    tn.addLine(b);
+    return tn;
+  }
+
+  @Test
+  void idsFollowTheOrderOfTheNetwork() {
+    TransportNetwork tn = newTransportNetworkHelper();
+    VariantIndex index = VariantIndex.of(tn);
+    assertEquals(2, index.getLineCount());
+    assertEquals(3, index.getVariantCount());
+    List<Variant> variants = tn.getVariants();
+    for (int v = 0; v < variants.size(); v++) {
+      assertSame(variants.get(v), index.getVariant(v));
+      assertEquals(v, index.getVariantId(variants.get(v)));
+    }
+    assertSame(tn.findLine("B"), index.getLine(1));
+    assertEquals(1, index.getLineId(tn.findLine("B")));
+    assertEquals(0, index.getLineIdOfVariant(1));
+    assertEquals(1, index.getLineIdOfVariant(2));
+  }
+
+  @Test
+  void idsByName() {
+    VariantIndex index = VariantIndex.of(newTransportNetworkHelper());
+    assertEquals(0, index.getLineId("A"));
+    assertEquals(-1, index.getLineId("C"));
+    assertEquals(1, index.getVariantId("A", "2"));
+    assertEquals(2, index.getVariantId("B", "1"));
+    assertEquals(-1, index.getVariantId("B", "2"));
+    assertEquals(-1, index.getVariantId("C", "1"));
+  }
+
+  @Test
+  void variantOfSegment() {
+    VariantIndex index = VariantIndex.of(newTransportNetworkHelper());
+    assertEquals(0, index.getVariantId(ts1));
+    assertEquals(2, index.getVariantId(ts2));
+    TransportSegment unknown = TransportSegment.from(s1, s2, "A", "2", Duration.ZERO, 4);
+    assertEquals(1, index.getVariantId(unknown));
+    TransportSegment missing = TransportSegment.from(s1, s2, "C", "2", Duration.ZERO, 4);
+    assertEquals(-1, index.getVariantId(missing));
+  }
+
+  @Test
+  void unknownLinesAndVariantsHaveNoId() {
+    VariantIndex index = VariantIndex.of(newTransportNetworkHelper());
+    assertEquals(-1, index.getLineId(Line.of("A")));
+    assertEquals(-1, index.getVariantId(Variant.empty("1", "A")));
+    assertThrows(IndexOutOfBoundsException.class, () -> index.getVariant(3));
+    assertThrows(IndexOutOfBoundsException.class, () -> index.getLine(-1));
+    assertThrows(NullPointerException.class, () -> index.getVariantId((TransportSegment) null));
+  }
+
+  @Test
+  void networkKeepsItsIndexUntilItsScheduleChanges() {
+    TransportNetwork tn = newTransportNetworkHelper();
+    VariantIndex index = tn.getVariantIndex();
+    assertSame(index, tn.getVariantIndex());
+    tn.addLine(Line.of("C"));
+    assertNotSame(index, tn.getVariantIndex());
+    assertEquals(3, tn.getVariantIndex().getLineCount());
+  }
+}
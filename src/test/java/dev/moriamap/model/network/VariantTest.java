@@ -472,4 +472,113 @@ class VariantTest {
     res.add(s4);
     assertEquals(res, v.getStops());
   }
+
+  @Test
+  void emptyVariantHasNoStartNorEnd() {
+    Variant sut = Variant.empty("v", "l");
+    assertThrows(NoSuchElementException.class, sut::getStart);
+    assertThrows(NoSuchElementException.class, sut::getEnd);
+    assertThrows(NoSuchElementException.class, sut::getStops);
+  }
+
+  @Test
+  void circularVariantIsNotALine() {
+    Variant sut = Variant.empty("v", "l");
+    Stop s1 = Stop.from("s1", GeographicPosition.SOUTH_POLE);
+    Stop s2 = Stop.from("s2", GeographicPosition.NORTH_POLE);
+    sut.addTransportSegment(TransportSegment.from(s1, s2, "l", "v", Duration.ZERO, 0.0));
+    sut.addTransportSegment(TransportSegment.from(s2, s1, "l", "v", Duration.ZERO, 0.0));
+    assertThrows(NoSuchElementException.class, sut::getStart);
+    assertThrows(NoSuchElementException.class, sut::getStops);
+    assertThrows(NoSuchElementException.class, () -> sut.getTravelTimeTo(s1));
+  }
+
+  @Test
+  void travelTimeToAStopBeforeAGapIsKnown() {
+    Variant sut = Variant.empty("v", "l");
+    Stop s1 = Stop.from("s1", GeographicPosition.at(32, 42));
+    Stop s2 = Stop.from("s2", GeographicPosition.at(45, 23));
+    Stop s3 = Stop.from("s3", GeographicPosition.at(59, 16));
+    Stop s4 = Stop.from("s4", GeographicPosition.at(25, 20));
+    sut.addTransportSegment(TransportSegment.from(s1, s2, "l", "v", Duration.ofMinutes(3), 1.0));
+    sut.addTransportSegment(TransportSegment.from(s3, s4, "l", "v", Duration.ofMinutes(4), 1.0));
+    assertEquals(Duration.ofMinutes(3), sut.getTravelTimeTo(s2));
+    assertThrows(NoSuchElementException.class, () -> sut.getTravelTimeTo(s4));
+  }
+
+  @Test
+  void travelSecondsSumTheWholeSecondsOfEachSegment() {
+    Variant sut = Variant.empty("v", "l");
+    Stop s1 = Stop.from("s1", GeographicPosition.at(32, 42));
+    Stop s2 = Stop.from("s2", GeographicPosition.at(45, 23));
+    Stop s3 = Stop.from("s3", GeographicPosition.at(59, 16));
+    Duration d = Duration.ofMillis(1500);
+    sut.addTransportSegment(TransportSegment.from(s2, s3, "l", "v", d, 1.0));
+    sut.addTransportSegment(TransportSegment.from(s1, s2, "l", "v", d, 1.0));
+    assertEquals(0, sut.getTravelSecondsTo(s1));
+    assertEquals(1, sut.getTravelSecondsTo(s2));
+    assertEquals(2, sut.getTravelSecondsTo(s3));
+    assertEquals(Duration.ofSeconds(3), sut.getTravelTimeTo(s3));
+    assertThrows(IllegalArgumentException.class, () -> sut.getTravelSecondsTo(null));
+  }
+
+  @Test
+  void addingASegmentUpdatesTheTraversal() {
+    Variant sut = Variant.empty("v", "l");
+    Stop s1 = Stop.from("s1", GeographicPosition.SOUTH_POLE);
+    Stop s2 = Stop.from("s2", GeographicPosition.NORTH_POLE);
+    Stop s3 = Stop.from("s3", GeographicPosition.SOUTH_POLE);
+    sut.addTransportSegment(TransportSegment.from(s2, s3, "l", "v", Duration.ZERO, 0.0));
+    assertEquals(List.of(s2, s3), sut.getStops());
+    assertFalse(sut.hasStop(s1));
+    sut.addTransportSegment(TransportSegment.from(s1, s2, "l", "v", Duration.ZERO, 0.0));
+    assertEquals(List.of(s1, s2, s3), sut.getStops());
+    assertTrue(sut.hasStop(s1));
+    assertTrue(sut.hasOutgoingSegment(s1));
+  }
+
+  @Test
+  void departuresWithFractionsOfSecondAreKept() {
+    Variant v = Variant.empty("1", "14");
+    LocalTime t0 = LocalTime.of(8, 0);
+    LocalTime t1 = LocalTime.of(8, 0, 0, 500);
+    LocalTime t2 = LocalTime.of(7, 59, 59, 999_999_999);
+    assertTrue(v.addDeparture(t1));
+    assertTrue(v.addDeparture(t0));
+    assertTrue(v.addDeparture(t2));
+    assertFalse(v.addDeparture(LocalTime.of(8, 0, 0, 500)));
+    assertEquals(List.of(t2, t0, t1), v.getDepartures());
+    assertArrayEquals(new int[] {28799, 28800, 28800}, v.getDepartureSeconds());
+    assertEquals(3, v.getDepartureCount());
+  }
+
+  @Test
+  void manyDeparturesAreSorted() {
+    Variant v = Variant.empty("1", "14");
+    List<LocalTime> expected = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      LocalTime t = LocalTime.ofSecondOfDay((i * 7919L) % 86400);
+      v.addDeparture(t);
+      expected.add(t);
+    }
+    expected.sort(LocalTime::compareTo);
+    assertEquals(expected, v.getDepartures());
+    int[] seconds = v.getDepartureSeconds();
+    for (int i = 0; i < seconds.length; i++)
+      assertEquals(expected.get(i).toSecondOfDay(), seconds[i]);
+  }
+
+  @Test
+  void variantsWithDeparturesAddedInAnotherOrderAreEqual() {
+    Variant v1 = Variant.empty("1", "14");
+    Variant v2 = Variant.empty("1", "14");
+    LocalTime t1 = LocalTime.of(0, 0);
+    LocalTime t2 = LocalTime.of(1, 0, 0, 1);
+    v1.addDeparture(t1);
+    v1.addDeparture(t2);
+    v2.addDeparture(t2);
+    v2.addDeparture(t1);
+    assertEquals(v1, v2);
+    assertEquals(v1.hashCode(), v2.hashCode());
+  }
 }
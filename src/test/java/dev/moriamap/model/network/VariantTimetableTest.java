@@ -0,0 +1,110 @@
+package dev.moriamap.model.network;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import org.junit.jupiter.api.Test;
+
+class VariantTimetableTest {
+
+  private final Stop s1 = Stop.from("s1", GeographicPosition.at(48.0, 2.0));
+  private final Stop s2 = Stop.from("s2", GeographicPosition.at(48.1, 2.0));
+  private final Stop s3 = Stop.from("s3", GeographicPosition.at(48.2, 2.0));
+
+  private TransportNetwork newTransportNetworkHelper() {
+    TransportSegment ts1 = TransportSegment.from(s1, s2, "A", "1", Duration.ofMinutes(3), 4);
+    TransportSegment ts2 = TransportSegment.from(s2, s3, "A", "1", Duration.ofMinutes(5), 4);
+    TransportSegment ts3 = TransportSegment.from(s3, s2, "A", "2", Duration.ofMinutes(5), 4);
+    Variant v1 = Variant.empty("1", "A");
+    v1.addTransportSegment(ts2);
+    v1.addTransportSegment(ts1);
+    v1.addDeparture(LocalTime.of(23, 58));
+    v1.addDeparture(LocalTime.of(8, 0));
+    Variant v2 = Variant.empty("2", "A");
+    v2.addTransportSegment(ts3);
+    Line l = Line.of("A");
+    l.addVariant(v1);
+    l.addVariant(v2);
+
+    TransportNetwork tn = TransportNetwork.empty();
+    tn.addStop(s1);
+    tn.addStop(s2);
+    tn.addStop(s3);
+    tn.addTransportSegment(ts1);
+    tn.addTransportSegment(ts2);
+    tn.addTransportSegment(ts3);
+    tn.addLine(l);
+    return tn;
+  }
+
+  @Test
+  void ofNullThrowsException() {
+    assertThrows(NullPointerException.class, () -> VariantTimetable.of(null));
+  }
+
+  @Test
+  void variantsHaveTheIdsOfTheVariantIndex() {
+    TransportNetwork tn = newTransportNetworkHelper();
+    VariantTimetable table = VariantTimetable.of(tn);
+    VariantIndex index = tn.getVariantIndex();
+    assertEquals(index.getVariantCount(), table.getVariantCount());
+    for (int v = 0; v < index.getVariantCount(); v++)
+      assertSame(index.getVariant(v), table.getVariant(v));
+    assertEquals("1", table.getVariant(0).getName());
+    assertEquals(3, table.getStopCount());
+  }
+
+  @Test
+  void variantsWithoutDeparturesHaveNoStops() {
+    VariantTimetable table = VariantTimetable.of(newTransportNetworkHelper());
+    assertEquals("2", table.getVariant(1).getName());
+    assertEquals(0, table.getLength(1));
+    assertThrows(IndexOutOfBoundsException.class, () -> table.getStopAt(1, 0));
+    for (int s = 0; s < table.getStopCount(); s++)
+      for (int j = 0; j < table.getServingVariantCount(s); j++)
+        assertEquals(0, table.getServingVariant(s, j));
+  }
+
+  @Test
+  void stopsAreInTraversalOrderWithTheirTimeOffsets() {
+    VariantTimetable table = VariantTimetable.of(newTransportNetworkHelper());
+    assertEquals(3, table.getLength(0));
+    assertEquals(s1, table.getStop(table.getStopAt(0, 0)));
+    assertEquals(s2, table.getStop(table.getStopAt(0, 1)));
+    assertEquals(s3, table.getStop(table.getStopAt(0, 2)));
+    assertEquals(0, table.getTimeOffset(0, 0));
+    assertEquals(180, table.getTimeOffset(0, 1));
+    assertEquals(480, table.getTimeOffset(0, 2));
+    assertEquals(s2, table.getSegmentFrom(0, 1).getFrom());
+  }
+
+  @Test
+  void lastStopHasNoOutgoingSegment() {
+    VariantTimetable table = VariantTimetable.of(newTransportNetworkHelper());
+    assertThrows(IndexOutOfBoundsException.class, () -> table.getSegmentFrom(0, 2));
+    assertThrows(IndexOutOfBoundsException.class, () -> table.getStopAt(0, 3));
+  }
+
+  @Test
+  void servingVariants() {
+    VariantTimetable table = VariantTimetable.of(newTransportNetworkHelper());
+    int s2Id = table.getStopId(s2);
+    assertEquals(1, table.getServingVariantCount(s2Id));
+    assertEquals(0, table.getServingVariant(s2Id, 0));
+    assertEquals(1, table.getServingPosition(s2Id, 0));
+    assertEquals(-1, table.getStopId(Stop.from("unknown", GeographicPosition.NORTH_POLE)));
+  }
+
+  @Test
+  void earliestTripWrapsAroundMidnight() {
+    VariantTimetable table = VariantTimetable.of(newTransportNetworkHelper());
+    int eight = 8 * 3600;
+    int late = (23 * 60 + 58) * 60;
+    assertEquals(eight, table.earliestTrip(0, 1, eight + 180));
+    assertEquals(late, table.earliestTrip(0, 1, eight + 181));
+    // The 23:58 transport passes at s2 at 00:01
+    assertEquals(late - ServiceTime.SECONDS_PER_DAY, table.earliestTrip(0, 1, 30));
+    assertEquals(eight + ServiceTime.SECONDS_PER_DAY, table.earliestTrip(0, 0, late + 1));
+  }
+}
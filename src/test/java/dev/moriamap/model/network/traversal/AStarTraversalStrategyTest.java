@@ -0,0 +1,187 @@
+package dev.moriamap.model.network.traversal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.moriamap.model.network.Edge;
+import dev.moriamap.model.network.GeographicPosition;
+import dev.moriamap.model.network.Graph;
+import dev.moriamap.model.network.Line;
+import dev.moriamap.model.network.OverlayGraph;
+import dev.moriamap.model.network.Stop;
+import dev.moriamap.model.network.TransportNetwork;
+import dev.moriamap.model.network.TransportSegment;
+import dev.moriamap.model.network.Variant;
+import dev.moriamap.model.network.Vertex;
+import dev.moriamap.model.network.WalkSegment;
+import dev.moriamap.model.parser.DepartureParser;
+import dev.moriamap.model.parser.InconsistentCSVException;
+import dev.moriamap.model.parser.TransportNetworkParser;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AStarTraversalStrategyTest {
+  private final TransportNetwork tn;
+
+  {
+    try {
+      tn =
+          TransportNetworkParser.generateFrom(
+              AStarTraversalStrategyTest.class.getResourceAsStream("/test_map_data.csv"));
+      DepartureParser.addDeparturesTo(
+          tn, AStarTraversalStrategyTest.class.getResourceAsStream("/test_timetables.csv"));
+    } catch (InconsistentCSVException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static class DummyVertex implements Vertex {}
+
+  private static class DummyGraph extends Graph {
+    void addDummyEdge(DummyEdge de) {
+      super.addEdge(de);
+    }
+  }
+
+  private static class DummyEdge extends Edge {
+    public DummyEdge(Vertex from, Vertex to) {
+      super(from, to);
+    }
+  }
+
+  @Test
+  void constructorWithNullOptimizationThrowsException() {
+    assertThrows(NullPointerException.class, () -> new AStarTraversalStrategy(null));
+  }
+
+  @Test
+  void traversalWithNullSrcThrowsException() {
+    var sut = new AStarTraversalStrategy(RouteOptimization.TIME);
+    assertThrows(NullPointerException.class, () -> sut.traversal(null, null, null, true, null));
+  }
+
+  @Test
+  void traversalOnGraphWithoutPositionsBehavesLikeDijkstra() {
+    var graph = new DummyGraph();
+    DummyVertex v1 = new DummyVertex();
+    DummyVertex v2 = new DummyVertex();
+    DummyVertex v3 = new DummyVertex();
+    DummyEdge e1 = new DummyEdge(v1, v2);
+    DummyEdge e2 = new DummyEdge(v2, v3);
+    DummyEdge e3 = new DummyEdge(v1, v3);
+    graph.addDummyEdge(e1);
+    graph.addDummyEdge(e2);
+    graph.addDummyEdge(e3);
+
+    var sut = new AStarTraversalStrategy(RouteOptimization.DISTANCE);
+    Map<Vertex, Edge> result =
+        sut.traversal(v1, v3, (d, e) -> e.equals(e3) ? 5.0 : 1.0, true, graph);
+    assertEquals(List.of(e1, e2), Graph.getRouteFromTraversal(result, v1, v3));
+  }
+
+  @Test
+  void timeOptimizedRouteIsTheSameAsDijkstraAndSettlesFewerVertices() {
+    Stop src = tn.getStopByName("Lourmel");
+    Stop dst = tn.getStopByName("Commerce");
+    var weight = new TravelTimeAsWeight(LocalTime.of(10, 0), tn);
+
+    var dijkstra = new HeapDijkstraTraversalStrategy();
+    var sut = new AStarTraversalStrategy(RouteOptimization.TIME);
+    var expected = dijkstra.search(src, dst, weight, true, tn);
+    var result = sut.search(src, dst, weight, true, tn);
+
+    assertEquals(
+        Graph.getRouteFromTraversal(expected.getTree(), src, dst),
+        Graph.getRouteFromTraversal(result.getTree(), src, dst));
+    assertTrue(result.getSettledCount() <= expected.getSettledCount());
+  }
+
+  @Test
+  void distanceOptimizedRouteIsTheSameAsDijkstraAndSettlesFewerVertices() {
+    Stop src = tn.getStopByName("Lourmel");
+    Stop dst = tn.getStopByName("Porte de Charenton");
+    var weight = new DistanceAsWeight(tn);
+
+    var dijkstra = new HeapDijkstraTraversalStrategy();
+    var sut = new AStarTraversalStrategy(RouteOptimization.DISTANCE);
+    var expected = dijkstra.search(src, dst, weight, true, tn);
+    var result = sut.search(src, dst, weight, true, tn);
+
+    assertEquals(
+        Graph.getRouteFromTraversal(expected.getTree(), src, dst),
+        Graph.getRouteFromTraversal(result.getTree(), src, dst));
+    assertTrue(result.getSettledCount() <= expected.getSettledCount());
+  }
+
+  // Adds to tn a Line with a single Variant going from one stop to another in the given time, and
+  // leaving at midnight
+  private static void addLine(TransportNetwork tn, Stop from, Stop to, int seconds) {
+    String name = from.getName() + to.getName();
+    TransportSegment segment =
+        TransportSegment.from(from, to, name, "1", Duration.ofSeconds(seconds), 1.0);
+    Variant variant = Variant.empty("1", name);
+    variant.addTransportSegment(segment);
+    Line line = Line.of(name);
+    line.addVariant(variant);
+    tn.addTransportSegment(segment);
+    tn.addLine(line);
+    variant.addDeparture(LocalTime.MIDNIGHT);
+  }
+
+  @Test
+  void timeBoundDoesNotExceedTheWholeSecondsOfShortWalks() {
+    // Walking from m to x and from x to d takes 1.9 seconds each, counted as 1 second
+    double step = 1.9 * WalkSegment.WALK_SPEED / 3.6 / GeographicPosition.EARTH_RADIUS;
+    Stop d = Stop.from("d", GeographicPosition.at(0.0, 0.0));
+    Stop x = Stop.from("x", GeographicPosition.at(Math.toDegrees(step), 0.0));
+    Stop m = Stop.from("m", GeographicPosition.at(Math.toDegrees(2 * step), 0.0));
+    Stop s = Stop.from("s", GeographicPosition.at(Math.toDegrees(2 * step) + 0.0001, 0.0));
+    TransportNetwork network = TransportNetwork.empty();
+    addLine(network, s, m, 60);
+    addLine(network, s, d, 63);
+    OverlayGraph graph = OverlayGraph.over(network);
+    WalkSegment mx = new WalkSegment(m, x);
+    WalkSegment xd = new WalkSegment(x, d);
+    graph.addEdge(mx);
+    graph.addEdge(xd);
+    assertEquals(1, mx.travelSeconds());
+    assertNotEquals(1.0, mx.distance / (WalkSegment.WALK_SPEED / 3.6));
+
+    var weight = new TravelTimeAsWeight(LocalTime.MIDNIGHT, network);
+    var sut = new AStarTraversalStrategy(RouteOptimization.TIME);
+    List<Edge> route = Graph.getRouteFromTraversal(sut.traversal(s, d, weight, true, graph), s, d);
+    assertEquals(3, route.size());
+    assertEquals(List.of(mx, xd), route.subList(1, 3));
+  }
+
+  @Test
+  void traversalsWithTheSameStrategyDoNotShareTheirBounds() {
+    Stop src = tn.getStopByName("Lourmel");
+    Stop first = tn.getStopByName("Commerce");
+    Stop second = tn.getStopByName("Porte de Charenton");
+    var weight = new DistanceAsWeight(tn);
+    var sut = new AStarTraversalStrategy(RouteOptimization.DISTANCE);
+
+    sut.traversal(src, first, weight, true, tn);
+    List<Edge> route =
+        Graph.getRouteFromTraversal(sut.traversal(src, second, weight, true, tn), src, second);
+    var fresh = new AStarTraversalStrategy(RouteOptimization.DISTANCE);
+    assertEquals(
+        Graph.getRouteFromTraversal(fresh.traversal(src, second, weight, true, tn), src, second),
+        route);
+  }
+
+  @Test
+  void routeKeysDependOnTheOptimization() {
+    var time = new AStarTraversalStrategy(RouteOptimization.TIME);
+    assertEquals(
+        time.getRouteKey(), new AStarTraversalStrategy(RouteOptimization.TIME).getRouteKey());
+    assertNotEquals(
+        time.getRouteKey(), new AStarTraversalStrategy(RouteOptimization.DISTANCE).getRouteKey());
+    assertNotEquals(time.getRouteKey(), new HeapDijkstraTraversalStrategy().getRouteKey());
+  }
+}
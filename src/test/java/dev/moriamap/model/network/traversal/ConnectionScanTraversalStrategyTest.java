@@ -0,0 +1,142 @@
+package dev.moriamap.model.network.traversal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.moriamap.model.network.Edge;
+import dev.moriamap.model.network.GeographicVertex;
+import dev.moriamap.model.network.Graph;
+import dev.moriamap.model.network.Stop;
+import dev.moriamap.model.network.TransportNetwork;
+import dev.moriamap.model.network.Vertex;
+import dev.moriamap.model.network.WalkSegment;
+import dev.moriamap.model.parser.DepartureParser;
+import dev.moriamap.model.parser.InconsistentCSVException;
+import dev.moriamap.model.parser.TransportNetworkParser;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConnectionScanTraversalStrategyTest {
+  private final TransportNetwork tn;
+
+  {
+    try {
+      tn =
+          TransportNetworkParser.generateFrom(
+              ConnectionScanTraversalStrategyTest.class.getResourceAsStream("/test_map_data.csv"));
+      DepartureParser.addDeparturesTo(
+          tn,
+          ConnectionScanTraversalStrategyTest.class.getResourceAsStream("/test_timetables.csv"));
+    } catch (InconsistentCSVException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  // Returns the travel time of route when starting at startTime
+  private double travelTime(List<Edge> route, LocalTime startTime) {
+    var weight = new TravelTimeAsWeight(startTime, tn);
+    double time = 0.0;
+    for (Edge e : route) time += weight.apply(time, e);
+    return time;
+  }
+
+  @Test
+  void traversalWithNullSrcThrowsException() {
+    var sut = new ConnectionScanTraversalStrategy();
+    var weight = new TravelTimeAsWeight(LocalTime.MIN, tn);
+    assertThrows(NullPointerException.class, () -> sut.traversal(null, null, weight, true, tn));
+  }
+
+  @Test
+  void traversalWithNullDstAndSingleDestinationThrowsException() {
+    var sut = new ConnectionScanTraversalStrategy();
+    var weight = new TravelTimeAsWeight(LocalTime.MIN, tn);
+    Stop src = tn.getStopByName("Lourmel");
+    assertThrows(NullPointerException.class, () -> sut.traversal(src, null, weight, true, tn));
+  }
+
+  @Test
+  void traversalFromAbsentSourceThrowsException() {
+    var sut = new ConnectionScanTraversalStrategy();
+    var weight = new TravelTimeAsWeight(LocalTime.MIN, tn);
+    var absent = GeographicVertex.at(0, 0);
+    assertThrows(
+        NoSuchElementException.class, () -> sut.traversal(absent, null, weight, false, tn));
+  }
+
+  @Test
+  void traversalWithDistanceAsWeightThrowsException() {
+    var sut = new ConnectionScanTraversalStrategy();
+    Stop src = tn.getStopByName("Lourmel");
+    Stop dst = tn.getStopByName("Commerce");
+    var weight = new DistanceAsWeight(tn);
+    assertThrows(
+        UnsupportedOperationException.class, () -> sut.traversal(src, dst, weight, true, tn));
+  }
+
+  @Test
+  void arrivalTimesAreTheSameAsDijkstra() {
+    Stop src = tn.getStopByName("Lourmel");
+    var dijkstra = new HeapDijkstraTraversalStrategy();
+    var sut = new ConnectionScanTraversalStrategy();
+    for (LocalTime startTime :
+        List.of(LocalTime.MIN, LocalTime.of(10, 0, 30), LocalTime.of(23, 59), LocalTime.NOON)) {
+      var weight = new TravelTimeAsWeight(startTime, tn);
+      Map<Vertex, Edge> expected = dijkstra.traversal(src, null, weight, false, tn);
+      Map<Vertex, Edge> result = sut.traversal(src, null, weight, false, tn);
+      assertEquals(expected.keySet(), result.keySet());
+      for (Vertex dst : expected.keySet()) {
+        assertEquals(
+            travelTime(Graph.getRouteFromTraversal(expected, src, dst), startTime),
+            travelTime(Graph.getRouteFromTraversal(result, src, dst), startTime));
+      }
+    }
+  }
+
+  @Test
+  void singleDestinationTraversalScansFewerConnections() {
+    Stop src = tn.getStopByName("Lourmel");
+    Stop dst = tn.getStopByName("Commerce");
+    var weight = new TravelTimeAsWeight(LocalTime.of(10, 0), tn);
+    var sut = new ConnectionScanTraversalStrategy();
+
+    int allScanned = sut.search(src, null, weight, false, tn).getScannedCount();
+    var result = sut.search(src, dst, weight, true, tn);
+
+    assertFalse(Graph.getRouteFromTraversal(result.getTree(), src, dst).isEmpty());
+    assertTrue(result.getScannedCount() < allScanned);
+  }
+
+  @Test
+  void walkSegmentsAreFollowed() {
+    var start = GeographicVertex.at(48.8, 2.3);
+    Stop first = tn.getStopByName("Lourmel");
+    Stop dst = tn.getStopByName("Commerce");
+    var walk = new WalkSegment(start, first);
+    tn.addWalkSegment(walk);
+    try {
+      var weight = new TravelTimeAsWeight(LocalTime.of(10, 0), tn);
+      var sut = new ConnectionScanTraversalStrategy();
+      List<Edge> route =
+          Graph.getRouteFromTraversal(sut.traversal(start, dst, weight, true, tn), start, dst);
+      assertEquals(walk, route.get(0));
+    } finally {
+      tn.removeWalkSegment(walk);
+      tn.removeGeographicVertex(start);
+    }
+  }
+
+  @Test
+  void searchGivesTheTreeOfTheTraversal() {
+    Stop src = tn.getStopByName("Lourmel");
+    var weight = new TravelTimeAsWeight(LocalTime.of(10, 0), tn);
+    var sut = new ConnectionScanTraversalStrategy();
+    assertEquals(
+        sut.traversal(src, null, weight, false, tn),
+        sut.search(src, null, weight, false, tn).getTree());
+  }
+}
@@ -6,6 +6,8 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import dev.moriamap.model.network.Edge;
 import dev.moriamap.model.network.GeographicPosition;
 import dev.moriamap.model.network.GeographicVertex;
+import dev.moriamap.model.network.Graph;
+import dev.moriamap.model.network.IndexedGraph;
 import dev.moriamap.model.network.Line;
 import dev.moriamap.model.network.Stop;
 import dev.moriamap.model.network.TransportNetwork;
@@ -13,6 +15,9 @@ import dev.moriamap.model.network.TransportSegment;
 import dev.moriamap.model.network.Variant;
 import dev.moriamap.model.network.Vertex;
 import dev.moriamap.model.network.WalkSegment;
+import dev.moriamap.model.parser.DepartureParser;
+import dev.moriamap.model.parser.InconsistentCSVException;
+import dev.moriamap.model.parser.TransportNetworkParser;
 import java.time.Duration;
 import java.time.LocalTime;
 import org.junit.jupiter.api.Test;
@@ -77,4 +82,30 @@ class DistanceAsWeightTest {
     var ws = new WalkSegment(gv1, gv2);
     assertEquals(ws.distance * WalkSegment.WALK_DRUDGERY / 1000.0, sut.apply(0.0, ws));
   }
+
+  @Test
+  void weightIsTheSameAsApply() throws InconsistentCSVException {
+    TransportNetwork tn =
+        TransportNetworkParser.generateFrom(
+            DistanceAsWeightTest.class.getResourceAsStream("/test_map_data.csv"));
+    DepartureParser.addDeparturesTo(
+        tn, DistanceAsWeightTest.class.getResourceAsStream("/test_timetables.csv"));
+    IndexedGraph graph = tn.getIndexedGraph();
+    var sut = new DistanceAsWeight(tn);
+    for (int e = 0; e < graph.getEdgeCount(); e++)
+      assertEquals(sut.apply(12.0, graph.getEdge(e)), sut.weight(12.0, e, graph));
+  }
+
+  @Test
+  void weightOfEdgeDifferentThanTSThrowsException() {
+    class DummyGraph extends Graph {
+      DummyGraph(Edge edge) {
+        this.addEdge(edge);
+      }
+    }
+    IndexedGraph graph =
+        new DummyGraph(new DummyEdge(new DummyVertex(), new DummyVertex())).getIndexedGraph();
+    var sut = new DistanceAsWeight(TransportNetwork.empty());
+    assertThrows(UnsupportedOperationException.class, () -> sut.weight(0.0, 0, graph));
+  }
 }
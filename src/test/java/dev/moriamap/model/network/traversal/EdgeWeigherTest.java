@@ -0,0 +1,43 @@
+package dev.moriamap.model.network.traversal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.moriamap.model.network.Edge;
+import dev.moriamap.model.network.GeographicPosition;
+import dev.moriamap.model.network.IndexedGraph;
+import dev.moriamap.model.network.Stop;
+import dev.moriamap.model.network.TransportNetwork;
+import dev.moriamap.model.network.WalkSegment;
+import java.time.LocalTime;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.Test;
+
+class EdgeWeigherTest {
+
+  @Test
+  void ofNullThrowsException() {
+    assertThrows(NullPointerException.class, () -> EdgeWeigher.of(null));
+  }
+
+  @Test
+  void ofEdgeWeigherReturnsIt() {
+    var weigher = new TravelTimeAsWeight(LocalTime.MIN, TransportNetwork.empty());
+    assertSame(weigher, EdgeWeigher.of(weigher));
+  }
+
+  @Test
+  void ofOtherWeightFunctionWeighsEdgesWithIt() {
+    Stop s1 = Stop.from("s1", GeographicPosition.SOUTH_POLE);
+    Stop s2 = Stop.from("s2", GeographicPosition.NORTH_POLE);
+    WalkSegment ws = new WalkSegment(s1, s2);
+    TransportNetwork tn = TransportNetwork.empty();
+    tn.addWalkSegment(ws);
+    IndexedGraph graph = tn.getIndexedGraph();
+    BiFunction<Double, Edge, Double> weightFunction = (current, edge) -> current + 1.0;
+
+    EdgeWeigher sut = EdgeWeigher.of(weightFunction);
+    sut.prepare(graph);
+    assertEquals(3.0, sut.weight(2.0, 0, graph));
+    assertEquals(3.0, sut.apply(2.0, ws));
+  }
+}
@@ -0,0 +1,242 @@
+package dev.moriamap.model.network.traversal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.moriamap.model.network.Edge;
+import dev.moriamap.model.network.Graph;
+import dev.moriamap.model.network.Vertex;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.Test;
+
+class HeapDijkstraTraversalStrategyTest {
+  private static class DummyVertex implements Vertex {}
+
+  private static class DummyGraph extends Graph {
+    void addDummyEdge(DummyEdge de) {
+      super.addEdge(de);
+    }
+
+    void addDummyVertex(DummyVertex dv) {
+      super.addVertex(dv);
+    }
+  }
+
+  private static class DummyEdge extends Edge {
+    public DummyEdge(Vertex from, Vertex to) {
+      super(from, to);
+    }
+  }
+
+  @Test
+  void traversalWithNullSrcThrowsException() {
+    var sut = new HeapDijkstraTraversalStrategy();
+    assertThrows(NullPointerException.class, () -> sut.traversal(null, null, null, true, null));
+  }
+
+  @Test
+  void traversalWithNullDstAndFlagTrueThrowsException() {
+    var sut = new HeapDijkstraTraversalStrategy();
+    var dv = new DummyVertex();
+    assertThrows(NullPointerException.class, () -> sut.traversal(dv, null, null, true, null));
+  }
+
+  @Test
+  void traversalWithNullDstAndFlagFalseDoesNotThrowNPE() {
+    var sut = new HeapDijkstraTraversalStrategy();
+    var src = new DummyVertex();
+    var graph = new DummyGraph();
+    try {
+      sut.traversal(src, null, (Double d, Edge e) -> 0.0, false, graph);
+    } catch (NullPointerException npe) {
+      fail("Thrown NullPointerException");
+    } catch (Throwable t) {
+    }
+  }
+
+  @Test
+  void traversalWithNullGraphThrowsException() {
+    var sut = new HeapDijkstraTraversalStrategy();
+    var src = new DummyVertex();
+    var dst = new DummyVertex();
+    assertThrows(NullPointerException.class, () -> sut.traversal(src, dst, null, false, null));
+  }
+
+  @Test
+  void traversalWithNullWeightThrowsException() {
+    var sut = new HeapDijkstraTraversalStrategy();
+    var src = new DummyVertex();
+    var graph = new DummyGraph();
+    assertThrows(NullPointerException.class, () -> sut.traversal(src, null, null, false, graph));
+  }
+
+  @Test
+  void traversalWithGraph() {
+    var graph = new DummyGraph();
+
+    DummyVertex v1 = new DummyVertex();
+    DummyVertex v2 = new DummyVertex();
+    DummyVertex v3 = new DummyVertex();
+    DummyVertex v4 = new DummyVertex();
+
+    DummyEdge e1 = new DummyEdge(v1, v2);
+    DummyEdge e2 = new DummyEdge(v2, v3);
+    DummyEdge e3 = new DummyEdge(v3, v4);
+
+    DummyEdge e4 = new DummyEdge(v1, v4);
+
+    graph.addDummyEdge(e1);
+    graph.addDummyEdge(e2);
+    graph.addDummyEdge(e3);
+    graph.addDummyEdge(e4);
+
+    BiFunction<Double, Edge, Double> weightFunction =
+        (d, edge) -> {
+          if (edge.equals(e1)) return 1.0;
+          if (edge.equals(e2)) return 1.0;
+          if (edge.equals(e3)) return 1.0;
+          if (edge.equals(e4)) return 11.0;
+          return Double.POSITIVE_INFINITY;
+        };
+
+    HeapDijkstraTraversalStrategy dijkstra = new HeapDijkstraTraversalStrategy();
+    Map<Vertex, Edge> result = dijkstra.traversal(v1, v4, weightFunction, false, graph);
+    Map<Vertex, Edge> compare = new HashMap<>();
+    compare.put(v2, e1);
+    compare.put(v3, e2);
+    compare.put(v4, e3);
+
+    assertEquals(compare, result);
+  }
+
+  @Test
+  void traversalWithAbsentSourceThrowsException() {
+    var sut = new HeapDijkstraTraversalStrategy();
+    var src = new DummyVertex();
+    var graph = new DummyGraph();
+    BiFunction<Double, Edge, Double> weightFunction = (d, e) -> 1.0;
+    assertThrows(
+        NoSuchElementException.class, () -> sut.traversal(src, null, weightFunction, false, graph));
+  }
+
+  @Test
+  void traversalStopsAtDestination() {
+    var graph = new DummyGraph();
+    DummyVertex v1 = new DummyVertex();
+    DummyVertex v2 = new DummyVertex();
+    DummyVertex v3 = new DummyVertex();
+    DummyEdge e1 = new DummyEdge(v1, v2);
+    DummyEdge e2 = new DummyEdge(v2, v3);
+    graph.addDummyEdge(e1);
+    graph.addDummyEdge(e2);
+
+    var sut = new HeapDijkstraTraversalStrategy();
+    Map<Vertex, Edge> result = sut.traversal(v1, v2, (d, e) -> 1.0, true, graph);
+    assertEquals(Map.of(v2, e1), result);
+  }
+
+  @Test
+  void traversalIgnoresEdgesOfInfiniteWeight() {
+    var graph = new DummyGraph();
+    DummyVertex v1 = new DummyVertex();
+    DummyVertex v2 = new DummyVertex();
+    DummyEdge e1 = new DummyEdge(v1, v2);
+    graph.addDummyEdge(e1);
+
+    var sut = new HeapDijkstraTraversalStrategy();
+    Map<Vertex, Edge> result =
+        sut.traversal(v1, v2, (d, e) -> Double.POSITIVE_INFINITY, true, graph);
+    assertTrue(result.isEmpty());
+  }
+
+  @Test
+  void traversalUsesCurrentDistanceForTimeDependentWeights() {
+    var graph = new DummyGraph();
+    DummyVertex v1 = new DummyVertex();
+    DummyVertex v2 = new DummyVertex();
+    DummyVertex v3 = new DummyVertex();
+    DummyVertex v4 = new DummyVertex();
+    DummyEdge e1 = new DummyEdge(v1, v2);
+    DummyEdge e2 = new DummyEdge(v2, v4);
+    DummyEdge e3 = new DummyEdge(v1, v3);
+    DummyEdge e4 = new DummyEdge(v3, v4);
+    graph.addDummyEdge(e1);
+    graph.addDummyEdge(e2);
+    graph.addDummyEdge(e3);
+    graph.addDummyEdge(e4);
+
+    // e2 can only be taken cheaply before time 1, e4 is always cheap
+    BiFunction<Double, Edge, Double> weightFunction =
+        (d, edge) -> {
+          if (edge.equals(e1)) return 2.0;
+          if (edge.equals(e2)) return d < 1.0 ? 1.0 : 10.0;
+          if (edge.equals(e3)) return 3.0;
+          return 1.0;
+        };
+
+    var sut = new HeapDijkstraTraversalStrategy();
+    Map<Vertex, Edge> result = sut.traversal(v1, v4, weightFunction, true, graph);
+    assertEquals(e4, result.get(v4));
+  }
+
+  @Test
+  void traversalGivesSameRoutesAsDijkstraTraversalStrategy() {
+    var graph = new DummyGraph();
+    List<DummyVertex> vertices = new ArrayList<>();
+    for (int i = 0; i < 30; i++) vertices.add(new DummyVertex());
+    Map<Edge, Double> weights = new HashMap<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 150; i++) {
+      DummyVertex from = vertices.get(random.nextInt(vertices.size()));
+      DummyVertex to = vertices.get(random.nextInt(vertices.size()));
+      if (from == to) continue;
+      DummyEdge edge = new DummyEdge(from, to);
+      graph.addDummyEdge(edge);
+      weights.put(edge, (double) (1 + random.nextInt(20)));
+    }
+    BiFunction<Double, Edge, Double> weightFunction = (d, edge) -> weights.get(edge);
+
+    var expected = new DijkstraTraversalStrategy();
+    var sut = new HeapDijkstraTraversalStrategy();
+    DummyVertex src = vertices.get(0);
+    Map<Vertex, Edge> expectedTree = expected.traversal(src, null, weightFunction, false, graph);
+    Map<Vertex, Edge> tree = sut.traversal(src, null, weightFunction, false, graph);
+    assertEquals(expectedTree.keySet(), tree.keySet());
+    for (Vertex v : tree.keySet())
+      assertEquals(
+          routeCost(Graph.getRouteFromTraversal(expectedTree, src, v), weights),
+          routeCost(Graph.getRouteFromTraversal(tree, src, v), weights));
+  }
+
+  @Test
+  void searchGivesTheWeightOfTheRouteToEachVertex() {
+    var graph = new DummyGraph();
+    DummyVertex v1 = new DummyVertex();
+    DummyVertex v2 = new DummyVertex();
+    DummyVertex v3 = new DummyVertex();
+    DummyVertex v4 = new DummyVertex();
+    graph.addDummyEdge(new DummyEdge(v1, v2));
+    graph.addDummyEdge(new DummyEdge(v2, v3));
+    graph.addDummyVertex(v4);
+
+    var sut = new HeapDijkstraTraversalStrategy();
+    var result = sut.search(v1, null, (d, e) -> 2.0, false, graph);
+    assertEquals(0.0, result.getWeight(v1));
+    assertEquals(2.0, result.getWeight(v2));
+    assertEquals(4.0, result.getWeight(v3));
+    assertEquals(Double.POSITIVE_INFINITY, result.getWeight(v4));
+    assertEquals(3, result.getSettledCount());
+    assertThrows(NoSuchElementException.class, () -> result.getWeight(new DummyVertex()));
+  }
+
+  private static double routeCost(List<Edge> route, Map<Edge, Double> weights) {
+    double cost = 0.0;
+    for (Edge e : route) cost += weights.get(e);
+    return cost;
+  }
+}
@@ -0,0 +1,178 @@
+package dev.moriamap.model.network.traversal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.moriamap.model.network.Edge;
+import dev.moriamap.model.network.GeographicVertex;
+import dev.moriamap.model.network.Graph;
+import dev.moriamap.model.network.Stop;
+import dev.moriamap.model.network.TransportNetwork;
+import dev.moriamap.model.network.TransportSegment;
+import dev.moriamap.model.network.Vertex;
+import dev.moriamap.model.network.WalkSegment;
+import dev.moriamap.model.parser.DepartureParser;
+import dev.moriamap.model.parser.InconsistentCSVException;
+import dev.moriamap.model.parser.TransportNetworkParser;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RaptorTraversalStrategyTest {
+  private final TransportNetwork tn;
+
+  {
+    try {
+      tn =
+          TransportNetworkParser.generateFrom(
+              RaptorTraversalStrategyTest.class.getResourceAsStream("/test_map_data.csv"));
+      DepartureParser.addDeparturesTo(
+          tn, RaptorTraversalStrategyTest.class.getResourceAsStream("/test_timetables.csv"));
+    } catch (InconsistentCSVException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  // Returns the travel time of route when starting at startTime
+  private double travelTime(List<Edge> route, LocalTime startTime) {
+    var weight = new TravelTimeAsWeight(startTime, tn);
+    double time = 0.0;
+    for (Edge e : route) time += weight.apply(time, e);
+    return time;
+  }
+
+  // Returns the number of variants ridden by route
+  private int rideCount(List<Edge> route) {
+    int rides = 0;
+    TransportSegment previous = null;
+    for (Edge e : route) {
+      if (e instanceof TransportSegment segment) {
+        if (previous == null
+            || !previous.getVariantName().equals(segment.getVariantName())
+            || !previous.getLineName().equals(segment.getLineName())) rides++;
+        previous = segment;
+      } else previous = null;
+    }
+    return rides;
+  }
+
+  @Test
+  void constructorWithNegativeMaxTransfersThrowsException() {
+    assertThrows(IllegalArgumentException.class, () -> new RaptorTraversalStrategy(-1));
+  }
+
+  @Test
+  void defaultConstructorAllowsDefaultMaxTransfers() {
+    assertEquals(
+        RaptorTraversalStrategy.DEFAULT_MAX_TRANSFERS,
+        new RaptorTraversalStrategy().getMaxTransfers());
+  }
+
+  @Test
+  void traversalWithNullSrcThrowsException() {
+    var sut = new RaptorTraversalStrategy();
+    var weight = new TravelTimeAsWeight(LocalTime.MIN, tn);
+    assertThrows(NullPointerException.class, () -> sut.traversal(null, null, weight, true, tn));
+  }
+
+  @Test
+  void traversalFromAbsentSourceThrowsException() {
+    var sut = new RaptorTraversalStrategy();
+    var weight = new TravelTimeAsWeight(LocalTime.MIN, tn);
+    var absent = GeographicVertex.at(0, 0);
+    assertThrows(
+        NoSuchElementException.class, () -> sut.traversal(absent, null, weight, false, tn));
+  }
+
+  @Test
+  void traversalWithDistanceAsWeightThrowsException() {
+    var sut = new RaptorTraversalStrategy();
+    Stop src = tn.getStopByName("Lourmel");
+    Stop dst = tn.getStopByName("Commerce");
+    var weight = new DistanceAsWeight(tn);
+    assertThrows(
+        UnsupportedOperationException.class, () -> sut.traversal(src, dst, weight, true, tn));
+  }
+
+  @Test
+  void arrivalTimesAreTheSameAsDijkstra() {
+    Stop src = tn.getStopByName("Lourmel");
+    var dijkstra = new HeapDijkstraTraversalStrategy();
+    var sut = new RaptorTraversalStrategy();
+    for (LocalTime startTime :
+        List.of(LocalTime.MIN, LocalTime.of(10, 0, 30), LocalTime.of(23, 59), LocalTime.NOON)) {
+      var weight = new TravelTimeAsWeight(startTime, tn);
+      Map<Vertex, Edge> expected = dijkstra.traversal(src, null, weight, false, tn);
+      assertEquals(expected.keySet(), sut.traversal(src, null, weight, false, tn).keySet());
+      for (Vertex dst : expected.keySet()) {
+        List<Edge> route =
+            Graph.getRouteFromTraversal(sut.traversal(src, dst, weight, true, tn), src, dst);
+        assertEquals(
+            travelTime(Graph.getRouteFromTraversal(expected, src, dst), startTime),
+            travelTime(route, startTime));
+      }
+    }
+  }
+
+  @Test
+  void routesHaveAtMostMaxTransfers() {
+    Stop src = tn.getStopByName("Lourmel");
+    Stop dst = tn.getStopByName("Porte de Charenton");
+    var weight = new TravelTimeAsWeight(LocalTime.of(10, 0), tn);
+    var unbounded = new RaptorTraversalStrategy();
+    List<Edge> route =
+        Graph.getRouteFromTraversal(unbounded.traversal(src, dst, weight, true, tn), src, dst);
+    int rides = rideCount(route);
+    assertTrue(rides > 1);
+
+    var sut = new RaptorTraversalStrategy(rides - 2);
+    var result = sut.search(src, dst, weight, true, tn);
+    assertTrue(result.getTree().isEmpty());
+    assertEquals(rides - 1, result.getRoundCount());
+    sut = new RaptorTraversalStrategy(rides - 1);
+    List<Edge> bounded =
+        Graph.getRouteFromTraversal(sut.traversal(src, dst, weight, true, tn), src, dst);
+    assertEquals(travelTime(route, LocalTime.of(10, 0)), travelTime(bounded, LocalTime.of(10, 0)));
+  }
+
+  @Test
+  void walkSegmentsAreFollowed() {
+    var start = GeographicVertex.at(48.8, 2.3);
+    Stop first = tn.getStopByName("Lourmel");
+    Stop dst = tn.getStopByName("Commerce");
+    var walk = new WalkSegment(start, first);
+    tn.addWalkSegment(walk);
+    try {
+      var weight = new TravelTimeAsWeight(LocalTime.of(10, 0), tn);
+      var sut = new RaptorTraversalStrategy();
+      List<Edge> route =
+          Graph.getRouteFromTraversal(sut.traversal(start, dst, weight, true, tn), start, dst);
+      assertEquals(walk, route.get(0));
+      assertEquals(1, rideCount(route));
+    } finally {
+      tn.removeWalkSegment(walk);
+      tn.removeGeographicVertex(start);
+    }
+  }
+
+  @Test
+  void searchGivesTheTreeOfTheTraversal() {
+    Stop src = tn.getStopByName("Lourmel");
+    var weight = new TravelTimeAsWeight(LocalTime.of(10, 0), tn);
+    var sut = new RaptorTraversalStrategy();
+    assertEquals(
+        sut.traversal(src, null, weight, false, tn),
+        sut.search(src, null, weight, false, tn).getTree());
+  }
+
+  @Test
+  void routeKeysDependOnTheMaximumNumberOfTransfers() {
+    assertEquals(
+        new RaptorTraversalStrategy(3).getRouteKey(), new RaptorTraversalStrategy(3).getRouteKey());
+    assertNotEquals(
+        new RaptorTraversalStrategy(0).getRouteKey(), new RaptorTraversalStrategy(3).getRouteKey());
+  }
+}
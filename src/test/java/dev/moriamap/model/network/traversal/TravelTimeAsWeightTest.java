@@ -2,9 +2,12 @@ package dev.moriamap.model.network.traversal;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 import dev.moriamap.model.network.Edge;
 import dev.moriamap.model.network.GeographicPosition;
+import dev.moriamap.model.network.IndexedGraph;
 import dev.moriamap.model.network.Line;
 import dev.moriamap.model.network.Stop;
 import dev.moriamap.model.network.TransportNetwork;
@@ -12,8 +15,14 @@ import dev.moriamap.model.network.TransportSegment;
 import dev.moriamap.model.network.Variant;
 import dev.moriamap.model.network.Vertex;
 import dev.moriamap.model.network.WalkSegment;
+import dev.moriamap.model.parser.DepartureParser;
+import dev.moriamap.model.parser.InconsistentCSVException;
+import dev.moriamap.model.parser.TransportNetworkParser;
+import java.lang.management.ManagementFactory;
 import java.time.Duration;
 import java.time.LocalTime;
+import java.util.List;
+import java.util.Random;
 import org.junit.jupiter.api.Test;
 
 class TravelTimeAsWeightTest {
@@ -88,6 +97,8 @@ class TravelTimeAsWeightTest {
 
     var travelTimeAsWeight = new TravelTimeAsWeight(LocalTime.MIN, tn);
     assertEquals(184.0, travelTimeAsWeight.apply(0.0, ts1));
+    v1.addDeparture(LocalTime.of(0, 0, 1));
+    assertEquals(181.0, travelTimeAsWeight.apply(0.0, ts1));
   }
 
   @Test
@@ -100,4 +111,75 @@ class TravelTimeAsWeightTest {
     var travelTimeAsWeight = new TravelTimeAsWeight(LocalTime.MIN, tn);
     assertEquals(2.29356E7, travelTimeAsWeight.apply(0.0, ws));
   }
+
+  private static TransportNetwork testNetwork() throws InconsistentCSVException {
+    TransportNetwork tn =
+        TransportNetworkParser.generateFrom(
+            TravelTimeAsWeightTest.class.getResourceAsStream("/test_map_data.csv"));
+    DepartureParser.addDeparturesTo(
+        tn, TravelTimeAsWeightTest.class.getResourceAsStream("/test_timetables.csv"));
+    return tn;
+  }
+
+  @Test
+  void weightIsTheSameAsApply() throws InconsistentCSVException {
+    TransportNetwork tn = testNetwork();
+    IndexedGraph graph = tn.getIndexedGraph();
+    Random random = new Random(42);
+    for (LocalTime startTime :
+        List.of(LocalTime.MIN, LocalTime.of(23, 59, 30), LocalTime.of(8, 0, 0, 500))) {
+      var sut = new TravelTimeAsWeight(startTime, tn);
+      for (int i = 0; i < 20; i++) {
+        double current = random.nextInt(3 * 86_400);
+        for (int e = 0; e < graph.getEdgeCount(); e++)
+          assertEquals(sut.apply(current, graph.getEdge(e)), sut.weight(current, e, graph));
+      }
+    }
+  }
+
+  @Test
+  void weightOfUnknownEdgeThrowsException() {
+    Stop s1 = Stop.from("s1", GeographicPosition.SOUTH_POLE);
+    Stop s2 = Stop.from("s2", GeographicPosition.NORTH_POLE);
+    TransportNetwork tn = TransportNetwork.empty();
+    tn.addWalkSegment(new WalkSegment(s1, s2));
+    IndexedGraph graph = tn.getIndexedGraph();
+    var sut = new TravelTimeAsWeight(LocalTime.MIN, tn);
+    assertEquals(2.29356E7, sut.weight(0.0, 0, graph));
+    assertThrows(IndexOutOfBoundsException.class, () -> sut.weight(0.0, 1, graph));
+  }
+
+  @Test
+  void weighingEdgesByIdAllocatesNothing() throws InconsistentCSVException {
+    var threads = ManagementFactory.getThreadMXBean();
+    assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+    var allocations = (com.sun.management.ThreadMXBean) threads;
+    assumeTrue(allocations.isThreadAllocatedMemorySupported());
+    allocations.setThreadAllocatedMemoryEnabled(true);
+
+    TransportNetwork tn = testNetwork();
+    IndexedGraph graph = tn.getIndexedGraph();
+    var sut = new TravelTimeAsWeight(LocalTime.of(10, 0), tn);
+    int weighings = 100_000;
+    double sink = 0;
+    // Warm up, so that the measures do not count class loading and compilation
+    for (int i = 0; i < weighings; i++) {
+      sink += sut.weight(i % 86_400, i % graph.getEdgeCount(), graph);
+      sink += sut.apply((double) (i % 86_400), graph.getEdge(i % graph.getEdgeCount()));
+    }
+
+    long before = allocations.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < weighings; i++)
+      sink += sut.weight(i % 86_400, i % graph.getEdgeCount(), graph);
+    long byId = allocations.getCurrentThreadAllocatedBytes() - before;
+
+    before = allocations.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < weighings; i++)
+      sink += sut.apply((double) (i % 86_400), graph.getEdge(i % graph.getEdgeCount()));
+    long byObject = allocations.getCurrentThreadAllocatedBytes() - before;
+
+    assertTrue(sink > 0);
+    assertTrue(byId < weighings, "Bytes allocated by weight: " + byId);
+    assertTrue(byId < byObject, "Bytes allocated by weight: " + byId + ", by apply: " + byObject);
+  }
 }
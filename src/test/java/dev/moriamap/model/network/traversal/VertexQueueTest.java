@@ -0,0 +1,64 @@
+package dev.moriamap.model.network.traversal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class VertexQueueTest {
+
+  @Test
+  void negativeInitialCapacityThrowsException() {
+    assertThrows(IllegalArgumentException.class, () -> new VertexQueue(-1));
+  }
+
+  @Test
+  void pollOfEmptyQueueThrowsException() {
+    var sut = new VertexQueue(0);
+    assertTrue(sut.isEmpty());
+    assertThrows(NoSuchElementException.class, sut::poll);
+  }
+
+  @Test
+  void verticesArePolledBySmallestPriority() {
+    var sut = new VertexQueue(0);
+    sut.add(1, 3.0);
+    sut.add(2, 1.0);
+    sut.add(3, 2.0);
+    assertEquals(3, sut.size());
+    assertEquals(2, sut.poll());
+    assertEquals(3, sut.poll());
+    assertEquals(1, sut.poll());
+    assertTrue(sut.isEmpty());
+  }
+
+  @Test
+  void clearRemovesAllEntries() {
+    var sut = new VertexQueue(4);
+    sut.add(1, 1.0);
+    sut.clear();
+    assertTrue(sut.isEmpty());
+  }
+
+  @Test
+  void tiesArePolledInTheSameOrderAsPriorityQueue() {
+    record Entry(int vertex, double priority) {}
+    var random = new Random(42);
+    var sut = new VertexQueue(2);
+    var expected = new PriorityQueue<Entry>(Comparator.comparingDouble(Entry::priority));
+    for (int i = 0; i < 2000; i++) {
+      if (random.nextInt(3) == 0 && !sut.isEmpty()) {
+        assertEquals(expected.poll().vertex(), sut.poll());
+      } else {
+        double priority = random.nextInt(20);
+        sut.add(i, priority);
+        expected.add(new Entry(i, priority));
+      }
+    }
+    while (!expected.isEmpty()) assertEquals(expected.poll().vertex(), sut.poll());
+    assertTrue(sut.isEmpty());
+  }
+}
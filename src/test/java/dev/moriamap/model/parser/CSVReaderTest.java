@@ -0,0 +1,128 @@
+package dev.moriamap.model.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CSVReaderTest {
+
+  // Returns the fields of all the records of content
+  private static List<List<String>> readAll(InputStream content)
+      throws IOException, InconsistentCSVException {
+    List<List<String>> res = new ArrayList<>();
+    try (CSVReader reader = CSVReader.of(content, ';')) {
+      while (reader.next()) {
+        List<String> fields = new ArrayList<>();
+        for (int i = 0; i < reader.getFieldCount(); i++) fields.add(reader.getField(i));
+        res.add(fields);
+      }
+    }
+    return res;
+  }
+
+  private static List<List<String>> readAll(String content)
+      throws IOException, InconsistentCSVException {
+    return readAll(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  void ofNullStreamThrowsException() {
+    assertThrows(IllegalArgumentException.class, () -> CSVReader.of(null, ';'));
+  }
+
+  @Test
+  void ofNewlineOrNonAsciiDelimiterThrowsException() {
+    InputStream in = new ByteArrayInputStream(new byte[0]);
+    assertThrows(IllegalArgumentException.class, () -> CSVReader.of(in, '\n'));
+    assertThrows(IllegalArgumentException.class, () -> CSVReader.of(in, 'é'));
+  }
+
+  @Test
+  void readsRecordsWithOrWithoutFinalNewline() throws Exception {
+    List<List<String>> expected = List.of(List.of("a", "b"), List.of("c", "d"));
+    assertEquals(expected, readAll("a;b\nc;d"));
+    assertEquals(expected, readAll("a;b\nc;d\n"));
+    assertEquals(expected, readAll("a;b\r\nc;d\r\n"));
+    assertEquals(List.of(), readAll(""));
+  }
+
+  @Test
+  void fieldsAreTheSameAsParseCSVLine() throws Exception {
+    String line = "a;;b;c;;";
+    assertEquals(List.of(CSVParser.parseCSVLine(line, ";")), readAll(line));
+  }
+
+  @Test
+  void emptyRecordThrowsException() {
+    assertThrows(InconsistentCSVException.class, () -> readAll("a;b\n\nc;d\n"));
+  }
+
+  @Test
+  void recordWithAnotherFieldCountThrowsException() {
+    assertThrows(InconsistentCSVException.class, () -> readAll("a;b\nc;d;e\n"));
+  }
+
+  @Test
+  void recordNumberCountsTheRecordsRead() throws Exception {
+    try (CSVReader reader = CSVReader.of(new ByteArrayInputStream("a\nb\n".getBytes()), ';')) {
+      assertEquals(0, reader.getRecordNumber());
+      assertTrue(reader.next());
+      assertTrue(reader.next());
+      assertEquals(2, reader.getRecordNumber());
+      assertFalse(reader.next());
+    }
+  }
+
+  @Test
+  void getFieldOutOfRangeThrowsException() throws Exception {
+    try (CSVReader reader = CSVReader.of(new ByteArrayInputStream("a;b".getBytes()), ';')) {
+      assertTrue(reader.next());
+      assertThrows(IndexOutOfBoundsException.class, () -> reader.getField(2));
+      assertThrows(IndexOutOfBoundsException.class, () -> reader.getField(-1));
+    }
+  }
+
+  @Test
+  void readsRecordsLargerThanTheBufferAndSplitAcrossReads() throws Exception {
+    String large = "é".repeat(100_000);
+    StringBuilder content = new StringBuilder();
+    List<List<String>> expected = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      String field = i % 100 == 0 ? large : "arrêt " + i;
+      content.append(field).append(';').append(i).append("\r\n");
+      expected.add(List.of(field, Integer.toString(i)));
+    }
+    // A stream returning a few bytes per read, so that records and characters are split
+    InputStream in =
+        new ByteArrayInputStream(content.toString().getBytes(StandardCharsets.UTF_8)) {
+          @Override
+          public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 7));
+          }
+        };
+    assertEquals(expected, readAll(in));
+  }
+
+  @Test
+  void readsTheSameFieldsAsParseCSVLineOnEachLine() throws Exception {
+    List<List<String>> expected = new ArrayList<>();
+    try (BufferedReader lines =
+        new BufferedReader(
+            new InputStreamReader(
+                CSVReaderTest.class.getResourceAsStream("/test_timetables.csv"),
+                StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = lines.readLine()) != null) expected.add(CSVParser.parseCSVLine(line, ";"));
+    }
+    assertEquals(
+        expected, readAll(CSVReaderTest.class.getResourceAsStream("/test_timetables.csv")));
+  }
+}
@@ -0,0 +1,138 @@
+package dev.moriamap.model.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.moriamap.model.network.GeographicPosition;
+import dev.moriamap.model.network.Line;
+import dev.moriamap.model.network.Stop;
+import dev.moriamap.model.network.TransportNetwork;
+import dev.moriamap.model.network.TransportSegment;
+import dev.moriamap.model.network.Variant;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class NetworkBuilderTest {
+
+  private static TransportSegmentRecord record(
+      String from, double fromLatitude, String to, String lineName, String variantName) {
+    return new TransportSegmentRecord(
+        from, 2.0, fromLatitude, to, 2.0, 48.5, lineName, variantName, Duration.ofMinutes(2), 1.5);
+  }
+
+  @Test
+  void addNullThrowsException() {
+    NetworkBuilder builder = NetworkBuilder.create();
+    assertThrows(IllegalArgumentException.class, () -> builder.add(null));
+  }
+
+  @Test
+  void builderCannotBeUsedAfterBuild() {
+    NetworkBuilder builder = NetworkBuilder.create();
+    builder.build();
+    assertThrows(IllegalStateException.class, builder::build);
+    TransportSegmentRecord r = record("a", 48.0, "b", "1", "0");
+    assertThrows(IllegalStateException.class, () -> builder.add(r));
+  }
+
+  @Test
+  void duplicateRecordsAreAddedOnce() {
+    NetworkBuilder builder = NetworkBuilder.create();
+    assertTrue(builder.add(record("a", 48.0, "b", "1", "0")));
+    assertFalse(builder.add(record("a", 48.0, "b", "1", "0")));
+    TransportNetwork tn = builder.build();
+    assertEquals(2, tn.getStops().size());
+    assertEquals(1, tn.getTransportSegments().size());
+    assertEquals(1, tn.getVariants().get(0).getTransportSegments().size());
+  }
+
+  @Test
+  void stopKeepsThePositionOfItsFirstRecord() {
+    NetworkBuilder builder = NetworkBuilder.create();
+    builder.add(record("a", 48.0, "b", "1", "0"));
+    builder.add(record("a", 47.0, "c", "1", "1"));
+    TransportNetwork tn = builder.build();
+    assertEquals(3, tn.getStops().size());
+    assertEquals(48.0, tn.getStopByName("a").getGeographicPosition().getLatitude());
+  }
+
+  @Test
+  void linesVariantsAndSegmentsAreInTheOrderOfTheirFirstRecord() {
+    NetworkBuilder builder = NetworkBuilder.create();
+    builder.add(record("b", 48.0, "c", "2", "0"));
+    builder.add(record("a", 48.0, "b", "1", "1"));
+    builder.add(record("a", 48.0, "b", "2", "1"));
+    builder.add(record("c", 48.0, "d", "2", "0"));
+    TransportNetwork tn = builder.build();
+    assertEquals(List.of("2", "1"), tn.getLines().stream().map(Line::getName).toList());
+    Line line = tn.findLine("2");
+    assertEquals(List.of("0", "1"), line.getVariants().stream().map(Variant::getName).toList());
+    assertEquals(
+        List.of("b", "c"),
+        line.getVariantNamed("0").getTransportSegments().stream()
+            .map(ts -> ((Stop) ts.getFrom()).getName())
+            .toList());
+  }
+
+  @Test
+  void builtNetworkIsTheSameAsAddingRecordsOneByOne() throws InconsistentCSVException {
+    InputStream resource = NetworkBuilderTest.class.getResourceAsStream("/test_map_data.csv");
+    List<TransportSegmentRecord> records =
+        TransportSegmentRecord.fromTuples(CSVParser.extractLines(resource));
+    TransportNetwork expected = TransportNetwork.empty();
+    for (TransportSegmentRecord t : records) {
+      Stop from = addStopHelper(expected, t.fromName(), t.fromLatitude(), t.fromLongitude());
+      Stop to = addStopHelper(expected, t.toName(), t.toLatitude(), t.toLongitude());
+      if (expected.findLine(t.lineName()) == null) expected.addLine(Line.of(t.lineName()));
+      Line line = expected.findLine(t.lineName());
+      if (!line.containsVariantNamed(t.variantName()))
+        line.addVariant(Variant.empty(t.variantName(), t.lineName()));
+      TransportSegment segment =
+          TransportSegment.from(
+              from, to, t.lineName(), t.variantName(), t.duration(), t.distance());
+      expected.addTransportSegment(segment);
+      line.getVariantNamed(t.variantName()).addTransportSegment(segment);
+    }
+    NetworkBuilder builder = NetworkBuilder.create();
+    for (TransportSegmentRecord t : records) builder.add(t);
+    TransportNetwork tn = builder.build();
+    assertEquals(expected.getLines(), tn.getLines());
+    assertEquals(new HashSet<>(expected.getStops()), new HashSet<>(tn.getStops()));
+    assertEquals(
+        new HashSet<>(expected.getTransportSegments()), new HashSet<>(tn.getTransportSegments()));
+  }
+
+  @Test
+  void longVariantsAreBuilt() {
+    NetworkBuilder builder = NetworkBuilder.create();
+    int length = 50_000;
+    for (int i = 0; i < length; i++)
+      builder.add(
+          new TransportSegmentRecord(
+              "s" + i,
+              2.0,
+              48.0 + i * 1e-5,
+              "s" + (i + 1),
+              2.0,
+              48.0 + (i + 1) * 1e-5,
+              "1",
+              "0",
+              Duration.ofMinutes(1),
+              0.1));
+    TransportNetwork tn = builder.build();
+    assertEquals(length + 1, tn.getStops().size());
+    assertEquals(length, tn.findVariant("1", "0").getTransportSegments().size());
+  }
+
+  private static Stop addStopHelper(
+      TransportNetwork tn, String name, double latitude, double longitude) {
+    Stop stop = tn.getStopByName(name);
+    if (stop == null) {
+      stop = Stop.from(name, GeographicPosition.at(latitude, longitude));
+      tn.addStop(stop);
+    }
+    return stop;
+  }
+}
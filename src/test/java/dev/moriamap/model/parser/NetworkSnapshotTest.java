@@ -0,0 +1,132 @@
+package dev.moriamap.model.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.moriamap.model.network.Edge;
+import dev.moriamap.model.network.GeographicPosition;
+import dev.moriamap.model.network.Stop;
+import dev.moriamap.model.network.TransportNetwork;
+import dev.moriamap.model.network.Variant;
+import dev.moriamap.model.network.Vertex;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class NetworkSnapshotTest {
+
+  @TempDir Path dir;
+
+  private TransportNetwork network;
+  private Path snapshot;
+
+  @BeforeEach
+  void writeSnapshot() throws InconsistentCSVException, IOException {
+    try (InputStream map = NetworkSnapshotTest.class.getResourceAsStream("/test_map_data.csv");
+        InputStream departures =
+            NetworkSnapshotTest.class.getResourceAsStream("/test_timetables.csv")) {
+      this.network = TransportNetworkParser.generateFrom(map);
+      DepartureParser.addDeparturesTo(this.network, departures);
+    }
+    this.snapshot = this.dir.resolve("network.snapshot");
+    NetworkSnapshot.write(this.network, this.snapshot);
+  }
+
+  @Test
+  void decodedNetworkIsTheSameAsTheWrittenOne() throws IOException {
+    TransportNetwork tn = NetworkSnapshot.open(this.snapshot).toTransportNetwork();
+    assertEquals(this.network.getStops(), tn.getStops());
+    assertEquals(this.network.getTransportSegments(), tn.getTransportSegments());
+    for (Vertex v : this.network.getVertices())
+      assertEquals(
+          this.network.getOutgoingEdgesOf(v).stream().map(Edge::getTo).toList(),
+          tn.getOutgoingEdgesOf(v).stream().map(Edge::getTo).toList());
+    for (Stop stop : this.network.getStops())
+      assertEquals(
+          stop.getGeographicPosition(), tn.getStopByName(stop.getName()).getGeographicPosition());
+    List<Variant> expected = this.network.getVariants();
+    List<Variant> actual = tn.getVariants();
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).getName(), actual.get(i).getName());
+      assertEquals(expected.get(i).getLineName(), actual.get(i).getLineName());
+      assertEquals(expected.get(i).getTransportSegments(), actual.get(i).getTransportSegments());
+      assertEquals(expected.get(i).getDepartures(), actual.get(i).getDepartures());
+    }
+  }
+
+  @Test
+  void variantSegmentsAreTheSegmentsOfTheNetwork() throws IOException {
+    TransportNetwork tn = NetworkSnapshot.open(this.snapshot).toTransportNetwork();
+    Variant v = tn.getVariants().get(0);
+    Stop start = v.getStart();
+    assertSame(
+        v.getOutgoingSegment(start),
+        tn.getOutgoingEdgesOf(start).stream()
+            .filter(e -> e.equals(v.getOutgoingSegment(start)))
+            .findFirst()
+            .orElseThrow());
+  }
+
+  @Test
+  void stopsAreReadFromTheSnapshot() throws IOException {
+    NetworkSnapshot snap = NetworkSnapshot.open(this.snapshot);
+    assertEquals(this.network.getStops().size(), snap.getStopCount());
+    for (Stop stop : this.network.getStops()) {
+      int id = snap.findStop(stop.getName());
+      assertEquals(stop.getName(), snap.getStopName(id));
+      assertEquals(stop.getGeographicPosition(), snap.getStopPosition(id));
+    }
+    assertEquals(-1, snap.findStop("No such stop"));
+    assertThrows(IndexOutOfBoundsException.class, () -> snap.getStopName(snap.getStopCount()));
+  }
+
+  @Test
+  void stopNamesAreDecodedFromUtf8() throws IOException {
+    TransportNetwork tn = TransportNetwork.empty();
+    tn.addStop(Stop.from("Gare de l'Est (Verdun)", GeographicPosition.at(48.87, 2.36)));
+    tn.addStop(Stop.from("Châtelet", GeographicPosition.at(48.85, 2.34)));
+    Path file = this.dir.resolve("utf8.snapshot");
+    NetworkSnapshot.write(tn, file);
+    NetworkSnapshot snap = NetworkSnapshot.open(file);
+    assertEquals("Châtelet", snap.getStopName(snap.findStop("Châtelet")));
+  }
+
+  @Test
+  void isSnapshotIsFalseForCSVFiles() throws IOException {
+    Path csv = this.dir.resolve("map.csv");
+    Files.writeString(csv, "a;b\n");
+    assertTrue(NetworkSnapshot.isSnapshot(this.snapshot));
+    assertFalse(NetworkSnapshot.isSnapshot(csv));
+    assertThrows(IOException.class, () -> NetworkSnapshot.open(csv));
+  }
+
+  @Test
+  void snapshotOfAnotherVersionCannotBeOpened() throws IOException {
+    byte[] bytes = Files.readAllBytes(this.snapshot);
+    ByteBuffer.wrap(bytes).putInt(Integer.BYTES, NetworkSnapshot.VERSION + 1);
+    Path other = Files.write(this.dir.resolve("other.snapshot"), bytes);
+    assertTrue(NetworkSnapshot.isSnapshot(other));
+    assertThrows(IOException.class, () -> NetworkSnapshot.open(other));
+  }
+
+  @Test
+  void truncatedSnapshotCannotBeOpened() throws IOException {
+    byte[] bytes = Files.readAllBytes(this.snapshot);
+    Path truncated =
+        Files.write(this.dir.resolve("truncated.snapshot"), Arrays.copyOf(bytes, bytes.length - 1));
+    assertThrows(IOException.class, () -> NetworkSnapshot.open(truncated));
+  }
+
+  @Test
+  void writeNullThrowsException() {
+    assertThrows(NullPointerException.class, () -> NetworkSnapshot.write(null, this.snapshot));
+    assertThrows(NullPointerException.class, () -> NetworkSnapshot.write(this.network, null));
+  }
+}
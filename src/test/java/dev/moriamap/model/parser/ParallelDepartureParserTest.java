@@ -0,0 +1,107 @@
+package dev.moriamap.model.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.moriamap.model.network.TransportNetwork;
+import dev.moriamap.model.network.Variant;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ParallelDepartureParserTest {
+
+  @TempDir Path dir;
+
+  private static TransportNetwork newTransportNetworkHelper() throws InconsistentCSVException {
+    return TransportNetworkParser.generateFrom(
+        ParallelDepartureParserTest.class.getResourceAsStream("/test_map_data.csv"));
+  }
+
+  private static String timetablesHelper() throws IOException {
+    try (var in = ParallelDepartureParserTest.class.getResourceAsStream("/test_timetables.csv")) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private Path writeHelper(String name, String content) throws IOException {
+    return Files.writeString(this.dir.resolve(name), content, StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void addDeparturesToNullNetworkThrowsException() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> ParallelDepartureParser.addDeparturesTo(null, List.of()));
+  }
+
+  @Test
+  void addDeparturesFromNullListThrowsException() throws InconsistentCSVException {
+    TransportNetwork tn = newTransportNetworkHelper();
+    assertThrows(
+        NullPointerException.class, () -> ParallelDepartureParser.addDeparturesTo(tn, null));
+  }
+
+  @Test
+  void departuresAreTheSameAsWithDepartureParser() throws Exception {
+    String content = timetablesHelper();
+    TransportNetwork expected = newTransportNetworkHelper();
+    DepartureParser.addDeparturesTo(
+        expected, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    Path file = writeHelper("timetables.csv", content);
+    for (int chunkSize : new int[] {1, 20, 64, ParallelDepartureParser.MIN_CHUNK_SIZE}) {
+      TransportNetwork tn = newTransportNetworkHelper();
+      ParallelDepartureParser.addDeparturesTo(tn, List.of(file), chunkSize);
+      assertEquals(expected.getLines(), tn.getLines());
+    }
+  }
+
+  @Test
+  void filesAreAddedInOrder() throws Exception {
+    List<String> lines = timetablesHelper().lines().toList();
+    String first = String.join("\r\n", lines.subList(0, lines.size() / 2));
+    String second = String.join("\n", lines.subList(lines.size() / 2, lines.size()));
+    TransportNetwork expected = newTransportNetworkHelper();
+    for (String content : List.of(second, first))
+      DepartureParser.addDeparturesTo(
+          expected, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    TransportNetwork tn = newTransportNetworkHelper();
+    ParallelDepartureParser.addDeparturesTo(
+        tn, List.of(writeHelper("second.csv", second), writeHelper("first.csv", first)), 30);
+    assertEquals(expected.getLines(), tn.getLines());
+  }
+
+  @Test
+  void noDepartureIsAddedIfAFileIsInconsistent() throws Exception {
+    Path good = writeHelper("good.csv", timetablesHelper());
+    Path bad = writeHelper("bad.csv", "8;Lourmel;10:12;1\n8;Balard;10:22;1\n");
+    TransportNetwork tn = newTransportNetworkHelper();
+    List<Path> files = List.of(good, bad);
+    assertThrows(
+        InconsistentCSVException.class,
+        () -> ParallelDepartureParser.addDeparturesTo(tn, files, 1));
+    for (Variant v : tn.getVariants()) assertTrue(v.getDepartures().isEmpty());
+  }
+
+  @Test
+  void unknownLineThrowsException() throws Exception {
+    Path file = writeHelper("unknown.csv", "404;Lourmel;10:12;1\n");
+    TransportNetwork tn = newTransportNetworkHelper();
+    List<Path> files = List.of(file);
+    assertThrows(
+        InconsistentCSVException.class, () -> ParallelDepartureParser.addDeparturesTo(tn, files));
+  }
+
+  @Test
+  void missingFileThrowsException() throws InconsistentCSVException {
+    TransportNetwork tn = newTransportNetworkHelper();
+    List<Path> files = List.of(this.dir.resolve("missing.csv"));
+    assertThrows(
+        UncheckedIOException.class, () -> ParallelDepartureParser.addDeparturesTo(tn, files));
+  }
+}
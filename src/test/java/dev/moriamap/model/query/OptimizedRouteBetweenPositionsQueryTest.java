@@ -1,15 +1,29 @@
 package dev.moriamap.model.query;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import dev.moriamap.model.network.GeographicVertex;
+import dev.moriamap.model.network.IndexedGraph;
 import dev.moriamap.model.network.TransportNetwork;
+import dev.moriamap.model.network.traversal.ConnectionScanTraversalStrategy;
+import dev.moriamap.model.network.traversal.DijkstraTraversalStrategy;
+import dev.moriamap.model.network.traversal.RaptorTraversalStrategy;
 import dev.moriamap.model.network.traversal.RouteOptimization;
 import dev.moriamap.model.parser.DepartureParser;
 import dev.moriamap.model.parser.InconsistentCSVException;
 import dev.moriamap.model.parser.TransportNetworkParser;
 import java.io.InputStream;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 
@@ -94,4 +108,185 @@ class OptimizedRouteBetweenPositionsQueryTest {
             LocalTime.MIN);
     assertDoesNotThrow(() -> query.run(tn));
   }
+
+  @Test
+  void customTraversalStrategyGivesSameArrivalAsDefault() throws QueryFailureException {
+    var start = tn.getStopByName("Lourmel");
+    var target = tn.getStopByName("Porte de Charenton");
+    OptimizedRouteBetweenPositionsQuery defaultQuery =
+        new OptimizedRouteBetweenPositionsQuery(
+            null, start, target, RouteOptimization.TIME, LocalTime.of(10, 0));
+    OptimizedRouteBetweenPositionsQuery dijkstraQuery =
+        new OptimizedRouteBetweenPositionsQuery(
+            null,
+            start,
+            target,
+            RouteOptimization.TIME,
+            LocalTime.of(10, 0),
+            new DijkstraTraversalStrategy());
+    assertEquals(dijkstraQuery.run(tn), defaultQuery.run(tn));
+  }
+
+  @Test
+  void connectionScanGivesSameRouteDescriptionAsDefault() throws QueryFailureException {
+    var start = tn.getStopByName("Lourmel");
+    var target = tn.getStopByName("Porte de Charenton");
+    OptimizedRouteBetweenPositionsQuery defaultQuery =
+        new OptimizedRouteBetweenPositionsQuery(
+            null, start, target, RouteOptimization.TIME, LocalTime.of(10, 0));
+    OptimizedRouteBetweenPositionsQuery scanQuery =
+        new OptimizedRouteBetweenPositionsQuery(
+            null,
+            start,
+            target,
+            RouteOptimization.TIME,
+            LocalTime.of(10, 0),
+            new ConnectionScanTraversalStrategy());
+    assertEquals(defaultQuery.run(tn), scanQuery.run(tn));
+  }
+
+  @Test
+  void raptorGivesSameArrivalAsDefault() throws QueryFailureException {
+    var start = tn.getStopByName("Lourmel");
+    var target = tn.getStopByName("Porte de Charenton");
+    OptimizedRouteBetweenPositionsQuery defaultQuery =
+        new OptimizedRouteBetweenPositionsQuery(
+            null, start, target, RouteOptimization.TIME, LocalTime.of(10, 0));
+    OptimizedRouteBetweenPositionsQuery raptorQuery =
+        new OptimizedRouteBetweenPositionsQuery(
+            null,
+            start,
+            target,
+            RouteOptimization.TIME,
+            LocalTime.of(10, 0),
+            new RaptorTraversalStrategy());
+    String expected = defaultQuery.run(tn);
+    String result = raptorQuery.run(tn);
+    assertEquals(
+        expected.substring(expected.lastIndexOf("Arrival")),
+        result.substring(result.lastIndexOf("Arrival")));
+  }
+
+  @Test
+  void raptorWithTooFewTransfersThrowsQueryFailureException() {
+    var start = tn.getStopByName("Lourmel");
+    var target = tn.getStopByName("Porte de Charenton");
+    OptimizedRouteBetweenPositionsQuery query =
+        new OptimizedRouteBetweenPositionsQuery(
+            null,
+            start,
+            target,
+            RouteOptimization.TIME,
+            LocalTime.of(10, 0),
+            new RaptorTraversalStrategy(0));
+    assertThrows(QueryFailureException.class, () -> query.run(tn));
+  }
+
+  @Test
+  void connectionScanBetweenTwoGVsSucceeds() {
+    OptimizedRouteBetweenPositionsQuery query =
+        new OptimizedRouteBetweenPositionsQuery(
+            null,
+            GeographicVertex.at(0, 0),
+            GeographicVertex.at(1, 1),
+            RouteOptimization.TIME,
+            LocalTime.MIN,
+            new ConnectionScanTraversalStrategy());
+    assertDoesNotThrow(() -> query.run(tn));
+    assertEquals(0, tn.getWalkSegments().size());
+  }
+
+  @Test
+  void connectionScanOptimizingDistanceThrowsQueryFailureException() {
+    var start = tn.getStopByName("Lourmel");
+    var target = tn.getStopByName("Porte de Charenton");
+    OptimizedRouteBetweenPositionsQuery query =
+        new OptimizedRouteBetweenPositionsQuery(
+            null,
+            start,
+            target,
+            RouteOptimization.DISTANCE,
+            LocalTime.MIN,
+            new ConnectionScanTraversalStrategy());
+    assertThrows(QueryFailureException.class, () -> query.run(tn));
+  }
+
+  @Test
+  void nullTraversalStrategyThrowsException() {
+    var start = tn.getStopByName("Lourmel");
+    var target = tn.getStopByName("Porte de Charenton");
+    assertThrows(
+        NullPointerException.class,
+        () ->
+            new OptimizedRouteBetweenPositionsQuery(
+                null, start, target, RouteOptimization.TIME, LocalTime.MIN, null));
+  }
+
+  @Test
+  void queriesOnFrozenNetworkGiveTheSameResultsAndDoNotChangeIt() throws QueryFailureException {
+    TransportNetwork frozen = tn.freeze();
+    int vertexCount = frozen.getVertices().size();
+    int edgeCount = frozen.getEdges().size();
+    for (var optimization : RouteOptimization.values()) {
+      var start = GeographicVertex.at(48.84, 2.29);
+      var target = tn.getStopByName("Porte de Charenton");
+      var query =
+          new OptimizedRouteBetweenPositionsQuery(
+              null, start, target, optimization, LocalTime.of(10, 0));
+      assertEquals(query.run(tn), query.run(frozen));
+    }
+    assertEquals(vertexCount, frozen.getVertices().size());
+    assertEquals(edgeCount, frozen.getEdges().size());
+  }
+
+  @Test
+  void queryWithWalkDoesNotChangeTheNetworkOrItsIndexedGraph() throws QueryFailureException {
+    IndexedGraph indexedGraph = tn.getIndexedGraph();
+    int vertexCount = tn.getVertices().size();
+    var query =
+        new OptimizedRouteBetweenPositionsWithWalkQuery(
+            null,
+            GeographicVertex.at(48.84, 2.29),
+            tn.getStopByName("Porte de Charenton"),
+            RouteOptimization.TIME,
+            LocalTime.of(10, 0));
+    String result = query.run(tn);
+    assertTrue(tn.getWalkSegments().isEmpty());
+    assertEquals(vertexCount, tn.getVertices().size());
+    assertSame(indexedGraph, tn.getIndexedGraph());
+    assertEquals(result, query.run(tn));
+  }
+
+  // Returns the result of query on network, or the message of its failure
+  private static String runOrError(Query query, TransportNetwork network) {
+    try {
+      return query.run(network);
+    } catch (QueryFailureException e) {
+      return "Error: " + e.getMessage();
+    }
+  }
+
+  @Test
+  void concurrentQueriesOnFrozenNetworkGiveTheSameResults() throws Exception {
+    TransportNetwork frozen = tn.freeze();
+    List<String> stopNames = List.of("Lourmel", "Porte de Charenton", "Commerce", "Bastille");
+    List<Callable<String>> queries = new ArrayList<>();
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      var start = GeographicVertex.at(48.83 + i * 0.001, 2.28 + i * 0.002);
+      var target = frozen.getStopByName(stopNames.get(i % stopNames.size()));
+      var time = LocalTime.of(i % 24, 0);
+      var optimization = RouteOptimization.values()[i % 2];
+      var query = new OptimizedRouteBetweenPositionsQuery(null, start, target, optimization, time);
+      expected.add(runOrError(query, frozen));
+      queries.add(() -> runOrError(query, frozen));
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> results = executor.invokeAll(queries);
+      for (int i = 0; i < results.size(); i++) assertEquals(expected.get(i), results.get(i).get());
+    } finally {
+      executor.shutdown();
+    }
+  }
 }
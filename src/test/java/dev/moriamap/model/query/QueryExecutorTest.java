@@ -0,0 +1,174 @@
+package dev.moriamap.model.query;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.moriamap.model.network.GeographicVertex;
+import dev.moriamap.model.network.Stop;
+import dev.moriamap.model.network.TransportNetwork;
+import dev.moriamap.model.network.traversal.RouteOptimization;
+import dev.moriamap.model.parser.DepartureParser;
+import dev.moriamap.model.parser.InconsistentCSVException;
+import dev.moriamap.model.parser.TransportNetworkParser;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryExecutorTest {
+  private final TransportNetwork tn;
+
+  {
+    try {
+      tn =
+          TransportNetworkParser.generateFrom(
+              QueryExecutorTest.class.getResourceAsStream("/test_map_data.csv"));
+      DepartureParser.addDeparturesTo(
+          tn, QueryExecutorTest.class.getResourceAsStream("/test_timetables.csv"));
+    } catch (InconsistentCSVException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  // A Query counting how many queries of its kind run at the same time
+  private static final class CountingQuery extends Query {
+    private final AtomicInteger running;
+    private final AtomicInteger maxRunning;
+
+    private CountingQuery(AtomicInteger running, AtomicInteger maxRunning) {
+      super(null);
+      this.running = running;
+      this.maxRunning = maxRunning;
+    }
+
+    @Override
+    protected String run(TransportNetwork network) {
+      int count = this.running.incrementAndGet();
+      this.maxRunning.accumulateAndGet(count, Math::max);
+      try {
+        Thread.sleep(5);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      this.running.decrementAndGet();
+      return "done";
+    }
+  }
+
+  // Returns the i-th query of a mix of every kind of query, writing to out
+  private Query newQuery(int i, OutputStream out) {
+    List<Stop> stops = new ArrayList<>(tn.getStops());
+    stops.sort((s1, s2) -> s1.getName().compareTo(s2.getName()));
+    Stop start = stops.get(i % stops.size());
+    Stop target = stops.get((7 * i + 3) % stops.size());
+    LocalTime time = LocalTime.of(i % 24, (13 * i) % 60);
+    RouteOptimization optimization = RouteOptimization.values()[i % 2];
+    return switch (i % 5) {
+      case 0 -> new TransportSchedulesQuery(out, start.getName());
+      case 1 -> new RouteBetweenStopsQuery(out, start.getName(), target.getName());
+      case 2 -> new OptimizedRouteBetweenPositionsQuery(out, start, target, optimization, time);
+      case 3 -> new OptimizedRouteBetweenPositionsQuery(
+          out,
+          GeographicVertex.at(48.83 + i * 0.0005, 2.28 + i * 0.001),
+          target,
+          optimization,
+          time);
+      default -> new OptimizedRouteBetweenPositionsWithWalkQuery(
+          out,
+          GeographicVertex.at(48.83 + i * 0.0005, 2.28 + i * 0.001),
+          target,
+          optimization,
+          time);
+    };
+  }
+
+  @Test
+  void concurrentResultsMatchSequentialResults() throws InterruptedException {
+    int count = 300;
+    TransportNetwork frozen = tn.freeze();
+    // Some queries fail with an exception rather than an error message, in both cases
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      try {
+        expected.add(newQuery(i, null).executeForResult(frozen));
+      } catch (RuntimeException e) {
+        expected.add(e.toString());
+      }
+    }
+    List<ByteArrayOutputStream> outs = new ArrayList<>();
+    List<Future<String>> futures = new ArrayList<>();
+    try (QueryExecutor executor = QueryExecutor.of(frozen, 8)) {
+      for (int i = 0; i < count; i++) {
+        outs.add(new ByteArrayOutputStream());
+        futures.add(executor.submit(newQuery(i, outs.get(i))));
+      }
+      for (int i = 0; i < count; i++) {
+        try {
+          assertEquals(expected.get(i), futures.get(i).get(), "query " + i);
+          // The stream holds the bytes of the result, in the default charset
+          assertArrayEquals(expected.get(i).getBytes(), outs.get(i).toByteArray(), "query " + i);
+        } catch (ExecutionException e) {
+          assertEquals(expected.get(i), e.getCause().toString(), "query " + i);
+        }
+      }
+    }
+  }
+
+  @Test
+  void executeAllGivesResultsInOrder() throws InterruptedException {
+    List<Query> queries = new ArrayList<>();
+    for (String name : List.of("Lourmel", "Commerce", "Nowhere"))
+      queries.add(new TransportSchedulesQuery(null, name));
+    List<String> expected = new ArrayList<>();
+    for (Query query : queries) expected.add(query.executeForResult(tn));
+    try (QueryExecutor executor = QueryExecutor.of(tn, 2)) {
+      assertEquals(expected, executor.executeAll(queries));
+    }
+  }
+
+  @Test
+  void atMostParallelismQueriesRunAtTheSameTime() throws Exception {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    List<Future<String>> futures = new ArrayList<>();
+    try (QueryExecutor executor = QueryExecutor.of(tn.freeze(), 3)) {
+      for (int i = 0; i < 40; i++)
+        futures.add(executor.submit(new CountingQuery(running, maxRunning)));
+      for (Future<String> future : futures) assertEquals("done\n", future.get());
+    }
+    assertTrue(maxRunning.get() <= 3);
+    assertTrue(maxRunning.get() >= 1);
+  }
+
+  @Test
+  void queriesRunOnTheFrozenNetwork() {
+    try (QueryExecutor executor = QueryExecutor.of(tn)) {
+      assertTrue(executor.getNetwork().isFrozen());
+      assertEquals(Runtime.getRuntime().availableProcessors(), executor.getParallelism());
+    }
+  }
+
+  @Test
+  void closedExecutorRejectsQueries() {
+    QueryExecutor executor = QueryExecutor.of(tn.freeze(), 1);
+    executor.close();
+    Query query = new TransportSchedulesQuery(null, "Lourmel");
+    assertThrows(RejectedExecutionException.class, () -> executor.submit(query));
+  }
+
+  @Test
+  void invalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> QueryExecutor.of(tn, 0));
+    assertThrows(NullPointerException.class, () -> QueryExecutor.of(null, 1));
+    try (QueryExecutor executor = QueryExecutor.of(tn.freeze(), 1)) {
+      assertThrows(NullPointerException.class, () -> executor.submit(null));
+    }
+  }
+}
@@ -0,0 +1,230 @@
+package dev.moriamap.model.query;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.moriamap.model.network.Stop;
+import dev.moriamap.model.network.TransportNetwork;
+import dev.moriamap.model.network.traversal.HeapDijkstraTraversalStrategy;
+import dev.moriamap.model.network.traversal.RaptorTraversalStrategy;
+import dev.moriamap.model.network.traversal.RouteOptimization;
+import dev.moriamap.model.network.traversal.TraversalStrategy;
+import dev.moriamap.model.parser.DepartureParser;
+import dev.moriamap.model.parser.InconsistentCSVException;
+import dev.moriamap.model.parser.TransportNetworkParser;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+
+class RouteCacheTest {
+
+  // A Clock that only moves when told to
+  private static final class ManualClock extends Clock {
+    private Instant instant = Instant.EPOCH;
+
+    private void advance(Duration duration) {
+      this.instant = this.instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Instant instant() {
+      return this.instant;
+    }
+  }
+
+  private final ManualClock clock = new ManualClock();
+
+  private static TransportNetwork newTransportNetwork() {
+    try {
+      TransportNetwork tn =
+          TransportNetworkParser.generateFrom(
+              RouteCacheTest.class.getResourceAsStream("/test_map_data.csv"));
+      DepartureParser.addDeparturesTo(
+          tn, RouteCacheTest.class.getResourceAsStream("/test_timetables.csv"));
+      return tn;
+    } catch (InconsistentCSVException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  // Runs a query from Lourmel to Commerce in tn, with the given cache, and returns its output
+  private static String route(
+      TransportNetwork tn, RouteOptimization optimization, LocalTime startTime, RouteCache cache)
+      throws QueryFailureException {
+    return route(tn, optimization, startTime, new HeapDijkstraTraversalStrategy(), cache);
+  }
+
+  // Runs a query from Lourmel to Commerce in tn, with the given strategy and cache, and returns its
+  // output
+  private static String route(
+      TransportNetwork tn,
+      RouteOptimization optimization,
+      LocalTime startTime,
+      TraversalStrategy strategy,
+      RouteCache cache)
+      throws QueryFailureException {
+    Stop start = tn.getStopByName("Lourmel");
+    Stop target = tn.getStopByName("Commerce");
+    return new OptimizedRouteBetweenPositionsQuery(
+            null, start, target, optimization, startTime, strategy, cache)
+        .run(tn);
+  }
+
+  private RouteCache newCache(int maxSize) {
+    return RouteCache.of(maxSize, Duration.ofMinutes(10), Duration.ofMinutes(5), this.clock);
+  }
+
+  @Test
+  void secondQueryIsAHitWithTheSameResult() throws QueryFailureException {
+    TransportNetwork tn = newTransportNetwork();
+    RouteCache cache = newCache(10);
+    String expected = route(tn, RouteOptimization.TIME, LocalTime.of(8, 0), null);
+    assertEquals(expected, route(tn, RouteOptimization.TIME, LocalTime.of(8, 0), cache));
+    assertEquals(expected, route(tn, RouteOptimization.TIME, LocalTime.of(8, 0), cache));
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  void startTimesOfTheSameBucketShareRoutes() throws QueryFailureException {
+    TransportNetwork tn = newTransportNetwork();
+    RouteCache cache = newCache(10);
+    route(tn, RouteOptimization.TIME, LocalTime.of(8, 0), cache);
+    // The description is computed with the exact start time
+    assertEquals(
+        route(tn, RouteOptimization.TIME, LocalTime.of(8, 4), null),
+        route(tn, RouteOptimization.TIME, LocalTime.of(8, 4), cache));
+    assertEquals(1, cache.getHitCount());
+    route(tn, RouteOptimization.TIME, LocalTime.of(8, 5), cache);
+    assertEquals(2, cache.getMissCount());
+  }
+
+  @Test
+  void routesOptimizedForDistanceIgnoreTheStartTime() throws QueryFailureException {
+    TransportNetwork tn = newTransportNetwork();
+    RouteCache cache = newCache(10);
+    route(tn, RouteOptimization.DISTANCE, LocalTime.of(8, 0), cache);
+    route(tn, RouteOptimization.DISTANCE, LocalTime.of(18, 0), cache);
+    assertEquals(1, cache.getHitCount());
+    route(tn, RouteOptimization.TIME, LocalTime.of(18, 0), cache);
+    assertEquals(2, cache.getMissCount());
+  }
+
+  @Test
+  void leastRecentlyUsedRouteIsEvicted() throws QueryFailureException {
+    TransportNetwork tn = newTransportNetwork();
+    RouteCache cache = newCache(2);
+    route(tn, RouteOptimization.TIME, LocalTime.of(8, 0), cache);
+    route(tn, RouteOptimization.TIME, LocalTime.of(9, 0), cache);
+    route(tn, RouteOptimization.TIME, LocalTime.of(8, 0), cache);
+    route(tn, RouteOptimization.TIME, LocalTime.of(10, 0), cache);
+    assertEquals(2, cache.size());
+    route(tn, RouteOptimization.TIME, LocalTime.of(8, 0), cache);
+    assertEquals(2, cache.getHitCount());
+    route(tn, RouteOptimization.TIME, LocalTime.of(9, 0), cache);
+    assertEquals(2, cache.getHitCount());
+    assertEquals(4, cache.getMissCount());
+  }
+
+  @Test
+  void oldRoutesAreNotUsed() throws QueryFailureException {
+    TransportNetwork tn = newTransportNetwork();
+    RouteCache cache = newCache(10);
+    route(tn, RouteOptimization.TIME, LocalTime.of(8, 0), cache);
+    this.clock.advance(Duration.ofMinutes(9));
+    route(tn, RouteOptimization.TIME, LocalTime.of(8, 0), cache);
+    assertEquals(1, cache.getHitCount());
+    this.clock.advance(Duration.ofMinutes(1));
+    route(tn, RouteOptimization.TIME, LocalTime.of(8, 0), cache);
+    assertEquals(1, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+  }
+
+  @Test
+  void addingADepartureInvalidatesRoutes() throws QueryFailureException {
+    TransportNetwork tn = newTransportNetwork();
+    RouteCache cache = newCache(10);
+    route(tn, RouteOptimization.TIME, LocalTime.of(8, 0), cache);
+    assertTrue(tn.addDepartureToVariant("8", "1", LocalTime.of(8, 1, 7)));
+    assertEquals(
+        route(tn, RouteOptimization.TIME, LocalTime.of(8, 0), null),
+        route(tn, RouteOptimization.TIME, LocalTime.of(8, 0), cache));
+    assertEquals(0, cache.getHitCount());
+    route(tn, RouteOptimization.TIME, LocalTime.of(8, 0), cache);
+    assertEquals(1, cache.getHitCount());
+  }
+
+  @Test
+  void routesOfAnotherNetworkAreNotUsed() throws QueryFailureException {
+    RouteCache cache = newCache(10);
+    route(newTransportNetwork(), RouteOptimization.TIME, LocalTime.of(8, 0), cache);
+    route(newTransportNetwork(), RouteOptimization.TIME, LocalTime.of(8, 0), cache);
+    assertEquals(0, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+  }
+
+  @Test
+  void queriesWithWalkHaveTheirOwnRoutes() throws QueryFailureException {
+    TransportNetwork tn = newTransportNetwork();
+    RouteCache cache = newCache(10);
+    route(tn, RouteOptimization.TIME, LocalTime.of(8, 0), cache);
+    new OptimizedRouteBetweenPositionsWithWalkQuery(
+            null,
+            tn.getStopByName("Lourmel"),
+            tn.getStopByName("Commerce"),
+            RouteOptimization.TIME,
+            LocalTime.of(8, 0),
+            new HeapDijkstraTraversalStrategy(),
+            cache)
+        .run(tn);
+    assertEquals(0, cache.getHitCount());
+    assertEquals(2, cache.size());
+    cache.clear();
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void strategiesWithOtherSettingsHaveTheirOwnRoutes() throws QueryFailureException {
+    TransportNetwork tn = newTransportNetwork();
+    RouteCache cache = newCache(10);
+    LocalTime startTime = LocalTime.of(8, 0);
+    var direct = new RaptorTraversalStrategy(0);
+    var withTransfers = new RaptorTraversalStrategy(10);
+    assertEquals(
+        route(tn, RouteOptimization.TIME, startTime, direct, null),
+        route(tn, RouteOptimization.TIME, startTime, direct, cache));
+    assertEquals(
+        route(tn, RouteOptimization.TIME, startTime, withTransfers, null),
+        route(tn, RouteOptimization.TIME, startTime, withTransfers, cache));
+    assertEquals(0, cache.getHitCount());
+    assertEquals(2, cache.size());
+    route(tn, RouteOptimization.TIME, startTime, new RaptorTraversalStrategy(10), cache);
+    assertEquals(1, cache.getHitCount());
+  }
+
+  @Test
+  void invalidArguments() {
+    Duration minute = Duration.ofMinutes(1);
+    assertThrows(IllegalArgumentException.class, () -> RouteCache.of(0, minute, minute));
+    assertThrows(IllegalArgumentException.class, () -> RouteCache.of(1, Duration.ZERO, minute));
+    assertThrows(IllegalArgumentException.class, () -> RouteCache.of(1, minute, Duration.ZERO));
+    assertThrows(
+        IllegalArgumentException.class, () -> RouteCache.of(1, minute, Duration.ofDays(2)));
+    assertThrows(NullPointerException.class, () -> RouteCache.of(1, null, minute));
+    assertThrows(NullPointerException.class, () -> RouteCache.of(1, minute, minute, null));
+  }
+}
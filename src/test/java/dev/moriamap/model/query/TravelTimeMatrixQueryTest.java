@@ -0,0 +1,186 @@
+package dev.moriamap.model.query;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.moriamap.model.network.Edge;
+import dev.moriamap.model.network.GeographicPosition;
+import dev.moriamap.model.network.Graph;
+import dev.moriamap.model.network.Stop;
+import dev.moriamap.model.network.TransportNetwork;
+import dev.moriamap.model.network.Vertex;
+import dev.moriamap.model.network.traversal.DistanceAsWeight;
+import dev.moriamap.model.network.traversal.EdgeWeigher;
+import dev.moriamap.model.network.traversal.HeapDijkstraTraversalStrategy;
+import dev.moriamap.model.network.traversal.RouteOptimization;
+import dev.moriamap.model.network.traversal.TravelTimeAsWeight;
+import dev.moriamap.model.parser.DepartureParser;
+import dev.moriamap.model.parser.InconsistentCSVException;
+import dev.moriamap.model.parser.TransportNetworkParser;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TravelTimeMatrixQueryTest {
+  private final TransportNetwork tn;
+  private final TransportNetwork brokenTN;
+
+  {
+    try {
+      tn =
+          TransportNetworkParser.generateFrom(
+              TravelTimeMatrixQueryTest.class.getResourceAsStream("/test_map_data.csv"));
+      DepartureParser.addDeparturesTo(
+          tn, TravelTimeMatrixQueryTest.class.getResourceAsStream("/test_timetables.csv"));
+      brokenTN =
+          TransportNetworkParser.generateFrom(
+              TravelTimeMatrixQueryTest.class.getResourceAsStream("/test_map_data.csv"));
+    } catch (InconsistentCSVException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private final LocalTime startTime = LocalTime.of(10, 7);
+
+  // Returns every fourth stop of network, sorted by name
+  private static List<Stop> someStops(TransportNetwork network, int first) {
+    List<Stop> stops = new ArrayList<>(network.getStops());
+    stops.sort((s1, s2) -> s1.getName().compareTo(s2.getName()));
+    List<Stop> res = new ArrayList<>();
+    for (int i = first; i < stops.size(); i += 4) res.add(stops.get(i));
+    return res;
+  }
+
+  // Returns the weight of the route from origin to destination found by a single destination
+  // traversal, or null if there is none
+  private Double singleRouteWeight(
+      TransportNetwork network, RouteOptimization optimization, Stop origin, Stop destination) {
+    if (origin.equals(destination)) return 0.0;
+    EdgeWeigher weigher =
+        optimization == RouteOptimization.TIME
+            ? new TravelTimeAsWeight(startTime, network)
+            : new DistanceAsWeight(network);
+    Map<Vertex, Edge> tree =
+        new HeapDijkstraTraversalStrategy().traversal(origin, destination, weigher, true, network);
+    if (!tree.containsKey(destination)) return null;
+    double weight = 0.0;
+    for (Edge edge : Graph.getRouteFromTraversal(tree, origin, destination))
+      weight += weigher.apply(weight, edge);
+    return weight;
+  }
+
+  @Test
+  void cellsAreTheWeightsOfSingleRoutes() throws QueryFailureException {
+    List<Stop> origins = someStops(tn, 0);
+    List<Stop> destinations = someStops(tn, 1);
+    destinations.add(origins.get(0));
+    for (RouteOptimization optimization : RouteOptimization.values()) {
+      String[] lines =
+          new TravelTimeMatrixQuery(null, origins, destinations, optimization, startTime, 3)
+              .run(tn)
+              .split("\n", -1);
+      assertEquals(origins.size() + 1, lines.length);
+      String[] header = lines[0].split(";", -1);
+      assertEquals("", header[0]);
+      for (int j = 0; j < destinations.size(); j++)
+        assertEquals(destinations.get(j).getName(), header[j + 1]);
+      for (int i = 0; i < origins.size(); i++) {
+        String[] cells = lines[i + 1].split(";", -1);
+        assertEquals(origins.get(i).getName(), cells[0]);
+        assertEquals(destinations.size() + 1, cells.length);
+        for (int j = 0; j < destinations.size(); j++) {
+          Double weight = singleRouteWeight(tn, optimization, origins.get(i), destinations.get(j));
+          String expected;
+          if (weight == null) expected = "";
+          else if (optimization == RouteOptimization.TIME)
+            expected = Long.toString(weight.longValue());
+          else expected = String.format(Locale.ROOT, "%.3f", weight);
+          assertEquals(expected, cells[j + 1], origins.get(i) + " " + destinations.get(j));
+        }
+      }
+    }
+  }
+
+  @Test
+  void executeStreamsWhatRunReturns() throws QueryFailureException {
+    List<Stop> stops = someStops(tn, 2);
+    TravelTimeMatrixQuery query =
+        new TravelTimeMatrixQuery(null, stops, stops, RouteOptimization.TIME, startTime, 1);
+    String expected = query.run(tn) + "\n";
+    for (int parallelism : new int[] {1, 2, 5}) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      new TravelTimeMatrixQuery(out, stops, stops, RouteOptimization.TIME, startTime, parallelism)
+          .execute(tn.freeze());
+      assertEquals(expected, out.toString());
+    }
+  }
+
+  @Test
+  void queryExecutorStreamsTheMatrix() throws Exception {
+    List<Stop> stops = someStops(tn, 2);
+    String expected =
+        new TravelTimeMatrixQuery(null, stops, stops, RouteOptimization.DISTANCE, startTime).run(tn)
+            + "\n";
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (QueryExecutor executor = QueryExecutor.of(tn, 2)) {
+      var query =
+          new TravelTimeMatrixQuery(out, stops, stops, RouteOptimization.DISTANCE, startTime, 2);
+      assertEquals("", executor.submit(query).get());
+    }
+    assertEquals(expected, out.toString());
+  }
+
+  @Test
+  void runRefusesMatricesTooLargeToBeReturned() {
+    List<Stop> origins = Collections.nCopies(1025, tn.getStopByName("Lourmel"));
+    List<Stop> destinations = Collections.nCopies(1024, tn.getStopByName("Commerce"));
+    var query =
+        new TravelTimeMatrixQuery(null, origins, destinations, RouteOptimization.TIME, startTime);
+    assertThrows(QueryFailureException.class, () -> query.run(tn));
+  }
+
+  @Test
+  void unreachableDestinationsHaveEmptyCells() throws QueryFailureException {
+    List<Stop> stops = someStops(brokenTN, 0).subList(0, 2);
+    String matrix =
+        new TravelTimeMatrixQuery(null, stops, stops, RouteOptimization.TIME, startTime)
+            .run(brokenTN);
+    String[] lines = matrix.split("\n");
+    assertEquals(stops.get(0).getName() + ";0;", lines[1]);
+    assertEquals(stops.get(1).getName() + ";;0", lines[2]);
+  }
+
+  @Test
+  void stopOutsideTheNetworkIsAnError() {
+    Stop stranger = Stop.from("Stranger", GeographicPosition.NORTH_POLE);
+    List<Stop> stops = List.of(tn.getStopByName("Lourmel"), stranger);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new TravelTimeMatrixQuery(out, stops, stops, RouteOptimization.DISTANCE, startTime).execute(tn);
+    assertEquals("Error: Stop Stranger is not in the network\n", out.toString());
+  }
+
+  @Test
+  void invalidArguments() {
+    List<Stop> stops = List.of(tn.getStopByName("Lourmel"));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new TravelTimeMatrixQuery(null, stops, stops, RouteOptimization.TIME, startTime, 0));
+    assertThrows(
+        NullPointerException.class,
+        () -> new TravelTimeMatrixQuery(null, null, stops, RouteOptimization.TIME, startTime));
+    assertThrows(
+        NullPointerException.class,
+        () -> new TravelTimeMatrixQuery(null, stops, stops, null, startTime));
+    List<Stop> withNull = new ArrayList<>(stops);
+    withNull.add(null);
+    assertThrows(
+        NullPointerException.class,
+        () -> new TravelTimeMatrixQuery(null, stops, withNull, RouteOptimization.TIME, startTime));
+  }
+}